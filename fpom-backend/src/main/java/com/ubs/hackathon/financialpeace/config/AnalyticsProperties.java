@@ -0,0 +1,60 @@
+package com.ubs.hackathon.financialpeace.config;
+
+import com.ubs.hackathon.financialpeace.service.analytics.ColumnStorage;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the analytics endpoints ("fpom.analytics.*").
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fpom.analytics")
+public class AnalyticsProperties {
+
+    /**
+     * Longest wait for the concurrent queries of a composite endpoint (/summary, /stats)
+     */
+    private Duration queryTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Queries of the composite endpoints running at the same time over all requests, further queries wait.
+     * Keep it below spring.datasource.hikari.maximum-pool-size, so other endpoints still get a connection
+     */
+    private int maxConcurrentQueries = 8;
+
+    private ColumnStore columnStore = new ColumnStore();
+
+    @Data
+    public static class ColumnStore {
+
+        /**
+         * Serve the summary, account and stats aggregations from an in-memory columnar copy of the positions
+         */
+        private boolean enabled = false;
+
+        /**
+         * Load the column store when the application is ready instead of after the first change
+         */
+        private boolean loadOnStartup = true;
+
+        /**
+         * Keep the per row columns on the heap, in direct buffers (OFF_HEAP) or in memory mapped files (MAPPED)
+         */
+        private ColumnStorage storage = ColumnStorage.HEAP;
+
+        /**
+         * Limit of the direct or mapped column memory of one store, a larger store is not loaded
+         */
+        private DataSize maxOffHeapSize = DataSize.ofGigabytes(2);
+
+        /**
+         * Directory of the mapped column files, the files are unlinked right after mapping
+         */
+        private String mappedDirectory = System.getProperty("java.io.tmpdir") + "/fpom-column-store";
+    }
+}
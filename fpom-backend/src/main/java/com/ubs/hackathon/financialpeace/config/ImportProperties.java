@@ -0,0 +1,44 @@
+package com.ubs.hackathon.financialpeace.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning settings of the portfolio position import ("fpom.import.*").
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fpom.import")
+public class ImportProperties {
+
+    /**
+     * Number of parser worker threads converting rows to positions
+     */
+    private int parserWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * Capacity (in chunks) of each queue between the reader, parser and writer stages
+     */
+    private int queueCapacity = 4;
+
+    /**
+     * Distinct values kept per dictionary encoded string column during an import, 0 disables the dictionary
+     */
+    private int dictionaryMaxEntries = 4096;
+
+    /**
+     * Reject rows with unknown ISO 4217 currency codes or ISINs with a wrong check digit
+     */
+    private boolean validateCodes = false;
+
+    /**
+     * Directory of the rejects files, one CSV file per import with the rows that failed validation
+     */
+    private String rejectsDirectory = System.getProperty("java.io.tmpdir") + "/fpom-import-rejects";
+
+    /**
+     * Directory of the binary position snapshots created and restored through the snapshot endpoints
+     */
+    private String snapshotDirectory = "snapshots";
+}
@@ -0,0 +1,100 @@
+package com.ubs.hackathon.financialpeace.controller;
+
+import com.ubs.hackathon.financialpeace.model.CashPosition;
+import com.ubs.hackathon.financialpeace.repository.CashPositionRepository;
+import com.ubs.hackathon.financialpeace.service.CashPositionImportService;
+import com.ubs.hackathon.financialpeace.service.importer.ImportStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for Cash Position (account balance) operations.
+ * Account totals over cash and securities are served by {@link PortfolioPositionController}.
+ */
+@RestController
+@RequestMapping("/api/cash-positions")
+@CrossOrigin(origins = "*")
+public class CashPositionController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CashPositionController.class);
+    
+    @Autowired
+    private CashPositionImportService importService;
+    
+    @Autowired
+    private CashPositionRepository repository;
+    
+    /**
+     * Get all cash positions with pagination.
+     */
+    @GetMapping
+    public ResponseEntity<Page<CashPosition>> getAllCashPositions(@PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(repository.findAll(pageable));
+    }
+    
+    /**
+     * Get cash positions by account ID.
+     */
+    @GetMapping("/account/{accountIdFake}")
+    public ResponseEntity<List<CashPosition>> getCashPositionsByAccount(@PathVariable String accountIdFake) {
+        return ResponseEntity.ok(repository.findByAccountIdFake(accountIdFake));
+    }
+    
+    /**
+     * Get cash positions by client ID.
+     */
+    @GetMapping("/client/{clientIdFake}")
+    public ResponseEntity<List<CashPosition>> getCashPositionsByClient(@PathVariable String clientIdFake) {
+        return ResponseEntity.ok(repository.findByClientIdFake(clientIdFake));
+    }
+    
+    /**
+     * Import cash positions from the Excel file in resources.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importCashPositions(
+            @RequestParam(defaultValue = "false") boolean clearExisting) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            ImportStats stats = importService.importCashPositions(clearExisting);
+            
+            response.put("success", true);
+            response.put("message", "Cash position import completed");
+            response.put("clearedExisting", clearExisting);
+            response.put("rowsRead", stats.getRowsRead());
+            response.put("rowsWritten", stats.getRowsWritten());
+            response.put("rowsSkipped", stats.getRowsSkipped());
+            response.put("rowsRejected", stats.getRowsRejected());
+            if (stats.getRowsRejected() > 0) {
+                response.put("rejects", stats.toRejectMap());
+            }
+            response.put("rowsPerSecond", Math.round(stats.getRowsPerSecond()));
+            response.put("totalCount", importService.getExistingCashPositionCount());
+            return ResponseEntity.ok(response);
+        
+        } catch (IOException e) {
+            logger.error("Error importing cash positions", e);
+            response.put("success", false);
+            response.put("error", "Import failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } catch (Exception e) {
+            logger.error("Unexpected error during cash position import", e);
+            response.put("success", false);
+            response.put("error", "Unexpected error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
@@ -2,28 +2,66 @@ package com.ubs.hackathon.financialpeace.controller;
 
 import com.ubs.hackathon.financialpeace.dto.AccountDetailsDTO;
 import com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.AccountWealthDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupTotalDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionChfValueDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionFilterStatsDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionWindowDTO;
 import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PositionCursor;
+import com.ubs.hackathon.financialpeace.model.PositionFilter;
+import com.ubs.hackathon.financialpeace.repository.AccountWealthRepository;
 import com.ubs.hackathon.financialpeace.repository.PortfolioPositionRepository;
+import com.ubs.hackathon.financialpeace.repository.PositionProjectionRepository;
+import com.ubs.hackathon.financialpeace.service.ImportJobService;
 import com.ubs.hackathon.financialpeace.service.PortfolioPositionImportService;
+import com.ubs.hackathon.financialpeace.service.PositionAnalyticsService;
+import com.ubs.hackathon.financialpeace.service.PositionSnapshotService;
+import com.ubs.hackathon.financialpeace.service.PositionStreamService;
+import com.ubs.hackathon.financialpeace.service.PositionsChangedEvent;
+import com.ubs.hackathon.financialpeace.service.analytics.AccountTotals;
+import com.ubs.hackathon.financialpeace.service.importer.ImportBackend;
+import com.ubs.hackathon.financialpeace.service.importer.ImportInProgressException;
+import com.ubs.hackathon.financialpeace.service.importer.ImportJob;
+import com.ubs.hackathon.financialpeace.service.importer.ImportMode;
+import com.ubs.hackathon.financialpeace.service.importer.ImportOptions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.Part;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Comprehensive CRUD REST Controller for Portfolio Position operations.
@@ -36,12 +74,38 @@ public class PortfolioPositionController {
     
     private static final Logger logger = LoggerFactory.getLogger(PortfolioPositionController.class);
     
+    /**
+     * Largest page of keyset pagination, like the default maximum page size of offset pagination
+     */
+    private static final int MAX_WINDOW_SIZE = 2000;
+    
     @Autowired
     private PortfolioPositionImportService importService;
     
+    @Autowired
+    private ImportJobService importJobService;
+    
+    @Autowired
+    private PositionSnapshotService snapshotService;
+    
     @Autowired
     private PortfolioPositionRepository repository;
     
+    @Autowired
+    private AccountWealthRepository accountWealthRepository;
+    
+    @Autowired
+    private PositionProjectionRepository projectionRepository;
+    
+    @Autowired
+    private PositionAnalyticsService analyticsService;
+    
+    @Autowired
+    private PositionStreamService streamService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     // ==================== CRUD OPERATIONS ====================
     
     /**
@@ -53,6 +117,7 @@ public class PortfolioPositionController {
             // Ensure ID is null for new entities
             position.setId(null);
             PortfolioPosition savedPosition = repository.save(position);
+            eventPublisher.publishEvent(new PositionsChangedEvent("create " + savedPosition.getId()));
             logger.info("Created new portfolio position with ID: {}", savedPosition.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPosition);
         } catch (Exception e) {
@@ -76,6 +141,44 @@ public class PortfolioPositionController {
         }
     }
     
+    /**
+     * Get portfolio positions in id order with keyset pagination: pass an empty after for the first page and the
+     * nextCursor of the previous page for the following ones. Every page is a range scan on the primary key, so
+     * deep pages cost as much as the first one, and the total is only counted with withTotal=true.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<PositionWindowDTO> getPositionsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        PositionCursor cursor;
+        try {
+            cursor = after.isEmpty() ? PositionCursor.first(direction) : PositionCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected position cursor {}", after);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_WINDOW_SIZE));
+            // One position more than the page tells whether another page follows
+            Limit limit = Limit.of(pageSize + 1);
+            List<PortfolioPosition> positions = cursor.getDirection().isAscending()
+                    ? repository.findByIdGreaterThanOrderByIdAsc(cursor.getLastId(), limit)
+                    : repository.findByIdLessThanOrderByIdDesc(cursor.getLastId(), limit);
+            
+            boolean hasNext = positions.size() > pageSize;
+            List<PortfolioPosition> content = hasNext ? positions.subList(0, pageSize) : positions;
+            String nextCursor = hasNext ? cursor.after(content.get(pageSize - 1).getId()).encode() : null;
+            Long totalElements = withTotal ? repository.count() : null;
+            return ResponseEntity.ok(new PositionWindowDTO(content, content.size(), hasNext, nextCursor, totalElements));
+        } catch (Exception e) {
+            logger.error("Error retrieving portfolio positions after {}", after, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Get a specific portfolio position by ID.
      */
@@ -116,6 +219,7 @@ public class PortfolioPositionController {
             updatePositionFields(existingPosition, positionDetails);
             
             PortfolioPosition updatedPosition = repository.save(existingPosition);
+            eventPublisher.publishEvent(new PositionsChangedEvent("update " + id));
             logger.info("Updated portfolio position with ID: {}", id);
             return ResponseEntity.ok(updatedPosition);
             
@@ -146,6 +250,7 @@ public class PortfolioPositionController {
             applyPatchUpdates(existingPosition, updates);
             
             PortfolioPosition updatedPosition = repository.save(existingPosition);
+            eventPublisher.publishEvent(new PositionsChangedEvent("patch " + id));
             logger.info("Patched portfolio position with ID: {}", id);
             return ResponseEntity.ok(updatedPosition);
             
@@ -167,6 +272,7 @@ public class PortfolioPositionController {
             }
             
             repository.deleteById(id);
+            eventPublisher.publishEvent(new PositionsChangedEvent("delete " + id));
             logger.info("Deleted portfolio position with ID: {}", id);
             
             Map<String, Object> response = new HashMap<>();
@@ -193,6 +299,7 @@ public class PortfolioPositionController {
             int deletedCount = positionsToDelete.size();
             
             repository.deleteAll(positionsToDelete);
+            eventPublisher.publishEvent(new PositionsChangedEvent("batch delete"));
             logger.info("Batch deleted {} portfolio positions", deletedCount);
             
             Map<String, Object> response = new HashMap<>();
@@ -218,11 +325,7 @@ public class PortfolioPositionController {
     @GetMapping("/accounts")
     public ResponseEntity<List<AccountSummaryDTO>> getAllAccounts() {
         try {
-            List<Object[]> accountSummary = repository.getAccountSummary();
-            
-            List<AccountSummaryDTO> accounts = accountSummary.stream()
-                    .map(this::mapToAccountSummaryDTO)
-                    .toList();
+            List<AccountSummaryDTO> accounts = analyticsService.getAccountSummary();
             
             logger.info("Retrieved {} unique accounts", accounts.size());
             return ResponseEntity.ok(accounts);
@@ -271,66 +374,167 @@ public class PortfolioPositionController {
         }
     }
     
+    /**
+     * Get the total wealth (securities plus cash, in CHF) of all accounts or of the accounts of one partner.
+     * Securities and cash are aggregated in a single query.
+     */
+    @GetMapping("/accounts/wealth")
+    public ResponseEntity<List<AccountWealthDTO>> getAccountsWealth(
+            @RequestParam(required = false) String partnerIdFake) {
+        try {
+            List<AccountWealthDTO> accounts = accountWealthRepository.findAccountWealth(null, partnerIdFake);
+            logger.info("Retrieved wealth of {} accounts", accounts.size());
+            return ResponseEntity.ok(accounts);
+        } catch (Exception e) {
+            logger.error("Error retrieving account wealth", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get the total wealth (securities plus cash, in CHF) of one account.
+     */
+    @GetMapping("/accounts/{accountIdFake}/wealth")
+    public ResponseEntity<AccountWealthDTO> getAccountWealth(@PathVariable String accountIdFake) {
+        try {
+            List<AccountWealthDTO> accounts = accountWealthRepository.findAccountWealth(accountIdFake, null);
+            
+            if (accounts.isEmpty()) {
+                logger.warn("No securities or cash positions found for account: {}", accountIdFake);
+                return ResponseEntity.notFound().build();
+            }
+            
+            return ResponseEntity.ok(accounts.get(0));
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving account wealth for: {}", accountIdFake, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     // ==================== QUERY OPERATIONS ====================
     
     /**
      * Get positions by partner ID.
+     * fields=summary or a comma separated list of position properties (e.g. fields=isin,valueAmount) returns
+     * only those fields, selected as the column list of the query, instead of the whole entity; like the other
+     * position list endpoints below.
      */
     @GetMapping("/partner/{partnerIdFake}")
-    public ResponseEntity<List<PortfolioPosition>> getPositionsByPartner(
-            @PathVariable String partnerIdFake) {
-        List<PortfolioPosition> positions = repository.findByPartnerIdFake(partnerIdFake);
-        return ResponseEntity.ok(positions);
+    public ResponseEntity<List<?>> getPositionsByPartner(
+            @PathVariable String partnerIdFake,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByPartnerIdFake(partnerIdFake),
+                (root, query, cb) -> cb.equal(root.get("partnerIdFake"), partnerIdFake));
     }
     
     /**
      * Get positions by account ID.
      */
     @GetMapping("/account/{accountIdFake}")
-    public ResponseEntity<List<PortfolioPosition>> getPositionsByAccount(
-            @PathVariable String accountIdFake) {
-        List<PortfolioPosition> positions = repository.findByAccountIdFake(accountIdFake);
-        return ResponseEntity.ok(positions);
+    public ResponseEntity<List<?>> getPositionsByAccount(
+            @PathVariable String accountIdFake,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByAccountIdFake(accountIdFake),
+                (root, query, cb) -> cb.equal(root.get("accountIdFake"), accountIdFake));
     }
     
     /**
      * Get positions by asset class.
      */
     @GetMapping("/asset-class/{assetClass}")
-    public ResponseEntity<List<PortfolioPosition>> getPositionsByAssetClass(
-            @PathVariable String assetClass) {
-        List<PortfolioPosition> positions = repository.findByAssetClassDescriptionShort(assetClass);
-        return ResponseEntity.ok(positions);
+    public ResponseEntity<List<?>> getPositionsByAssetClass(
+            @PathVariable String assetClass,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByAssetClassDescriptionShort(assetClass),
+                (root, query, cb) -> cb.equal(root.get("assetClassDescriptionShort"), assetClass));
     }
     
     /**
      * Get positions by currency.
      */
     @GetMapping("/currency/{currency}")
-    public ResponseEntity<List<PortfolioPosition>> getPositionsByCurrency(
-            @PathVariable String currency) {
-        List<PortfolioPosition> positions = repository.findByValueCurrency(currency);
-        return ResponseEntity.ok(positions);
+    public ResponseEntity<List<?>> getPositionsByCurrency(
+            @PathVariable String currency,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByValueCurrency(currency),
+                (root, query, cb) -> cb.equal(root.get("valueCurrency"), currency));
     }
     
     /**
      * Search positions by instrument name.
      */
     @GetMapping("/search")
-    public ResponseEntity<List<PortfolioPosition>> searchPositions(
-            @RequestParam String instrumentName) {
-        List<PortfolioPosition> positions = repository.findByInstrumentNameShortContainingIgnoreCase(instrumentName);
-        return ResponseEntity.ok(positions);
+    public ResponseEntity<List<?>> searchPositions(
+            @RequestParam String instrumentName,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByInstrumentNameShortContainingIgnoreCase(instrumentName),
+                (root, query, cb) -> cb.like(cb.lower(root.<String>get("instrumentNameShort")),
+                        "%" + EscapeCharacter.DEFAULT.escape(instrumentName.toLowerCase()) + "%",
+                        EscapeCharacter.DEFAULT.getEscapeCharacter()));
     }
     
     /**
      * Get positions with value amount greater than specified amount.
      */
     @GetMapping("/value-greater-than/{amount}")
-    public ResponseEntity<List<PortfolioPosition>> getPositionsWithValueGreaterThan(
+    public ResponseEntity<List<?>> getPositionsWithValueGreaterThan(
+            @PathVariable BigDecimal amount,
+            @RequestParam(required = false) String fields) {
+        return positions(fields, () -> repository.findByValueAmountGreaterThan(amount),
+                (root, query, cb) -> cb.greaterThan(root.<BigDecimal>get("valueAmount"), amount));
+    }
+    
+    /**
+     * Stream positions by partner ID as NDJSON.
+     * The streaming variants write one position per line while the rows are fetched, so memory stays flat
+     * and the first positions arrive before the query has finished, whatever the size of the result.
+     */
+    @GetMapping(value = "/partner/{partnerIdFake}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPositionsByPartner(
+            @PathVariable String partnerIdFake) {
+        return ResponseEntity.ok(streamService.ndjson("partner " + partnerIdFake,
+                () -> repository.streamByPartnerIdFake(partnerIdFake)));
+    }
+    
+    /**
+     * Stream positions by account ID as NDJSON.
+     */
+    @GetMapping(value = "/account/{accountIdFake}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPositionsByAccount(
+            @PathVariable String accountIdFake) {
+        return ResponseEntity.ok(streamService.ndjson("account " + accountIdFake,
+                () -> repository.streamByAccountIdFake(accountIdFake)));
+    }
+    
+    /**
+     * Stream positions by asset class as NDJSON.
+     */
+    @GetMapping(value = "/asset-class/{assetClass}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPositionsByAssetClass(
+            @PathVariable String assetClass) {
+        return ResponseEntity.ok(streamService.ndjson("asset class " + assetClass,
+                () -> repository.streamByAssetClassDescriptionShort(assetClass)));
+    }
+    
+    /**
+     * Stream positions by currency as NDJSON.
+     */
+    @GetMapping(value = "/currency/{currency}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPositionsByCurrency(
+            @PathVariable String currency) {
+        return ResponseEntity.ok(streamService.ndjson("currency " + currency,
+                () -> repository.streamByValueCurrency(currency)));
+    }
+    
+    /**
+     * Stream positions with value amount greater than specified amount as NDJSON.
+     */
+    @GetMapping(value = "/value-greater-than/{amount}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPositionsWithValueGreaterThan(
             @PathVariable BigDecimal amount) {
-        List<PortfolioPosition> positions = repository.findByValueAmountGreaterThan(amount);
-        return ResponseEntity.ok(positions);
+        return ResponseEntity.ok(streamService.ndjson("value greater than " + amount,
+                () -> repository.streamByValueAmountGreaterThan(amount)));
     }
     
     /**
@@ -361,22 +565,39 @@ public class PortfolioPositionController {
         Map<String, Object> summary = new HashMap<>();
         
         try {
-            long totalPositions = repository.count();
-            List<Object[]> valueByAssetClass = repository.getTotalValueByAssetClass();
-            List<Object[]> valueByCurrency = repository.getTotalValueByCurrency();
-            List<String> distinctAssetClasses = repository.findDistinctAssetClasses();
-            List<String> distinctCurrencies = repository.findDistinctCurrencies();
-            List<String> distinctMandateTypes = repository.findDistinctMandateTypes();
-            
-            summary.put("totalPositions", totalPositions);
-            summary.put("valueByAssetClass", valueByAssetClass);
-            summary.put("valueByCurrency", valueByCurrency);
-            summary.put("assetClasses", distinctAssetClasses);
-            summary.put("currencies", distinctCurrencies);
-            summary.put("mandateTypes", distinctMandateTypes);
+            // Independent queries, the response takes as long as the slowest one
+            CompletableFuture<Long> totalPositions = analyticsService.async(analyticsService::count);
+            CompletableFuture<List<GroupTotalDTO>> valueByAssetClass =
+                    analyticsService.async(analyticsService::getTotalValueByAssetClass);
+            CompletableFuture<List<GroupTotalDTO>> valueByCurrency =
+                    analyticsService.async(analyticsService::getTotalValueByCurrency);
+            CompletableFuture<List<String>> distinctAssetClasses =
+                    analyticsService.async(analyticsService::findDistinctAssetClasses);
+            CompletableFuture<List<String>> distinctCurrencies =
+                    analyticsService.async(analyticsService::findDistinctCurrencies);
+            CompletableFuture<List<String>> distinctMandateTypes =
+                    analyticsService.async(analyticsService::findDistinctMandateTypes);
+            analyticsService.awaitAll(totalPositions, valueByAssetClass, valueByCurrency,
+                    distinctAssetClasses, distinctCurrencies, distinctMandateTypes);
+            
+            summary.put("totalPositions", totalPositions.resultNow());
+            summary.put("valueByAssetClass", valueByAssetClass.resultNow());
+            summary.put("valueByCurrency", valueByCurrency.resultNow());
+            summary.put("assetClasses", distinctAssetClasses.resultNow());
+            summary.put("currencies", distinctCurrencies.resultNow());
+            summary.put("mandateTypes", distinctMandateTypes.resultNow());
             
             return ResponseEntity.ok(summary);
             
+        } catch (TimeoutException e) {
+            logger.error("Portfolio summary queries did not finish in time");
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                                .body(Map.of("error", "Summary queries did not finish in time"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the portfolio summary queries");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body(Map.of("error", "Summary queries were interrupted"));
         } catch (Exception e) {
             logger.error("Error generating portfolio summary", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -394,9 +615,9 @@ public class PortfolioPositionController {
         Map<String, Object> summary = new HashMap<>();
         
         try {
-            Long positionCount = repository.countByPartnerIdFake(partnerIdFake);
-            List<Object[]> portfolioSummary = repository.getPortfolioSummaryByPartner(partnerIdFake);
-            List<Object[]> chfValuePositions = repository.getPositionsWithChfValue(partnerIdFake);
+            long positionCount = analyticsService.countByPartnerIdFake(partnerIdFake);
+            List<GroupSummaryDTO> portfolioSummary = analyticsService.getPortfolioSummaryByPartner(partnerIdFake);
+            List<PositionChfValueDTO> chfValuePositions = repository.getPositionsWithChfValue(partnerIdFake);
             
             summary.put("partnerId", partnerIdFake);
             summary.put("positionCount", positionCount);
@@ -412,45 +633,314 @@ public class PortfolioPositionController {
         }
     }
     
+    /**
+     * Count and total value of the positions matching all given criteria. Every parameter may be repeated,
+     * a position matches one of the values of a parameter (e.g. currency=CHF&currency=EUR).
+     */
+    @GetMapping("/filter/stats")
+    public ResponseEntity<PositionFilterStatsDTO> getFilterStats(
+            @RequestParam(required = false) List<String> partnerIdFake,
+            @RequestParam(required = false) List<String> assetClass,
+            @RequestParam(required = false) List<String> currency,
+            @RequestParam(required = false) List<String> mandateType,
+            @RequestParam(required = false) List<String> domicile,
+            @RequestParam(required = false) List<String> investmentStrategy,
+            @RequestParam(required = false) BigDecimal minValue) {
+        try {
+            PositionFilter filter = new PositionFilter()
+                    .where(PortfolioPositionColumn.PARTNER_ID_FAKE, partnerIdFake)
+                    .where(PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT, assetClass)
+                    .where(PortfolioPositionColumn.VALUE_CURRENCY, currency)
+                    .where(PortfolioPositionColumn.MANDATE_TYPE, mandateType)
+                    .where(PortfolioPositionColumn.DOMICILE, domicile)
+                    .where(PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME, investmentStrategy)
+                    .minValue(minValue);
+            return ResponseEntity.ok(analyticsService.getFilterStats(filter));
+            
+        } catch (Exception e) {
+            logger.error("Error computing filter stats", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     // ==================== IMPORT OPERATIONS ====================
     
     /**
-     * Import portfolio positions from Excel file.
+     * Start an import of portfolio positions from the Excel file.
+     * The import runs in the background, the response carries the job id to poll via GET /import/{jobId}.
+     * By default the sheet is streamed (SAX), use streaming=false to load the whole workbook.
+     * backend=COPY bulk loads through the PostgreSQL COPY protocol instead of JPA batch inserts.
+     * workers and queueCapacity override the configured parser pipeline settings.
+     * An interrupted import of the same file continues after its last committed row unless resume=false.
+     * mode=DELTA merges the file on the natural key instead of appending it.
+     * A file that was already imported completely ends as DUPLICATE without writing anything unless force=true.
      */
     @PostMapping("/import")
     public ResponseEntity<Map<String, Object>> importPositions(
-            @RequestParam(defaultValue = "false") boolean clearExisting) {
+            @RequestParam(defaultValue = "APPEND") ImportMode mode,
+            @RequestParam(defaultValue = "false") boolean clearExisting,
+            @RequestParam(defaultValue = "true") boolean resume,
+            @RequestParam(defaultValue = "false") boolean force,
+            @RequestParam(defaultValue = "true") boolean streaming,
+            @RequestParam(defaultValue = "JPA") ImportBackend backend,
+            @RequestParam(defaultValue = "0") int batchSize,
+            @RequestParam(defaultValue = "0") int workers,
+            @RequestParam(defaultValue = "0") int queueCapacity) {
         
-        logger.info("Starting portfolio positions import. Clear existing: {}", clearExisting);
+        logger.info("Starting portfolio positions import. Mode: {}, clear existing: {}, streaming: {}, backend: {}", 
+                   mode, clearExisting, streaming, backend);
         
-        Map<String, Object> response = new HashMap<>();
+        if (mode == ImportMode.DELTA && clearExisting) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "clearExisting cannot be combined with mode=DELTA");
+            return ResponseEntity.badRequest().body(response);
+        }
         
         try {
-            long existingCount = importService.getExistingPositionCount();
-            int importedCount = importService.importPortfolioPositions(clearExisting);
-            long finalCount = importService.getExistingPositionCount();
+            ImportOptions options = ImportOptions.builder()
+                    .mode(mode)
+                    .clearExisting(clearExisting)
+                    .resume(resume)
+                    .force(force)
+                    .streaming(streaming)
+                    .backend(backend)
+                    .batchSize(batchSize)
+                    .workers(workers)
+                    .queueCapacity(queueCapacity)
+                    .build();
             
+            ImportJob job = importJobService.submit(options);
+            
+            Map<String, Object> response = new HashMap<>(job.toMap());
             response.put("success", true);
-            response.put("message", "Import completed successfully");
-            response.put("importedCount", importedCount);
-            response.put("existingCountBefore", existingCount);
-            response.put("totalCountAfter", finalCount);
-            response.put("clearedExisting", clearExisting);
+            response.put("message", "Import started");
+            response.put("statusUrl", "/api/portfolio-positions/import/" + job.getId());
+            
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            
+        } catch (Exception e) {
+            logger.error("Unexpected error starting import", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Unexpected error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Import positions from an uploaded XLSX, CSV or gzip compressed CSV file (detected from the content).
+     * A CSV body is parsed and hashed while it is received, so large files are neither held in memory nor
+     * written to disk. XLSX (the zip format needs the whole file) and CSV without SHA-256 that starts like an
+     * already imported file (its hash must be known before the first batch is committed) are spooled to a
+     * temporary file first.
+     * multipart/form-data with a "file" part is accepted as well, but is buffered by the servlet container
+     * before the import starts.
+     * The import runs on the request thread, its progress can be polled via GET /import/{jobId}. While another
+     * import is still running after a short wait the upload is answered with 409 Conflict without reading the body.
+     * Checkpoints let a failed upload be resumed by sending it again. A file that was already imported
+     * completely is answered as DUPLICATE without writing anything unless force=true.
+     */
+    @PostMapping("/import/upload")
+    public ResponseEntity<Map<String, Object>> uploadPositions(
+            HttpServletRequest request,
+            @RequestParam(required = false) String fileName,
+            @RequestParam(required = false) String sha256,
+            @RequestParam(defaultValue = "APPEND") ImportMode mode,
+            @RequestParam(defaultValue = "false") boolean clearExisting,
+            @RequestParam(defaultValue = "true") boolean resume,
+            @RequestParam(defaultValue = "false") boolean force,
+            @RequestParam(defaultValue = "JPA") ImportBackend backend,
+            @RequestParam(defaultValue = "0") int batchSize,
+            @RequestParam(defaultValue = "0") int workers,
+            @RequestParam(defaultValue = "0") int queueCapacity) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        if (mode == ImportMode.DELTA && clearExisting) {
+            response.put("success", false);
+            response.put("error", "clearExisting cannot be combined with mode=DELTA");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            ImportOptions options = ImportOptions.builder()
+                    .mode(mode)
+                    .clearExisting(clearExisting)
+                    .resume(resume)
+                    .force(force)
+                    .backend(backend)
+                    .batchSize(batchSize)
+                    .workers(workers)
+                    .queueCapacity(queueCapacity)
+                    .build();
             
-            logger.info("Import completed. Imported: {}, Total in DB: {}", importedCount, finalCount);
+            ImportJob job;
+            String contentType = request.getContentType();
+            if (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+                Part part = request.getPart("file");
+                if (part == null) {
+                    response.put("success", false);
+                    response.put("error", "Multipart upload needs a part named 'file'");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                String name = fileName != null ? fileName : part.getSubmittedFileName();
+                try (InputStream body = part.getInputStream()) {
+                    job = importJobService.runUpload(options, body, name != null ? name : "upload", sha256);
+                }
+            } else {
+                try (InputStream body = request.getInputStream()) {
+                    job = importJobService.runUpload(options, body, fileName != null ? fileName : "upload", sha256);
+                }
+            }
             
+            response.putAll(job.toMap());
+            boolean failed = job.getStatus() == ImportJob.Status.FAILED;
+            response.put("success", !failed);
+            if (job.getStatus() == ImportJob.Status.DUPLICATE) {
+                response.put("message", "File was already imported, use force=true to import it again");
+            } else {
+                response.put("message", failed ? "Import failed" : "Import " + job.getStatus().name().toLowerCase());
+            }
+            if (failed) {
+                response.put("error", job.getError());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
             return ResponseEntity.ok(response);
             
-        } catch (IOException e) {
-            logger.error("Error importing portfolio positions", e);
+        } catch (ImportInProgressException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Unexpected error during upload import", e);
+            response.put("success", false);
+            response.put("error", "Unexpected error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * List the known import jobs, newest first.
+     */
+    @GetMapping("/import")
+    public ResponseEntity<List<Map<String, Object>>> getImportJobs() {
+        return ResponseEntity.ok(importJobService.getJobs().stream().map(ImportJob::toMap).toList());
+    }
+    
+    /**
+     * Progress of an import job: status, rows read/parsed/written/skipped and throughput.
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportJob(@PathVariable String jobId) {
+        return importJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Rejected rows of an import job as CSV (row, reason, column, value).
+     * Not found if the job is unknown or did not reject any row.
+     */
+    @GetMapping(value = "/import/{jobId}/rejects", produces = "text/csv")
+    public ResponseEntity<Resource> getImportRejects(@PathVariable String jobId) {
+        return importJobService.getJob(jobId)
+                .map(ImportJob::getRejectsFile)
+                .filter(Files::isReadable)
+                .map(file -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                        .contentType(MediaType.parseMediaType("text/csv"))
+                        .<Resource>body(new FileSystemResource(file)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Cancel an import job. Batches committed before the cancellation stay in the database.
+     */
+    @PostMapping("/import/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelImportJob(@PathVariable String jobId) {
+        return importJobService.cancel(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // ==================== SNAPSHOT OPERATIONS ====================
+    
+    /**
+     * Write all positions into a new binary snapshot (columnar, dictionary encoded, gzip compressed)
+     * in the configured snapshot directory.
+     */
+    @PostMapping("/snapshots")
+    public ResponseEntity<Map<String, Object>> createSnapshot() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.putAll(snapshotService.createSnapshot());
+            response.put("success", true);
+            response.put("message", "Snapshot created");
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            
+        } catch (Exception e) {
+            logger.error("Error creating snapshot", e);
             response.put("success", false);
-            response.put("error", "IO Error: " + e.getMessage());
+            response.put("error", "Error creating snapshot: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * List the available snapshots, newest first.
+     */
+    @GetMapping("/snapshots")
+    public ResponseEntity<List<Map<String, Object>>> getSnapshots() {
+        try {
+            return ResponseEntity.ok(snapshotService.listSnapshots());
+        } catch (Exception e) {
+            logger.error("Error listing snapshots", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Download a snapshot file, e.g. to restore it in another environment.
+     */
+    @GetMapping(value = "/snapshots/{name}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Resource> downloadSnapshot(@PathVariable String name) {
+        return snapshotService.findSnapshot(name)
+                .map(file -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .<Resource>body(new FileSystemResource(file)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Replace all positions with the content of a snapshot. Truncates the table, copies the snapshot in
+     * with the original ids and clears the import ledger. 409 while an import job is running. Use with caution!
+     */
+    @PostMapping("/snapshots/{name}/restore")
+    public ResponseEntity<Map<String, Object>> restoreSnapshot(@PathVariable String name) {
+        Optional<Path> file = snapshotService.findSnapshot(name);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.putAll(importJobService.runExclusive(() -> snapshotService.restoreSnapshot(file.get())));
+            response.put("success", true);
+            response.put("message", "Snapshot restored");
+            return ResponseEntity.ok(response);
             
+        } catch (ImportInProgressException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
-            logger.error("Unexpected error during import", e);
+            logger.error("Error restoring snapshot {}", name, e);
             response.put("success", false);
-            response.put("error", "Unexpected error: " + e.getMessage());
+            response.put("error", "Error restoring snapshot: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
@@ -465,24 +955,38 @@ public class PortfolioPositionController {
         Map<String, Object> stats = new HashMap<>();
         
         try {
-            long totalCount = repository.count();
-            stats.put("totalRecords", totalCount);
-            stats.put("databaseStatus", totalCount > 0 ? "populated" : "empty");
-            
-            if (totalCount > 0) {
-                List<String> assetClasses = repository.findDistinctAssetClasses();
-                List<String> currencies = repository.findDistinctCurrencies();
-                long uniqueAccounts = repository.countDistinctAccountIds();
-                long uniquePartners = repository.countDistinctPartnerIds();
-                
-                stats.put("uniqueAssetClasses", assetClasses.size());
-                stats.put("uniqueCurrencies", currencies.size());
-                stats.put("uniqueAccounts", uniqueAccounts);
-                stats.put("uniquePartners", uniquePartners);
+            // Independent queries, the response takes as long as the slowest one
+            CompletableFuture<Long> totalCount = analyticsService.async(analyticsService::count);
+            CompletableFuture<List<String>> assetClasses =
+                    analyticsService.async(analyticsService::findDistinctAssetClasses);
+            CompletableFuture<List<String>> currencies =
+                    analyticsService.async(analyticsService::findDistinctCurrencies);
+            CompletableFuture<Long> uniqueAccounts = analyticsService.async(analyticsService::countDistinctAccountIds);
+            CompletableFuture<Long> uniquePartners = analyticsService.async(analyticsService::countDistinctPartnerIds);
+            analyticsService.awaitAll(totalCount, assetClasses, currencies, uniqueAccounts, uniquePartners);
+            
+            stats.put("totalRecords", totalCount.resultNow());
+            stats.put("databaseStatus", totalCount.resultNow() > 0 ? "populated" : "empty");
+            stats.put("columnStore", analyticsService.getColumnStoreStatus());
+            
+            if (totalCount.resultNow() > 0) {
+                stats.put("uniqueAssetClasses", assetClasses.resultNow().size());
+                stats.put("uniqueCurrencies", currencies.resultNow().size());
+                stats.put("uniqueAccounts", uniqueAccounts.resultNow());
+                stats.put("uniquePartners", uniquePartners.resultNow());
             }
             
             return ResponseEntity.ok(stats);
             
+        } catch (TimeoutException e) {
+            logger.error("Database stats queries did not finish in time");
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                                .body(Map.of("error", "Stats queries did not finish in time"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the database stats queries");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body(Map.of("error", "Stats queries were interrupted"));
         } catch (Exception e) {
             logger.error("Error getting database stats", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -491,7 +995,8 @@ public class PortfolioPositionController {
     }
     
     /**
-     * Clear all portfolio positions. Use with caution!
+     * Clear all portfolio positions with TRUNCATE and refresh the dependent materialized views.
+     * 409 while an import job is running. Use with caution!
      */
     @DeleteMapping("/clear-all")
     public ResponseEntity<Map<String, Object>> clearAllPositions() {
@@ -500,17 +1005,22 @@ public class PortfolioPositionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            long countBefore = repository.count();
-            importService.clearAllPositions();
-            long countAfter = repository.count();
+            importJobService.runExclusive(() -> {
+                response.put("recordsClearedCount", repository.count());
+                response.put("refreshedViews", importService.clearAllPositions());
+                response.put("remainingCount", repository.count());
+                return null;
+            });
             
             response.put("success", true);
             response.put("message", "All positions cleared");
-            response.put("recordsClearedCount", countBefore);
-            response.put("remainingCount", countAfter);
             
             return ResponseEntity.ok(response);
             
+        } catch (ImportInProgressException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             logger.error("Error clearing positions", e);
             response.put("success", false);
@@ -522,16 +1032,20 @@ public class PortfolioPositionController {
     // ==================== HELPER METHODS ====================
     
     /**
-     * Map Object array from repository query to AccountSummaryDTO.
+     * Whole positions, or only the fields selected by a fields parameter queried as a projection with the
+     * filter of the endpoint; 400 for unknown fields.
      */
-    private AccountSummaryDTO mapToAccountSummaryDTO(Object[] row) {
-        return new AccountSummaryDTO(
-            (String) row[0],              // accountIdFake
-            (String) row[1],              // partnerIdFake  
-            ((Number) row[2]).longValue(), // positionCount
-            (BigDecimal) row[3],          // totalValue
-            (String) row[4]               // currency
-        );
+    private ResponseEntity<List<?>> positions(String fields, Supplier<List<PortfolioPosition>> entities,
+                                              Specification<PortfolioPosition> filter) {
+        List<String> selected;
+        try {
+            selected = projectionRepository.resolveFields(fields);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected fields {}: {}", fields, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        List<?> positions = selected == null ? entities.get() : projectionRepository.findAll(selected, filter);
+        return ResponseEntity.ok(positions);
     }
     
     /**
@@ -547,55 +1061,24 @@ public class PortfolioPositionController {
         
         String partnerIdFake = positions.get(0).getPartnerIdFake();
         
-        // Calculate total values by currency
-        Map<String, BigDecimal> totalsByCurrency = positions.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                        PortfolioPosition::getValueCurrency,
-                        java.util.stream.Collectors.reducing(
-                                BigDecimal.ZERO,
-                                pos -> pos.getValueAmount() != null ? pos.getValueAmount() : BigDecimal.ZERO,
-                                BigDecimal::add
-                        )
-                ));
-        
-        // Asset class breakdown
-        Map<String, Long> assetClassBreakdown = positions.stream()
-                .filter(pos -> pos.getAssetClassDescriptionShort() != null)
-                .collect(java.util.stream.Collectors.groupingBy(
-                        PortfolioPosition::getAssetClassDescriptionShort,
-                        java.util.stream.Collectors.counting()
-                ));
+        // Totals, asset class breakdown and risk figures in one pass over fixed point amounts
+        AccountTotals totals = AccountTotals.of(positions);
         
         // Convert positions to summary DTOs
         List<AccountDetailsDTO.PositionSummaryDTO> positionSummaries = positions.stream()
                 .map(this::mapToPositionSummaryDTO)
                 .toList();
         
-        // Calculate CHF total (simplified - using FX rates if available)
-        BigDecimal totalValueChf = positions.stream()
-                .filter(pos -> pos.getValueAmount() != null && pos.getFxRate() != null)
-                .map(pos -> pos.getValueAmount().multiply(pos.getFxRate()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Determine primary currency (most common)
-        String primaryCurrency = totalsByCurrency.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
-        
-        // Build risk metrics
-        AccountDetailsDTO.AccountRiskMetricsDTO riskMetrics = buildRiskMetrics(positions, totalsByCurrency);
-        
         return AccountDetailsDTO.builder()
                 .accountIdFake(accountIdFake)
                 .partnerIdFake(partnerIdFake)
                 .positionCount(positions.size())
-                .totalsByCurrency(totalsByCurrency)
-                .assetClassBreakdown(assetClassBreakdown)
+                .totalsByCurrency(totals.getTotalsByCurrency())
+                .assetClassBreakdown(totals.getAssetClassBreakdown())
                 .positions(positionSummaries)
-                .totalValueChf(totalValueChf.compareTo(BigDecimal.ZERO) > 0 ? totalValueChf : null)
-                .primaryCurrency(primaryCurrency)
-                .riskMetrics(riskMetrics)
+                .totalValueChf(totals.getTotalValueChf())
+                .primaryCurrency(totals.getPrimaryCurrency())
+                .riskMetrics(buildRiskMetrics(totals))
                 .build();
     }
     
@@ -617,33 +1100,11 @@ public class PortfolioPositionController {
     /**
      * Build risk metrics for an account.
      */
-    private AccountDetailsDTO.AccountRiskMetricsDTO buildRiskMetrics(List<PortfolioPosition> positions, 
-                                                                     Map<String, BigDecimal> totalsByCurrency) {
-        int currencyCount = totalsByCurrency.size();
-        int assetClassCount = (int) positions.stream()
-                .map(PortfolioPosition::getAssetClassDescriptionShort)
-                .filter(ac -> ac != null)
-                .distinct()
-                .count();
-        
-        // Calculate concentration risk (largest single position as % of total)
-        BigDecimal totalValue = totalsByCurrency.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal largestPosition = positions.stream()
-                .map(PortfolioPosition::getValueAmount)
-                .filter(amount -> amount != null)
-                .max(BigDecimal::compareTo)
-                .orElse(BigDecimal.ZERO);
-        
-        BigDecimal concentrationRisk = totalValue.compareTo(BigDecimal.ZERO) > 0 
-                ? largestPosition.divide(totalValue, 4, BigDecimal.ROUND_HALF_UP).multiply(new BigDecimal("100"))
-                : BigDecimal.ZERO;
+    private AccountDetailsDTO.AccountRiskMetricsDTO buildRiskMetrics(AccountTotals totals) {
+        int currencyCount = totals.getCurrencyCount();
         
-        // Check for FX exposure
-        boolean hasFxExposure = positions.stream()
-                .anyMatch(pos -> pos.getValueCurrency() != null && pos.getSourceCurrency() != null 
-                        && !pos.getValueCurrency().equals(pos.getSourceCurrency()));
+        // Concentration risk (largest single position as % of total)
+        BigDecimal concentrationRisk = totals.getConcentrationRisk();
         
         // Determine risk level
         String riskLevel;
@@ -657,9 +1118,9 @@ public class PortfolioPositionController {
         
         return AccountDetailsDTO.AccountRiskMetricsDTO.builder()
                 .currencyCount(currencyCount)
-                .assetClassCount(assetClassCount)
+                .assetClassCount(totals.getAssetClassCount())
                 .concentrationRisk(concentrationRisk)
-                .hasFxExposure(hasFxExposure)
+                .hasFxExposure(totals.hasFxExposure())
                 .riskLevel(riskLevel)
                 .build();
     }
@@ -0,0 +1,54 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object for the total wealth of an account.
+ * Combines the securities positions and the cash balances of the account, all values in CHF.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountWealthDTO {
+    
+    /**
+     * Fake account identifier
+     */
+    private String accountIdFake;
+    
+    /**
+     * Fake partner (client) identifier associated with this account
+     */
+    private String partnerIdFake;
+    
+    /**
+     * Number of securities positions in this account
+     */
+    private Long securitiesPositionCount;
+    
+    /**
+     * FX-adjusted CHF value of the securities positions
+     */
+    private BigDecimal securitiesValueChf;
+    
+    /**
+     * Number of cash positions in this account
+     */
+    private Long cashPositionCount;
+    
+    /**
+     * CHF balance of the cash positions
+     */
+    private BigDecimal cashBalanceChf;
+    
+    /**
+     * Securities value plus cash balance in CHF
+     */
+    private BigDecimal totalWealthChf;
+}
@@ -0,0 +1,17 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Value statistics of the positions of one asset class, selected by a JPQL constructor expression.
+ *
+ * @param assetClass    short asset class description
+ * @param totalValue    sum of the value amounts
+ * @param positionCount positions of the asset class
+ * @param averageValue  average value amount (AVG yields a double)
+ * @param minValue      smallest value amount
+ * @param maxValue      largest value amount
+ */
+public record AssetAllocationDTO(String assetClass, BigDecimal totalValue, Long positionCount, Double averageValue,
+                                 BigDecimal minValue, BigDecimal maxValue) {
+}
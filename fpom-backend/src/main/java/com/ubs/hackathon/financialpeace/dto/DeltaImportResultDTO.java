@@ -0,0 +1,49 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of merging a delta import into the portfolio positions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaImportResultDTO {
+    
+    /**
+     * Rows in the imported file
+     */
+    private long stagedCount;
+    
+    /**
+     * Positions that did not exist yet
+     */
+    private long insertedCount;
+    
+    /**
+     * Existing positions with at least one changed column
+     */
+    private long updatedCount;
+    
+    /**
+     * Existing positions that were left untouched
+     */
+    private long unchangedCount;
+    
+    /**
+     * Positions of the imported as-of dates that are no longer in the file
+     */
+    private long deletedCount;
+    
+    /**
+     * Natural keys that occur on more than one row of the file, matched by their occurrence
+     */
+    private long duplicateKeyCount;
+    
+    /**
+     * Rows of the file whose natural key occurs more than once
+     */
+    private long duplicateRowCount;
+}
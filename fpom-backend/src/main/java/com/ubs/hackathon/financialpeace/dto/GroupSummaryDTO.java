@@ -0,0 +1,19 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and total value of the positions of one group, selected by a JPQL constructor expression.
+ * Serialized as [group, positionCount, totalValue] like the former Object[] rows.
+ *
+ * @param group         value of the grouping column, null for the positions without one
+ * @param positionCount positions in the group
+ * @param totalValue    sum of the value amounts, null if no position of the group has one
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"group", "positionCount", "totalValue"})
+public record GroupSummaryDTO(String group, Long positionCount, BigDecimal totalValue) {
+}
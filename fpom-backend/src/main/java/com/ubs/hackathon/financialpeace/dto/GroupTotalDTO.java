@@ -0,0 +1,18 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.math.BigDecimal;
+
+/**
+ * Total value of the positions of one group (asset class, currency, ...), selected by a JPQL constructor
+ * expression. Serialized as [group, totalValue] like the former Object[] rows.
+ *
+ * @param group      value of the grouping column, null for the positions without one
+ * @param totalValue sum of the value amounts, null if no position of the group has one
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"group", "totalValue"})
+public record GroupTotalDTO(String group, BigDecimal totalValue) {
+}
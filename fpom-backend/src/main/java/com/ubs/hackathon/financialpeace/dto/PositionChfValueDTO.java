@@ -0,0 +1,16 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Summary fields of a position with its value converted to CHF, selected by a JPQL constructor expression
+ * instead of the whole entity next to the computed value.
+ *
+ * @param valueAmount value in the position currency
+ * @param fxRate      rate from the position currency to CHF
+ * @param chfValue    valueAmount * fxRate, null if either is missing
+ */
+public record PositionChfValueDTO(Long id, String partnerIdFake, String accountIdFake, String instrumentNameShort,
+                                  String isin, BigDecimal valueAmount, String valueCurrency,
+                                  String assetClassDescriptionShort, BigDecimal fxRate, BigDecimal chfValue) {
+}
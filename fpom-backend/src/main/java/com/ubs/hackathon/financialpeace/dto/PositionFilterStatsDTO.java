@@ -0,0 +1,26 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and total value of the positions matching a multi criteria filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionFilterStatsDTO {
+    
+    /**
+     * Matching positions
+     */
+    private long positionCount;
+    
+    /**
+     * Sum of the value amounts of the matching positions, null if none has an amount
+     */
+    private BigDecimal totalValue;
+}
@@ -0,0 +1,42 @@
+package com.ubs.hackathon.financialpeace.dto;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of keyset pagination over the portfolio positions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionWindowDTO {
+    
+    /**
+     * Positions of this page in id order
+     */
+    private List<PortfolioPosition> content;
+    
+    /**
+     * Number of positions of this page
+     */
+    private int size;
+    
+    /**
+     * Whether more positions follow this page
+     */
+    private boolean hasNext;
+    
+    /**
+     * Token to pass as after for the next page, null on the last page
+     */
+    private String nextCursor;
+    
+    /**
+     * Number of all positions, only counted on request
+     */
+    private Long totalElements;
+}
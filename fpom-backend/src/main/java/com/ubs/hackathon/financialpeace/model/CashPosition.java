@@ -0,0 +1,154 @@
+package com.ubs.hackathon.financialpeace.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * JPA Entity representing a Cash Position (account balance) from the UBS Challenge Excel data.
+ * Maps to the "Swiss AI - UBS Challenge 3 - Cash Positions.xlsx" structure.
+ */
+@Entity
+@Table(name = "cash_positions", indexes = {
+    @Index(name = "idx_cash_client_id", columnList = "client_id_fake"),
+    @Index(name = "idx_cash_account_id", columnList = "account_id_fake"),
+    @Index(name = "idx_cash_currency", columnList = "currency_iso_cd")
+})
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class CashPosition {
+    
+    /**
+     * Ids taken from the sequence per nextval (pooled-lo, see {@link PortfolioPosition#ID_BLOCK_SIZE}).
+     * Must match the INCREMENT of "cash_position_id_seq".
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cash_position_seq")
+    @SequenceGenerator(name = "cash_position_seq", sequenceName = "cash_position_id_seq", 
+                       allocationSize = ID_BLOCK_SIZE)
+    @EqualsAndHashCode.Include
+    private Long id;
+    
+    @Column(name = "client_id_fake", length = 50)
+    private String clientIdFake;
+    
+    @Column(name = "account_id_fake", length = 50)
+    private String accountIdFake;
+    
+    @Column(name = "as_of_date")
+    private LocalDateTime asOfDate;
+    
+    @Column(name = "currency_iso_cd", length = 3)
+    private String currencyIsoCode;
+    
+    @Column(name = "balance_original", precision = 19, scale = 2)
+    private BigDecimal balanceOriginal;
+    
+    @Column(name = "balance_chf", precision = 19, scale = 2)
+    private BigDecimal balanceChf;
+    
+    @Column(name = "account_value_type_id", length = 10)
+    private String accountValueTypeId;
+    
+    @Column(name = "asset_class_id", length = 10)
+    private String assetClassId;
+    
+    @Column(name = "account_name", length = 100)
+    private String accountName;
+    
+    @Column(name = "account_detail", length = 200)
+    private String accountDetail;
+    
+    @Column(name = "portfolio_flag", length = 1)
+    private String portfolioFlag;
+    
+    @Column(name = "account_value_type", length = 50)
+    private String accountValueType;
+    
+    @Column(name = "account_currency", length = 3)
+    private String accountCurrency;
+    
+    @Column(name = "currency_type", length = 3)
+    private String currencyType;
+    
+    @Column(name = "product_type", length = 20)
+    private String productType;
+    
+    @Column(name = "pricing_type", length = 20)
+    private String pricingType;
+    
+    @Column(name = "mandate_type", length = 20)
+    private String mandateType;
+    
+    @Column(name = "mandate_pricing_type", length = 20)
+    private String mandatePricingType;
+    
+    @Column(name = "mandate_pricing_description_short", length = 100)
+    private String mandatePricingDescriptionShort;
+    
+    @Column(name = "mandate_pricing_description_long", length = 200)
+    private String mandatePricingDescriptionLong;
+    
+    @Column(name = "mandate_pricing_type_description", length = 100)
+    private String mandatePricingTypeDescription;
+    
+    @Column(name = "mandate_family", length = 100)
+    private String mandateFamily;
+    
+    @Column(name = "strategy_type", length = 20)
+    private String strategyType;
+    
+    @Column(name = "strategy_description", length = 200)
+    private String strategyDescription;
+    
+    @Column(name = "solution_type", length = 20)
+    private String solutionType;
+    
+    @Column(name = "solution_description", length = 100)
+    private String solutionDescription;
+    
+    @Column(name = "solution_description_short", length = 100)
+    private String solutionDescriptionShort;
+    
+    @Column(name = "solution_description_long", length = 200)
+    private String solutionDescriptionLong;
+    
+    @Column(name = "contract_type", length = 50)
+    private String contractType;
+    
+    @Column(name = "contract_subtype", length = 100)
+    private String contractSubtype;
+    
+    @Column(name = "mandate_group", length = 100)
+    private String mandateGroup;
+    
+    @Column(name = "country_code", length = 5)
+    private String countryCode;
+    
+    @Column(name = "client_advisor_id_fake")
+    private Integer clientAdvisorIdFake;
+    
+    @Column(name = "region_level_1", length = 100)
+    private String regionLevel1;
+    
+    @Column(name = "region_level_2", length = 100)
+    private String regionLevel2;
+    
+    @Override
+    public String toString() {
+        return "CashPosition{" +
+                "id=" + id +
+                ", clientIdFake='" + clientIdFake + '\'' +
+                ", accountIdFake='" + accountIdFake + '\'' +
+                ", asOfDate=" + asOfDate +
+                ", currencyIsoCode='" + currencyIsoCode + '\'' +
+                ", balanceOriginal=" + balanceOriginal +
+                ", balanceChf=" + balanceChf +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package com.ubs.hackathon.financialpeace.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of an import of one source file, identified by the SHA-256 hash of its content.
+ * Updated in the same transaction as every written chunk, so {@code lastCommittedRow} always
+ * matches the rows that are in the database.
+ * <p>
+ * Completed entries form the import ledger: a file whose content is listed as {@code COMPLETED} is not
+ * imported again unless forced. The entries are removed together with the positions when the table is cleared.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+@Data
+public class ImportCheckpoint {
+    
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+    
+    @Id
+    @Column(name = "source_hash", length = 64)
+    private String sourceHash;
+    
+    /**
+     * SHA-256 of the first bytes of CSV uploads (see SourceHash.PREFIX_SIZE): an upload without a client
+     * supplied hash that starts like a completed import is spooled and checked completely before it is imported
+     */
+    @Column(name = "source_prefix_hash", length = 64)
+    private String sourcePrefixHash;
+    
+    @Column(name = "source_name", length = 255)
+    private String sourceName;
+    
+    /**
+     * Import mode of the run, a checkpoint is only resumed by an import in the same mode
+     */
+    @Column(name = "mode", length = 20)
+    private String mode;
+    
+    /**
+     * Source row index of the last row committed to the database, 0 if nothing was written yet
+     */
+    @Column(name = "last_committed_row", nullable = false)
+    private long lastCommittedRow;
+    
+    @Column(name = "rows_written", nullable = false)
+    private long rowsWritten;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
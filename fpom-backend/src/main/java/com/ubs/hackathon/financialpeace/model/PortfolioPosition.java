@@ -28,9 +28,17 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class PortfolioPosition {
     
+    /**
+     * Ids taken from the sequence per nextval. The sequence increments by this size and every value is the
+     * lowest id of a block (pooled-lo), so each application instance and the bulk loaders hand out the ids of
+     * their own blocks without further round trips. Must match the INCREMENT of "portfolio_position_id_seq".
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "portfolio_position_seq")
-    @SequenceGenerator(name = "portfolio_position_seq", sequenceName = "portfolio_position_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "portfolio_position_seq", sequenceName = "portfolio_position_id_seq", 
+                       allocationSize = ID_BLOCK_SIZE)
     @EqualsAndHashCode.Include
     private Long id;
     
@@ -0,0 +1,101 @@
+package com.ubs.hackathon.financialpeace.model;
+
+import java.util.function.Function;
+
+/**
+ * Column layout of the "portfolio_positions" table in table order (without the id column).
+ * Used by the JDBC bulk paths that bypass Hibernate and need to address all columns generically.
+ */
+public enum PortfolioPositionColumn {
+
+    PARTNER_ID_FAKE("partner_id_fake", ColumnType.STRING, PortfolioPosition::getPartnerIdFake),
+    ACCOUNT_ID_FAKE("account_id_fake", ColumnType.STRING, PortfolioPosition::getAccountIdFake),
+    POSITION_CREATED_DATE("position_created_date", ColumnType.DATE_TIME, PortfolioPosition::getPositionCreatedDate),
+    FI_UNIT_TYPE_CD("fi_unit_type_cd", ColumnType.STRING, PortfolioPosition::getFiUnitTypeCode),
+    BALANCE_AMOUNT("balance_amount", ColumnType.DECIMAL, PortfolioPosition::getBalanceAmount),
+    VALUE_AMOUNT("value_amount", ColumnType.DECIMAL, PortfolioPosition::getValueAmount),
+    TRADE_AMOUNT("trade_amount", ColumnType.DECIMAL, PortfolioPosition::getTradeAmount),
+    VALUATION_DATE("valuation_date", ColumnType.DATE_TIME, PortfolioPosition::getValuationDate),
+    AS_OF_DATE("as_of_date", ColumnType.DATE_TIME, PortfolioPosition::getAsOfDate),
+    VALUE_CURRENCY("value_currency", ColumnType.STRING, PortfolioPosition::getValueCurrency),
+    SOURCE_CURRENCY("source_currency", ColumnType.STRING, PortfolioPosition::getSourceCurrency),
+    ORIGINAL_QUANTITY("original_quantity", ColumnType.DECIMAL, PortfolioPosition::getOriginalQuantity),
+    MARKET_VALUE_AMOUNT("market_value_amount", ColumnType.DECIMAL, PortfolioPosition::getMarketValueAmount),
+    FX_RATE("fx_rate", ColumnType.DECIMAL, PortfolioPosition::getFxRate),
+    VALOR("valor", ColumnType.STRING, PortfolioPosition::getValor),
+    ISIN("isin", ColumnType.STRING, PortfolioPosition::getIsin),
+    INSTRUMENT_NAME_SHORT("instrument_name_short", ColumnType.STRING, PortfolioPosition::getInstrumentNameShort),
+    SYMBOL_ID("symbol_id", ColumnType.STRING, PortfolioPosition::getSymbolId),
+    TITLE_GROUP_ID("title_group_id", ColumnType.STRING, PortfolioPosition::getTitleGroupId),
+    TITLE_ID("title_id", ColumnType.STRING, PortfolioPosition::getTitleId),
+    TITLE_ID_DESCRIPTION("title_id_description", ColumnType.STRING, PortfolioPosition::getTitleIdDescription),
+    SYMBOL_ID_GPC("symbol_id_gpc", ColumnType.STRING, PortfolioPosition::getSymbolIdGpc),
+    PRODUCT_DESCRIPTION("product_description", ColumnType.STRING, PortfolioPosition::getProductDescription),
+    PRODUCT_ID("product_id", ColumnType.STRING, PortfolioPosition::getProductId),
+    PRODUCT_ID_DESCRIPTION("product_id_description", ColumnType.STRING, PortfolioPosition::getProductIdDescription),
+    PRODUCT_CLASS_ID("product_class_id", ColumnType.STRING, PortfolioPosition::getProductClassId),
+    PRODUCT_CLASS_DESCRIPTION("product_class_description", ColumnType.STRING, PortfolioPosition::getProductClassDescription),
+    PRODUCT_FAMILY_ID("product_family_id", ColumnType.STRING, PortfolioPosition::getProductFamilyId),
+    PRODUCT_FAMILY_DESCRIPTION("product_family_description", ColumnType.STRING, PortfolioPosition::getProductFamilyDescription),
+    ASSET_CLASS("asset_class", ColumnType.STRING, PortfolioPosition::getAssetClass),
+    ASSET_CLASS_SUBTYPE("asset_class_subtype", ColumnType.STRING, PortfolioPosition::getAssetClassSubtype),
+    ASSET_CLASS_DESCRIPTION_SHORT("asset_class_description_short", ColumnType.STRING, PortfolioPosition::getAssetClassDescriptionShort),
+    ASSET_CLASS_DESCRIPTION_LONG("asset_class_description_long", ColumnType.STRING, PortfolioPosition::getAssetClassDescriptionLong),
+    UAC_INSTR_CAT_TYPE("uac_instr_cat_type", ColumnType.STRING, PortfolioPosition::getUacInstrCatType),
+    INSTRUMENT_ID("instrument_id", ColumnType.STRING, PortfolioPosition::getInstrumentId),
+    PORTFOLIO_CURRENCY("portfolio_currency", ColumnType.STRING, PortfolioPosition::getPortfolioCurrency),
+    PORTFOLIO_SHORT_NAME("portfolio_short_name", ColumnType.STRING, PortfolioPosition::getPortfolioShortName),
+    CURRENCY_ID("currency_id", ColumnType.STRING, PortfolioPosition::getCurrencyId),
+    MANDATE_PRICING_ID("mandate_pricing_id", ColumnType.STRING, PortfolioPosition::getMandatePricingId),
+    MANDATE_PROGRAM("mandate_program", ColumnType.STRING, PortfolioPosition::getMandateProgram),
+    MANDATE_PRICING_NAME_SHORT("mandate_pricing_name_short", ColumnType.STRING, PortfolioPosition::getMandatePricingNameShort),
+    MANDATE_PRICING_NAME_LONG("mandate_pricing_name_long", ColumnType.STRING, PortfolioPosition::getMandatePricingNameLong),
+    MANDATE_PRICING_TYPE("mandate_pricing_type", ColumnType.STRING, PortfolioPosition::getMandatePricingType),
+    MANDATE_PROGRAM_SECONDARY("mandate_program_secondary", ColumnType.STRING, PortfolioPosition::getMandateProgramSecondary),
+    INVESTMENT_STRATEGY("investment_strategy", ColumnType.STRING, PortfolioPosition::getInvestmentStrategy),
+    INVESTMENT_STRATEGY_NAME("investment_strategy_name", ColumnType.STRING, PortfolioPosition::getInvestmentStrategyName),
+    SOLUTION_SUBTYPE_ID("solution_subtype_id", ColumnType.STRING, PortfolioPosition::getSolutionSubtypeId),
+    SOLUTION_SUBTYPE_NAME_SHORT("solution_subtype_name_short", ColumnType.STRING, PortfolioPosition::getSolutionSubtypeNameShort),
+    SOLUTION_NAME_SHORT("solution_name_short", ColumnType.STRING, PortfolioPosition::getSolutionNameShort),
+    SOLUTION_NAME_LONG("solution_name_long", ColumnType.STRING, PortfolioPosition::getSolutionNameLong),
+    MANDATE_TYPE("mandate_type", ColumnType.STRING, PortfolioPosition::getMandateType),
+    MANDATE_SUBTYPE("mandate_subtype", ColumnType.STRING, PortfolioPosition::getMandateSubtype),
+    MANDATE_GROUP("mandate_group", ColumnType.STRING, PortfolioPosition::getMandateGroup),
+    DOMICILE("domicile", ColumnType.STRING, PortfolioPosition::getDomicile),
+    CLIENT_ADVISOR_ID_FAKE("client_advisor_id_fake", ColumnType.INTEGER, PortfolioPosition::getClientAdvisorIdFake);
+
+    /**
+     * Java type of a column value.
+     */
+    public enum ColumnType {
+        STRING,
+        DECIMAL,
+        DATE_TIME,
+        INTEGER
+    }
+
+    private final String columnName;
+    private final ColumnType type;
+    private final Function<PortfolioPosition, Object> getter;
+
+    PortfolioPositionColumn(String columnName, ColumnType type, Function<PortfolioPosition, Object> getter) {
+        this.columnName = columnName;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Read the value of this column from the position.
+     */
+    public Object get(PortfolioPosition position) {
+        return getter.apply(position);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ubs.hackathon.financialpeace.model;
+
+/**
+ * Receives rows of the "portfolio_positions" table as raw column values. Used by the bulk paths that move
+ * the whole table (snapshots) without creating an entity per row.
+ */
+@FunctionalInterface
+public interface PortfolioPositionRowHandler {
+
+    /**
+     * @param id     position id
+     * @param values column values in {@link PortfolioPositionColumn} order (String, BigDecimal, LocalDateTime
+     *               or Integer); the array is reused for the next row and must not be kept
+     */
+    void onRow(long id, Object[] values);
+}
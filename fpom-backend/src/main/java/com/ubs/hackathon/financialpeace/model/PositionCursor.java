@@ -0,0 +1,73 @@
+package com.ubs.hackathon.financialpeace.model;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of keyset pagination over the portfolio positions in id order: the direction and the id of the last
+ * position returned, the next page starts right after it. Encoded as an opaque URL safe Base64 token, clients
+ * only pass it back.
+ */
+public final class PositionCursor {
+
+    private final Sort.Direction direction;
+    private final long lastId;
+
+    private PositionCursor(Sort.Direction direction, long lastId) {
+        this.direction = direction;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Cursor before the first position in the given direction.
+     */
+    public static PositionCursor first(Sort.Direction direction) {
+        return new PositionCursor(direction, direction.isAscending() ? Long.MIN_VALUE : Long.MAX_VALUE);
+    }
+
+    /**
+     * Cursor of a token returned by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token was not created by {@link #encode()}
+     */
+    public static PositionCursor decode(String token) {
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor " + token);
+        }
+        try {
+            return new PositionCursor(Sort.Direction.fromString(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+    }
+
+    /**
+     * Cursor continuing after the position with the given id, in the same direction.
+     */
+    public PositionCursor after(long id) {
+        return new PositionCursor(direction, id);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((direction.name() + ":" + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ubs.hackathon.financialpeace.model;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Multi criteria filter over the categorical position columns: a position matches if, for every restricted
+ * column, its value is one of the given values (AND across columns, OR within a column), and its value amount
+ * is at least the minimum value, if one is set.
+ */
+public final class PositionFilter {
+
+    /**
+     * Columns that can be restricted, the column store keeps a bitmap index for each of them
+     */
+    public static final Set<PortfolioPositionColumn> FILTER_COLUMNS = Collections.unmodifiableSet(EnumSet.of(
+            PortfolioPositionColumn.PARTNER_ID_FAKE,
+            PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT,
+            PortfolioPositionColumn.VALUE_CURRENCY,
+            PortfolioPositionColumn.MANDATE_TYPE,
+            PortfolioPositionColumn.DOMICILE,
+            PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME));
+
+    private final Map<PortfolioPositionColumn, List<String>> values = new EnumMap<>(PortfolioPositionColumn.class);
+    private BigDecimal minValue;
+
+    /**
+     * Restrict the column to the given values, null or no values leave it unrestricted.
+     */
+    public PositionFilter where(PortfolioPositionColumn column, Collection<String> columnValues) {
+        if (!FILTER_COLUMNS.contains(column)) {
+            throw new IllegalArgumentException("Cannot filter on column " + column.getColumnName());
+        }
+        List<String> accepted = columnValues == null ? List.of()
+                : columnValues.stream().filter(Objects::nonNull).distinct().toList();
+        if (!accepted.isEmpty()) {
+            values.put(column, accepted);
+        }
+        return this;
+    }
+
+    public PositionFilter minValue(BigDecimal minValue) {
+        this.minValue = minValue;
+        return this;
+    }
+
+    /**
+     * Restricted columns with their accepted values, in column order.
+     */
+    public Map<PortfolioPositionColumn, List<String>> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public BigDecimal getMinValue() {
+        return minValue;
+    }
+}
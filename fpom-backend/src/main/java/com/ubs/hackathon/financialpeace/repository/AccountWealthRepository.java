@@ -0,0 +1,81 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.dto.AccountWealthDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Account level totals over securities and cash positions.
+ * Both tables are aggregated per account and combined in a single query, so a client gets the total
+ * wealth of all its accounts in one round trip instead of one call per account and position type.
+ */
+@Repository
+public class AccountWealthRepository {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Wealth of the matching accounts, largest total first.
+     *
+     * @param accountIdFake only this account, all accounts if null
+     * @param partnerIdFake only accounts of this partner (client), all partners if null
+     */
+    public List<AccountWealthDTO> findAccountWealth(String accountIdFake, String partnerIdFake) {
+        StringBuilder securitiesFilter = new StringBuilder(" WHERE 1 = 1");
+        StringBuilder cashFilter = new StringBuilder(" WHERE 1 = 1");
+        List<Object> securitiesParams = new ArrayList<>();
+        List<Object> cashParams = new ArrayList<>();
+        if (accountIdFake != null) {
+            securitiesFilter.append(" AND account_id_fake = ?");
+            securitiesParams.add(accountIdFake);
+            cashFilter.append(" AND account_id_fake = ?");
+            cashParams.add(accountIdFake);
+        }
+        if (partnerIdFake != null) {
+            securitiesFilter.append(" AND partner_id_fake = ?");
+            securitiesParams.add(partnerIdFake);
+            cashFilter.append(" AND client_id_fake = ?");
+            cashParams.add(partnerIdFake);
+        }
+        
+        String sql =
+                "SELECT w.account_id_fake, max(w.partner_id_fake) AS partner_id_fake," +
+                "  sum(w.securities_count) AS securities_count, sum(w.securities_value_chf) AS securities_value_chf," +
+                "  sum(w.cash_count) AS cash_count, sum(w.cash_balance_chf) AS cash_balance_chf" +
+                " FROM (" +
+                "  SELECT account_id_fake, partner_id_fake, count(*) AS securities_count," +
+                "   coalesce(sum(value_amount * fx_rate), 0) AS securities_value_chf," +
+                "   0 AS cash_count, 0 AS cash_balance_chf" +
+                "  FROM " + PortfolioPositionBulkRepository.TABLE_NAME + securitiesFilter +
+                "  GROUP BY account_id_fake, partner_id_fake" +
+                "  UNION ALL" +
+                "  SELECT account_id_fake, client_id_fake, 0, 0, count(*), coalesce(sum(balance_chf), 0)" +
+                "  FROM cash_positions" + cashFilter +
+                "  GROUP BY account_id_fake, client_id_fake" +
+                " ) w" +
+                " GROUP BY w.account_id_fake" +
+                " ORDER BY sum(w.securities_value_chf) + sum(w.cash_balance_chf) DESC, w.account_id_fake";
+        
+        List<Object> params = new ArrayList<>(securitiesParams);
+        params.addAll(cashParams);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            BigDecimal securitiesValue = rs.getBigDecimal("securities_value_chf");
+            BigDecimal cashBalance = rs.getBigDecimal("cash_balance_chf");
+            return AccountWealthDTO.builder()
+                    .accountIdFake(rs.getString("account_id_fake"))
+                    .partnerIdFake(rs.getString("partner_id_fake"))
+                    .securitiesPositionCount(rs.getLong("securities_count"))
+                    .securitiesValueChf(securitiesValue)
+                    .cashPositionCount(rs.getLong("cash_count"))
+                    .cashBalanceChf(cashBalance)
+                    .totalWealthChf(securitiesValue.add(cashBalance))
+                    .build();
+        }, params.toArray());
+    }
+}
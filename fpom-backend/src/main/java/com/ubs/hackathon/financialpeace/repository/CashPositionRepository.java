@@ -0,0 +1,25 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.model.CashPosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for CashPosition entity.
+ * Provides CRUD operations and finders for the cash balances of accounts.
+ */
+@Repository
+public interface CashPositionRepository extends JpaRepository<CashPosition, Long> {
+    
+    /**
+     * Find all cash positions for a specific client
+     */
+    List<CashPosition> findByClientIdFake(String clientIdFake);
+    
+    /**
+     * Find all cash positions for a specific account
+     */
+    List<CashPosition> findByAccountIdFake(String accountIdFake);
+}
@@ -0,0 +1,33 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.model.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for the import checkpoints, keyed by the source file hash.
+ */
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+    
+    /**
+     * Advance the checkpoint after a chunk was written. Runs as a single UPDATE in the chunk transaction.
+     */
+    @Modifying
+    @Query("UPDATE ImportCheckpoint c SET c.lastCommittedRow = :lastRow, c.rowsWritten = c.rowsWritten + :rows, " +
+           "c.updatedAt = :updatedAt WHERE c.sourceHash = :sourceHash")
+    int advance(@Param("sourceHash") String sourceHash, @Param("lastRow") long lastRow,
+                @Param("rows") long rows, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    boolean existsBySourcePrefixHashAndStatus(String sourcePrefixHash, ImportCheckpoint.Status status);
+    
+    @Modifying
+    @Query("UPDATE ImportCheckpoint c SET c.status = :status, c.updatedAt = :updatedAt WHERE c.sourceHash = :sourceHash")
+    int updateStatus(@Param("sourceHash") String sourceHash, @Param("status") ImportCheckpoint.Status status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+}
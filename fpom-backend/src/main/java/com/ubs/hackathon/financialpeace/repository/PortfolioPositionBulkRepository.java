@@ -0,0 +1,345 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionRowHandler;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JDBC based bulk operations on the "portfolio_positions" table that bypass Hibernate.
+ * Uses the PostgreSQL COPY protocol and therefore only works against PostgreSQL, except {@link #truncateAll}
+ * which also runs on the H2 test database.
+ * All operations take part in the current Spring transaction.
+ */
+@Repository
+public class PortfolioPositionBulkRepository {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioPositionBulkRepository.class);
+    
+    public static final String TABLE_NAME = "portfolio_positions";
+    public static final String SEQUENCE_NAME = "portfolio_position_id_seq";
+    
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    
+    private static final int EXPORT_FETCH_SIZE = 10_000;
+    
+    static final String COLUMN_LIST = Stream.concat(Stream.of("id"),
+                    Stream.of(PortfolioPositionColumn.values()).map(PortfolioPositionColumn::getColumnName))
+            .collect(Collectors.joining(", "));
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private volatile Boolean postgreSql;
+    
+    /**
+     * Remove all positions with TRUNCATE instead of row by row deletes and refresh the materialized views
+     * built on the table (e.g. "mv_partner_asset_allocation"). The id sequence is left alone: Hibernate and
+     * the bulk loaders still hold ids of blocks handed out before, a restarted sequence would hand them out again.
+     * TRUNCATE takes an exclusive lock on the table until the transaction ends.
+     *
+     * @return names of the refreshed materialized views
+     */
+    public List<String> truncateAll() {
+        // Other databases (H2 in the tests) commit the open transaction on TRUNCATE, DELETE stays in it
+        jdbcTemplate.execute((isPostgreSql() ? "TRUNCATE TABLE " : "DELETE FROM ") + TABLE_NAME);
+        
+        List<String> views = refreshDependentViews();
+        logger.info("Truncated {} and refreshed {}", TABLE_NAME, views);
+        return views;
+    }
+    
+    /**
+     * Refresh the materialized views built on the table, e.g. after a bulk load.
+     *
+     * @return names of the refreshed materialized views
+     */
+    public List<String> refreshDependentViews() {
+        List<String> views = findDependentMaterializedViews();
+        for (String view : views) {
+            jdbcTemplate.execute("REFRESH MATERIALIZED VIEW " + view);
+        }
+        return views;
+    }
+    
+    /**
+     * Move the id sequence past the highest id, needed after rows were copied in with their own ids.
+     * The sequence only moves forward, blocks handed out before may still be in use: the next block
+     * starts at least one block after both the last handed out block and max(id).
+     */
+    public void advanceSequencePastMaxId() {
+        // is_called = true, so the next nextval adds the increment (one block) to the value set here
+        jdbcTemplate.queryForObject("SELECT setval('" + SEQUENCE_NAME + "', greatest(" +
+                "(SELECT last_value FROM " + SEQUENCE_NAME + "), " +
+                "(SELECT coalesce(max(id), 0) FROM " + TABLE_NAME + ")), true)", Long.class);
+    }
+    
+    /**
+     * Materialized views whose query reads from the positions table, found through the view rewrite rules.
+     * Only PostgreSQL has materialized views and the catalog tables, other databases have none.
+     */
+    private List<String> findDependentMaterializedViews() {
+        if (!isPostgreSql()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT v.oid::regclass::text FROM pg_depend d " +
+                "JOIN pg_rewrite r ON r.oid = d.objid " +
+                "JOIN pg_class v ON v.oid = r.ev_class " +
+                "WHERE d.refobjid = ?::regclass AND v.relkind = 'm' " +
+                "ORDER BY 1", String.class, TABLE_NAME);
+    }
+    
+    /**
+     * Whether the connected database is PostgreSQL, asked once from the connection metadata.
+     */
+    private boolean isPostgreSql() {
+        Boolean result = postgreSql;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgreSql = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Allocate ids from the position sequence in a single round trip. Every nextval reserves a block of
+     * {@link PortfolioPosition#ID_BLOCK_SIZE} ids starting at the returned value (pooled-lo, like Hibernate),
+     * so a batch of 10000 rows costs 200 sequence increments and the ids never collide with other instances.
+     */
+    public long[] allocateIds(int count) {
+        int blockSize = PortfolioPosition.ID_BLOCK_SIZE;
+        List<Long> blocks = jdbcTemplate.queryForList(
+                "SELECT nextval('" + SEQUENCE_NAME + "') FROM generate_series(1, ?)", Long.class,
+                (count + blockSize - 1) / blockSize);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blocks.get(i / blockSize) + i % blockSize;
+        }
+        return ids;
+    }
+    
+    /**
+     * Insert the positions with COPY ... FROM STDIN (text format).
+     * Positions without id get one assigned from the sequence before they are written.
+     *
+     * @return number of rows written
+     */
+    public long copyIn(List<PortfolioPosition> positions) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+        
+        assignIds(positions);
+        return copyInto(TABLE_NAME, positions);
+    }
+    
+    /**
+     * COPY the positions into a table with the column layout of "portfolio_positions".
+     * All positions must already have an id.
+     *
+     * @return number of rows written
+     */
+    public long copyInto(String tableName, List<PortfolioPosition> positions) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+        
+        copy(tableName, writer -> {
+            for (PortfolioPosition position : positions) {
+                writeRow(writer, position);
+            }
+        });
+        logger.debug("Copied {} positions into {}", positions.size(), tableName);
+        return positions.size();
+    }
+    
+    /**
+     * COPY rows given as raw column values into a table with the column layout of "portfolio_positions",
+     * all rows in one COPY stream. The ids are written as they are.
+     *
+     * @param source pushes the rows into the handler it is given
+     * @return number of rows written
+     */
+    public long copyRows(String tableName, RowSource source) {
+        long[] count = {0};
+        copy(tableName, writer -> source.readInto((id, values) -> {
+            try {
+                writeRow(writer, id, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count[0]++;
+        }));
+        logger.debug("Copied {} rows into {}", count[0], tableName);
+        return count[0];
+    }
+    
+    /**
+     * Read all positions ordered by id as raw column values, without creating entities. The rows are
+     * fetched through a cursor in chunks of {@value #EXPORT_FETCH_SIZE}, which the PostgreSQL driver only
+     * does inside a transaction; outside of one the whole table is loaded first.
+     *
+     * @return number of rows read
+     */
+    public long forEachRow(PortfolioPositionRowHandler handler) {
+        PortfolioPositionColumn[] columns = PortfolioPositionColumn.values();
+        Object[] values = new Object[columns.length];
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + COLUMN_LIST + " FROM " + TABLE_NAME + " ORDER BY id");
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = readValue(rs, i + 2, columns[i].getType());
+            }
+            handler.onRow(rs.getLong(1), values);
+            count[0]++;
+        });
+        return count[0];
+    }
+    
+    /**
+     * Source of raw rows for {@link #copyRows(String, RowSource)}, e.g. a snapshot file.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        
+        void readInto(PortfolioPositionRowHandler handler) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface CopyBody {
+        
+        void write(Writer writer) throws IOException;
+    }
+    
+    /**
+     * Run a COPY ... FROM STDIN (text format) on the connection of the current transaction.
+     */
+    private void copy(String tableName, CopyBody body) {
+        String sql = "COPY " + tableName + " (" + COLUMN_LIST + ") FROM STDIN";
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGConnection pgConnection = unwrap(connection);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, sql, COPY_BUFFER_SIZE), StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+                body.write(writer);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into " + tableName + " failed: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("COPY into " + tableName + " failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+    
+    private void assignIds(List<PortfolioPosition> positions) {
+        int missing = (int) positions.stream().filter(position -> position.getId() == null).count();
+        if (missing == 0) {
+            return;
+        }
+        long[] ids = allocateIds(missing);
+        int next = 0;
+        for (PortfolioPosition position : positions) {
+            if (position.getId() == null) {
+                position.setId(ids[next++]);
+            }
+        }
+    }
+    
+    private PGConnection unwrap(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            throw new IllegalStateException("COPY bulk load requires a PostgreSQL connection");
+        }
+        return connection.unwrap(PGConnection.class);
+    }
+    
+    /**
+     * Write one position as a line in COPY text format (tab separated, \N for null).
+     */
+    private void writeRow(Writer writer, PortfolioPosition position) throws IOException {
+        writer.write(Long.toString(position.getId()));
+        for (PortfolioPositionColumn column : PortfolioPositionColumn.values()) {
+            writer.write('\t');
+            writeValue(writer, column.get(position));
+        }
+        writer.write('\n');
+    }
+    
+    private void writeRow(Writer writer, long id, Object[] values) throws IOException {
+        writer.write(Long.toString(id));
+        for (Object value : values) {
+            writer.write('\t');
+            writeValue(writer, value);
+        }
+        writer.write('\n');
+    }
+    
+    private static Object readValue(ResultSet rs, int index, PortfolioPositionColumn.ColumnType type) throws SQLException {
+        return switch (type) {
+            case STRING -> rs.getString(index);
+            case DECIMAL -> rs.getBigDecimal(index);
+            case DATE_TIME -> rs.getObject(index, LocalDateTime.class);
+            case INTEGER -> rs.getObject(index, Integer.class);
+        };
+    }
+    
+    private void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            writer.write("\\N");
+        } else if (value instanceof String string) {
+            writeEscaped(writer, string);
+        } else if (value instanceof BigDecimal decimal) {
+            writer.write(decimal.toPlainString());
+        } else {
+            // Integer and LocalDateTime render in a format PostgreSQL accepts
+            writer.write(value.toString());
+        }
+    }
+    
+    private void writeEscaped(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> writer.write("\\\\");
+                case '\t' -> writer.write("\\t");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                default -> writer.write(c);
+            }
+        }
+    }
+}
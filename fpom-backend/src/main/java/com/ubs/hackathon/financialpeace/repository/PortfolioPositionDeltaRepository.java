@@ -0,0 +1,218 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.dto.DeltaImportResultDTO;
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Staging table and set based merge for delta imports of portfolio positions.
+ * <p>
+ * A delta import COPYs the file into the unlogged staging table and merges it into "portfolio_positions"
+ * with a single statement: new positions are inserted, changed rows are updated and identical rows are not
+ * touched at all. Positions of the as-of dates contained in the file that are missing from the file are
+ * deleted. Rows are matched on the natural key (account, ISIN, valor, as-of date) together with the
+ * occurrence of the key, because the natural key is not unique in the source data: the n-th row of a key in
+ * the file (in file order) matches the n-th position of the key in the table (in id order).
+ * PostgreSQL only, all operations take part in the current Spring transaction.
+ */
+@Repository
+public class PortfolioPositionDeltaRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioPositionDeltaRepository.class);
+
+    public static final String STAGING_TABLE_NAME = "portfolio_positions_staging";
+
+    private static final String TABLE_NAME = PortfolioPositionBulkRepository.TABLE_NAME;
+
+    private static final String NATURAL_KEY_INDEX = "ix_portfolio_positions_natural_key";
+
+    private static final int DUPLICATE_KEY_SAMPLES = 10;
+
+    private static final int ID_BLOCK_SIZE = PortfolioPosition.ID_BLOCK_SIZE;
+
+    /**
+     * Parts of the natural key, nullable columns are coalesced so rows with missing values still match
+     */
+    private static final List<String> NATURAL_KEY_PARTS = List.of(
+            "coalesce(%saccount_id_fake, '')",
+            "coalesce(%sisin, '')",
+            "coalesce(%svalor, '')",
+            "coalesce(%sas_of_date, '-infinity'::timestamp)");
+
+    private static final List<String> COLUMNS = Stream.of(PortfolioPositionColumn.values())
+            .map(PortfolioPositionColumn::getColumnName)
+            .toList();
+
+    @Autowired
+    private PortfolioPositionBulkRepository bulkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the staging table if needed.
+     *
+     * @param truncate remove rows left over from an earlier delta import
+     */
+    public void prepareStaging(boolean truncate) {
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE IF NOT EXISTS " + STAGING_TABLE_NAME +
+                " (LIKE " + TABLE_NAME + " INCLUDING DEFAULTS)");
+        if (truncate) {
+            jdbcTemplate.execute("TRUNCATE " + STAGING_TABLE_NAME);
+        }
+    }
+
+    /**
+     * COPY a batch into the staging table. The ids of staged positions only order the rows of the file,
+     * repeated natural keys are matched in this order.
+     */
+    public long copyIntoStaging(List<PortfolioPosition> positions) {
+        return bulkRepository.copyInto(STAGING_TABLE_NAME, positions);
+    }
+
+    public long countStaging() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + STAGING_TABLE_NAME, Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Merge the staging table into "portfolio_positions" and empty it.
+     * Should run in one transaction, so readers see either the old or the new state.
+     */
+    public DeltaImportResultDTO merge() {
+        ensureNaturalKeyIndex();
+        jdbcTemplate.execute("ANALYZE " + STAGING_TABLE_NAME);
+
+        DeltaImportResultDTO result = new DeltaImportResultDTO();
+        jdbcTemplate.query(DUPLICATE_KEYS_SQL, rs -> {
+            result.setDuplicateKeyCount(rs.getLong("duplicate_keys"));
+            result.setDuplicateRowCount(rs.getLong("duplicate_rows"));
+        });
+        if (result.getDuplicateKeyCount() > 0) {
+            logger.warn("Delta import contains {} natural keys on {} rows more than once, matched by occurrence: {}",
+                       result.getDuplicateKeyCount(), result.getDuplicateRowCount(),
+                       jdbcTemplate.queryForList(DUPLICATE_KEY_SAMPLES_SQL, String.class, DUPLICATE_KEY_SAMPLES));
+        }
+
+        jdbcTemplate.query(MERGE_SQL, rs -> {
+            result.setStagedCount(rs.getLong("staged"));
+            result.setInsertedCount(rs.getLong("inserted"));
+            result.setUpdatedCount(rs.getLong("updated"));
+            result.setDeletedCount(rs.getLong("deleted"));
+        });
+        result.setUnchangedCount(result.getStagedCount() - result.getInsertedCount() - result.getUpdatedCount());
+
+        jdbcTemplate.execute("TRUNCATE " + STAGING_TABLE_NAME);
+        logger.info("Delta merge: {} staged, {} inserted, {} updated, {} unchanged, {} deleted",
+                   result.getStagedCount(), result.getInsertedCount(), result.getUpdatedCount(),
+                   result.getUnchangedCount(), result.getDeletedCount());
+        return result;
+    }
+
+    /**
+     * Plain index on the natural key for matching the staged rows, ordered like the occurrences.
+     */
+    private void ensureNaturalKeyIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + NATURAL_KEY_INDEX + " ON " + TABLE_NAME +
+                " (" + naturalKeyIndexExpressions() + ", id)");
+    }
+
+    /**
+     * Natural key as expression list on the columns of the given table alias.
+     */
+    private static String naturalKey(String alias) {
+        return NATURAL_KEY_PARTS.stream()
+                .map(part -> part.formatted(alias + "."))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Natural key in the form used by the index.
+     */
+    private static String naturalKeyIndexExpressions() {
+        return NATURAL_KEY_PARTS.stream()
+                .map(part -> "(" + part.formatted("") + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Natural key and occurrence of the key as row value on the columns of the given table alias.
+     */
+    private static String occurrenceKey(String alias) {
+        return "(" + naturalKey(alias) + ", " + alias + ".occurrence)";
+    }
+
+    private static String columns(String alias) {
+        return COLUMNS.stream().map(c -> alias + "." + c).collect(Collectors.joining(", "));
+    }
+
+    private static final String STAGED_AS_OF_DATES =
+            "SELECT DISTINCT coalesce(as_of_date, '-infinity'::timestamp) FROM " + STAGING_TABLE_NAME;
+
+    private static final String DUPLICATE_KEYS_SQL =
+            "SELECT count(*) AS duplicate_keys, coalesce(sum(occurrences), 0) AS duplicate_rows" +
+            " FROM (SELECT count(*) AS occurrences FROM " + STAGING_TABLE_NAME + " s" +
+            "  GROUP BY " + naturalKey("s") + " HAVING count(*) > 1) duplicates";
+
+    private static final String DUPLICATE_KEY_SAMPLES_SQL =
+            "SELECT concat_ws(' / ', " + naturalKey("s") + ") || ' (' || count(*) || 'x)'" +
+            " FROM " + STAGING_TABLE_NAME + " s" +
+            " GROUP BY " + naturalKey("s") + " HAVING count(*) > 1" +
+            " ORDER BY min(s.id) LIMIT ?";
+
+    /**
+     * Inserts, updates and deletes share the snapshot of the CTEs and touch disjoint rows: updates the
+     * matched positions, deletes the unmatched positions of the staged as-of dates and inserts the unmatched
+     * staged rows.
+     */
+    private static final String MERGE_SQL =
+            "WITH staged_rows AS (" +
+            "  SELECT s.*, row_number() OVER (PARTITION BY " + naturalKey("s") + " ORDER BY s.id) AS occurrence" +
+            "  FROM " + STAGING_TABLE_NAME + " s" +
+            "), existing_rows AS (" +
+            "  SELECT t.*, row_number() OVER (PARTITION BY " + naturalKey("t") + " ORDER BY t.id) AS occurrence" +
+            "  FROM " + TABLE_NAME + " t" +
+            "  WHERE coalesce(t.as_of_date, '-infinity'::timestamp) IN (" + STAGED_AS_OF_DATES + ")" +
+            "), keyed AS (" +
+            "  SELECT existing.id AS existing_id," +
+            "  (" + columns("existing") + ") IS DISTINCT FROM (" + columns("staged_rows") + ") AS changed," +
+            "  row_number() OVER (PARTITION BY existing.id IS NULL) - 1 AS new_row, staged_rows.*" +
+            "  FROM staged_rows LEFT JOIN existing_rows existing" +
+            "  ON " + occurrenceKey("existing") + " = " + occurrenceKey("staged_rows") +
+            // one nextval per block of ids for the new rows (pooled-lo, see PortfolioPosition.ID_BLOCK_SIZE)
+            "), id_blocks AS (" +
+            "  SELECT block_index, nextval('" + PortfolioPositionBulkRepository.SEQUENCE_NAME + "') AS low" +
+            "  FROM generate_series(0, ceil((SELECT count(*) FROM keyed WHERE existing_id IS NULL) / " +
+                     ID_BLOCK_SIZE + ".0)::int - 1) AS block_index" +
+            "), inserted AS (" +
+            "  INSERT INTO " + TABLE_NAME + " (id, " + String.join(", ", COLUMNS) + ")" +
+            "  SELECT id_blocks.low + new_row % " + ID_BLOCK_SIZE + ", " + String.join(", ", COLUMNS) +
+            "  FROM keyed JOIN id_blocks ON id_blocks.block_index = new_row / " + ID_BLOCK_SIZE +
+            "  WHERE existing_id IS NULL" +
+            "  RETURNING 1" +
+            "), updated AS (" +
+            "  UPDATE " + TABLE_NAME + " t" +
+            "  SET " + COLUMNS.stream().map(c -> c + " = keyed." + c).collect(Collectors.joining(", ")) +
+            "  FROM keyed WHERE t.id = keyed.existing_id AND keyed.changed" +
+            "  RETURNING 1" +
+            "), deleted AS (" +
+            "  DELETE FROM " + TABLE_NAME + " t" +
+            "  USING existing_rows existing" +
+            "  WHERE t.id = existing.id AND NOT EXISTS (SELECT 1 FROM staged_rows" +
+            "   WHERE " + occurrenceKey("staged_rows") + " = " + occurrenceKey("existing") + ")" +
+            "  RETURNING 1" +
+            ")" +
+            " SELECT (SELECT count(*) FROM staged_rows) AS staged," +
+            "  (SELECT count(*) FROM inserted) AS inserted," +
+            "  (SELECT count(*) FROM updated) AS updated," +
+            "  (SELECT count(*) FROM deleted) AS deleted";
+}
@@ -1,14 +1,24 @@
 package com.ubs.hackathon.financialpeace.repository;
 
+import com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.AssetAllocationDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupTotalDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionChfValueDTO;
 import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for PortfolioPosition entity.
@@ -84,16 +94,68 @@ public interface PortfolioPositionRepository extends JpaRepository<PortfolioPosi
      */
     List<PortfolioPosition> findTop10ByOrderByValueAmountDesc();
     
+    // ==================== STREAMING ====================
+    // Streams must be consumed and closed inside a transaction; PostgreSQL fetches the rows in batches of
+    // the fetch size instead of buffering the whole result, read only entities keep no dirty checking copy.
+    
+    /**
+     * Stream positions for a specific partner
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<PortfolioPosition> streamByPartnerIdFake(String partnerIdFake);
+    
+    /**
+     * Stream positions for a specific account
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<PortfolioPosition> streamByAccountIdFake(String accountIdFake);
+    
+    /**
+     * Stream positions by asset class
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<PortfolioPosition> streamByAssetClassDescriptionShort(String assetClass);
+    
+    /**
+     * Stream positions by currency
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<PortfolioPosition> streamByValueCurrency(String currency);
+    
+    /**
+     * Stream positions with value amount greater than specified amount
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<PortfolioPosition> streamByValueAmountGreaterThan(BigDecimal amount);
+    
+    // ==================== KEYSET PAGINATION ====================
+    
+    /**
+     * Positions after the given id in ascending id order, a range scan on the primary key
+     */
+    List<PortfolioPosition> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    /**
+     * Positions before the given id in descending id order, a range scan on the primary key
+     */
+    List<PortfolioPosition> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+    
     // ==================== ACCOUNT QUERIES ====================
     
     /**
      * Get account summary with position counts and total values
      */
-    @Query("SELECT p.accountIdFake, p.partnerIdFake, COUNT(p), SUM(p.valueAmount), p.valueCurrency " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO(" +
+           "p.accountIdFake, p.partnerIdFake, COUNT(p), SUM(p.valueAmount), p.valueCurrency) " +
            "FROM PortfolioPosition p " +
            "GROUP BY p.accountIdFake, p.partnerIdFake, p.valueCurrency " +
            "ORDER BY p.accountIdFake, p.valueCurrency")
-    List<Object[]> getAccountSummary();
+    List<AccountSummaryDTO> getAccountSummary();
     
     /**
      * Get unique account IDs
@@ -134,58 +196,62 @@ public interface PortfolioPositionRepository extends JpaRepository<PortfolioPosi
     /**
      * Get total value amount by asset class
      */
-    @Query("SELECT p.assetClassDescriptionShort, SUM(p.valueAmount) " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.GroupTotalDTO(p.assetClassDescriptionShort, SUM(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "GROUP BY p.assetClassDescriptionShort " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getTotalValueByAssetClass();
+    List<GroupTotalDTO> getTotalValueByAssetClass();
     
     /**
      * Get total value amount by currency
      */
-    @Query("SELECT p.valueCurrency, SUM(p.valueAmount) " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.GroupTotalDTO(p.valueCurrency, SUM(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "GROUP BY p.valueCurrency " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getTotalValueByCurrency();
+    List<GroupTotalDTO> getTotalValueByCurrency();
     
     /**
      * Get portfolio summary for a specific partner
      */
-    @Query("SELECT p.assetClassDescriptionShort, COUNT(p), SUM(p.valueAmount) " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO(p.assetClassDescriptionShort, COUNT(p), SUM(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "WHERE p.partnerIdFake = :partnerIdFake " +
            "GROUP BY p.assetClassDescriptionShort " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getPortfolioSummaryByPartner(@Param("partnerIdFake") String partnerIdFake);
+    List<GroupSummaryDTO> getPortfolioSummaryByPartner(@Param("partnerIdFake") String partnerIdFake);
     
     /**
      * Get portfolio summary for a specific account
      */
-    @Query("SELECT p.assetClassDescriptionShort, COUNT(p), SUM(p.valueAmount) " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO(p.assetClassDescriptionShort, COUNT(p), SUM(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "WHERE p.accountIdFake = :accountIdFake " +
            "GROUP BY p.assetClassDescriptionShort " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getPortfolioSummaryByAccount(@Param("accountIdFake") String accountIdFake);
+    List<GroupSummaryDTO> getPortfolioSummaryByAccount(@Param("accountIdFake") String accountIdFake);
     
     /**
      * Get positions with their FX-adjusted CHF value for a partner
      */
-    @Query("SELECT p, (p.valueAmount * p.fxRate) as chfValue " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.PositionChfValueDTO(p.id, p.partnerIdFake, " +
+           "p.accountIdFake, p.instrumentNameShort, p.isin, p.valueAmount, p.valueCurrency, " +
+           "p.assetClassDescriptionShort, p.fxRate, p.valueAmount * p.fxRate) " +
            "FROM PortfolioPosition p " +
            "WHERE p.partnerIdFake = :partnerIdFake " +
            "ORDER BY (p.valueAmount * p.fxRate) DESC")
-    List<Object[]> getPositionsWithChfValue(@Param("partnerIdFake") String partnerIdFake);
+    List<PositionChfValueDTO> getPositionsWithChfValue(@Param("partnerIdFake") String partnerIdFake);
     
     /**
      * Get positions with their FX-adjusted CHF value for an account
      */
-    @Query("SELECT p, (p.valueAmount * p.fxRate) as chfValue " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.PositionChfValueDTO(p.id, p.partnerIdFake, " +
+           "p.accountIdFake, p.instrumentNameShort, p.isin, p.valueAmount, p.valueCurrency, " +
+           "p.assetClassDescriptionShort, p.fxRate, p.valueAmount * p.fxRate) " +
            "FROM PortfolioPosition p " +
            "WHERE p.accountIdFake = :accountIdFake " +
            "ORDER BY (p.valueAmount * p.fxRate) DESC")
-    List<Object[]> getPositionsWithChfValueByAccount(@Param("accountIdFake") String accountIdFake);
+    List<PositionChfValueDTO> getPositionsWithChfValueByAccount(@Param("accountIdFake") String accountIdFake);
     
     /**
      * Get total value by partner
@@ -199,11 +265,12 @@ public interface PortfolioPositionRepository extends JpaRepository<PortfolioPosi
     /**
      * Get total value by account
      */
-    @Query("SELECT p.accountIdFake, p.partnerIdFake, COUNT(p), SUM(p.valueAmount), p.valueCurrency " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO(" +
+           "p.accountIdFake, p.partnerIdFake, COUNT(p), SUM(p.valueAmount), p.valueCurrency) " +
            "FROM PortfolioPosition p " +
            "GROUP BY p.accountIdFake, p.partnerIdFake, p.valueCurrency " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getTotalValueByAccount();
+    List<AccountSummaryDTO> getTotalValueByAccount();
     
     // ==================== DISTINCT VALUES ====================
     
@@ -262,17 +329,17 @@ public interface PortfolioPositionRepository extends JpaRepository<PortfolioPosi
     /**
      * Get asset allocation for a partner (percentages)
      */
-    @Query("SELECT p.assetClassDescriptionShort, " +
-           "SUM(p.valueAmount) as totalValue, " +
-           "COUNT(p) as positionCount, " +
-           "AVG(p.valueAmount) as avgValue, " +
-           "MIN(p.valueAmount) as minValue, " +
-           "MAX(p.valueAmount) as maxValue " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.AssetAllocationDTO(p.assetClassDescriptionShort, " +
+           "SUM(p.valueAmount), " +
+           "COUNT(p), " +
+           "AVG(p.valueAmount), " +
+           "MIN(p.valueAmount), " +
+           "MAX(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "WHERE p.partnerIdFake = :partnerIdFake " +
            "GROUP BY p.assetClassDescriptionShort " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getAssetAllocationByPartner(@Param("partnerIdFake") String partnerIdFake);
+    List<AssetAllocationDTO> getAssetAllocationByPartner(@Param("partnerIdFake") String partnerIdFake);
     
     /**
      * Get currency exposure for a partner
@@ -318,9 +385,9 @@ public interface PortfolioPositionRepository extends JpaRepository<PortfolioPosi
     /**
      * Get mandate type distribution
      */
-    @Query("SELECT p.mandateType, COUNT(p), SUM(p.valueAmount) " +
+    @Query("SELECT new com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO(p.mandateType, COUNT(p), SUM(p.valueAmount)) " +
            "FROM PortfolioPosition p " +
            "GROUP BY p.mandateType " +
            "ORDER BY SUM(p.valueAmount) DESC")
-    List<Object[]> getMandateTypeDistribution();
+    List<GroupSummaryDTO> getMandateTypeDistribution();
 }
@@ -0,0 +1,45 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.dto.PositionFilterStatsDTO;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PositionFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi criteria filters evaluated in PostgreSQL, used while the column store is not loaded.
+ * Only the restricted columns end up in the WHERE clause (one IN list per column), so the planner sees
+ * plain predicates instead of {@code (:param IS NULL OR ...)} alternatives.
+ */
+@Repository
+public class PositionFilterRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public PositionFilterStatsDTO getFilterStats(PositionFilter filter) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        for (Map.Entry<PortfolioPositionColumn, List<String>> criterion : filter.getValues().entrySet()) {
+            where.append(" AND ").append(criterion.getKey().getColumnName()).append(" IN (")
+                    .append(String.join(", ", Collections.nCopies(criterion.getValue().size(), "?"))).append(")");
+            params.addAll(criterion.getValue());
+        }
+        if (filter.getMinValue() != null) {
+            where.append(" AND value_amount >= ?");
+            params.add(filter.getMinValue());
+        }
+
+        String sql = "SELECT count(*) AS position_count, sum(value_amount) AS total_value" +
+                " FROM " + PortfolioPositionBulkRepository.TABLE_NAME + where;
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) ->
+                new PositionFilterStatsDTO(rs.getLong("position_count"), rs.getBigDecimal("total_value")),
+                params.toArray());
+    }
+}
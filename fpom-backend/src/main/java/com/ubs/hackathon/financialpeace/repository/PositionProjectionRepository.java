@@ -0,0 +1,91 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Position queries selecting only some fields: the fields become the column list of the SQL query and every row
+ * a map of field name to value, so neither the other columns nor entities are loaded.
+ */
+@Repository
+public class PositionProjectionRepository {
+
+    /**
+     * Fields of the "summary" view, those of AccountDetailsDTO.PositionSummaryDTO plus partner and account
+     */
+    public static final List<String> SUMMARY_FIELDS = List.of("id", "partnerIdFake", "accountIdFake",
+            "instrumentNameShort", "isin", "valueAmount", "valueCurrency", "assetClassDescriptionShort", "fxRate");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Fields selected by a fields parameter: the named view "summary" or a comma separated list of position
+     * properties. Null for the whole entity (no fields or the view "full").
+     *
+     * @throws IllegalArgumentException if a field is not a position property or no field is named
+     */
+    public List<String> resolveFields(String fields) {
+        if (fields == null || fields.isBlank() || fields.equals("full")) {
+            return null;
+        }
+        if (fields.equals("summary")) {
+            return SUMMARY_FIELDS;
+        }
+        Set<String> properties = entityManager.getMetamodel().entity(PortfolioPosition.class).getSingularAttributes()
+                .stream().map(Attribute::getName).collect(Collectors.toSet());
+        List<String> selected = Arrays.stream(fields.split(",")).map(String::trim)
+                .filter(field -> !field.isEmpty()).distinct().toList();
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No position field in fields=" + fields);
+        }
+        for (String field : selected) {
+            if (!properties.contains(field)) {
+                throw new IllegalArgumentException("Unknown position field " + field);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * The given fields of the positions matching the filter.
+     */
+    public List<Map<String, Object>> findAll(List<String> fields, Specification<PortfolioPosition> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PortfolioPosition> root = query.from(PortfolioPosition.class);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections).where(filter.toPredicate(root, query, cb));
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
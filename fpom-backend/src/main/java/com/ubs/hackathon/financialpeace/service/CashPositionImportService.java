@@ -0,0 +1,126 @@
+package com.ubs.hackathon.financialpeace.service;
+
+import com.ubs.hackathon.financialpeace.config.ImportProperties;
+import com.ubs.hackathon.financialpeace.model.CashPosition;
+import com.ubs.hackathon.financialpeace.repository.CashPositionRepository;
+import com.ubs.hackathon.financialpeace.service.importer.CashPositionRowMapper;
+import com.ubs.hackathon.financialpeace.service.importer.ImportPipeline;
+import com.ubs.hackathon.financialpeace.service.importer.ImportStats;
+import com.ubs.hackathon.financialpeace.service.importer.RejectFile;
+import com.ubs.hackathon.financialpeace.service.importer.XlsxStreamingRowSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service for importing cash positions (account balances) from Excel file into database.
+ * Uses the same streaming SAX reader and staged pipeline as the portfolio position import,
+ * every batch is committed in its own transaction.
+ */
+@Service
+public class CashPositionImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CashPositionImportService.class);
+    
+    private static final String EXCEL_FILE_PATH = "Swiss AI - UBS Challenge 3 - Cash Positions.xlsx";
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private CashPositionRepository cashPositionRepository;
+    
+    @Autowired
+    private ImportProperties importProperties;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Import cash positions from the Excel file in resources on the calling thread.
+     *
+     * @param clearExisting remove all cash positions before the import
+     * @return row counters and per-stage throughput of the run
+     * @throws IOException if file reading fails
+     */
+    public ImportStats importCashPositions(boolean clearExisting) throws IOException {
+        logger.info("Starting import of cash positions from Excel file: {}", EXCEL_FILE_PATH);
+        
+        ClassPathResource resource = new ClassPathResource(EXCEL_FILE_PATH);
+        if (!resource.exists()) {
+            throw new IOException("Excel file not found in resources: " + EXCEL_FILE_PATH);
+        }
+        
+        if (clearExisting) {
+            transactionTemplate.executeWithoutResult(status -> cashPositionRepository.deleteAllInBatch());
+            logger.info("Cleared existing cash positions");
+        }
+        
+        ImportStats stats = new ImportStats();
+        if (resource.isFile()) {
+            importRows(new XlsxStreamingRowSource(resource.getFile()), stats);
+        } else {
+            // The SAX reader needs random access to the zip parts, so resources inside a jar are copied out first
+            Path tempFile = Files.createTempFile("cash-positions-", ".xlsx");
+            try (InputStream inputStream = resource.getInputStream()) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                importRows(new XlsxStreamingRowSource(tempFile.toFile()), stats);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        
+        logger.info("Cash position import completed. Imported: {}, Skipped: {}, Rejected: {}, Total rows processed: {} ({} rows/s)",
+                   stats.getRowsWritten(), stats.getRowsSkipped(), stats.getRowsRejected(), stats.getRowsRead(),
+                   Math.round(stats.getRowsPerSecond()));
+        return stats;
+    }
+    
+    private void importRows(XlsxStreamingRowSource source, ImportStats stats) throws IOException {
+        ImportPipeline pipeline = new ImportPipeline(importProperties.getParserWorkers(),
+                importProperties.getQueueCapacity(), BATCH_SIZE);
+        RejectFile rejectFile = new RejectFile(Path.of(importProperties.getRejectsDirectory(),
+                "cash-" + UUID.randomUUID() + "-rejects.csv"));
+        try (rejectFile) {
+            pipeline.run(source, header -> CashPositionRowMapper.plan(header, importProperties.isValidateCodes())::map,
+                    (batch, lastRowIndex) -> transactionTemplate.executeWithoutResult(status -> saveBatch(batch)),
+                    rejectFile, stats);
+        }
+        if (rejectFile.isCreated()) {
+            logger.warn("Cash position import rejected {} rows {}, see {}", stats.getRowsRejected(),
+                       stats.toRejectMap().get("byReason"), rejectFile.getPath());
+        }
+    }
+    
+    /**
+     * Insert a batch through JPA. The persistence context is flushed and cleared after
+     * every batch so heap use stays flat.
+     */
+    private void saveBatch(List<CashPosition> positions) {
+        cashPositionRepository.saveAll(positions);
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    /**
+     * Get count of existing cash positions in database.
+     */
+    public long getExistingCashPositionCount() {
+        return cashPositionRepository.count();
+    }
+}
@@ -0,0 +1,200 @@
+package com.ubs.hackathon.financialpeace.service;
+
+import com.ubs.hackathon.financialpeace.service.importer.ImportInProgressException;
+import com.ubs.hackathon.financialpeace.service.importer.ImportJob;
+import com.ubs.hackathon.financialpeace.service.importer.ImportOptions;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs portfolio imports in the background and keeps track of their progress.
+ * Jobs are executed one after another so two imports never write the same table concurrently,
+ * uploads run on the request thread and take the same lock. Uploads, clearing all positions and restoring
+ * a snapshot are rejected while an import holds the lock instead of blocking the request thread.
+ */
+@Service
+public class ImportJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    
+    private static final int MAX_FINISHED_JOBS = 50;
+    
+    /**
+     * How long an upload waits for a running import before it is rejected
+     */
+    private static final long UPLOAD_LOCK_TIMEOUT_MILLIS = 2_000;
+    
+    @Autowired
+    private PortfolioPositionImportService importService;
+    
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock importLock = new ReentrantLock(true);
+    
+    private volatile ImportJob activeJob;
+    
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "import-job-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Queue a new import job.
+     * 
+     * @return the queued job, its id is used to poll the progress
+     */
+    public ImportJob submit(ImportOptions options) {
+        ImportJob job = new ImportJob(options);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        executor.execute(() -> runExclusive(job, () -> importService.runImport(job)));
+        logger.info("Queued {} import job {} (backend: {})", options.getMode(), job.getId(), options.effectiveBackend());
+        return job;
+    }
+    
+    /**
+     * Import an uploaded stream on the calling thread. The job is registered once it holds the import lock,
+     * so its progress can be polled like the one of a background job while the upload is running.
+     * 
+     * @return the finished job
+     * @throws ImportInProgressException if another import still runs after a short wait, the body is not read
+     */
+    public ImportJob runUpload(ImportOptions options, InputStream body, String fileName, String sha256) {
+        lockImports(UPLOAD_LOCK_TIMEOUT_MILLIS);
+        try {
+            ImportJob job = new ImportJob(options);
+            job.setSourceName(fileName);
+            evictFinishedJobs();
+            jobs.put(job.getId(), job);
+            logger.info("Started upload import job {} for {}", job.getId(), fileName);
+            activeJob = job;
+            importService.runUpload(job, body, fileName, sha256);
+            return job;
+        } finally {
+            activeJob = null;
+            importLock.unlock();
+        }
+    }
+    
+    private void runExclusive(ImportJob job, Runnable importRun) {
+        try {
+            importLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markFinished(ImportJob.Status.CANCELLED, "Interrupted while waiting for another import", -1);
+            return;
+        }
+        try {
+            if (job.isCancelRequested()) {
+                job.markFinished(ImportJob.Status.CANCELLED, null, -1);
+                return;
+            }
+            activeJob = job;
+            importRun.run();
+        } finally {
+            activeJob = null;
+            importLock.unlock();
+        }
+    }
+    
+    /**
+     * Run an operation replacing or removing all positions (clear all, snapshot restore) under the import
+     * lock, so it never truncates the table under an import committing its batches.
+     * 
+     * @throws ImportInProgressException if an import job is running
+     */
+    public <T> T runExclusive(ExclusiveOperation<T> operation) throws IOException {
+        lockImports(0);
+        try {
+            return operation.run();
+        } finally {
+            importLock.unlock();
+        }
+    }
+    
+    /**
+     * Take the import lock, waiting at most the given time for a running import.
+     * 
+     * @throws ImportInProgressException if the lock is still held by an import
+     */
+    private void lockImports(long timeoutMillis) {
+        try {
+            if (importLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ImportJob job = activeJob;
+        throw new ImportInProgressException(job != null 
+                ? "Import job " + job.getId() + " is running, try again when it has finished"
+                : "An import job is running, try again when it has finished");
+    }
+    
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+    
+    /**
+     * All known jobs, newest first.
+     */
+    public List<ImportJob> getJobs() {
+        List<ImportJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(ImportJob::getCreatedAt).reversed());
+        return result;
+    }
+    
+    /**
+     * Request cancellation of a job. Queued jobs never start, running jobs stop after the current batch.
+     * 
+     * @return the job, empty if the id is unknown
+     */
+    public Optional<ImportJob> cancel(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job != null && !job.getStatus().isFinished()) {
+            logger.info("Cancellation requested for import job {}", jobId);
+            job.requestCancel();
+        }
+        return Optional.ofNullable(job);
+    }
+    
+    private void evictFinishedJobs() {
+        List<ImportJob> finished = getJobs().stream()
+                .filter(job -> job.getStatus().isFinished())
+                .toList();
+        for (int i = MAX_FINISHED_JOBS; i < finished.size(); i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+    
+    @FunctionalInterface
+    public interface ExclusiveOperation<T> {
+        T run() throws IOException;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(ImportJob::requestCancel);
+        executor.shutdownNow();
+    }
+}
@@ -1,28 +1,64 @@
 package com.ubs.hackathon.financialpeace.service;
 
+import com.ubs.hackathon.financialpeace.config.ImportProperties;
+import com.ubs.hackathon.financialpeace.model.ImportCheckpoint;
 import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.repository.ImportCheckpointRepository;
+import com.ubs.hackathon.financialpeace.repository.PortfolioPositionBulkRepository;
+import com.ubs.hackathon.financialpeace.repository.PortfolioPositionDeltaRepository;
 import com.ubs.hackathon.financialpeace.repository.PortfolioPositionRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.ubs.hackathon.financialpeace.service.importer.ColumnMappingPlan;
+import com.ubs.hackathon.financialpeace.service.importer.CsvRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.DuplicateImportException;
+import com.ubs.hackathon.financialpeace.service.importer.ImportBackend;
+import com.ubs.hackathon.financialpeace.service.importer.ImportFormat;
+import com.ubs.hackathon.financialpeace.service.importer.ImportJob;
+import com.ubs.hackathon.financialpeace.service.importer.ImportMode;
+import com.ubs.hackathon.financialpeace.service.importer.ImportOptions;
+import com.ubs.hackathon.financialpeace.service.importer.ImportPipeline;
+import com.ubs.hackathon.financialpeace.service.importer.ImportStats;
+import com.ubs.hackathon.financialpeace.service.importer.PortfolioPositionRowMapper;
+import com.ubs.hackathon.financialpeace.service.importer.PositionRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.PositionWriter;
+import com.ubs.hackathon.financialpeace.service.importer.RejectFile;
+import com.ubs.hackathon.financialpeace.service.importer.SourceHash;
+import com.ubs.hackathon.financialpeace.service.importer.StringDictionary;
+import com.ubs.hackathon.financialpeace.service.importer.XlsxStreamingRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.XlsxWorkbookRowSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Service for importing Portfolio Position data from Excel files.
- * Handles the parsing and batch insertion of portfolio position data from the UBS Challenge Excel file.
+ * Service for importing Portfolio Position data from Excel and CSV files.
+ * Handles the parsing and batch insertion of portfolio position data from the UBS Challenge Excel file
+ * or from uploaded files. Excel rows are read either through the streaming SAX reader (default) or the
+ * POI workbook model.
  */
 @Service
 public class PortfolioPositionImportService {
@@ -30,20 +66,132 @@ public class PortfolioPositionImportService {
     private static final Logger logger = LoggerFactory.getLogger(PortfolioPositionImportService.class);
     
     private static final String EXCEL_FILE_PATH = "Swiss AI - UBS Challenge 3 - Portfolio Positions.xlsx";
-    private static final int BATCH_SIZE = 1000;
+    
+    private static final int UPLOAD_BUFFER_SIZE = 1 << 16;
     
     @Autowired
     private PortfolioPositionRepository portfolioPositionRepository;
     
+    @Autowired
+    private PortfolioPositionBulkRepository bulkRepository;
+    
+    @Autowired
+    private PortfolioPositionDeltaRepository deltaRepository;
+    
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private ImportProperties importProperties;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PositionAnalyticsService analyticsService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     /**
-     * Import portfolio positions from the Excel file in resources.
+     * Import portfolio positions from the Excel file in resources using the streaming reader.
      * 
      * @return number of positions imported
      * @throws IOException if file reading fails
      */
-    @Transactional
     public int importPortfolioPositions() throws IOException {
-        logger.info("Starting import of portfolio positions from Excel file: {}", EXCEL_FILE_PATH);
+        return (int) importPortfolioPositions(ImportOptions.builder().build()).getRowsWritten();
+    }
+    
+    /**
+     * Import portfolio positions from the Excel file in resources on the calling thread.
+     * Every written batch is committed in its own transaction.
+     * 
+     * @param options reader, backend, batch and pipeline settings of the run
+     * @return row counters and per-stage throughput of the run
+     * @throws IOException if file reading fails
+     */
+    public ImportStats importPortfolioPositions(ImportOptions options) throws IOException {
+        ImportJob job = new ImportJob(options);
+        runImport(job);
+        if (job.getStatus() == ImportJob.Status.FAILED) {
+            throw new IOException(job.getError());
+        }
+        return job.getStats();
+    }
+    
+    /**
+     * Run an import job of the Excel file in resources to completion and record the outcome on the job.
+     * Failures and cancellation end up in the job status instead of being thrown.
+     */
+    public void runImport(ImportJob job) {
+        execute(job, () -> readAndImport(job));
+    }
+    
+    /**
+     * Run an import job reading the positions from an uploaded XLSX, CSV or gzip CSV stream on the calling thread.
+     * CSV is parsed and hashed while the stream is consumed. XLSX needs random access to the zip entries and
+     * is spooled to a temporary file first, so is a CSV without known SHA-256 whose first bytes match a
+     * completed import: it must be recognized as duplicate before its first batch is committed.
+     * 
+     * @param body           the uploaded content, not closed
+     * @param fileName       name of the upload, used in logs and the checkpoint
+     * @param expectedSha256 SHA-256 of the content if known up front, lets CSV uploads resume from their checkpoint
+     */
+    public void runUpload(ImportJob job, InputStream body, String fileName, String expectedSha256) {
+        execute(job, () -> readAndImportUpload(job, body, fileName, expectedSha256));
+    }
+    
+    /**
+     * Work of an import job.
+     */
+    @FunctionalInterface
+    private interface ImportTask {
+        void run() throws IOException;
+    }
+    
+    private void execute(ImportJob job, ImportTask task) {
+        job.markRunning(getExistingPositionCount());
+        // Every chunk commits on its own, the column store must not answer with the positions from before the job
+        analyticsService.beginWrites("import " + job.getId());
+        try {
+            ImportOptions options = job.getOptions();
+            if (options.getMode() == ImportMode.DELTA && options.isClearExisting()) {
+                throw new IllegalArgumentException("clearExisting cannot be combined with a delta import");
+            }
+            task.run();
+            job.markFinished(job.isCancelRequested() ? ImportJob.Status.CANCELLED : ImportJob.Status.COMPLETED, 
+                             null, getExistingPositionCount());
+        } catch (CancellationException e) {
+            logger.info("Import job {} cancelled after {} rows", job.getId(), job.getStats().getRowsWritten());
+            job.markFinished(ImportJob.Status.CANCELLED, null, getExistingPositionCount());
+        } catch (DuplicateImportException e) {
+            ImportCheckpoint previous = e.getPreviousImport();
+            logger.info("Import job {} skipped, {} was already imported as {} on {} ({} rows)", job.getId(), 
+                       job.getSourceName(), previous.getSourceName(), previous.getUpdatedAt(), previous.getRowsWritten());
+            job.setPreviousImport(previous);
+            job.markFinished(ImportJob.Status.DUPLICATE, null, job.getExistingCountBefore());
+        } catch (Exception e) {
+            logger.error("Import job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.markFinished(ImportJob.Status.FAILED, e.getMessage(), getExistingPositionCount());
+        } finally {
+            // Failed and cancelled runs may have committed batches as well
+            if (job.getStatus() != ImportJob.Status.DUPLICATE) {
+                eventPublisher.publishEvent(new PositionsChangedEvent("import " + job.getId()));
+            }
+            analyticsService.endWrites("import " + job.getId());
+        }
+    }
+    
+    private void readAndImport(ImportJob job) throws IOException {
+        ImportOptions options = job.getOptions();
+        boolean streaming = options.isStreaming();
+        logger.info("Starting {} {} import job {} of portfolio positions from Excel file: {} (backend: {})", 
+                   streaming ? "streaming" : "workbook", options.getMode(), job.getId(), EXCEL_FILE_PATH, 
+                   options.effectiveBackend());
         
         ClassPathResource resource = new ClassPathResource(EXCEL_FILE_PATH);
         
@@ -51,249 +199,314 @@ public class PortfolioPositionImportService {
             throw new IOException("Excel file not found in resources: " + EXCEL_FILE_PATH);
         }
         
-        try (InputStream inputStream = resource.getInputStream();
-             Workbook workbook = new XSSFWorkbook(inputStream)) {
-            
-            Sheet sheet = workbook.getSheetAt(0); // First sheet: "Portfolio Positions"
-            
-            if (sheet == null) {
-                throw new IOException("No sheets found in the Excel file");
+        job.setSourceName(EXCEL_FILE_PATH);
+        try (InputStream inputStream = resource.getInputStream()) {
+            job.setSourceHash(SourceHash.sha256(inputStream));
+        }
+        long firstRowIndex = prepareImport(job);
+        
+        if (!streaming) {
+            try (InputStream inputStream = resource.getInputStream()) {
+                importRows(new XlsxWorkbookRowSource(inputStream), firstRowIndex, job);
             }
-            
-            logger.info("Found sheet: {} with {} rows", sheet.getSheetName(), sheet.getLastRowNum());
-            
-            List<PortfolioPosition> positions = new ArrayList<>();
-            int importedCount = 0;
-            int skippedCount = 0;
-            
-            // Skip header row (row 0) and process data rows
-            for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
-                Row row = sheet.getRow(rowIndex);
-                
-                if (row == null || isEmptyRow(row)) {
-                    skippedCount++;
-                    continue;
-                }
-                
-                try {
-                    PortfolioPosition position = parseRowToPortfolioPosition(row);
-                    if (position != null) {
-                        positions.add(position);
-                        
-                        // Batch insert for performance
-                        if (positions.size() >= BATCH_SIZE) {
-                            portfolioPositionRepository.saveAll(positions);
-                            importedCount += positions.size();
-                            positions.clear();
-                            logger.debug("Batch inserted {} positions. Total imported so far: {}", BATCH_SIZE, importedCount);
-                        }
-                    } else {
-                        skippedCount++;
-                    }
-                } catch (Exception e) {
-                    logger.error("Error processing row {}: {}", rowIndex + 1, e.getMessage());
-                    skippedCount++;
-                }
+        } else if (resource.isFile()) {
+            importRows(new XlsxStreamingRowSource(resource.getFile()), firstRowIndex, job);
+        } else {
+            // The SAX reader needs random access to the zip parts, so resources inside a jar are copied out first
+            try (InputStream inputStream = resource.getInputStream()) {
+                importSpooledXlsx(inputStream, firstRowIndex, job);
             }
-            
-            // Insert remaining positions
-            if (!positions.isEmpty()) {
-                portfolioPositionRepository.saveAll(positions);
-                importedCount += positions.size();
+        }
+        completeImport(job);
+    }
+    
+    private void readAndImportUpload(ImportJob job, InputStream body, String fileName, 
+                                     String expectedSha256) throws IOException {
+        MessageDigest digest = SourceHash.newDigest();
+        InputStream content = new BufferedInputStream(new DigestInputStream(body, digest), UPLOAD_BUFFER_SIZE);
+        ImportFormat format = ImportFormat.detect(content);
+        logger.info("Starting {} import job {} of uploaded {} file: {} (backend: {})", 
+                   job.getOptions().getMode(), job.getId(), format, fileName, job.getOptions().effectiveBackend());
+        
+        job.setSourceName(fileName);
+        job.setSourceHash(expectedSha256 != null ? expectedSha256.toLowerCase() : null);
+        
+        if (format == ImportFormat.XLSX) {
+            // XLSX is spooled completely before it is read, so its hash is known up front even without
+            // a client supplied one: checkpoints and duplicate detection work for every XLSX upload
+            Path tempFile = Files.createTempFile("portfolio-positions-", ".xlsx");
+            try {
+                Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                verifyUploadHash(job, digest);
+                long firstRowIndex = prepareImport(job);
+                importRows(new XlsxStreamingRowSource(tempFile.toFile()), firstRowIndex, job);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } else {
+            // The first bytes are hashed up front and entered into the ledger, so a later upload of the same
+            // file without client supplied hash is recognized before anything is written
+            byte[] head = content.readNBytes(SourceHash.PREFIX_SIZE);
+            job.setSourcePrefixHash(SourceHash.sha256(head));
+            InputStream csv = new SequenceInputStream(new ByteArrayInputStream(head), content);
+            if (job.getSourceHash() == null && mayRepeatCompletedImport(job)) {
+                logger.info("Upload {} starts like a completed import, spooling it to compare the whole content", fileName);
+                importSpooledCsv(csv, format, digest, job);
+            } else {
+                long firstRowIndex = prepareImport(job);
+                importRows(new CsvRowSource(csvContent(csv, format)), firstRowIndex, job);
+                // Hash the complete upload, the parsers may stop before trailing bytes
+                content.transferTo(OutputStream.nullOutputStream());
+                verifyUploadHash(job, digest);
             }
-            
-            logger.info("Import completed. Imported: {}, Skipped: {}, Total rows processed: {}", 
-                       importedCount, skippedCount, sheet.getLastRowNum());
-            
-            return importedCount;
         }
+        completeImport(job);
+    }
+    
+    /**
+     * Whether the ledger holds a completed import whose content started like the upload. Not asked when the
+     * import would run anyway (force, clearExisting).
+     */
+    private boolean mayRepeatCompletedImport(ImportJob job) {
+        ImportOptions options = job.getOptions();
+        return !options.isForce() && !options.isClearExisting() && checkpointRepository
+                .existsBySourcePrefixHashAndStatus(job.getSourcePrefixHash(), ImportCheckpoint.Status.COMPLETED);
     }
     
     /**
-     * Parse a single Excel row into a PortfolioPosition entity.
+     * Copy a CSV upload to a temporary file to know its hash before anything is written, then import it.
      */
-    private PortfolioPosition parseRowToPortfolioPosition(Row row) {
+    private void importSpooledCsv(InputStream csv, ImportFormat format, MessageDigest digest, ImportJob job) 
+            throws IOException {
+        Path tempFile = Files.createTempFile("portfolio-positions-", format == ImportFormat.CSV_GZIP ? ".csv.gz" : ".csv");
         try {
-            PortfolioPosition position = new PortfolioPosition();
-            
-            // Map Excel columns to entity fields
-            position.setPartnerIdFake(getCellValueAsString(row, 0));
-            position.setAccountIdFake(getCellValueAsString(row, 1));
-            position.setPositionCreatedDate(getCellValueAsDateTime(row, 2));
-            position.setFiUnitTypeCode(getCellValueAsString(row, 3));
-            position.setBalanceAmount(getCellValueAsBigDecimal(row, 4));
-            position.setValueAmount(getCellValueAsBigDecimal(row, 5));
-            position.setTradeAmount(getCellValueAsBigDecimal(row, 6));
-            position.setValuationDate(getCellValueAsDateTime(row, 7));
-            position.setAsOfDate(getCellValueAsDateTime(row, 8));
-            position.setValueCurrency(getCellValueAsString(row, 9));
-            position.setSourceCurrency(getCellValueAsString(row, 10));
-            position.setOriginalQuantity(getCellValueAsBigDecimal(row, 11));
-            position.setMarketValueAmount(getCellValueAsBigDecimal(row, 12));
-            position.setFxRate(getCellValueAsBigDecimal(row, 13));
-            position.setValor(getCellValueAsString(row, 14));
-            position.setIsin(getCellValueAsString(row, 15));
-            position.setInstrumentNameShort(getCellValueAsString(row, 16));
-            position.setSymbolId(getCellValueAsString(row, 17));
-            position.setTitleGroupId(getCellValueAsString(row, 18));
-            position.setTitleId(getCellValueAsString(row, 19));
-            position.setTitleIdDescription(getCellValueAsString(row, 20));
-            position.setSymbolIdGpc(getCellValueAsString(row, 21));
-            position.setProductDescription(getCellValueAsString(row, 22));
-            position.setProductId(getCellValueAsString(row, 23));
-            position.setProductIdDescription(getCellValueAsString(row, 24));
-            position.setProductClassId(getCellValueAsString(row, 25));
-            position.setProductClassDescription(getCellValueAsString(row, 26));
-            position.setProductFamilyId(getCellValueAsString(row, 27));
-            position.setProductFamilyDescription(getCellValueAsString(row, 28));
-            position.setAssetClass(getCellValueAsString(row, 29));
-            position.setAssetClassSubtype(getCellValueAsString(row, 30));
-            position.setAssetClassDescriptionShort(getCellValueAsString(row, 31));
-            position.setAssetClassDescriptionLong(getCellValueAsString(row, 32));
-            position.setUacInstrCatType(getCellValueAsString(row, 33));
-            position.setInstrumentId(getCellValueAsString(row, 34));
-            position.setPortfolioCurrency(getCellValueAsString(row, 35));
-            position.setPortfolioShortName(getCellValueAsString(row, 36));
-            position.setCurrencyId(getCellValueAsString(row, 37));
-            // Skip Product ID_1 (column 38) as it's duplicate
-            position.setMandatePricingId(getCellValueAsString(row, 39));
-            position.setMandateProgram(getCellValueAsString(row, 40));
-            // Skip Mandate Pricing ID_1 (column 41) as it's duplicate  
-            position.setMandatePricingNameShort(getCellValueAsString(row, 42));
-            position.setMandatePricingNameLong(getCellValueAsString(row, 43));
-            position.setMandatePricingType(getCellValueAsString(row, 44));
-            position.setMandateProgramSecondary(getCellValueAsString(row, 45));
-            position.setInvestmentStrategy(getCellValueAsString(row, 46));
-            position.setInvestmentStrategyName(getCellValueAsString(row, 47));
-            position.setSolutionSubtypeId(getCellValueAsString(row, 48));
-            position.setSolutionSubtypeNameShort(getCellValueAsString(row, 49));
-            position.setSolutionNameShort(getCellValueAsString(row, 50));
-            position.setSolutionNameLong(getCellValueAsString(row, 51));
-            position.setMandateType(getCellValueAsString(row, 52));
-            position.setMandateSubtype(getCellValueAsString(row, 53));
-            position.setMandateGroup(getCellValueAsString(row, 54));
-            position.setDomicile(getCellValueAsString(row, 55));
-            position.setClientAdvisorIdFake(getCellValueAsInteger(row, 56));
-            
-            return position;
-            
-        } catch (Exception e) {
-            logger.error("Error parsing row to PortfolioPosition: {}", e.getMessage(), e);
-            return null;
+            Files.copy(csv, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            verifyUploadHash(job, digest);
+            long firstRowIndex = prepareImport(job);
+            try (InputStream spooled = new BufferedInputStream(Files.newInputStream(tempFile), UPLOAD_BUFFER_SIZE)) {
+                importRows(new CsvRowSource(csvContent(spooled, format)), firstRowIndex, job);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
         }
     }
     
+    private static InputStream csvContent(InputStream content, ImportFormat format) throws IOException {
+        return format == ImportFormat.CSV_GZIP ? new GZIPInputStream(content, UPLOAD_BUFFER_SIZE) : content;
+    }
+    
     /**
-     * Extract string value from cell, handling nulls and trimming whitespace.
+     * Record the hash of the consumed upload on the job, failing if it differs from the expected hash.
      */
-    private String getCellValueAsString(Row row, int columnIndex) {
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return null;
-        
-        String value = null;
-        switch (cell.getCellType()) {
-            case STRING:
-                value = cell.getStringCellValue();
-                break;
-            case NUMERIC:
-                // Handle numeric values that should be strings (like IDs)
-                value = String.valueOf((long) cell.getNumericCellValue());
-                break;
-            case BOOLEAN:
-                value = String.valueOf(cell.getBooleanCellValue());
-                break;
-            default:
-                return null;
+    private static void verifyUploadHash(ImportJob job, MessageDigest digest) throws IOException {
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        if (job.getSourceHash() != null && !job.getSourceHash().equals(sha256)) {
+            throw new IOException("Uploaded content has SHA-256 " + sha256 + " but " + job.getSourceHash() + " was expected");
         }
-        
-        return value != null ? value.trim() : null;
+        job.setSourceHash(sha256);
     }
     
     /**
-     * Extract BigDecimal value from cell for monetary amounts and rates.
+     * Copy an XLSX stream to a temporary file and import it with the streaming SAX reader.
      */
-    private BigDecimal getCellValueAsBigDecimal(Row row, int columnIndex) {
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null || cell.getCellType() != CellType.NUMERIC) return null;
-        
+    private void importSpooledXlsx(InputStream inputStream, long firstRowIndex, ImportJob job) throws IOException {
+        Path tempFile = Files.createTempFile("portfolio-positions-", ".xlsx");
         try {
-            double numericValue = cell.getNumericCellValue();
-            return BigDecimal.valueOf(numericValue);
-        } catch (Exception e) {
-            logger.debug("Error converting cell to BigDecimal at column {}: {}", columnIndex, e.getMessage());
-            return null;
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            importRows(new XlsxStreamingRowSource(tempFile.toFile()), firstRowIndex, job);
+        } finally {
+            Files.deleteIfExists(tempFile);
         }
     }
     
     /**
-     * Extract Integer value from cell.
+     * Apply clearExisting, prepare the staging table of a delta import and look up the checkpoint of the
+     * source. A source that was already imported completely is not imported again unless forced or the
+     * existing positions are cleared. An unfinished import of the same file in the same mode is continued
+     * after its last committed row (clearExisting is not applied again), otherwise a fresh checkpoint is
+     * started. Without a source hash the import runs without checkpoint.
+     * 
+     * @return index of the first source row to import
+     * @throws DuplicateImportException if the import ledger lists the source as completely imported
      */
-    private Integer getCellValueAsInteger(Row row, int columnIndex) {
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return null;
-        
-        try {
-            if (cell.getCellType() == CellType.NUMERIC) {
-                return (int) cell.getNumericCellValue();
-            } else if (cell.getCellType() == CellType.STRING) {
-                String stringValue = cell.getStringCellValue().trim();
-                return stringValue.isEmpty() ? null : Integer.parseInt(stringValue);
+    private long prepareImport(ImportJob job) {
+        ImportOptions options = job.getOptions();
+        String sourceHash = job.getSourceHash();
+        boolean delta = options.getMode() == ImportMode.DELTA;
+        return transactionTemplate.execute(status -> {
+            Optional<ImportCheckpoint> ledgerEntry = Optional.ofNullable(sourceHash).flatMap(checkpointRepository::findById);
+            if (!options.isForce() && !options.isClearExisting() && ledgerEntry
+                    .filter(checkpoint -> checkpoint.getStatus() == ImportCheckpoint.Status.COMPLETED).isPresent()) {
+                throw new DuplicateImportException(ledgerEntry.get());
             }
-        } catch (Exception e) {
-            logger.debug("Error converting cell to Integer at column {}: {}", columnIndex, e.getMessage());
-        }
-        
-        return null;
+            
+            if (delta) {
+                deltaRepository.prepareStaging(false);
+            }
+            Optional<ImportCheckpoint> existing = ledgerEntry
+                    .filter(checkpoint -> checkpoint.getStatus() == ImportCheckpoint.Status.IN_PROGRESS)
+                    .filter(checkpoint -> options.getMode().name().equals(checkpoint.getMode()))
+                    .filter(checkpoint -> checkpoint.getLastCommittedRow() > 0)
+                    // The unlogged staging table is emptied by a database crash, the staged rows must still be there
+                    .filter(checkpoint -> !delta || deltaRepository.countStaging() == checkpoint.getRowsWritten());
+            if (options.isResume() && existing.isPresent()) {
+                long lastCommittedRow = existing.get().getLastCommittedRow();
+                logger.info("Resuming import of {} after row {} ({} rows already written)", 
+                           job.getSourceName(), lastCommittedRow, existing.get().getRowsWritten());
+                job.setResumedFromRow(lastCommittedRow + 1);
+                return lastCommittedRow + 1;
+            }
+            
+            if (options.isClearExisting()) {
+                clearAllPositions();
+            }
+            if (delta) {
+                deltaRepository.prepareStaging(true);
+            }
+            
+            if (sourceHash != null) {
+                ImportCheckpoint checkpoint = new ImportCheckpoint();
+                checkpoint.setSourceHash(sourceHash);
+                checkpoint.setSourcePrefixHash(job.getSourcePrefixHash());
+                checkpoint.setSourceName(job.getSourceName());
+                checkpoint.setMode(options.getMode().name());
+                checkpoint.setStatus(ImportCheckpoint.Status.IN_PROGRESS);
+                checkpoint.setStartedAt(LocalDateTime.now());
+                checkpoint.setUpdatedAt(checkpoint.getStartedAt());
+                checkpointRepository.save(checkpoint);
+            }
+            return 1L;
+        });
     }
     
     /**
-     * Extract LocalDateTime from cell, handling both date cells and ISO string formats.
+     * Run the reader, parser and writer stages over the source.
+     * Parsing happens on the parser workers, the batches are written on the calling thread.
      */
-    private LocalDateTime getCellValueAsDateTime(Row row, int columnIndex) {
-        Cell cell = row.getCell(columnIndex);
-        if (cell == null) return null;
+    private void importRows(PositionRowSource source, long firstRowIndex, ImportJob job) throws IOException {
+        ImportOptions options = job.getOptions();
+        int workers = options.getWorkers() > 0 ? options.getWorkers() : importProperties.getParserWorkers();
+        int queueCapacity = options.getQueueCapacity() > 0 ? options.getQueueCapacity() : importProperties.getQueueCapacity();
+        ImportPipeline pipeline = new ImportPipeline(workers, queueCapacity, options.effectiveBatchSize());
         
-        try {
-            if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
-                return cell.getLocalDateTimeCellValue();
-            } else if (cell.getCellType() == CellType.STRING) {
-                String dateString = cell.getStringCellValue().trim();
-                if (dateString.isEmpty()) return null;
-                
-                // Handle ISO format like "2022-08-29T22:00:00.000Z"
-                if (dateString.endsWith("Z")) {
-                    dateString = dateString.substring(0, dateString.length() - 1);
-                }
-                
-                try {
-                    return LocalDateTime.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                } catch (DateTimeParseException e) {
-                    // Try alternative formats if needed
-                    logger.debug("Could not parse date string '{}': {}", dateString, e.getMessage());
-                    return null;
-                }
+        ImportStats stats = job.getStats();
+        PositionRowSource rows = firstRowIndex > 1 ? handler -> source.read(handler, firstRowIndex) : source;
+        RejectFile rejectFile = new RejectFile(Path.of(importProperties.getRejectsDirectory(), 
+                                                       job.getId() + "-rejects.csv"));
+        // Columns are bound by header name once per file; repeated strings of the low cardinality
+        // columns share one instance for the whole import
+        try (rejectFile) {
+            pipeline.run(rows, header -> {
+                ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(header, 
+                        importProperties.getDictionaryMaxEntries(), importProperties.isValidateCodes());
+                job.setDictionary(plan.getDictionary());
+                return plan::map;
+            }, createWriter(job), rejectFile, stats);
+        } finally {
+            if (rejectFile.isCreated()) {
+                job.setRejectsFile(rejectFile.getPath());
             }
-        } catch (Exception e) {
-            logger.debug("Error converting cell to DateTime at column {}: {}", columnIndex, e.getMessage());
         }
         
-        return null;
+        logger.info("Import completed. Imported: {}, Skipped: {}, Rejected: {}, Total rows processed: {} ({} rows/s)", 
+                   stats.getRowsWritten(), stats.getRowsSkipped(), stats.getRowsRejected(), stats.getRowsRead(), 
+                   Math.round(stats.getRowsPerSecond()));
+        if (stats.getRowsRejected() > 0) {
+            logger.warn("Import job {} rejected {} rows {}, see {}", job.getId(), stats.getRowsRejected(), 
+                       stats.toRejectMap().get("byReason"), rejectFile.getPath());
+        }
+        if (job.getDictionary() == null) {
+            return;
+        }
+        for (StringDictionary.ColumnReport column : job.getDictionary().report()) {
+            logger.debug("Dictionary column {}: {} distinct values, {} of {} cells shared{}", column.column(),
+                    column.distinctValues(), column.hits(), column.lookups(), column.saturated() ? " (saturated)" : "");
+        }
     }
     
     /**
-     * Check if a row is empty (all cells are null or empty).
+     * Merge a delta import and mark the checkpoint as completed, both in one transaction.
+     * Sources whose hash was only known at the end (streamed CSV uploads) are entered into the ledger here.
      */
-    private boolean isEmptyRow(Row row) {
-        for (int cellIndex = 0; cellIndex < row.getLastCellNum(); cellIndex++) {
-            Cell cell = row.getCell(cellIndex);
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                String cellValue = getCellValueAsString(row, cellIndex);
-                if (cellValue != null && !cellValue.trim().isEmpty()) {
-                    return false;
-                }
+    private void completeImport(ImportJob job) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (job.getOptions().getMode() == ImportMode.DELTA) {
+                job.setDeltaResult(deltaRepository.merge());
+            }
+            LocalDateTime now = LocalDateTime.now();
+            Optional<ImportCheckpoint> checkpoint = checkpointRepository.findById(job.getSourceHash());
+            if (checkpoint.isPresent() && checkpoint.get().getStatus() == ImportCheckpoint.Status.IN_PROGRESS) {
+                checkpointRepository.updateStatus(job.getSourceHash(), ImportCheckpoint.Status.COMPLETED, now);
+                return;
+            }
+            if (checkpoint.isPresent() && !job.getOptions().isForce()) {
+                logger.warn("{} was already imported on {}, pass its sha256 to detect duplicate uploads up front", 
+                           job.getSourceName(), checkpoint.get().getUpdatedAt());
+            }
+            ImportCheckpoint ledgerEntry = checkpoint.orElseGet(ImportCheckpoint::new);
+            ledgerEntry.setSourceHash(job.getSourceHash());
+            if (job.getSourcePrefixHash() != null) {
+                ledgerEntry.setSourcePrefixHash(job.getSourcePrefixHash());
+            }
+            ledgerEntry.setSourceName(job.getSourceName());
+            ledgerEntry.setMode(job.getOptions().getMode().name());
+            ledgerEntry.setRowsWritten(ledgerEntry.getRowsWritten() + job.getStats().getRowsWritten());
+            ledgerEntry.setStatus(ImportCheckpoint.Status.COMPLETED);
+            ledgerEntry.setStartedAt(ledgerEntry.getStartedAt() != null ? ledgerEntry.getStartedAt() : now);
+            ledgerEntry.setUpdatedAt(now);
+            checkpointRepository.save(ledgerEntry);
+        });
+    }
+    
+    /**
+     * Writer committing every batch in its own transaction together with the checkpoint of the source,
+     * so a failure or cancellation only loses the batch in flight and the import can be resumed after
+     * the last committed row. Cancellation is checked before each batch.
+     */
+    private PositionWriter<PortfolioPosition> createWriter(ImportJob job) {
+        PositionWriter<PortfolioPosition> target;
+        if (job.getOptions().getMode() == ImportMode.DELTA) {
+            target = this::stageBatch;
+        } else if (job.getOptions().effectiveBackend() == ImportBackend.COPY) {
+            target = (batch, lastRowIndex) -> bulkRepository.copyIn(batch);
+        } else {
+            target = (batch, lastRowIndex) -> saveBatch(batch);
+        }
+        String checkpointHash = job.getSourceHash();
+        return (batch, lastRowIndex) -> {
+            if (job.isCancelRequested()) {
+                throw new CancellationException("Import job " + job.getId() + " cancelled");
             }
+            transactionTemplate.executeWithoutResult(status -> {
+                target.write(batch, lastRowIndex);
+                if (checkpointHash != null) {
+                    checkpointRepository.advance(checkpointHash, lastRowIndex, batch.size(), LocalDateTime.now());
+                }
+            });
+        };
+    }
+    
+    /**
+     * COPY a batch of a delta import into the staging table. The staging ids follow the source rows
+     * (a chunk never spans fewer rows than it has positions), so they stay unique and ordered across
+     * resumed runs.
+     */
+    private void stageBatch(List<PortfolioPosition> positions, long lastRowIndex) {
+        long firstId = lastRowIndex - positions.size() + 1;
+        for (int i = 0; i < positions.size(); i++) {
+            positions.get(i).setId(firstId + i);
         }
-        return true;
+        deltaRepository.copyIntoStaging(positions);
+    }
+    
+    /**
+     * Insert a batch through JPA. The persistence context is flushed and cleared after
+     * every batch so heap use stays flat.
+     */
+    private void saveBatch(List<PortfolioPosition> positions) {
+        portfolioPositionRepository.saveAll(positions);
+        entityManager.flush();
+        entityManager.clear();
     }
     
     /**
@@ -305,23 +518,27 @@ public class PortfolioPositionImportService {
     
     /**
      * Clear all existing portfolio positions from database.
+     * Truncates the table and refreshes the dependent materialized views, the id sequence keeps counting.
+     * The import checkpoints refer to the deleted rows and are removed as well.
      * Use with caution!
+     * 
+     * @return names of the refreshed materialized views
      */
     @Transactional
-    public void clearAllPositions() {
+    public List<String> clearAllPositions() {
         logger.warn("Clearing all portfolio positions from database");
-        portfolioPositionRepository.deleteAll();
+        List<String> refreshedViews = bulkRepository.truncateAll();
+        checkpointRepository.deleteAllInBatch();
+        // The bulk delete bypasses the persistence context, a checkpoint loaded before would be saved as an update
+        entityManager.clear();
+        eventPublisher.publishEvent(new PositionsChangedEvent("clear all"));
+        return refreshedViews;
     }
     
     /**
      * Import positions with option to clear existing data first.
      */
-    @Transactional
     public int importPortfolioPositions(boolean clearExisting) throws IOException {
-        if (clearExisting) {
-            clearAllPositions();
-        }
-        
-        return importPortfolioPositions();
+        return (int) importPortfolioPositions(ImportOptions.builder().clearExisting(clearExisting).build()).getRowsWritten();
     }
 }
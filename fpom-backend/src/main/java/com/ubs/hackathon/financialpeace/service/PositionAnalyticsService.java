@@ -0,0 +1,365 @@
+package com.ubs.hackathon.financialpeace.service;
+
+import com.ubs.hackathon.financialpeace.config.AnalyticsProperties;
+import com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupTotalDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionFilterStatsDTO;
+import com.ubs.hackathon.financialpeace.model.PositionFilter;
+import com.ubs.hackathon.financialpeace.repository.PortfolioPositionBulkRepository;
+import com.ubs.hackathon.financialpeace.repository.PortfolioPositionRepository;
+import com.ubs.hackathon.financialpeace.repository.PositionFilterRepository;
+import com.ubs.hackathon.financialpeace.service.analytics.ColumnAllocator;
+import com.ubs.hackathon.financialpeace.service.analytics.PositionColumnStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Aggregations behind the summary, account, filter and stats endpoints. With
+ * {@code fpom.analytics.column-store.enabled} the queries run against an in-memory {@link PositionColumnStore}
+ * instead of GROUP BY scans in PostgreSQL. The store is loaded in the background at startup and after
+ * every {@link PositionsChangedEvent}; until a load has finished the queries go to the database, so
+ * results never lag behind a change. Imports commit chunk by chunk and publish the event only at their end,
+ * while one runs the queries go to the database as well ({@link #beginWrites}). Composite endpoints run
+ * their queries concurrently ({@link #async}).
+ */
+@Service
+public class PositionAnalyticsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PositionAnalyticsService.class);
+    
+    @Autowired
+    private PortfolioPositionRepository repository;
+    
+    @Autowired
+    private PortfolioPositionBulkRepository bulkRepository;
+    
+    @Autowired
+    private PositionFilterRepository filterRepository;
+    
+    @Autowired
+    private AnalyticsProperties analyticsProperties;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "column-store-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * One virtual thread per query of a composite endpoint, blocked threads only wait for their connection
+     */
+    private final ExecutorService queryExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("analytics-query-", 0).factory());
+    
+    /**
+     * Caps the queries running on the query executor ({@code fpom.analytics.max-concurrent-queries}), so
+     * concurrent composite requests cannot take every pooled connection
+     */
+    private Semaphore querySlots;
+    
+    private volatile PositionColumnStore store;
+    
+    /**
+     * Jobs committing positions in several transactions, the store is not used while one is running
+     */
+    private final AtomicInteger runningWriters = new AtomicInteger();
+    
+    /**
+     * Incremented with every change, a load only publishes its store if no change happened meanwhile
+     */
+    private long generation;
+    
+    private volatile long lastLoadMillis;
+    
+    private volatile String lastError;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (isEnabled() && analyticsProperties.getColumnStore().isLoadOnStartup()) {
+            scheduleReload("startup");
+        }
+    }
+    
+    /**
+     * Drop the current store and load a new one. Runs after the commit of the transaction that
+     * published the event, or right away if it was published outside of a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPositionsChanged(PositionsChangedEvent event) {
+        if (isEnabled()) {
+            scheduleReload(event.reason());
+        }
+    }
+    
+    /**
+     * Drop the current store and load a new one in the background.
+     */
+    public void scheduleReload(String reason) {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = ++generation;
+            store = null;
+        }
+        logger.debug("Column store reload scheduled ({})", reason);
+        loader.execute(() -> load(loadGeneration, reason));
+    }
+    
+    private void load(long loadGeneration, String reason) {
+        if (!isCurrent(loadGeneration)) {
+            // Another change is already queued behind this load
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            PositionColumnStore.Builder builder = new PositionColumnStore.Builder();
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> bulkRepository.forEachRow(builder));
+            AnalyticsProperties.ColumnStore settings = analyticsProperties.getColumnStore();
+            PositionColumnStore loaded = builder.build(new ColumnAllocator(settings.getStorage(), 
+                    Path.of(settings.getMappedDirectory()), settings.getMaxOffHeapSize().toBytes()));
+            
+            synchronized (this) {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                store = loaded;
+            }
+            lastLoadMillis = System.currentTimeMillis() - start;
+            lastError = null;
+            logger.info("Loaded column store with {} positions (~{} MB heap, {} MB {}) in {} ms ({})", loaded.count(), 
+                       loaded.estimatedHeapBytes() >> 20, loaded.offHeapBytes() >> 20, loaded.getStorage(), 
+                       lastLoadMillis, reason);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Loading the column store failed, analytics queries use the database", e);
+        }
+    }
+    
+    /**
+     * Stop answering from the column store while a job commits positions in several transactions, e.g. an
+     * import committing chunk by chunk. Until the matching {@link #endWrites} the queries go to the database,
+     * which already holds the committed chunks; the job publishes a {@link PositionsChangedEvent} at its end.
+     */
+    public void beginWrites(String reason) {
+        runningWriters.incrementAndGet();
+        logger.debug("Column store suspended ({})", reason);
+    }
+    
+    public void endWrites(String reason) {
+        if (runningWriters.decrementAndGet() == 0) {
+            logger.debug("Column store resumed ({})", reason);
+        }
+    }
+    
+    /**
+     * The store to answer from, null while it is not loaded or a job is writing
+     */
+    private PositionColumnStore current() {
+        return runningWriters.get() == 0 ? store : null;
+    }
+    
+    private synchronized boolean isCurrent(long loadGeneration) {
+        return loadGeneration == generation;
+    }
+    
+    private boolean isEnabled() {
+        return analyticsProperties.getColumnStore().isEnabled();
+    }
+    
+    @PostConstruct
+    void createQuerySlots() {
+        querySlots = new Semaphore(Math.max(1, analyticsProperties.getMaxConcurrentQueries()), true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+    
+    /**
+     * State of the column store for the stats endpoint.
+     */
+    public Map<String, Object> getColumnStoreStatus() {
+        PositionColumnStore current = store;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        status.put("storage", analyticsProperties.getColumnStore().getStorage());
+        status.put("loaded", current != null);
+        status.put("suspendedByWrites", runningWriters.get() > 0);
+        if (current != null) {
+            status.put("positions", current.count());
+            status.put("estimatedBytes", current.estimatedBytes());
+            status.put("heapBytes", current.estimatedHeapBytes());
+            status.put("offHeapBytes", current.offHeapBytes());
+            status.put("loadedAt", LocalDateTime.ofInstant(current.getLoadedAt(), ZoneId.systemDefault()));
+            status.put("loadMs", lastLoadMillis);
+        }
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+        status.put("maxOffHeapBytes", analyticsProperties.getColumnStore().getMaxOffHeapSize().toBytes());
+        status.put("bufferPools", getBufferPools());
+        return status;
+    }
+    
+    /**
+     * Direct and mapped buffer memory of the whole JVM, includes stores replaced but not yet collected.
+     */
+    private Map<String, Object> getBufferPools() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            pools.put(pool.getName(), Map.of("count", pool.getCount(), "memoryUsed", pool.getMemoryUsed(), 
+                    "totalCapacity", pool.getTotalCapacity()));
+        }
+        return pools;
+    }
+    
+    // ==================== PARALLEL QUERIES ====================
+    
+    /**
+     * Start one of the independent queries of a composite endpoint on its own virtual thread, where it takes its
+     * own pooled connection, so the queries run concurrently. At most {@code fpom.analytics.max-concurrent-queries}
+     * of them run at a time, the others wait for a free slot. Inside a transaction the query runs right away on
+     * the calling thread instead, it has to see the changes of that transaction.
+     */
+    public <T> CompletableFuture<T> async(Supplier<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                return CompletableFuture.completedFuture(query.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                querySlots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a free query slot", e);
+            }
+            try {
+                return query.get();
+            } finally {
+                querySlots.release();
+            }
+        }, queryExecutor);
+    }
+    
+    /**
+     * Wait until all started queries have finished, at most {@code fpom.analytics.query-timeout}. On timeout
+     * the results are discarded, statements already sent to the database still run to their end.
+     *
+     * @throws TimeoutException if a query has not finished in time
+     * @throws ExecutionException with the failure of the first failed query
+     */
+    public void awaitAll(CompletableFuture<?>... queries) throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            CompletableFuture.allOf(queries).get(analyticsProperties.getQueryTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            for (CompletableFuture<?> query : queries) {
+                query.cancel(true);
+            }
+            throw e;
+        }
+    }
+    
+    // ==================== QUERIES ====================
+    
+    public long count() {
+        PositionColumnStore current = current();
+        return current != null ? current.count() : repository.count();
+    }
+    
+    public List<GroupTotalDTO> getTotalValueByAssetClass() {
+        PositionColumnStore current = current();
+        return current != null ? current.getTotalValueByAssetClass() : repository.getTotalValueByAssetClass();
+    }
+    
+    public List<GroupTotalDTO> getTotalValueByCurrency() {
+        PositionColumnStore current = current();
+        return current != null ? current.getTotalValueByCurrency() : repository.getTotalValueByCurrency();
+    }
+    
+    public List<AccountSummaryDTO> getAccountSummary() {
+        PositionColumnStore current = current();
+        return current != null ? current.getAccountSummary() : repository.getAccountSummary();
+    }
+    
+    public List<GroupSummaryDTO> getPortfolioSummaryByPartner(String partnerIdFake) {
+        PositionColumnStore current = current();
+        return current != null ? current.getPortfolioSummaryByPartner(partnerIdFake) 
+                : repository.getPortfolioSummaryByPartner(partnerIdFake);
+    }
+    
+    public long countByPartnerIdFake(String partnerIdFake) {
+        PositionColumnStore current = current();
+        return current != null ? current.countByPartnerIdFake(partnerIdFake) : repository.countByPartnerIdFake(partnerIdFake);
+    }
+    
+    public List<String> findDistinctAssetClasses() {
+        PositionColumnStore current = current();
+        return current != null ? current.findDistinctAssetClasses() : repository.findDistinctAssetClasses();
+    }
+    
+    public List<String> findDistinctCurrencies() {
+        PositionColumnStore current = current();
+        return current != null ? current.findDistinctCurrencies() : repository.findDistinctCurrencies();
+    }
+    
+    public List<String> findDistinctMandateTypes() {
+        PositionColumnStore current = current();
+        return current != null ? current.findDistinctMandateTypes() : repository.findDistinctMandateTypes();
+    }
+    
+    public long countDistinctAccountIds() {
+        PositionColumnStore current = current();
+        return current != null ? current.countDistinctAccountIds() : repository.countDistinctAccountIds();
+    }
+    
+    public long countDistinctPartnerIds() {
+        PositionColumnStore current = current();
+        return current != null ? current.countDistinctPartnerIds() : repository.countDistinctPartnerIds();
+    }
+    
+    /**
+     * Count and total value of the positions matching the filter, from the bitmap indexes of the column store.
+     */
+    public PositionFilterStatsDTO getFilterStats(PositionFilter filter) {
+        PositionColumnStore current = current();
+        return current != null ? current.getFilterStats(filter) : filterRepository.getFilterStats(filter);
+    }
+}
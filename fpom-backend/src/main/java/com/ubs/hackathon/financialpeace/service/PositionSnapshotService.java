@@ -0,0 +1,185 @@
+package com.ubs.hackathon.financialpeace.service;
+
+import com.ubs.hackathon.financialpeace.config.ImportProperties;
+import com.ubs.hackathon.financialpeace.repository.ImportCheckpointRepository;
+import com.ubs.hackathon.financialpeace.repository.PortfolioPositionBulkRepository;
+import com.ubs.hackathon.financialpeace.service.snapshot.PositionSnapshotReader;
+import com.ubs.hackathon.financialpeace.service.snapshot.PositionSnapshotWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Creates and restores binary snapshots of the whole "portfolio_positions" table.
+ * A snapshot is written straight from a database cursor into a columnar, compressed file
+ * (see {@link PositionSnapshotWriter}) and restored with a single COPY, which reloads the
+ * position universe far faster than a new import of the Excel source.
+ */
+@Service
+public class PositionSnapshotService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PositionSnapshotService.class);
+    
+    public static final String FILE_SUFFIX = ".fpomsnap";
+    
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+" + Pattern.quote(FILE_SUFFIX));
+    
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private static final int FILE_BUFFER_SIZE = 1 << 16;
+    
+    @Autowired
+    private PortfolioPositionBulkRepository bulkRepository;
+    
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private ImportProperties importProperties;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Write all positions into a new snapshot file. Runs in a read only transaction, so the
+     * snapshot is consistent and the rows are streamed through a cursor.
+     *
+     * @return name, size, row count and duration of the new snapshot
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> createSnapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        Path directory = getSnapshotDirectory();
+        Files.createDirectories(directory);
+        
+        Instant createdAt = Instant.now();
+        String name = "positions-" + NAME_FORMAT.format(createdAt.atZone(ZoneId.systemDefault())) + FILE_SUFFIX;
+        Path file = directory.resolve(name);
+        Path partial = directory.resolve(name + ".partial");
+        
+        long rows;
+        try {
+            try (PositionSnapshotWriter writer = new PositionSnapshotWriter(
+                    new BufferedOutputStream(Files.newOutputStream(partial), FILE_BUFFER_SIZE), createdAt)) {
+                rows = bulkRepository.forEachRow(writer);
+            }
+            // Only complete snapshots get the final name
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        
+        long duration = System.currentTimeMillis() - start;
+        long size = Files.size(file);
+        logger.info("Created snapshot {} with {} positions ({} bytes) in {} ms", name, rows, size, duration);
+        
+        Map<String, Object> snapshot = describe(file);
+        snapshot.put("rowCount", rows);
+        snapshot.put("durationMs", duration);
+        return snapshot;
+    }
+    
+    /**
+     * Snapshots in the snapshot directory, newest first.
+     */
+    public List<Map<String, Object>> listSnapshots() throws IOException {
+        Path directory = getSnapshotDirectory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> NAME_PATTERN.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+        
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        for (Path file : files) {
+            snapshots.add(describe(file));
+        }
+        return snapshots;
+    }
+    
+    /**
+     * Find a snapshot file by name. Names are restricted to plain file names in the snapshot directory.
+     */
+    public Optional<Path> findSnapshot(String name) {
+        if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = getSnapshotDirectory().resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+    
+    /**
+     * Replace all positions with the content of a snapshot. The table is truncated and the rows are
+     * copied in with their original ids in one transaction, a damaged snapshot leaves the current data
+     * untouched. The import ledger is cleared as for any complete reload.
+     *
+     * @return row count, duration and the refreshed materialized views
+     */
+    @Transactional
+    public Map<String, Object> restoreSnapshot(Path file) throws IOException {
+        long start = System.currentTimeMillis();
+        logger.warn("Restoring all portfolio positions from snapshot {}", file.getFileName());
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), FILE_BUFFER_SIZE);
+             PositionSnapshotReader reader = new PositionSnapshotReader(input)) {
+            bulkRepository.truncateAll();
+            checkpointRepository.deleteAllInBatch();
+            
+            long rows = bulkRepository.copyRows(PortfolioPositionBulkRepository.TABLE_NAME, reader::readInto);
+            bulkRepository.advanceSequencePastMaxId();
+            List<String> refreshedViews = bulkRepository.refreshDependentViews();
+            eventPublisher.publishEvent(new PositionsChangedEvent("restore " + file.getFileName()));
+            
+            result.put("name", file.getFileName().toString());
+            result.put("createdAt", LocalDateTime.ofInstant(reader.getCreatedAt(), ZoneId.systemDefault()));
+            result.put("rowCount", rows);
+            result.put("refreshedViews", refreshedViews);
+        }
+        
+        long duration = System.currentTimeMillis() - start;
+        result.put("durationMs", duration);
+        logger.info("Restored {} positions from snapshot {} in {} ms", result.get("rowCount"), file.getFileName(), duration);
+        return result;
+    }
+    
+    private Path getSnapshotDirectory() {
+        return Paths.get(importProperties.getSnapshotDirectory()).toAbsolutePath();
+    }
+    
+    private Map<String, Object> describe(Path file) throws IOException {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("name", file.getFileName().toString());
+        snapshot.put("sizeBytes", Files.size(file));
+        snapshot.put("lastModified", LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault()));
+        return snapshot;
+    }
+}
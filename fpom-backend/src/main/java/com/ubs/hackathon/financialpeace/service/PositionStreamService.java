@@ -0,0 +1,85 @@
+package com.ubs.hackathon.financialpeace.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes large position query results as NDJSON (one JSON object per line) while the rows are fetched.
+ * The query runs in a read only transaction on the async response thread, every position is detached after it
+ * was written, so neither the persistence context nor the response grows with the size of the result.
+ */
+@Service
+public class PositionStreamService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PositionStreamService.class);
+    
+    /**
+     * Positions written between flushes of the response, like the fetch size of the streaming queries
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Response body writing the positions of a streaming repository query as NDJSON.
+     *
+     * @param description names the query in the log
+     * @param query       opens the stream, called inside the transaction when the response is written
+     */
+    public StreamingResponseBody ndjson(String description, Supplier<Stream<PortfolioPosition>> query) {
+        return out -> {
+            long start = System.nanoTime();
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            long written = readOnly.execute(status -> {
+                try (Stream<PortfolioPosition> positions = query.get();
+                     JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    // Flushed every FLUSH_INTERVAL positions instead of after every one
+                    ObjectWriter writer = objectMapper.writerFor(PortfolioPosition.class)
+                            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                    // The servlet container closes the response stream
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    long count = 0;
+                    for (Iterator<PortfolioPosition> it = positions.iterator(); it.hasNext(); ) {
+                        PortfolioPosition position = it.next();
+                        writer.writeValue(generator, position);
+                        generator.writeRaw('\n');
+                        entityManager.detach(position);
+                        if (++count % FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("Streamed {} positions of {} in {} ms", written, description, (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.ubs.hackathon.financialpeace.service;
+
+/**
+ * Published after the content of the "portfolio_positions" table changed (import, restore, clear or a
+ * single position written through the API), so in-memory copies of the positions can be reloaded.
+ *
+ * @param reason what changed the positions, for logging
+ */
+public record PositionsChangedEvent(String reason) {
+}
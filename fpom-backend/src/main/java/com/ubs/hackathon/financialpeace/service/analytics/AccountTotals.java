@@ -0,0 +1,200 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ubs.hackathon.financialpeace.service.analytics.FixedPoint.AMOUNT_SCALE;
+import static com.ubs.hackathon.financialpeace.service.analytics.FixedPoint.FX_RATE_SCALE;
+
+/**
+ * Aggregates of the positions of one account for the account details: value per currency, value in CHF,
+ * positions per asset class, largest position and FX exposure. Computed in a single pass with {@link FixedPoint}
+ * amounts, a position costs a few primitive additions after the conversion of its amount and FX rate, whose
+ * short-lived {@code BigDecimal}s are usually removed by escape analysis; the results are converted to
+ * {@link BigDecimal} when read, with the same values and scales as the former {@code BigDecimal} arithmetic.
+ * <p>
+ * Accounts hold few currencies and asset classes, their groups are found by a linear scan.
+ * Positions without currency are left out of the currency totals.
+ */
+public final class AccountTotals {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    /**
+     * Concentration is a share rounded to 4 decimals
+     */
+    private static final int SHARE_SCALE = 4;
+    private static final long SHARE_ONE = 10_000;
+    private static final long SHARE_LIMIT = Long.MAX_VALUE / SHARE_ONE;
+
+    private String[] currencies = new String[4];
+    private long[] currencyTotals = new long[4];
+    private int[] currencyAmounts = new int[4];
+    private int currencyCount;
+
+    private String[] assetClasses = new String[8];
+    private long[] assetClassPositions = new long[8];
+    private int assetClassCount;
+
+    private final FixedPoint.ProductSum valueChf = new FixedPoint.ProductSum();
+    private long largestAmount;
+    private boolean hasAmount;
+    private boolean fxExposure;
+    private int positionCount;
+
+    public static AccountTotals of(List<PortfolioPosition> positions) {
+        AccountTotals totals = new AccountTotals();
+        for (PortfolioPosition position : positions) {
+            totals.add(position);
+        }
+        return totals;
+    }
+
+    public void add(PortfolioPosition position) {
+        positionCount++;
+        BigDecimal valueAmount = position.getValueAmount();
+        long amount = valueAmount != null ? FixedPoint.toUnscaled(valueAmount, AMOUNT_SCALE) : 0;
+        if (valueAmount != null) {
+            if (!hasAmount || amount > largestAmount) {
+                largestAmount = amount;
+                hasAmount = true;
+            }
+            if (position.getFxRate() != null) {
+                valueChf.add(amount, FixedPoint.toUnscaled(position.getFxRate(), FX_RATE_SCALE));
+            }
+        }
+
+        String currency = position.getValueCurrency();
+        if (currency != null) {
+            int group = currencyGroup(currency);
+            currencyTotals[group] = Math.addExact(currencyTotals[group], amount);
+            if (valueAmount != null) {
+                currencyAmounts[group]++;
+            }
+            if (!fxExposure && position.getSourceCurrency() != null && !currency.equals(position.getSourceCurrency())) {
+                fxExposure = true;
+            }
+        }
+
+        String assetClass = position.getAssetClassDescriptionShort();
+        if (assetClass != null) {
+            assetClassPositions[assetClassGroup(assetClass)]++;
+        }
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    public int getCurrencyCount() {
+        return currencyCount;
+    }
+
+    public int getAssetClassCount() {
+        return assetClassCount;
+    }
+
+    public boolean hasFxExposure() {
+        return fxExposure;
+    }
+
+    /**
+     * Value per currency, zero without scale for a currency whose positions all lack an amount.
+     */
+    public Map<String, BigDecimal> getTotalsByCurrency() {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (int i = 0; i < currencyCount; i++) {
+            totals.put(currencies[i], currencyAmounts[i] > 0
+                    ? FixedPoint.toBigDecimal(currencyTotals[i], AMOUNT_SCALE)
+                    : BigDecimal.ZERO);
+        }
+        return totals;
+    }
+
+    public Map<String, Long> getAssetClassBreakdown() {
+        Map<String, Long> breakdown = new HashMap<>();
+        for (int i = 0; i < assetClassCount; i++) {
+            breakdown.put(assetClasses[i], assetClassPositions[i]);
+        }
+        return breakdown;
+    }
+
+    /**
+     * Sum of value amount times FX rate over the positions having both, at the scale of the exact product;
+     * null unless positive.
+     */
+    public BigDecimal getTotalValueChf() {
+        return valueChf.signum() > 0 ? valueChf.toBigDecimal(AMOUNT_SCALE + FX_RATE_SCALE) : null;
+    }
+
+    /**
+     * Currency with the highest total, the first one seen on a tie.
+     */
+    public String getPrimaryCurrency() {
+        int primary = -1;
+        for (int i = 0; i < currencyCount; i++) {
+            if (primary < 0 || currencyTotals[i] > currencyTotals[primary]) {
+                primary = i;
+            }
+        }
+        return primary >= 0 ? currencies[primary] : null;
+    }
+
+    /**
+     * Largest position as percentage of the total value over all currencies, the share rounded half up to
+     * 4 decimals; zero unless the total is positive.
+     */
+    public BigDecimal getConcentrationRisk() {
+        long total = 0;
+        for (int i = 0; i < currencyCount; i++) {
+            total = Math.addExact(total, currencyTotals[i]);
+        }
+        if (total <= 0) {
+            return BigDecimal.ZERO;
+        }
+        long largest = hasAmount ? largestAmount : 0;
+        BigDecimal share;
+        if (largest > -SHARE_LIMIT && largest < SHARE_LIMIT) {
+            share = FixedPoint.toBigDecimal(FixedPoint.divideHalfUp(largest * SHARE_ONE, total), SHARE_SCALE);
+        } else {
+            share = FixedPoint.toBigDecimal(largest, AMOUNT_SCALE)
+                    .divide(FixedPoint.toBigDecimal(total, AMOUNT_SCALE), SHARE_SCALE, RoundingMode.HALF_UP);
+        }
+        return share.multiply(HUNDRED);
+    }
+
+    private int currencyGroup(String currency) {
+        for (int i = 0; i < currencyCount; i++) {
+            if (currencies[i].equals(currency)) {
+                return i;
+            }
+        }
+        if (currencyCount == currencies.length) {
+            currencies = Arrays.copyOf(currencies, currencyCount * 2);
+            currencyTotals = Arrays.copyOf(currencyTotals, currencyCount * 2);
+            currencyAmounts = Arrays.copyOf(currencyAmounts, currencyCount * 2);
+        }
+        currencies[currencyCount] = currency;
+        return currencyCount++;
+    }
+
+    private int assetClassGroup(String assetClass) {
+        for (int i = 0; i < assetClassCount; i++) {
+            if (assetClasses[i].equals(assetClass)) {
+                return i;
+            }
+        }
+        if (assetClassCount == assetClasses.length) {
+            assetClasses = Arrays.copyOf(assetClasses, assetClassCount * 2);
+            assetClassPositions = Arrays.copyOf(assetClassPositions, assetClassCount * 2);
+        }
+        assetClasses[assetClassCount] = assetClass;
+        return assetClassCount++;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+/**
+ * One {@link RowBitmap} per value of a {@link DictionaryColumn}, the rows holding that value.
+ */
+final class BitmapIndex {
+
+    private final DictionaryColumn column;
+    private final RowBitmap[] bitmaps;
+
+    private BitmapIndex(DictionaryColumn column, RowBitmap[] bitmaps) {
+        this.column = column;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Index over the first {@code size} rows of the column, nulls are not indexed.
+     */
+    static BitmapIndex of(DictionaryColumn column, int size) {
+        // Counting sort of the rows by code, the rows of a code stay ascending
+        int valueCount = column.distinctCount();
+        int[] starts = new int[valueCount + 2];
+        for (int row = 0; row < size; row++) {
+            starts[column.code(row) + 1]++;
+        }
+        for (int code = 0; code <= valueCount; code++) {
+            starts[code + 1] += starts[code];
+        }
+        int[] rows = new int[size];
+        int[] next = starts.clone();
+        for (int row = 0; row < size; row++) {
+            rows[next[column.code(row)]++] = row;
+        }
+
+        RowBitmap[] bitmaps = new RowBitmap[valueCount];
+        for (int code = 0; code < valueCount; code++) {
+            bitmaps[code] = RowBitmap.of(rows, starts[code], starts[code + 1]);
+        }
+        return new BitmapIndex(column, bitmaps);
+    }
+
+    /**
+     * Rows holding the value, empty if no row does.
+     */
+    RowBitmap rows(String value) {
+        int code = column.find(value);
+        return code >= 0 && code < bitmaps.length ? bitmaps[code] : RowBitmap.empty();
+    }
+
+    long estimatedBytes() {
+        long bytes = 16 + 4L * bitmaps.length;
+        for (RowBitmap bitmap : bitmaps) {
+            bytes += bitmap.estimatedBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Allocates the per row columns of a {@link PositionColumnStore} in the configured {@link ColumnStorage}.
+ * Columns are int or long buffers read with absolute gets only, so heap arrays, direct buffers and mapped
+ * files are read the same way and by any number of threads; aggregations run on the buffers in place.
+ * <p>
+ * Direct and mapped memory is released when the garbage collector drops the buffers of a replaced store.
+ * Mapped files are unlinked right after mapping, so nothing is left on disk. The off heap bytes of one
+ * store are limited, a store that does not fit fails to load instead of exhausting native memory.
+ */
+public final class ColumnAllocator {
+
+    private final ColumnStorage storage;
+    private final Path directory;
+    private final long maxOffHeapBytes;
+    private long allocatedBytes;
+
+    /**
+     * @param directory       directory of the mapped files, only used with {@link ColumnStorage#MAPPED}
+     * @param maxOffHeapBytes limit of the direct or mapped bytes of one store
+     */
+    public ColumnAllocator(ColumnStorage storage, Path directory, long maxOffHeapBytes) {
+        this.storage = storage;
+        this.directory = directory;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+    }
+
+    public static ColumnAllocator heap() {
+        return new ColumnAllocator(ColumnStorage.HEAP, null, 0);
+    }
+
+    public ColumnStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Bytes of all columns allocated so far.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Column holding the first {@code count} values of the array.
+     */
+    IntBuffer ints(int[] values, int count) {
+        if (storage == ColumnStorage.HEAP) {
+            allocatedBytes += 4L * count;
+            return IntBuffer.wrap(values.length == count ? values : Arrays.copyOf(values, count));
+        }
+        return allocate(4L * count).asIntBuffer().put(0, values, 0, count);
+    }
+
+    /**
+     * Column holding the first {@code count} values of the array.
+     */
+    LongBuffer longs(long[] values, int count) {
+        if (storage == ColumnStorage.HEAP) {
+            allocatedBytes += 8L * count;
+            return LongBuffer.wrap(values.length == count ? values : Arrays.copyOf(values, count));
+        }
+        return allocate(8L * count).asLongBuffer().put(0, values, 0, count);
+    }
+
+    private ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Column of " + bytes + " bytes exceeds the 2 GB limit of a buffer");
+        }
+        if (allocatedBytes + bytes > maxOffHeapBytes) {
+            throw new IllegalStateException("Column store needs more than the configured maximum of " +
+                    (maxOffHeapBytes >> 20) + " MB " + storage.name().toLowerCase().replace('_', ' '));
+        }
+        allocatedBytes += bytes;
+        ByteBuffer buffer = storage == ColumnStorage.MAPPED ? map(bytes) : ByteBuffer.allocateDirect((int) bytes);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer map(long bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "column-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map a column file in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+/**
+ * Where the per row columns of the {@link PositionColumnStore} are kept.
+ */
+public enum ColumnStorage {
+
+    /**
+     * Java arrays on the heap
+     */
+    HEAP,
+
+    /**
+     * Direct buffers outside the heap, limited by -XX:MaxDirectMemorySize
+     */
+    OFF_HEAP,
+
+    /**
+     * Memory mapped files, paged in and out by the operating system
+     */
+    MAPPED
+}
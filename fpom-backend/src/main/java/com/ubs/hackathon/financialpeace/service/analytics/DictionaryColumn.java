@@ -0,0 +1,128 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoded string column of the {@link PositionColumnStore}. Every row holds the code of its value,
+ * the distinct values are kept once in sorted order, so codes compare like the values and aggregations group
+ * on dense int codes. Null is the code after the last value and therefore sorts last.
+ * The codes live in a buffer from the {@link ColumnAllocator}, the values always on the heap.
+ */
+final class DictionaryColumn {
+
+    private final String[] values;
+    private final IntBuffer codes;
+    private final boolean hasNulls;
+
+    private DictionaryColumn(String[] values, IntBuffer codes, boolean hasNulls) {
+        this.values = values;
+        this.codes = codes;
+        this.hasNulls = hasNulls;
+    }
+
+    int code(int row) {
+        return codes.get(row);
+    }
+
+    /**
+     * Code of null, also the number of distinct non null values.
+     */
+    int nullCode() {
+        return values.length;
+    }
+
+    /**
+     * Number of codes including the null code, the size of an array indexed by code.
+     */
+    int codeCount() {
+        return values.length + 1;
+    }
+
+    String value(int code) {
+        return code == values.length ? null : values[code];
+    }
+
+    /**
+     * Code of the value, -1 if no row holds it.
+     */
+    int find(String value) {
+        if (value == null) {
+            return hasNulls ? nullCode() : -1;
+        }
+        int code = Arrays.binarySearch(values, value);
+        return code >= 0 ? code : -1;
+    }
+
+    boolean hasNulls() {
+        return hasNulls;
+    }
+
+    /**
+     * Distinct non null values in sorted order.
+     */
+    int distinctCount() {
+        return values.length;
+    }
+
+    /**
+     * Approximate heap used by the values, the codes are accounted by the allocator.
+     */
+    long estimatedBytes() {
+        long bytes = 0;
+        for (String value : values) {
+            // String header, value array header and Latin-1 content
+            bytes += 40 + value.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Collects the values row by row with insertion order codes, which are remapped to sorted codes on build.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> lookup = new HashMap<>();
+        private String[] values = new String[16];
+        private int[] codes = new int[1024];
+        private int size;
+        private boolean hasNulls;
+
+        void add(String value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            if (value == null) {
+                hasNulls = true;
+                codes[size++] = -1;
+                return;
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = lookup.size();
+                lookup.put(value, code);
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                }
+                values[code] = value;
+            }
+            codes[size++] = code;
+        }
+
+        DictionaryColumn build(ColumnAllocator allocator) {
+            int distinct = lookup.size();
+            String[] sorted = Arrays.copyOf(values, distinct);
+            Arrays.sort(sorted);
+            int[] remap = new int[distinct];
+            for (int i = 0; i < distinct; i++) {
+                remap[lookup.get(sorted[i])] = i;
+            }
+            for (int row = 0; row < size; row++) {
+                codes[row] = codes[row] < 0 ? distinct : remap[codes[row]];
+            }
+            return new DictionaryColumn(sorted, allocator.ints(codes, size), hasNulls);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed point money for in-memory aggregations: an amount is a plain {@code long} holding the unscaled value
+ * at the scale of its column, so sums and comparisons run on primitives. Values are converted from and to
+ * {@link BigDecimal} only at the edges; {@link #toUnscaled} creates a short-lived {@code BigDecimal} per value,
+ * which the JIT usually removes by escape analysis.
+ * <p>
+ * The columns are numeric(19, s) but a long holds 18 full digits, values beyond
+ * {@code Long.MAX_VALUE / 10^scale} raise an {@link ArithmeticException} instead of being truncated.
+ */
+public final class FixedPoint {
+
+    /**
+     * Scale of "value_amount", "balance_amount" and "trade_amount"
+     */
+    public static final int AMOUNT_SCALE = 2;
+
+    /**
+     * Scale of "fx_rate"
+     */
+    public static final int FX_RATE_SCALE = 12;
+
+    private static final BigInteger TWO_TO_64 = BigInteger.ONE.shiftLeft(64);
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Unscaled value at the given scale, rounded half up like PostgreSQL rounds into a numeric column.
+     *
+     * @throws ArithmeticException if the value does not fit into a long at that scale
+     */
+    public static long toUnscaled(BigDecimal value, int scale) {
+        if (value.scale() <= scale) {
+            // the usual case of a value read from its column, no rounding and no BigInteger for a compact value
+            return value.movePointRight(scale).longValueExact();
+        }
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * {@code dividend / divisor} rounded half up (away from zero on a tie), like
+     * {@link BigDecimal#divide(BigDecimal, int, RoundingMode)} with {@link RoundingMode#HALF_UP}.
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Exact sum of products of two fixed point values, e.g. amounts times FX rates. The 128 bit accumulator
+     * cannot overflow for any realistic number of products, the scale of the result is the sum of the scales.
+     */
+    public static final class ProductSum {
+
+        private long high;
+        private long low;
+        private int count;
+
+        public void add(long left, long right) {
+            long productLow = left * right;
+            long productHigh = Math.multiplyHigh(left, right);
+            long sumLow = low + productLow;
+            high += productHigh + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+            low = sumLow;
+            count++;
+        }
+
+        /**
+         * Number of products added
+         */
+        public int count() {
+            return count;
+        }
+
+        public int signum() {
+            if (high != 0) {
+                return high < 0 ? -1 : 1;
+            }
+            return low != 0 ? 1 : 0;
+        }
+
+        public BigDecimal toBigDecimal(int scale) {
+            if (high == 0 && low >= 0 || high == -1 && low < 0) {
+                return BigDecimal.valueOf(low, scale);
+            }
+            BigInteger unsignedLow = BigInteger.valueOf(low);
+            if (low < 0) {
+                unsignedLow = unsignedLow.add(TWO_TO_64);
+            }
+            return new BigDecimal(BigInteger.valueOf(high).shiftLeft(64).add(unsignedLow), scale);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from a composite group key (several dictionary codes packed into a long) to a dense
+ * group number, so multi column GROUP BYs accumulate into plain arrays without boxing a key per row.
+ */
+final class GroupIndex {
+
+    private static final long EMPTY = -1;
+
+    private long[] slots = new long[64];
+    private int[] groups = new int[64];
+    private long[] keys = new long[16];
+    private int size;
+
+    GroupIndex() {
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Group number of the key, a new one for a key not seen before.
+     *
+     * @param key non negative packed key
+     */
+    int groupOf(long key) {
+        int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == key) {
+                return groups[slot];
+            }
+            if (slots[slot] == EMPTY) {
+                return add(key, slot);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long key(int group) {
+        return keys[group];
+    }
+
+    private int add(long key, int slot) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        slots[slot] = key;
+        groups[slot] = size;
+        if (++size * 2 > slots.length) {
+            resize();
+        }
+        return size - 1;
+    }
+
+    private void resize() {
+        long[] oldSlots = slots;
+        int[] oldGroups = groups;
+        slots = new long[oldSlots.length * 2];
+        groups = new int[oldSlots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                int slot = hash(oldSlots[i]) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                groups[slot] = oldGroups[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
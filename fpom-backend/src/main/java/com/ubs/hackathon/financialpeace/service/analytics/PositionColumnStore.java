@@ -0,0 +1,414 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupTotalDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionFilterStatsDTO;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionRowHandler;
+import com.ubs.hackathon.financialpeace.model.PositionFilter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable in-memory copy of the position columns used by the analytics endpoints, stored column wise:
+ * the string columns as dictionary codes ({@link DictionaryColumn}) and the value amount as a long of cents
+ * (the scale of "value_amount"), so aggregations are exact and run over primitive columns. These per row
+ * columns are kept on the heap, in direct buffers or in mapped files ({@link ColumnStorage}). The columns of
+ * {@link PositionFilter#FILTER_COLUMNS} are also indexed with a {@link RowBitmap} per value, so multi criteria
+ * filters are answered by OR-ing and AND-ing bitmaps instead of scanning every row.
+ * <p>
+ * The query methods return the same projections as the corresponding {@code PortfolioPositionRepository} queries.
+ * Sums of groups without any amount are null, groups ordered by sum descending list them first and ties are
+ * broken by value; string values are ordered by {@link String#compareTo}, nulls last. Safe for concurrent
+ * readers, a changed table is loaded into a new store.
+ */
+public final class PositionColumnStore {
+
+    /**
+     * Scale of the value amounts, matches the "value_amount" column
+     */
+    static final int AMOUNT_SCALE = FixedPoint.AMOUNT_SCALE;
+
+    /**
+     * Marks a null amount, far outside the precision of the column
+     */
+    static final long NULL_AMOUNT = Long.MIN_VALUE;
+
+    private final int size;
+    private final DictionaryColumn partners;
+    private final DictionaryColumn accounts;
+    private final DictionaryColumn assetClasses;
+    private final DictionaryColumn currencies;
+    private final DictionaryColumn mandateTypes;
+    private final DictionaryColumn domiciles;
+    private final DictionaryColumn investmentStrategies;
+    private final LongBuffer valueAmounts;
+    private final ColumnStorage storage;
+    private final long columnBytes;
+    private final Map<PortfolioPositionColumn, BitmapIndex> indexes = new EnumMap<>(PortfolioPositionColumn.class);
+    private final Instant loadedAt;
+
+    private PositionColumnStore(Builder builder, ColumnAllocator allocator) {
+        size = builder.size;
+        partners = builder.partners.build(allocator);
+        accounts = builder.accounts.build(allocator);
+        assetClasses = builder.assetClasses.build(allocator);
+        currencies = builder.currencies.build(allocator);
+        mandateTypes = builder.mandateTypes.build(allocator);
+        domiciles = builder.domiciles.build(allocator);
+        investmentStrategies = builder.investmentStrategies.build(allocator);
+        valueAmounts = allocator.longs(builder.valueAmounts, builder.size);
+        storage = allocator.getStorage();
+        columnBytes = allocator.getAllocatedBytes();
+        indexes.put(PortfolioPositionColumn.PARTNER_ID_FAKE, BitmapIndex.of(partners, size));
+        indexes.put(PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT, BitmapIndex.of(assetClasses, size));
+        indexes.put(PortfolioPositionColumn.VALUE_CURRENCY, BitmapIndex.of(currencies, size));
+        indexes.put(PortfolioPositionColumn.MANDATE_TYPE, BitmapIndex.of(mandateTypes, size));
+        indexes.put(PortfolioPositionColumn.DOMICILE, BitmapIndex.of(domiciles, size));
+        indexes.put(PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME, BitmapIndex.of(investmentStrategies, size));
+        loadedAt = Instant.now();
+    }
+
+    public long count() {
+        return size;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public ColumnStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Approximate memory used by the columns, dictionaries and bitmap indexes, on and off the heap.
+     */
+    public long estimatedBytes() {
+        return estimatedHeapBytes() + offHeapBytes();
+    }
+
+    /**
+     * Approximate heap used by the dictionaries and bitmap indexes, and by the columns in heap storage.
+     */
+    public long estimatedHeapBytes() {
+        long bytes = partners.estimatedBytes() + accounts.estimatedBytes() + assetClasses.estimatedBytes()
+                + currencies.estimatedBytes() + mandateTypes.estimatedBytes() + domiciles.estimatedBytes()
+                + investmentStrategies.estimatedBytes();
+        for (BitmapIndex index : indexes.values()) {
+            bytes += index.estimatedBytes();
+        }
+        return storage == ColumnStorage.HEAP ? bytes + columnBytes : bytes;
+    }
+
+    /**
+     * Bytes of the columns in direct buffers or mapped files, 0 in heap storage.
+     */
+    public long offHeapBytes() {
+        return storage == ColumnStorage.HEAP ? 0 : columnBytes;
+    }
+
+    /**
+     * COUNT and SUM(value amount) of the positions matching the filter: the bitmaps of the accepted values
+     * of a column are OR-ed, the columns AND-ed, the minimum value is checked on the remaining rows only.
+     */
+    public PositionFilterStatsDTO getFilterStats(PositionFilter filter) {
+        long minAmount = NULL_AMOUNT;
+        if (filter.getMinValue() != null) {
+            BigDecimal minCents = filter.getMinValue().setScale(AMOUNT_SCALE, RoundingMode.CEILING).movePointRight(AMOUNT_SCALE);
+            if (minCents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+                return new PositionFilterStatsDTO(0, null);
+            }
+            // Above NULL_AMOUNT, so positions without amount never match a minimum
+            minAmount = minCents.max(BigDecimal.valueOf(NULL_AMOUNT + 1)).longValueExact();
+        }
+
+        long[] selected = selectedRows(filter);
+        long count = 0;
+        long sum = 0;
+        long amountCount = 0;
+        for (int word = 0; word < selected.length; word++) {
+            long bits = selected[word];
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long amount = valueAmounts.get(row);
+                if (amount < minAmount) {
+                    continue;
+                }
+                count++;
+                if (amount != NULL_AMOUNT) {
+                    sum = Math.addExact(sum, amount);
+                    amountCount++;
+                }
+            }
+        }
+        return new PositionFilterStatsDTO(count, amountCount > 0 ? FixedPoint.toBigDecimal(sum, AMOUNT_SCALE) : null);
+    }
+
+    /**
+     * Rows matching the column criteria of the filter as dense bitmap, bit {@code row % 64} of word {@code row / 64}.
+     */
+    private long[] selectedRows(PositionFilter filter) {
+        long[] selected = new long[(size + 63) >>> 6];
+        long[] columnRows = null;
+        boolean restricted = false;
+        for (Map.Entry<PortfolioPositionColumn, List<String>> criterion : filter.getValues().entrySet()) {
+            BitmapIndex index = indexes.get(criterion.getKey());
+            if (!restricted) {
+                for (String value : criterion.getValue()) {
+                    index.rows(value).orInto(selected);
+                }
+                restricted = true;
+                continue;
+            }
+            if (columnRows == null) {
+                columnRows = new long[selected.length];
+            } else {
+                Arrays.fill(columnRows, 0);
+            }
+            for (String value : criterion.getValue()) {
+                index.rows(value).orInto(columnRows);
+            }
+            for (int word = 0; word < selected.length; word++) {
+                selected[word] &= columnRows[word];
+            }
+        }
+        if (!restricted) {
+            Arrays.fill(selected, -1L);
+            if ((size & 63) != 0) {
+                selected[selected.length - 1] = (1L << size) - 1;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Total value per asset class ordered by total value descending.
+     */
+    public List<GroupTotalDTO> getTotalValueByAssetClass() {
+        Aggregate aggregate = aggregate(assetClasses, null, 0);
+        return aggregate.codesBySumDescending().mapToObj(code ->
+                new GroupTotalDTO(assetClasses.value(code), aggregate.sum(code))).toList();
+    }
+
+    /**
+     * Total value per value currency ordered by total value descending.
+     */
+    public List<GroupTotalDTO> getTotalValueByCurrency() {
+        Aggregate aggregate = aggregate(currencies, null, 0);
+        return aggregate.codesBySumDescending().mapToObj(code ->
+                new GroupTotalDTO(currencies.value(code), aggregate.sum(code))).toList();
+    }
+
+    /**
+     * Position count and total value per asset class of one partner ordered by total value descending.
+     */
+    public List<GroupSummaryDTO> getPortfolioSummaryByPartner(String partnerIdFake) {
+        int partner = partners.find(partnerIdFake);
+        if (partner < 0) {
+            return List.of();
+        }
+        Aggregate aggregate = aggregate(assetClasses, partners, partner);
+        return aggregate.codesBySumDescending().mapToObj(code ->
+                new GroupSummaryDTO(assetClasses.value(code), aggregate.counts[code], aggregate.sum(code))).toList();
+    }
+
+    public long countByPartnerIdFake(String partnerIdFake) {
+        int partner = partners.find(partnerIdFake);
+        if (partner < 0) {
+            return 0;
+        }
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (partners.code(row) == partner) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Summary per account, partner and value currency, ordered by account and currency.
+     */
+    public List<AccountSummaryDTO> getAccountSummary() {
+        long partnerCodes = partners.codeCount();
+        long currencyCodes = currencies.codeCount();
+        GroupIndex groups = new GroupIndex();
+        long[] counts = new long[64];
+        long[] sums = new long[64];
+        long[] amountCounts = new long[64];
+
+        for (int row = 0; row < size; row++) {
+            // Packed in result order, so sorting the keys sorts the groups
+            long key = ((long) accounts.code(row) * currencyCodes + currencies.code(row)) * partnerCodes + partners.code(row);
+            int group = groups.groupOf(key);
+            if (group == counts.length) {
+                counts = Arrays.copyOf(counts, group * 2);
+                sums = Arrays.copyOf(sums, group * 2);
+                amountCounts = Arrays.copyOf(amountCounts, group * 2);
+            }
+            counts[group]++;
+            long amount = valueAmounts.get(row);
+            if (amount != NULL_AMOUNT) {
+                sums[group] = Math.addExact(sums[group], amount);
+                amountCounts[group]++;
+            }
+        }
+
+        long[] keys = new long[groups.size()];
+        for (int group = 0; group < keys.length; group++) {
+            keys[group] = groups.key(group);
+        }
+        Arrays.sort(keys);
+        List<AccountSummaryDTO> result = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            int group = groups.groupOf(key);
+            result.add(new AccountSummaryDTO(
+                    accounts.value((int) (key / partnerCodes / currencyCodes)),
+                    partners.value((int) (key % partnerCodes)),
+                    counts[group],
+                    amountCounts[group] > 0 ? FixedPoint.toBigDecimal(sums[group], AMOUNT_SCALE) : null,
+                    currencies.value((int) (key / partnerCodes % currencyCodes))));
+        }
+        return result;
+    }
+
+    public List<String> findDistinctAssetClasses() {
+        return distinctValues(assetClasses);
+    }
+
+    public List<String> findDistinctCurrencies() {
+        return distinctValues(currencies);
+    }
+
+    public List<String> findDistinctMandateTypes() {
+        return distinctValues(mandateTypes);
+    }
+
+    public long countDistinctAccountIds() {
+        return accounts.distinctCount();
+    }
+
+    public long countDistinctPartnerIds() {
+        return partners.distinctCount();
+    }
+
+    /**
+     * Values of a column in order, null last if any row holds it (like SELECT DISTINCT ... ORDER BY).
+     */
+    private List<String> distinctValues(DictionaryColumn column) {
+        List<String> values = new ArrayList<>(column.codeCount());
+        for (int code = 0; code < column.distinctCount(); code++) {
+            values.add(column.value(code));
+        }
+        if (column.hasNulls()) {
+            values.add(null);
+        }
+        return values;
+    }
+
+    /**
+     * COUNT and SUM(value amount) per code of the group column, optionally only over the rows that hold
+     * filterCode in the filter column.
+     */
+    private Aggregate aggregate(DictionaryColumn groupColumn, DictionaryColumn filterColumn, int filterCode) {
+        int codeCount = groupColumn.codeCount();
+        long[] counts = new long[codeCount];
+        long[] sums = new long[codeCount];
+        long[] amountCounts = new long[codeCount];
+        for (int row = 0; row < size; row++) {
+            if (filterColumn != null && filterColumn.code(row) != filterCode) {
+                continue;
+            }
+            int code = groupColumn.code(row);
+            counts[code]++;
+            long amount = valueAmounts.get(row);
+            if (amount != NULL_AMOUNT) {
+                sums[code] = Math.addExact(sums[code], amount);
+                amountCounts[code]++;
+            }
+        }
+        return new Aggregate(counts, sums, amountCounts);
+    }
+
+    private record Aggregate(long[] counts, long[] sums, long[] amountCounts) {
+
+        BigDecimal sum(int code) {
+            return amountCounts[code] > 0 ? FixedPoint.toBigDecimal(sums[code], AMOUNT_SCALE) : null;
+        }
+
+        /**
+         * Codes of the non empty groups ordered like ORDER BY SUM(...) DESC in PostgreSQL (nulls first).
+         */
+        IntStream codesBySumDescending() {
+            return IntStream.range(0, counts.length)
+                    .filter(code -> counts[code] > 0)
+                    .boxed()
+                    .sorted(Comparator.<Integer, Boolean>comparing(code -> amountCounts[code] > 0)
+                            .thenComparing(code -> sums[code], Comparator.reverseOrder())
+                            .thenComparing(Comparator.naturalOrder()))
+                    .mapToInt(Integer::intValue);
+        }
+    }
+
+    /**
+     * Collects the rows of the positions table, see {@link PortfolioPositionRowHandler}.
+     */
+    public static final class Builder implements PortfolioPositionRowHandler {
+
+        private final DictionaryColumn.Builder partners = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder accounts = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder assetClasses = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder currencies = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder mandateTypes = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder domiciles = new DictionaryColumn.Builder();
+        private final DictionaryColumn.Builder investmentStrategies = new DictionaryColumn.Builder();
+        private long[] valueAmounts = new long[1024];
+        private int size;
+
+        @Override
+        public void onRow(long id, Object[] values) {
+            partners.add((String) values[PortfolioPositionColumn.PARTNER_ID_FAKE.ordinal()]);
+            accounts.add((String) values[PortfolioPositionColumn.ACCOUNT_ID_FAKE.ordinal()]);
+            assetClasses.add((String) values[PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT.ordinal()]);
+            currencies.add((String) values[PortfolioPositionColumn.VALUE_CURRENCY.ordinal()]);
+            mandateTypes.add((String) values[PortfolioPositionColumn.MANDATE_TYPE.ordinal()]);
+            domiciles.add((String) values[PortfolioPositionColumn.DOMICILE.ordinal()]);
+            investmentStrategies.add((String) values[PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME.ordinal()]);
+            if (size == valueAmounts.length) {
+                valueAmounts = Arrays.copyOf(valueAmounts, size * 2);
+            }
+            valueAmounts[size++] = toCents((BigDecimal) values[PortfolioPositionColumn.VALUE_AMOUNT.ordinal()]);
+        }
+
+        public PositionColumnStore build() {
+            return build(ColumnAllocator.heap());
+        }
+
+        /**
+         * Store with its columns in the storage of the allocator. Consumes the builder.
+         */
+        public PositionColumnStore build(ColumnAllocator allocator) {
+            return new PositionColumnStore(this, allocator);
+        }
+
+        private static long toCents(BigDecimal amount) {
+            if (amount == null) {
+                return NULL_AMOUNT;
+            }
+            return FixedPoint.toUnscaled(amount, AMOUNT_SCALE);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+/**
+ * Compressed set of row numbers in the layout of a roaring bitmap: the rows are split into chunks of 65536,
+ * a chunk with few rows keeps them as a sorted array of 16 bit offsets, a fuller one as a plain bitmap of
+ * 1024 words. Empty chunks take no space, so a rare value costs about 2 bytes per row and a frequent one
+ * at most 1 bit per row.
+ * <p>
+ * Queries OR and AND bitmaps into a dense word array over all rows of the store ({@link #orInto}).
+ */
+final class RowBitmap {
+
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Above this many rows a chunk is smaller as bitmap (8 KB) than as array
+     */
+    static final int MAX_ARRAY_CARDINALITY = 4096;
+
+    private static final int CHUNK_WORDS = CHUNK_SIZE / 64;
+
+    private static final RowBitmap EMPTY = new RowBitmap(new int[0], new Object[0], 0);
+
+    /**
+     * Chunk number of every non empty chunk, ascending
+     */
+    private final int[] chunks;
+
+    /**
+     * char[] (sorted offsets) or long[] (bitmap) per chunk
+     */
+    private final Object[] containers;
+
+    private final int cardinality;
+
+    private RowBitmap(int[] chunks, Object[] containers, int cardinality) {
+        this.chunks = chunks;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    static RowBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Bitmap of the rows {@code rows[from]} to {@code rows[to - 1]}, which must be ascending.
+     */
+    static RowBitmap of(int[] rows, int from, int to) {
+        int chunkCount = 0;
+        for (int i = from; i < to; i++) {
+            if (i == from || rows[i] >>> CHUNK_BITS != rows[i - 1] >>> CHUNK_BITS) {
+                chunkCount++;
+            }
+        }
+        int[] chunks = new int[chunkCount];
+        Object[] containers = new Object[chunkCount];
+        int chunk = 0;
+        for (int start = from; start < to; chunk++) {
+            int chunkNumber = rows[start] >>> CHUNK_BITS;
+            int end = start;
+            while (end < to && rows[end] >>> CHUNK_BITS == chunkNumber) {
+                end++;
+            }
+            chunks[chunk] = chunkNumber;
+            containers[chunk] = end - start <= MAX_ARRAY_CARDINALITY
+                    ? arrayContainer(rows, start, end)
+                    : bitmapContainer(rows, start, end);
+            start = end;
+        }
+        return new RowBitmap(chunks, containers, to - from);
+    }
+
+    private static char[] arrayContainer(int[] rows, int start, int end) {
+        char[] offsets = new char[end - start];
+        for (int i = start; i < end; i++) {
+            offsets[i - start] = (char) rows[i];
+        }
+        return offsets;
+    }
+
+    private static long[] bitmapContainer(int[] rows, int start, int end) {
+        long[] words = new long[CHUNK_WORDS];
+        for (int i = start; i < end; i++) {
+            int offset = rows[i] & (CHUNK_SIZE - 1);
+            words[offset >>> 6] |= 1L << offset;
+        }
+        return words;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Set the bits of the rows of this bitmap in the dense word array (bit {@code row % 64} of word
+     * {@code row / 64}), which must cover all rows of the bitmap.
+     */
+    void orInto(long[] words) {
+        for (int i = 0; i < chunks.length; i++) {
+            int base = chunks[i] * CHUNK_WORDS;
+            if (containers[i] instanceof long[] bitmap) {
+                int length = Math.min(CHUNK_WORDS, words.length - base);
+                for (int word = 0; word < length; word++) {
+                    words[base + word] |= bitmap[word];
+                }
+            } else {
+                for (char offset : (char[]) containers[i]) {
+                    words[base + (offset >>> 6)] |= 1L << offset;
+                }
+            }
+        }
+    }
+
+    long estimatedBytes() {
+        long bytes = 32 + 4L * chunks.length + 4L * containers.length;
+        for (Object container : containers) {
+            bytes += 16 + (container instanceof long[] bitmap ? 8L * bitmap.length : 2L * ((char[]) container).length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.CashPosition;
+
+import java.util.List;
+
+/**
+ * Maps the columns of the cash positions Excel export (35 columns) to {@link CashPosition} by header name.
+ */
+public final class CashPositionRowMapper {
+
+    /**
+     * Field registry in the column order of the Excel export
+     */
+    public static final ColumnMapping<CashPosition> MAPPING = ColumnMapping.<CashPosition>builder(CashPosition::new)
+            .string("Client ID Fake", "clientIdFake", CashPosition::setClientIdFake)
+            .string("Account ID Fake", "accountIdFake", CashPosition::setAccountIdFake)
+            .dateTime("AOF_DT", "asOfDate", CashPosition::setAsOfDate)
+            .currency("CUR_ISO_CD", "currencyIsoCode", CashPosition::setCurrencyIsoCode)
+            .decimal("Balance Orig", "balanceOriginal", CashPosition::setBalanceOriginal)
+            .decimal("Balance CHF", "balanceChf", CashPosition::setBalanceChf)
+            .string("Account Value Type", "accountValueTypeId", CashPosition::setAccountValueTypeId)
+            .string("Asset Class ID", "assetClassId", CashPosition::setAssetClassId)
+            .string("Account", "accountName", CashPosition::setAccountName)
+            .string("Account Detail", "accountDetail", CashPosition::setAccountDetail)
+            .string("PORTFOLIO_FLG", "portfolioFlag", CashPosition::setPortfolioFlag)
+            // Second "Account Value Type" column holds the name, the first one the code
+            .string("Account Value Type", "accountValueType", CashPosition::setAccountValueType)
+            .currency("Account Currency", "accountCurrency", CashPosition::setAccountCurrency)
+            .string("Currency Type", "currencyType", CashPosition::setCurrencyType)
+            .string("Product Type", "productType", CashPosition::setProductType)
+            .string("Pricing Type", "pricingType", CashPosition::setPricingType)
+            .string("Mandate Type", "mandateType", CashPosition::setMandateType)
+            .string("Mandate Pricing Type", "mandatePricingType", CashPosition::setMandatePricingType)
+            .string("Mandata Pricing Description Short", "mandatePricingDescriptionShort", CashPosition::setMandatePricingDescriptionShort)
+            .string("Mandata Pricing Description Long", "mandatePricingDescriptionLong", CashPosition::setMandatePricingDescriptionLong)
+            // Second "Mandate Pricing Type" column holds the description, the first one the code
+            .string("Mandate Pricing Type", "mandatePricingTypeDescription", CashPosition::setMandatePricingTypeDescription)
+            .string("Mandate Family", "mandateFamily", CashPosition::setMandateFamily)
+            .string("Strategy Type", "strategyType", CashPosition::setStrategyType)
+            .string("Strategy Description", "strategyDescription", CashPosition::setStrategyDescription)
+            .string("Solution Type", "solutionType", CashPosition::setSolutionType)
+            .string("Solution Description", "solutionDescription", CashPosition::setSolutionDescription)
+            .string("Solution Description Short", "solutionDescriptionShort", CashPosition::setSolutionDescriptionShort)
+            .string("Solution Description Long", "solutionDescriptionLong", CashPosition::setSolutionDescriptionLong)
+            .string("Contract Type", "contractType", CashPosition::setContractType)
+            .string("Contract Subtype", "contractSubtype", CashPosition::setContractSubtype)
+            .string("Mandate Group", "mandateGroup", CashPosition::setMandateGroup)
+            .string("Country Code", "countryCode", CashPosition::setCountryCode)
+            .integer("CA ID (Fake)", "clientAdvisorIdFake", CashPosition::setClientAdvisorIdFake)
+            .string("Region Level 1", "regionLevel1", CashPosition::setRegionLevel1)
+            .string("Region Level 2", "regionLevel2", CashPosition::setRegionLevel2)
+            .build();
+
+    private CashPositionRowMapper() {
+    }
+
+    /**
+     * Mapping plan for the header of a file, empty for the column order of the Excel export.
+     *
+     * @throws IllegalArgumentException if the header contains none of the cash position columns
+     */
+    public static ColumnMappingPlan<CashPosition> plan(List<String> header) {
+        return plan(header, true);
+    }
+
+    /**
+     * Mapping plan for the header of a file.
+     *
+     * @param validateCodes reject rows with unknown currency codes
+     */
+    public static ColumnMappingPlan<CashPosition> plan(List<String> header, boolean validateCodes) {
+        return MAPPING.compile(header, 0, validateCodes);
+    }
+}
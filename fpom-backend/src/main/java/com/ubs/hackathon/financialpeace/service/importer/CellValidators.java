@@ -0,0 +1,131 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validating cell readers used by the {@link ColumnMappingPlan}. A blank cell reads as null, a cell that
+ * holds a value which does not convert to the type of its column rejects the row with a
+ * {@link RowRejectedException}.
+ */
+final class CellValidators {
+
+    private static final Set<String> CURRENCY_CODES = Currency.getAvailableCurrencies().stream()
+            .map(Currency::getCurrencyCode)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private CellValidators() {
+    }
+
+    static BigDecimal decimal(ImportRow row, int column, String header) {
+        BigDecimal value = row.getDecimal(column);
+        if (value != null) {
+            return value;
+        }
+        String raw = raw(row, column);
+        if (raw == null) {
+            return null;
+        }
+        // Numbers stored as text cells
+        try {
+            return ImportValues.parseDecimal(raw);
+        } catch (NumberFormatException e) {
+            throw new RowRejectedException(RejectReason.INVALID_NUMBER, header, raw);
+        }
+    }
+
+    static Integer integer(ImportRow row, int column, String header) {
+        Integer value = row.getInteger(column);
+        if (value != null) {
+            return value;
+        }
+        String raw = raw(row, column);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return ImportValues.parseDecimal(raw).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new RowRejectedException(RejectReason.INVALID_NUMBER, header, raw);
+        }
+    }
+
+    static LocalDateTime dateTime(ImportRow row, int column, String header) {
+        LocalDateTime value = row.getDateTime(column);
+        if (value != null) {
+            return value;
+        }
+        String raw = raw(row, column);
+        if (raw == null) {
+            return null;
+        }
+        throw new RowRejectedException(RejectReason.INVALID_DATE, header, raw);
+    }
+
+    static String currency(ImportRow row, int column, StringDictionary dictionary, String header) {
+        String value = row.getString(column, dictionary);
+        if (value != null && !value.isEmpty() && !CURRENCY_CODES.contains(value)) {
+            throw new RowRejectedException(RejectReason.INVALID_CURRENCY, header, value);
+        }
+        return value;
+    }
+
+    static String isin(ImportRow row, int column, String header) {
+        String value = row.getString(column);
+        if (value != null && !value.isEmpty() && !isValidIsin(value)) {
+            throw new RowRejectedException(RejectReason.INVALID_ISIN, header, value);
+        }
+        return value;
+    }
+
+    /**
+     * ISO 6166 check: two letter country code, nine alphanumeric characters and a check digit that
+     * satisfies the Luhn algorithm over the digits of the code, letters counting as 10 (A) to 35 (Z).
+     */
+    static boolean isValidIsin(String isin) {
+        if (isin.length() != 12 || !isUpperLetter(isin.charAt(0)) || !isUpperLetter(isin.charAt(1))) {
+            return false;
+        }
+        int sum = 0;
+        boolean doubled = false;
+        // Luhn runs from the check digit to the left, a letter contributes two digits
+        for (int i = 11; i >= 0; i--) {
+            char c = isin.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sum += luhnDigit(c - '0', doubled);
+                doubled = !doubled;
+            } else if (isUpperLetter(c) && i < 11) {
+                int value = c - 'A' + 10;
+                sum += luhnDigit(value % 10, doubled);
+                sum += luhnDigit(value / 10, !doubled);
+            } else {
+                return false;
+            }
+        }
+        return sum % 10 == 0;
+    }
+
+    private static int luhnDigit(int digit, boolean doubled) {
+        if (!doubled) {
+            return digit;
+        }
+        int value = digit * 2;
+        return value > 9 ? value - 9 : value;
+    }
+
+    private static boolean isUpperLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Non-blank raw value of a cell, null for blank cells. Numeric sheet cells keep their fraction, so a
+     * 12.7 in an integer column is rejected instead of read as 12.
+     */
+    private static String raw(ImportRow row, int column) {
+        String raw = row.getRaw(column);
+        return raw == null || raw.isEmpty() ? null : raw;
+    }
+}
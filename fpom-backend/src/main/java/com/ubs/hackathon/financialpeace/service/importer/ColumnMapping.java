@@ -0,0 +1,204 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Header driven mapping of source columns to the fields of an import target.
+ * <p>
+ * Fields are registered once by their header name together with a typed setter. For every file the
+ * registry is compiled against the actual header into a {@link ColumnMappingPlan}, so reordered columns
+ * are found by name and additional columns are ignored. Header names that occur more than once bind in
+ * registration order: the first registration of a name binds its first occurrence, the second
+ * registration the second occurrence and so on.
+ * <p>
+ * Numeric and date cells that hold a value of the wrong type always reject their row. Currency codes and
+ * ISINs are checked only if the plan is compiled with code validation.
+ *
+ * @param <T> type of the import target
+ */
+public final class ColumnMapping<T> {
+
+    enum Type {
+        STRING, DECIMAL, INTEGER, DATE_TIME, CURRENCY, ISIN
+    }
+
+    /**
+     * One registered field.
+     *
+     * @param occurrence zero based occurrence of the header name the field binds to
+     * @param encoded    string values are shared through the import dictionary
+     */
+    record Binding<T>(String header, int occurrence, Type type, BiConsumer<T, ?> setter, String fieldName,
+                      boolean encoded) {
+    }
+
+    private final Supplier<T> factory;
+    private final List<Binding<T>> bindings;
+    private final List<String> defaultHeader;
+
+    private ColumnMapping(Supplier<T> factory, List<Binding<T>> bindings, List<String> defaultHeader) {
+        this.factory = factory;
+        this.bindings = bindings;
+        this.defaultHeader = defaultHeader;
+    }
+
+    public static <T> Builder<T> builder(Supplier<T> factory) {
+        return new Builder<>(factory);
+    }
+
+    /**
+     * Header of the reference layout, one entry per registered field in registration order.
+     * Used for sources without a header row.
+     */
+    public List<String> getDefaultHeader() {
+        return defaultHeader;
+    }
+
+    /**
+     * Compile the mapping against the header of a file, with validation of currency codes and ISINs.
+     *
+     * @see #compile(List, int, boolean)
+     */
+    public ColumnMappingPlan<T> compile(List<String> header, int maxDictionaryEntries) {
+        return compile(header, maxDictionaryEntries, true);
+    }
+
+    /**
+     * Compile the mapping against the header of a file.
+     *
+     * @param header              column names of the file, empty to use the reference layout
+     * @param maxDictionaryEntries distinct values kept per encoded column, 0 disables the dictionary
+     * @param validateCodes       reject rows with unknown currency codes or ISINs with a wrong check digit
+     * @throws IllegalArgumentException if none of the registered columns is found in the header
+     */
+    public ColumnMappingPlan<T> compile(List<String> header, int maxDictionaryEntries, boolean validateCodes) {
+        List<String> columns = header.isEmpty() ? defaultHeader : header;
+        List<String> normalized = columns.stream().map(ColumnMapping::normalize).toList();
+
+        List<ColumnMappingPlan.Step<T>> steps = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        boolean[] bound = new boolean[columns.size()];
+        StringDictionary dictionary = new StringDictionary(maxDictionaryEntries);
+        for (Binding<T> binding : bindings) {
+            int columnIndex = indexOf(normalized, normalize(binding.header()), binding.occurrence());
+            if (columnIndex < 0) {
+                missing.add(binding.header());
+                continue;
+            }
+            bound[columnIndex] = true;
+            steps.add(new ColumnMappingPlan.Step<>(columnIndex, binding));
+            if (binding.encoded()) {
+                dictionary.column(columnIndex, binding.fieldName());
+            }
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("None of the expected columns found in header " + columns);
+        }
+
+        List<String> ignored = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!bound[i] && columns.get(i) != null && !columns.get(i).isBlank()) {
+                ignored.add(columns.get(i));
+            }
+        }
+        return new ColumnMappingPlan<>(factory, steps, dictionary, missing, ignored, validateCodes);
+    }
+
+    /**
+     * Index of the n-th occurrence of a name, -1 if the header has fewer occurrences.
+     */
+    private static int indexOf(List<String> header, String name, int occurrence) {
+        int seen = 0;
+        for (int i = 0; i < header.size(); i++) {
+            if (name.equals(header.get(i)) && seen++ == occurrence) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Header names are compared case insensitively and ignoring surrounding and repeated whitespace.
+     */
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public static final class Builder<T> {
+
+        private final Supplier<T> factory;
+        private final List<Binding<T>> bindings = new ArrayList<>();
+
+        private Builder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Free text or identifier column, every cell keeps its own String.
+         */
+        public Builder<T> string(String header, String fieldName, BiConsumer<T, String> setter) {
+            return add(header, Type.STRING, setter, fieldName, false);
+        }
+
+        /**
+         * Low cardinality string column, values are shared through the import dictionary.
+         */
+        public Builder<T> dictionaryString(String header, String fieldName, BiConsumer<T, String> setter) {
+            return add(header, Type.STRING, setter, fieldName, true);
+        }
+
+        /**
+         * ISO 4217 currency code column, dictionary encoded.
+         */
+        public Builder<T> currency(String header, String fieldName, BiConsumer<T, String> setter) {
+            return add(header, Type.CURRENCY, setter, fieldName, true);
+        }
+
+        /**
+         * ISIN column, the check digit is verified.
+         */
+        public Builder<T> isin(String header, String fieldName, BiConsumer<T, String> setter) {
+            return add(header, Type.ISIN, setter, fieldName, false);
+        }
+
+        public Builder<T> decimal(String header, String fieldName, BiConsumer<T, BigDecimal> setter) {
+            return add(header, Type.DECIMAL, setter, fieldName, false);
+        }
+
+        public Builder<T> integer(String header, String fieldName, BiConsumer<T, Integer> setter) {
+            return add(header, Type.INTEGER, setter, fieldName, false);
+        }
+
+        public Builder<T> dateTime(String header, String fieldName, BiConsumer<T, LocalDateTime> setter) {
+            return add(header, Type.DATE_TIME, setter, fieldName, false);
+        }
+
+        /**
+         * Column of the reference layout that is not imported (e.g. a duplicate). Keeps the occurrence count
+         * of its header name so later registrations of the same name bind to the following occurrence.
+         */
+        public Builder<T> ignore(String header) {
+            return add(header, null, null, null, false);
+        }
+
+        private Builder<T> add(String header, Type type, BiConsumer<T, ?> setter, String fieldName, boolean encoded) {
+            String name = normalize(header);
+            int occurrence = (int) bindings.stream().filter(b -> normalize(b.header()).equals(name)).count();
+            bindings.add(new Binding<>(header, occurrence, type, setter, fieldName, encoded));
+            return this;
+        }
+
+        public ColumnMapping<T> build() {
+            List<String> defaultHeader = bindings.stream().map(Binding::header).toList();
+            List<Binding<T>> fields = bindings.stream().filter(b -> b.type() != null).toList();
+            return new ColumnMapping<>(factory, Collections.unmodifiableList(fields), defaultHeader);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link ColumnMapping} compiled against the header of one file.
+ * <p>
+ * Every bound column becomes a method handle that reads the cell with the typed getter of its column and
+ * passes the value to the setter of its field. The handles of all columns are combined into one handle per
+ * plan, which is installed as a constant in a hidden class of its own ({@link CompiledMapper}). The JIT
+ * can then inline the getters and setters of every column, so a row is mapped without per-cell type
+ * dispatch or megamorphic setter calls, as fast as hand-written code.
+ * <p>
+ * Cells are read through the {@link CellValidators}, a row with an invalid cell is rejected with a
+ * {@link RowRejectedException} instead of being imported with an empty field.
+ * Immutable and safe to share between parser workers.
+ *
+ * @param <T> type of the import target
+ */
+public final class ColumnMappingPlan<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnMappingPlan.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle GET_STRING = findVirtual(ImportRow.class, "getString",
+            MethodType.methodType(String.class, int.class, StringDictionary.class));
+    private static final MethodHandle GET_PLAIN_STRING = findVirtual(ImportRow.class, "getString",
+            MethodType.methodType(String.class, int.class));
+    private static final MethodHandle GET_DECIMAL = findValidator("decimal",
+            MethodType.methodType(BigDecimal.class, ImportRow.class, int.class, String.class));
+    private static final MethodHandle GET_INTEGER = findValidator("integer",
+            MethodType.methodType(Integer.class, ImportRow.class, int.class, String.class));
+    private static final MethodHandle GET_DATE_TIME = findValidator("dateTime",
+            MethodType.methodType(LocalDateTime.class, ImportRow.class, int.class, String.class));
+    private static final MethodHandle GET_CURRENCY = findValidator("currency",
+            MethodType.methodType(String.class, ImportRow.class, int.class, StringDictionary.class, String.class));
+    private static final MethodHandle GET_ISIN = findValidator("isin",
+            MethodType.methodType(String.class, ImportRow.class, int.class, String.class));
+    private static final MethodHandle ACCEPT = findVirtual(BiConsumer.class, "accept",
+            MethodType.methodType(void.class, Object.class, Object.class));
+    private static final MethodHandle GET = findVirtual(Supplier.class, "get", MethodType.methodType(Object.class));
+
+    /**
+     * Registered field bound to its column in the file.
+     */
+    record Step<T>(int columnIndex, ColumnMapping.Binding<T> binding) {
+    }
+
+    private final StringDictionary dictionary;
+    private final List<String> missingColumns;
+    private final List<String> ignoredColumns;
+    private final boolean validateCodes;
+    private final Function<ImportRow, Object> mapper;
+
+    ColumnMappingPlan(Supplier<T> factory, List<Step<T>> steps, StringDictionary dictionary,
+                      List<String> missingColumns, List<String> ignoredColumns, boolean validateCodes) {
+        this.dictionary = dictionary;
+        this.validateCodes = validateCodes;
+        this.missingColumns = List.copyOf(missingColumns);
+        this.ignoredColumns = List.copyOf(ignoredColumns);
+        this.mapper = compile(mapperHandle(factory, steps));
+
+        if (!missingColumns.isEmpty()) {
+            logger.warn("Columns missing in header, fields stay empty: {}", missingColumns);
+        }
+        if (!ignoredColumns.isEmpty()) {
+            logger.info("Columns not mapped and ignored: {}", ignoredColumns);
+        }
+    }
+
+    /**
+     * Map a row to a new target.
+     *
+     * @throws RowRejectedException if a cell holds an invalid value or the row cannot be converted otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public T map(ImportRow row) {
+        try {
+            return (T) mapper.apply(row);
+        } catch (RowRejectedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.debug("Error converting row: {}", e.getMessage(), e);
+            throw new RowRejectedException(RejectReason.CONVERSION_ERROR, null, e.toString());
+        }
+    }
+
+    /**
+     * Dictionary of the encoded string columns, shared by all rows mapped with this plan.
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Registered header names not found in the file.
+     */
+    public List<String> getMissingColumns() {
+        return missingColumns;
+    }
+
+    /**
+     * Header names of the file that are not mapped to a field.
+     */
+    public List<String> getIgnoredColumns() {
+        return ignoredColumns;
+    }
+
+    /**
+     * Handle {@code (ImportRow) -> Object} that creates the target and runs the steps on it.
+     */
+    private MethodHandle mapperHandle(Supplier<T> factory, List<Step<T>> steps) {
+        MethodHandle[] columns = new MethodHandle[steps.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columnHandle(steps.get(i));
+        }
+        // (target, row) -> { all columns; return target; }
+        MethodHandle returnTarget = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, ImportRow.class);
+        MethodHandle fill = MethodHandles.foldArguments(returnTarget, sequence(columns, 0, columns.length));
+        // row -> fill(factory.get(), row)
+        return MethodHandles.foldArguments(fill, GET.bindTo(factory));
+    }
+
+    /**
+     * Handle {@code (target, row) -> void} reading one cell with the getter of its type into the setter.
+     */
+    private MethodHandle columnHandle(Step<T> step) {
+        int column = step.columnIndex();
+        String header = step.binding().header();
+        MethodHandle getter = switch (step.binding().type()) {
+            case STRING -> MethodHandles.insertArguments(GET_STRING, 1, column, dictionary);
+            case DECIMAL -> MethodHandles.insertArguments(GET_DECIMAL, 1, column, header);
+            case INTEGER -> MethodHandles.insertArguments(GET_INTEGER, 1, column, header);
+            case DATE_TIME -> MethodHandles.insertArguments(GET_DATE_TIME, 1, column, header);
+            case CURRENCY -> validateCodes
+                    ? MethodHandles.insertArguments(GET_CURRENCY, 1, column, dictionary, header)
+                    : MethodHandles.insertArguments(GET_STRING, 1, column, dictionary);
+            case ISIN -> validateCodes
+                    ? MethodHandles.insertArguments(GET_ISIN, 1, column, header)
+                    : MethodHandles.insertArguments(GET_PLAIN_STRING, 1, column);
+        };
+        MethodHandle setter = ACCEPT.bindTo(step.binding().setter());
+        return MethodHandles.filterArguments(setter, 1, getter.asType(MethodType.methodType(Object.class, ImportRow.class)));
+    }
+
+    /**
+     * Run the column handles {@code [from, to)} in order. Combined as a balanced tree to keep the
+     * nesting shallow enough for the JIT to inline all of it.
+     */
+    private static MethodHandle sequence(MethodHandle[] columns, int from, int to) {
+        if (to - from == 1) {
+            return columns[from];
+        }
+        int middle = (from + to) >>> 1;
+        return MethodHandles.foldArguments(sequence(columns, middle, to), sequence(columns, from, middle));
+    }
+
+    /**
+     * Install the handle as constant in a hidden copy of {@link CompiledMapper}. Falls back to invoking the
+     * handle directly (correct, but without inlining) if the template cannot be loaded.
+     */
+    private static Function<ImportRow, Object> compile(MethodHandle handle) {
+        try (InputStream template = CompiledMapper.class.getResourceAsStream("CompiledMapper.class")) {
+            if (template == null) {
+                throw new IOException("Class file of " + CompiledMapper.class.getName() + " not found");
+            }
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(template.readAllBytes(), handle, true);
+            @SuppressWarnings("unchecked")
+            Function<ImportRow, Object> compiled = (Function<ImportRow, Object>) hidden
+                    .findConstructor(hidden.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+            return compiled;
+        } catch (Throwable e) {
+            logger.warn("Column mapping not compiled, rows are mapped through the method handle: {}", e.getMessage());
+            return row -> {
+                try {
+                    return (Object) handle.invokeExact(row);
+                } catch (RuntimeException | Error error) {
+                    throw error;
+                } catch (Throwable error) {
+                    throw new IllegalStateException(error.getMessage(), error);
+                }
+            };
+        }
+    }
+
+    private static MethodHandle findValidator(String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(CellValidators.class, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle findVirtual(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findVirtual(owner, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.function.Function;
+
+/**
+ * Template of the class defined for every {@link ColumnMappingPlan}. Each plan defines its own hidden copy
+ * of this class with the mapping method handle as class data, so {@link #MAPPER} is a constant to the JIT
+ * and the whole handle tree down to the setters is inlined like hand-written code.
+ * <p>
+ * Never instantiated directly, the class itself has no class data.
+ */
+final class CompiledMapper implements Function<ImportRow, Object> {
+
+    private static final MethodHandle MAPPER = classData();
+
+    private static MethodHandle classData() {
+        try {
+            return MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Mapping handle not accessible", e);
+        }
+    }
+
+    @Override
+    public Object apply(ImportRow row) {
+        try {
+            return (Object) MAPPER.invokeExact(row);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ImportRow} over the UTF-8 bytes of a CSV record as collected by {@link CsvRowSource}.
+ * Blank fields read as null. Plain decimals, integers and ISO dates are parsed directly from the bytes
+ * without intermediate strings; anything unusual (exponents, long mantissas, other date forms) falls back
+ * to the string based parsers.
+ */
+public class CsvImportRow implements ImportRow {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportRow.class);
+
+    /**
+     * Digits that always fit into a long mantissa
+     */
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private final byte[] data;
+    private final int[] fieldEnds;
+
+    /**
+     * @param data      unescaped field contents of the record, back to back
+     * @param fieldEnds end offset of every field in {@code data}
+     */
+    CsvImportRow(byte[] data, int[] fieldEnds) {
+        this.data = data;
+        this.fieldEnds = fieldEnds;
+    }
+
+    private int start(int columnIndex) {
+        int start = columnIndex == 0 ? 0 : fieldEnds[columnIndex - 1];
+        int end = fieldEnds[columnIndex];
+        while (start < end && data[start] <= ' ' && data[start] >= 0) {
+            start++;
+        }
+        return start;
+    }
+
+    private int end(int columnIndex, int start) {
+        int end = fieldEnds[columnIndex];
+        while (end > start && data[end - 1] <= ' ' && data[end - 1] >= 0) {
+            end--;
+        }
+        return end;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        if (columnIndex >= fieldEnds.length) {
+            return null;
+        }
+        int start = start(columnIndex);
+        int end = end(columnIndex, start);
+        return start == end ? null : new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * String values of all fields, used for the header record.
+     */
+    List<String> getStrings() {
+        List<String> strings = new ArrayList<>(fieldEnds.length);
+        for (int i = 0; i < fieldEnds.length; i++) {
+            strings.add(getString(i));
+        }
+        return strings;
+    }
+
+    /**
+     * Dictionary encoded columns are looked up on the bytes, a repeated value creates no String.
+     */
+    @Override
+    public String getString(int columnIndex, StringDictionary dictionary) {
+        if (columnIndex >= fieldEnds.length) {
+            return null;
+        }
+        int start = start(columnIndex);
+        return dictionary.intern(columnIndex, data, start, end(columnIndex, start));
+    }
+
+    @Override
+    public BigDecimal getDecimal(int columnIndex) {
+        if (columnIndex >= fieldEnds.length) {
+            return null;
+        }
+        int start = start(columnIndex);
+        int end = end(columnIndex, start);
+        if (start == end) {
+            return null;
+        }
+
+        boolean negative = data[start] == '-';
+        int position = negative || data[start] == '+' ? start + 1 : start;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; position < end; position++) {
+            byte b = data[position];
+            if (b >= '0' && b <= '9') {
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (position == end && digits > 0 && digits <= MAX_FAST_DIGITS) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        try {
+            return ImportValues.parseDecimal(new String(data, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            logger.debug("Error converting field to BigDecimal at column {}: {}", columnIndex, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Integer getInteger(int columnIndex) {
+        BigDecimal value = getDecimal(columnIndex);
+        if (value == null) {
+            return null;
+        }
+        // Integer columns exported from Excel may carry a fraction like "1234.0", but "12.7" or a value out
+        // of the int range is no integer and must not be truncated
+        try {
+            return value.intValueExact();
+        } catch (ArithmeticException e) {
+            logger.debug("Field at column {} is not an integer: {}", columnIndex, value);
+            return null;
+        }
+    }
+
+    @Override
+    public LocalDateTime getDateTime(int columnIndex) {
+        if (columnIndex >= fieldEnds.length) {
+            return null;
+        }
+        int start = start(columnIndex);
+        int end = end(columnIndex, start);
+        if (start == end) {
+            return null;
+        }
+
+        LocalDateTime dateTime = parseIsoDateTime(start, end);
+        if (dateTime != null) {
+            return dateTime;
+        }
+        return ImportValues.parseDateTime(new String(data, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse "yyyy-MM-dd", optionally followed by "THH:mm[:ss[.fraction]]" and "Z".
+     *
+     * @return null if the field has another form
+     */
+    private LocalDateTime parseIsoDateTime(int start, int end) {
+        int length = end - start;
+        if (length < 10 || data[start + 4] != '-' || data[start + 7] != '-') {
+            return null;
+        }
+        int year = number(start, 4);
+        int month = number(start + 5, 2);
+        int day = number(start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        if (length == 10) {
+            return toDateTime(year, month, day, 0, 0, 0, 0);
+        }
+
+        if (data[end - 1] == 'Z') {
+            end--;
+            length--;
+        }
+        if (length < 16 || (data[start + 10] != 'T' && data[start + 10] != ' ') || data[start + 13] != ':') {
+            return null;
+        }
+        int hour = number(start + 11, 2);
+        int minute = number(start + 14, 2);
+        int second = 0;
+        int nanos = 0;
+        if (length > 16) {
+            if (length < 19 || data[start + 16] != ':') {
+                return null;
+            }
+            second = number(start + 17, 2);
+            if (length > 19) {
+                if (data[start + 19] != '.' || length > 29) {
+                    return null;
+                }
+                int fractionDigits = length - 20;
+                int fraction = number(start + 20, fractionDigits);
+                if (fraction < 0) {
+                    return null;
+                }
+                nanos = fraction;
+                for (int i = fractionDigits; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return toDateTime(year, month, day, hour, minute, second, nanos);
+    }
+
+    private static LocalDateTime toDateTime(int year, int month, int day, int hour, int minute, int second, int nanos) {
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (java.time.DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse {@code length} ASCII digits, -1 if any of them is not a digit.
+     */
+    private int number(int offset, int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (byte b : data) {
+            if (b > ' ' || b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
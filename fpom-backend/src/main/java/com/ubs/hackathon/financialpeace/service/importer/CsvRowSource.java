@@ -0,0 +1,193 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads portfolio positions from UTF-8 CSV. The first record is the header, columns are mapped by name.
+ * <p>
+ * Hand-rolled byte scanner instead of a character based CSV library: the reader thread only finds the
+ * field boundaries (RFC 4180 quoting, CRLF or LF line ends) and copies the unescaped bytes of a record
+ * into one array, so a record costs a byte array, an int array and the row object. Decoding and number
+ * parsing happen in {@link CsvImportRow} on the parser workers, straight from the bytes.
+ */
+public class CsvRowSource implements PositionRowSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvRowSource.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int COMMA = ',';
+    private static final int QUOTE = '"';
+    private static final int CR = '\r';
+    private static final int LF = '\n';
+
+    private final InputStream inputStream;
+
+    public CsvRowSource(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    public void read(RowHandler handler) throws IOException {
+        read(handler, 1);
+    }
+
+    /**
+     * Records before {@code firstRowIndex} are scanned but no row objects are built for them, except for the header.
+     * Empty lines are ignored and do not count as records.
+     */
+    @Override
+    public void read(RowHandler handler, long firstRowIndex) throws IOException {
+        Scanner scanner = new Scanner(inputStream);
+        long startRow = Math.max(1, firstRowIndex);
+        // The header is record 0, like row 0 of the Excel sheet
+        long rowIndex = 0;
+        long rowCount = 0;
+        while (scanner.nextRecord()) {
+            if (rowIndex == 0) {
+                handler.onHeader(scanner.toRow().getStrings());
+            } else if (rowIndex >= startRow) {
+                handler.onRow(rowIndex, scanner.toRow());
+                rowCount++;
+            }
+            rowIndex++;
+        }
+        logger.info("Parsed {} CSV records", rowCount);
+    }
+
+    /**
+     * Splits the byte stream into records. Field contents of the current record are collected unescaped
+     * in {@code record}, {@code fieldEnds} holds the end offset of every field.
+     */
+    private static final class Scanner {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private boolean started;
+
+        private byte[] record = new byte[1024];
+        private int recordLength;
+        private int[] fieldEnds = new int[64];
+        private int fieldCount;
+
+        Scanner(InputStream in) {
+            this.in = in;
+        }
+
+        boolean nextRecord() throws IOException {
+            recordLength = 0;
+            fieldCount = 0;
+
+            int b = next();
+            while (b == CR || b == LF) {
+                b = next();
+            }
+            if (b == -1) {
+                return false;
+            }
+
+            while (true) {
+                if (b == QUOTE) {
+                    b = quotedField();
+                }
+                // Unquoted field, or characters after a closing quote which are kept leniently
+                while (b != COMMA && b != LF && b != CR && b != -1) {
+                    append(b);
+                    b = next();
+                }
+                endField();
+
+                if (b == COMMA) {
+                    b = next();
+                    continue;
+                }
+                if (b == CR) {
+                    int following = next();
+                    if (following != LF && following != -1) {
+                        position--;
+                    }
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Collect a quoted field, a doubled quote stands for a quote character.
+         *
+         * @return the byte after the closing quote
+         */
+        private int quotedField() throws IOException {
+            while (true) {
+                int b = next();
+                if (b == -1) {
+                    throw new IOException("Unterminated quoted field in CSV record " + (fieldCount + 1));
+                }
+                if (b == QUOTE) {
+                    int following = next();
+                    if (following != QUOTE) {
+                        return following;
+                    }
+                }
+                append(b);
+            }
+        }
+
+        CsvImportRow toRow() {
+            return new CsvImportRow(Arrays.copyOf(record, recordLength), Arrays.copyOf(fieldEnds, fieldCount));
+        }
+
+        private void append(int b) {
+            if (recordLength == record.length) {
+                record = Arrays.copyOf(record, record.length * 2);
+            }
+            record[recordLength++] = (byte) b;
+        }
+
+        private void endField() {
+            if (fieldCount == fieldEnds.length) {
+                fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+            }
+            fieldEnds[fieldCount++] = recordLength;
+        }
+
+        /**
+         * Next byte of the stream, -1 at the end. After a successful call {@code position} is at least 1,
+         * so a single byte can always be pushed back with {@code position--}.
+         */
+        private int next() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private boolean fill() throws IOException {
+            position = 0;
+            limit = 0;
+            if (!started) {
+                started = true;
+                int read = in.readNBytes(buffer, 0, 3);
+                // Skip the UTF-8 byte order mark written by Excel
+                boolean byteOrderMark = read == 3 && (buffer[0] & 0xff) == 0xEF
+                        && (buffer[1] & 0xff) == 0xBB && (buffer[2] & 0xff) == 0xBF;
+                if (!byteOrderMark && read > 0) {
+                    limit = read;
+                    return true;
+                }
+            }
+            int read = in.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            limit = read;
+            return true;
+        }
+    }
+}
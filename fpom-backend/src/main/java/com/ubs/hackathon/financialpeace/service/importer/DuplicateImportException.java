@@ -0,0 +1,24 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.ImportCheckpoint;
+
+/**
+ * Thrown before any row is read when the source was already imported completely, according to the
+ * import ledger. The import job ends as {@link ImportJob.Status#DUPLICATE} without touching the positions.
+ */
+public class DuplicateImportException extends RuntimeException {
+
+    private final ImportCheckpoint previousImport;
+
+    public DuplicateImportException(ImportCheckpoint previousImport) {
+        super("Source " + previousImport.getSourceHash() + " was already imported, use force=true to import it again");
+        this.previousImport = previousImport;
+    }
+
+    /**
+     * Ledger entry of the completed import of the same content.
+     */
+    public ImportCheckpoint getPreviousImport() {
+        return previousImport;
+    }
+}
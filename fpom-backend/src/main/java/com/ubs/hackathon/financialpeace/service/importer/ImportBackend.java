@@ -0,0 +1,27 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * Storage backend used to write imported positions.
+ */
+public enum ImportBackend {
+
+    /**
+     * Hibernate batch inserts through the JPA repository.
+     */
+    JPA(1_000),
+
+    /**
+     * PostgreSQL COPY protocol with ids allocated in blocks, bypasses Hibernate.
+     */
+    COPY(10_000);
+
+    private final int defaultBatchSize;
+
+    ImportBackend(int defaultBatchSize) {
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    public int getDefaultBatchSize() {
+        return defaultBatchSize;
+    }
+}
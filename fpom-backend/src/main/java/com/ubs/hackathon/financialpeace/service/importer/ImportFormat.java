@@ -0,0 +1,50 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * File formats accepted by the upload import.
+ */
+public enum ImportFormat {
+
+    /**
+     * Excel workbook, first sheet in the layout of the portfolio positions export.
+     */
+    XLSX,
+
+    /**
+     * Comma separated text with a header record, UTF-8.
+     */
+    CSV,
+
+    /**
+     * Gzip compressed CSV.
+     */
+    CSV_GZIP;
+
+    private static final int ZIP_MAGIC_1 = 'P';
+    private static final int ZIP_MAGIC_2 = 'K';
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    /**
+     * Detect the format from the first two bytes of the stream: XLSX files are zip archives,
+     * gzip has its own magic number, anything else is read as CSV.
+     * The stream must support mark/reset and is positioned at its start again afterwards.
+     */
+    public static ImportFormat detect(InputStream inputStream) throws IOException {
+        inputStream.mark(2);
+        int first = inputStream.read();
+        int second = inputStream.read();
+        inputStream.reset();
+
+        if (first == ZIP_MAGIC_1 && second == ZIP_MAGIC_2) {
+            return XLSX;
+        }
+        if (first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2) {
+            return CSV_GZIP;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * Thrown when an operation needs the positions table exclusively while an import job holds it.
+ * Answered with 409 Conflict, the client retries once the job has finished.
+ */
+public class ImportInProgressException extends RuntimeException {
+
+    public ImportInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,262 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.dto.DeltaImportResultDTO;
+import com.ubs.hackathon.financialpeace.model.ImportCheckpoint;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A single import run with its options, live progress counters and outcome.
+ * Progress fields are updated by the import thread and read by the status endpoint.
+ */
+public class ImportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED,
+        /**
+         * The same content was imported before, nothing was read or written
+         */
+        DUPLICATE;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final ImportOptions options;
+    private final ImportStats stats = new ImportStats();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile long existingCountBefore = -1;
+    private volatile long totalCountAfter = -1;
+    private volatile String sourceName;
+    private volatile String sourceHash;
+    private volatile String sourcePrefixHash;
+    private volatile long resumedFromRow;
+    private volatile DeltaImportResultDTO deltaResult;
+    private volatile StringDictionary dictionary;
+    private volatile Path rejectsFile;
+    private volatile ImportCheckpoint previousImport;
+
+    public ImportJob(ImportOptions options) {
+        this.options = options;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ImportOptions getOptions() {
+        return options;
+    }
+
+    public ImportStats getStats() {
+        return stats;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Ask the job to stop. A running import stops after the chunk it is currently writing,
+     * chunks committed before stay in the database.
+     */
+    public void requestCancel() {
+        this.cancelRequested = true;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public void setSourceName(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public void setSourceHash(String sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * SHA-256 of the first bytes of a streamed CSV upload, see {@link SourceHash#PREFIX_SIZE}.
+     */
+    public String getSourcePrefixHash() {
+        return sourcePrefixHash;
+    }
+
+    public void setSourcePrefixHash(String sourcePrefixHash) {
+        this.sourcePrefixHash = sourcePrefixHash;
+    }
+
+    /**
+     * Source row index the import continued from, 0 if it started at the beginning of the file.
+     */
+    public long getResumedFromRow() {
+        return resumedFromRow;
+    }
+
+    public void setResumedFromRow(long resumedFromRow) {
+        this.resumedFromRow = resumedFromRow;
+    }
+
+    public DeltaImportResultDTO getDeltaResult() {
+        return deltaResult;
+    }
+
+    public void setDeltaResult(DeltaImportResultDTO deltaResult) {
+        this.deltaResult = deltaResult;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Positions in the database when the job started, -1 before it started.
+     */
+    public long getExistingCountBefore() {
+        return existingCountBefore;
+    }
+
+    /**
+     * CSV file with the rejected rows, null if no row was rejected.
+     */
+    public Path getRejectsFile() {
+        return rejectsFile;
+    }
+
+    public void setRejectsFile(Path rejectsFile) {
+        this.rejectsFile = rejectsFile;
+    }
+
+    /**
+     * Ledger entry of the earlier import of the same content, set if this job was skipped as duplicate.
+     */
+    public ImportCheckpoint getPreviousImport() {
+        return previousImport;
+    }
+
+    public void setPreviousImport(ImportCheckpoint previousImport) {
+        this.previousImport = previousImport;
+    }
+
+    public void markRunning(long existingCount) {
+        this.existingCountBefore = existingCount;
+        this.startedAt = LocalDateTime.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void markFinished(Status finalStatus, String errorMessage, long totalCount) {
+        this.error = errorMessage;
+        this.totalCountAfter = totalCount;
+        this.finishedAt = LocalDateTime.now();
+        this.status = finalStatus;
+    }
+
+    /**
+     * Progress and outcome of the job as returned by the status endpoint.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("status", status);
+        map.put("mode", options.getMode());
+        map.put("backend", options.effectiveBackend());
+        map.put("streaming", options.isStreaming());
+        map.put("clearedExisting", options.isClearExisting());
+        if (options.isForce()) {
+            map.put("force", true);
+        }
+        map.put("createdAt", createdAt);
+        map.put("startedAt", startedAt);
+        map.put("finishedAt", finishedAt);
+        if (sourceName != null) {
+            map.put("sourceName", sourceName);
+        }
+        if (sourceHash != null) {
+            map.put("sourceHash", sourceHash);
+        }
+        if (resumedFromRow > 0) {
+            map.put("resumedFromRow", resumedFromRow);
+        }
+        map.put("rowsRead", stats.getRowsRead());
+        map.put("rowsParsed", stats.getRowsParsed());
+        map.put("rowsWritten", stats.getRowsWritten());
+        map.put("rowsSkipped", stats.getRowsSkipped());
+        map.put("rowsRejected", stats.getRowsRejected());
+        if (stats.getRowsRejected() > 0) {
+            map.put("rejects", stats.toRejectMap());
+        }
+        if (rejectsFile != null) {
+            map.put("rejectsFile", rejectsFile.getFileName().toString());
+        }
+        if (startedAt != null) {
+            map.put("elapsedSeconds", Math.round(stats.getElapsedSeconds() * 100) / 100.0);
+            map.put("rowsPerSecond", Math.round(stats.getRowsPerSecond()));
+            map.put("stages", stats.toStageMap());
+        }
+        if (existingCountBefore >= 0) {
+            map.put("existingCountBefore", existingCountBefore);
+        }
+        if (totalCountAfter >= 0) {
+            map.put("totalCountAfter", totalCountAfter);
+        }
+        if (previousImport != null) {
+            Map<String, Object> previous = new LinkedHashMap<>();
+            previous.put("sourceName", previousImport.getSourceName());
+            previous.put("mode", previousImport.getMode());
+            previous.put("rowsWritten", previousImport.getRowsWritten());
+            previous.put("startedAt", previousImport.getStartedAt());
+            previous.put("completedAt", previousImport.getUpdatedAt());
+            map.put("previousImport", previous);
+        }
+        if (deltaResult != null) {
+            map.put("delta", deltaResult);
+        }
+        if (dictionary != null) {
+            map.put("dictionary", dictionary.report());
+        }
+        if (cancelRequested) {
+            map.put("cancelRequested", true);
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
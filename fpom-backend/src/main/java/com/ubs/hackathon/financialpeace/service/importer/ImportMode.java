@@ -0,0 +1,18 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * How imported positions are applied to the existing ones.
+ */
+public enum ImportMode {
+
+    /**
+     * Insert every row of the file, optionally after clearing all positions.
+     */
+    APPEND,
+
+    /**
+     * Stage the file and merge it on the natural key (account, ISIN, valor, as-of date):
+     * only new, changed and removed positions are written. Always loads through COPY.
+     */
+    DELTA
+}
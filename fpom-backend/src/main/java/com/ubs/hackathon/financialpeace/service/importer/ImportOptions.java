@@ -0,0 +1,77 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options for a portfolio position import run.
+ */
+@Value
+@Builder
+public class ImportOptions {
+
+    /**
+     * Append the rows or merge them as delta on the natural key
+     */
+    @Builder.Default
+    ImportMode mode = ImportMode.APPEND;
+
+    /**
+     * Clear all existing positions before the import
+     */
+    @Builder.Default
+    boolean clearExisting = false;
+
+    /**
+     * Continue an interrupted import of the same file from its last checkpoint
+     */
+    @Builder.Default
+    boolean resume = true;
+
+    /**
+     * Import the source even if the import ledger lists the same content as completely imported
+     */
+    @Builder.Default
+    boolean force = false;
+
+    /**
+     * Read the sheet event driven (SAX) instead of loading the whole workbook
+     */
+    @Builder.Default
+    boolean streaming = true;
+
+    /**
+     * Backend used to write the positions
+     */
+    @Builder.Default
+    ImportBackend backend = ImportBackend.JPA;
+
+    /**
+     * Rows per insert batch, 0 uses the default of the backend
+     */
+    @Builder.Default
+    int batchSize = 0;
+
+    /**
+     * Parser worker threads, 0 uses the configured default
+     */
+    @Builder.Default
+    int workers = 0;
+
+    /**
+     * Capacity of the queues between the stages in chunks, 0 uses the configured default
+     */
+    @Builder.Default
+    int queueCapacity = 0;
+
+    /**
+     * Delta imports stage the rows through COPY independent of the requested backend.
+     */
+    public ImportBackend effectiveBackend() {
+        return mode == ImportMode.DELTA ? ImportBackend.COPY : backend;
+    }
+
+    public int effectiveBatchSize() {
+        return batchSize > 0 ? batchSize : effectiveBackend().getDefaultBatchSize();
+    }
+}
@@ -0,0 +1,394 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Staged import pipeline: a reader stage, N parser workers and a writer stage joined by bounded queues.
+ * <p>
+ * The reader cuts the source into chunks of {@code batchSize} rows, the workers map the rows of a chunk
+ * to positions (portfolio or cash positions) and the writer stage, which runs on the calling thread, writes
+ * the chunks in source order. The importers commit every chunk in its own transaction, so a failure keeps
+ * the chunks written before it. Parsing overlaps with the database writes while the bounded queues block
+ * the faster stages. The reader only starts a chunk while fewer than {@code 2 * queueCapacity + workers}
+ * chunks are unwritten, so a slow chunk cannot make the writer buffer the chunks parsed after it and memory
+ * use stays at {@code (2 * queueCapacity + workers) * batchSize} rows.
+ * <p>
+ * Rows the mapper rejects with a {@link RowRejectedException} are collected per chunk and handed to a
+ * {@link RejectSink} by the writer stage, so a dirty file costs no per-row logging.
+ */
+public class ImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public ImportPipeline(int workers, int queueCapacity, int batchSize) {
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Rows of one chunk as handed from the reader to the parser workers, together with the mapper
+     * created for the header of the source.
+     */
+    private record RowChunk<T>(long sequence, long firstRowIndex, long lastRowIndex, List<ImportRow> rows,
+                               long[] rowIndexes, Function<ImportRow, T> mapper) {
+    }
+
+    /**
+     * Positions and rejected rows of one chunk as handed from the parser workers to the writer.
+     */
+    private record ParsedChunk<T>(long sequence, long firstRowIndex, long lastRowIndex, List<T> positions,
+                                  List<ImportReject> rejects) {
+    }
+
+    private static final RowChunk<?> END_OF_ROWS = new RowChunk<>(-1, -1, -1, List.of(), new long[0], row -> null);
+    private static final ParsedChunk<?> END_OF_CHUNKS = new ParsedChunk<>(-1, -1, -1, List.of(), List.of());
+
+    @SuppressWarnings("unchecked")
+    private static <T> RowChunk<T> endOfRows() {
+        return (RowChunk<T>) END_OF_ROWS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ParsedChunk<T> endOfChunks() {
+        return (ParsedChunk<T>) END_OF_CHUNKS;
+    }
+
+    /**
+     * Run the pipeline, rejected rows are only counted.
+     *
+     * @see #run(PositionRowSource, RowMapperFactory, PositionWriter, RejectSink, ImportStats)
+     */
+    public <T> void run(PositionRowSource source, RowMapperFactory<T> mapperFactory,
+                        PositionWriter<T> writer, ImportStats stats) throws IOException {
+        run(source, mapperFactory, writer, RejectSink.DISCARD, stats);
+    }
+
+    /**
+     * Run the pipeline until the source is exhausted and all positions are written.
+     *
+     * @param source        the row source, read on a dedicated reader thread
+     * @param mapperFactory creates the row mapper from the header of the source
+     * @param writer        writes a chunk of positions, always called on the calling thread in source order
+     * @param rejectSink    receives the rejected rows of a chunk after the chunk is written, on the calling thread
+     * @param stats         receives the row counters and stage timings
+     * @param <T>           type of the mapped positions
+     * @throws IOException if the source cannot be read
+     */
+    public <T> void run(PositionRowSource source, RowMapperFactory<T> mapperFactory, PositionWriter<T> writer,
+                        RejectSink rejectSink, ImportStats stats) throws IOException {
+        stats.start(workers);
+
+        BlockingQueue<RowChunk<T>> rowQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ParsedChunk<T>> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger activeWorkers = new AtomicInteger(workers);
+        // Chunks between the reader and the end of the writer: both queues full and every worker busy
+        Semaphore unwrittenChunks = new Semaphore(2 * queueCapacity + workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1, runnable -> {
+            Thread thread = new Thread(runnable, "position-import-" + System.identityHashCode(runnable));
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            executor.submit(() -> readStage(source, mapperFactory, rowQueue, unwrittenChunks, failure, stats));
+            for (int i = 0; i < workers; i++) {
+                executor.submit(() -> parseStage(rowQueue, parsedQueue, activeWorkers, failure, stats));
+            }
+            writeStage(writer, rejectSink, parsedQueue, unwrittenChunks, failure, stats);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+            stats.finish();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof IOException ioException) {
+            throw ioException;
+        } else if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (error != null) {
+            throw new IllegalStateException("Import pipeline failed: " + error.getMessage(), error);
+        }
+    }
+
+    private <T> void readStage(PositionRowSource source, RowMapperFactory<T> mapperFactory,
+                               BlockingQueue<RowChunk<T>> rowQueue, Semaphore unwrittenChunks,
+                               AtomicReference<Throwable> failure, ImportStats stats) {
+        long startNanos = System.nanoTime();
+        ChunkCollector<T> collector = new ChunkCollector<>(mapperFactory, chunk -> {
+            stats.addRead(chunk.rows().size());
+            return acquire(unwrittenChunks, failure) + offer(rowQueue, chunk, failure);
+        }, failure);
+
+        try {
+            source.read(collector);
+            collector.flush();
+        } catch (PipelineAbortedException e) {
+            logger.debug("Reader stage stopped after failure in a later stage");
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            stats.addReaderNanos(System.nanoTime() - startNanos - collector.waitNanos);
+            for (int i = 0; i < workers; i++) {
+                signalEnd(rowQueue, endOfRows(), failure);
+            }
+        }
+    }
+
+    /**
+     * Cuts the rows of the source into chunks of {@code batchSize} rows. The mapper is created when the
+     * header arrives, every chunk carries it to the workers.
+     */
+    private class ChunkCollector<T> implements RowHandler {
+
+        private final RowMapperFactory<T> mapperFactory;
+        private final ToLongFunction<RowChunk<T>> sink;
+        private final AtomicReference<Throwable> failure;
+        private Function<ImportRow, T> mapper;
+        private List<ImportRow> rows = new ArrayList<>(batchSize);
+        private long[] rowIndexes = new long[batchSize];
+        private long sequence;
+        private long firstRowIndex = -1;
+        private long lastRowIndex = -1;
+        private long waitNanos;
+
+        ChunkCollector(RowMapperFactory<T> mapperFactory, ToLongFunction<RowChunk<T>> sink,
+                       AtomicReference<Throwable> failure) {
+            this.mapperFactory = mapperFactory;
+            this.sink = sink;
+            this.failure = failure;
+        }
+
+        @Override
+        public void onHeader(List<String> columnNames) {
+            mapper = mapperFactory.forHeader(columnNames);
+        }
+
+        @Override
+        public void onRow(long rowIndex, ImportRow row) {
+            if (failure.get() != null) {
+                throw new PipelineAbortedException();
+            }
+            if (rows.isEmpty()) {
+                firstRowIndex = rowIndex;
+            }
+            lastRowIndex = rowIndex;
+            rowIndexes[rows.size()] = rowIndex;
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (mapper == null) {
+                mapper = mapperFactory.forHeader(List.of());
+            }
+            RowChunk<T> chunk = new RowChunk<>(sequence++, firstRowIndex, lastRowIndex, rows, rowIndexes, mapper);
+            rows = new ArrayList<>(batchSize);
+            rowIndexes = new long[batchSize];
+            waitNanos += sink.applyAsLong(chunk);
+        }
+    }
+
+    private <T> void parseStage(BlockingQueue<RowChunk<T>> rowQueue, BlockingQueue<ParsedChunk<T>> parsedQueue,
+                                AtomicInteger activeWorkers, AtomicReference<Throwable> failure, ImportStats stats) {
+        try {
+            while (failure.get() == null) {
+                RowChunk<T> chunk = rowQueue.poll(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue;
+                }
+                if (chunk == END_OF_ROWS) {
+                    break;
+                }
+                offer(parsedQueue, parse(chunk, stats), failure);
+            }
+        } catch (PipelineAbortedException e) {
+            logger.debug("Parser stage stopped after failure in another stage");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            if (activeWorkers.decrementAndGet() == 0) {
+                signalEnd(parsedQueue, endOfChunks(), failure);
+            }
+        }
+    }
+
+    private <T> ParsedChunk<T> parse(RowChunk<T> chunk, ImportStats stats) {
+        Function<ImportRow, T> mapper = chunk.mapper();
+        long startNanos = System.nanoTime();
+        List<ImportRow> rows = chunk.rows();
+        List<T> positions = new ArrayList<>(rows.size());
+        List<ImportReject> rejects = List.of();
+        long skipped = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            T position = null;
+            if (!row.isEmpty()) {
+                try {
+                    position = mapper.apply(row);
+                } catch (RowRejectedException e) {
+                    if (rejects.isEmpty()) {
+                        rejects = new ArrayList<>();
+                    }
+                    rejects.add(new ImportReject(chunk.rowIndexes()[i], e.getReason(), e.getColumn(), e.getValue()));
+                    stats.addRejected(e.getReason(), e.getColumn());
+                    continue;
+                }
+            }
+            if (position != null) {
+                positions.add(position);
+            } else {
+                skipped++;
+            }
+        }
+        stats.addParsed(positions.size(), skipped, System.nanoTime() - startNanos);
+        return new ParsedChunk<>(chunk.sequence(), chunk.firstRowIndex(), chunk.lastRowIndex(), positions, rejects);
+    }
+
+    /**
+     * Write the parsed chunks in source order until all workers are done.
+     */
+    private <T> void writeStage(PositionWriter<T> writer, RejectSink rejectSink,
+                                BlockingQueue<ParsedChunk<T>> parsedQueue, Semaphore unwrittenChunks,
+                                AtomicReference<Throwable> failure, ImportStats stats) {
+        Map<Long, ParsedChunk<T>> pending = new HashMap<>();
+        long nextSequence = 0;
+        boolean done = false;
+
+        while (!done && failure.get() == null) {
+            ParsedChunk<T> chunk;
+            try {
+                chunk = parsedQueue.poll(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+            if (chunk == null) {
+                continue;
+            }
+            if (chunk == END_OF_CHUNKS) {
+                done = true;
+            } else {
+                pending.put(chunk.sequence(), chunk);
+            }
+
+            // Chunks can arrive out of order from the workers, write them in source order
+            ParsedChunk<T> next;
+            while ((next = pending.remove(nextSequence)) != null) {
+                long startNanos = System.nanoTime();
+                if (!next.positions().isEmpty()) {
+                    writer.write(next.positions(), next.lastRowIndex());
+                }
+                stats.addWritten(next.positions().size(), System.nanoTime() - startNanos);
+                if (!next.rejects().isEmpty()) {
+                    rejectSink.write(next.rejects());
+                }
+                unwrittenChunks.release();
+                nextSequence++;
+                logger.debug("Wrote chunk {} (rows {}-{}), total written: {}",
+                        next.sequence(), next.firstRowIndex() + 1, next.lastRowIndex() + 1, stats.getRowsWritten());
+            }
+        }
+
+        if (failure.get() == null && !pending.isEmpty()) {
+            throw new IllegalStateException("Import pipeline ended with " + pending.size() + " unwritten chunks");
+        }
+    }
+
+    /**
+     * Put an element into a bounded queue, giving up once another stage failed.
+     *
+     * @return nanos spent waiting for free space
+     */
+    private static <T> long offer(BlockingQueue<T> queue, T element, AtomicReference<Throwable> failure) {
+        long startNanos = System.nanoTime();
+        try {
+            while (!queue.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new PipelineAbortedException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineAbortedException();
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Take a permit, giving up once another stage failed.
+     *
+     * @return nanos spent waiting for a permit
+     */
+    private static long acquire(Semaphore permits, AtomicReference<Throwable> failure) {
+        long startNanos = System.nanoTime();
+        try {
+            while (!permits.tryAcquire(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new PipelineAbortedException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineAbortedException();
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Signal the end of a stage to its consumers. Not needed after a failure, consumers stop on their own.
+     */
+    private static <T> void signalEnd(BlockingQueue<T> queue, T endMarker, AtomicReference<Throwable> failure) {
+        if (failure.get() != null) {
+            return;
+        }
+        try {
+            offer(queue, endMarker, failure);
+        } catch (PipelineAbortedException e) {
+            logger.debug("End of stage not signalled after failure");
+        }
+    }
+
+    /**
+     * Thrown inside a stage to unwind it after another stage failed.
+     */
+    private static class PipelineAbortedException extends RuntimeException {
+        PipelineAbortedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * A rejected source row.
+ *
+ * @param rowIndex zero based index of the row in the source (header is row 0)
+ * @param column   header name of the offending column, null if the row as a whole failed
+ * @param value    the offending cell value
+ */
+public record ImportReject(long rowIndex, RejectReason reason, String column, String value) {
+}
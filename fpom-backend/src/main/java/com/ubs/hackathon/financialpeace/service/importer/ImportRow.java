@@ -0,0 +1,51 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a single source row used by the position import.
+ * Decouples the column mapping from the concrete reader (POI DOM, SAX event stream, ...).
+ */
+public interface ImportRow {
+
+    /**
+     * Cell value as trimmed string, numeric cells are rendered as whole numbers (IDs).
+     */
+    String getString(int columnIndex);
+
+    /**
+     * Cell value as trimmed string, shared through the import dictionary if the column is dictionary encoded.
+     */
+    default String getString(int columnIndex, StringDictionary dictionary) {
+        return dictionary.intern(columnIndex, getString(columnIndex));
+    }
+
+    /**
+     * Cell value as trimmed source text, numeric cells as stored instead of rendered as whole numbers.
+     * Used to convert and report the cells that the typed getters do not accept.
+     */
+    default String getRaw(int columnIndex) {
+        return getString(columnIndex);
+    }
+
+    /**
+     * Cell value as BigDecimal, null for non-numeric cells.
+     */
+    BigDecimal getDecimal(int columnIndex);
+
+    /**
+     * Cell value as Integer, accepts numeric and numeric string cells.
+     */
+    Integer getInteger(int columnIndex);
+
+    /**
+     * Cell value as LocalDateTime, accepts date formatted cells and ISO strings.
+     */
+    LocalDateTime getDateTime(int columnIndex);
+
+    /**
+     * Check if the row is empty (all cells are null or blank).
+     */
+    boolean isEmpty();
+}
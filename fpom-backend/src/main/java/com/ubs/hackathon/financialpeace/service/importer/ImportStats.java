@@ -0,0 +1,160 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Row counters and per-stage timings of an import run.
+ * Counters are updated concurrently by the pipeline stages and can be read at any time.
+ */
+public class ImportStats {
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final Map<RejectReason, LongAdder> rejectsByReason = new EnumMap<>(RejectReason.class);
+    private final Map<String, LongAdder> rejectsByColumn = new ConcurrentHashMap<>();
+
+    private final AtomicLong readerNanos = new AtomicLong();
+    private final AtomicLong parserNanos = new AtomicLong();
+    private final AtomicLong writerNanos = new AtomicLong();
+
+    private volatile int parserWorkers;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    public ImportStats() {
+        for (RejectReason reason : RejectReason.values()) {
+            rejectsByReason.put(reason, new LongAdder());
+        }
+    }
+
+    void start(int parserWorkers) {
+        this.parserWorkers = parserWorkers;
+        this.startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        this.endNanos = System.nanoTime();
+    }
+
+    void addRead(long rows) {
+        rowsRead.addAndGet(rows);
+    }
+
+    void addParsed(long rows, long skipped, long nanos) {
+        rowsParsed.addAndGet(rows);
+        rowsSkipped.addAndGet(skipped);
+        parserNanos.addAndGet(nanos);
+    }
+
+    void addRejected(RejectReason reason, String column) {
+        rowsRejected.incrementAndGet();
+        rejectsByReason.get(reason).increment();
+        if (column != null) {
+            rejectsByColumn.computeIfAbsent(column, key -> new LongAdder()).increment();
+        }
+    }
+
+    void addWritten(long rows, long nanos) {
+        rowsWritten.addAndGet(rows);
+        writerNanos.addAndGet(nanos);
+    }
+
+    void addReaderNanos(long nanos) {
+        readerNanos.addAndGet(nanos);
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    /**
+     * Wall clock time of the run so far (or in total once finished).
+     */
+    public double getElapsedSeconds() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1e9;
+    }
+
+    /**
+     * Overall throughput of written rows.
+     */
+    public double getRowsPerSecond() {
+        return rate(getRowsWritten(), getElapsedSeconds());
+    }
+
+    /**
+     * Per stage throughput. The busy time of a stage excludes the time spent waiting on its queues,
+     * the parser time is summed over all workers.
+     */
+    public Map<String, Object> toStageMap() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stages.put("reader", stage(getRowsRead(), readerNanos.get()));
+        Map<String, Object> parser = stage(getRowsParsed() + getRowsSkipped() + getRowsRejected(), parserNanos.get());
+        parser.put("workers", parserWorkers);
+        stages.put("parser", parser);
+        stages.put("writer", stage(getRowsWritten(), writerNanos.get()));
+        return stages;
+    }
+
+    /**
+     * Rejected rows in total, by reason and by column. Reasons and columns without rejects are left out.
+     */
+    public Map<String, Object> toRejectMap() {
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        rejectsByReason.forEach((reason, count) -> {
+            if (count.sum() > 0) {
+                byReason.put(reason.name(), count.sum());
+            }
+        });
+        Map<String, Long> byColumn = new TreeMap<>();
+        rejectsByColumn.forEach((column, count) -> byColumn.put(column, count.sum()));
+
+        Map<String, Object> rejects = new LinkedHashMap<>();
+        rejects.put("total", getRowsRejected());
+        rejects.put("byReason", byReason);
+        rejects.put("byColumn", byColumn);
+        return rejects;
+    }
+
+    private static Map<String, Object> stage(long rows, long busyNanos) {
+        Map<String, Object> stage = new LinkedHashMap<>();
+        double busySeconds = busyNanos / 1e9;
+        stage.put("rows", rows);
+        stage.put("busySeconds", round(busySeconds));
+        stage.put("rowsPerSecond", round(rate(rows, busySeconds)));
+        return stage;
+    }
+
+    private static double rate(long rows, double seconds) {
+        return seconds > 0 ? rows / seconds : 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
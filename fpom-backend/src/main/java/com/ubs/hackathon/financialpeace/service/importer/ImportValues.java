@@ -0,0 +1,65 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Value conversions shared by the {@link ImportRow} implementations.
+ */
+final class ImportValues {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportValues.class);
+
+    private ImportValues() {
+    }
+
+    /**
+     * Parse an ISO date time string like "2022-08-29T22:00:00.000Z" or a plain ISO date like "2022-08-29",
+     * null if blank or invalid.
+     */
+    static LocalDateTime parseDateTime(String value) {
+        if (value == null) return null;
+
+        String dateString = value.trim();
+        if (dateString.isEmpty()) return null;
+
+        // Handle ISO format like "2022-08-29T22:00:00.000Z"
+        if (dateString.endsWith("Z")) {
+            dateString = dateString.substring(0, dateString.length() - 1);
+        }
+
+        try {
+            if (dateString.length() == 10) {
+                return LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+            }
+            return LocalDateTime.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            logger.debug("Could not parse date string '{}': {}", dateString, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parse a decimal string, null if blank.
+     */
+    static BigDecimal parseDecimal(String value) {
+        if (value == null) return null;
+        String stringValue = value.trim();
+        return stringValue.isEmpty() ? null : new BigDecimal(stringValue);
+    }
+
+    /**
+     * Parse an integer string, null if blank.
+     */
+    static Integer parseInteger(String value) {
+        if (value == null) return null;
+        String stringValue = value.trim();
+        return stringValue.isEmpty() ? null : Integer.parseInt(stringValue);
+    }
+}
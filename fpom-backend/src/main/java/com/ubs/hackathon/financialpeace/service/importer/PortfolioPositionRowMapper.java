@@ -0,0 +1,112 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+
+import java.util.List;
+
+/**
+ * Maps the columns of the portfolio position export (57 columns) to {@link PortfolioPosition} by header name.
+ * Shared by all row sources and the import benchmarks.
+ * <p>
+ * All string columns except the per-instrument identifiers (valor, ISIN, instrument name) repeat across
+ * positions and are dictionary encoded. Of the duplicated "Product ID" and "Mandate Pricing ID" columns
+ * only the first occurrence is imported, the second "Mandate Program" is the secondary mandate program.
+ * The four currency columns and the ISIN can be validated, see {@link ColumnMapping#compile(List, int, boolean)}.
+ */
+public final class PortfolioPositionRowMapper {
+
+    /**
+     * Field registry in the column order of the Excel export
+     */
+    public static final ColumnMapping<PortfolioPosition> MAPPING = ColumnMapping.<PortfolioPosition>builder(PortfolioPosition::new)
+            .dictionaryString("Partner ID Fake", "partnerIdFake", PortfolioPosition::setPartnerIdFake)
+            .dictionaryString("Account ID Fake", "accountIdFake", PortfolioPosition::setAccountIdFake)
+            .dateTime("Position Created Date", "positionCreatedDate", PortfolioPosition::setPositionCreatedDate)
+            .dictionaryString("FIUNITTYPECD", "fiUnitTypeCode", PortfolioPosition::setFiUnitTypeCode)
+            .decimal("Balance Amount", "balanceAmount", PortfolioPosition::setBalanceAmount)
+            .decimal("Value Amount", "valueAmount", PortfolioPosition::setValueAmount)
+            .decimal("Trade Amount", "tradeAmount", PortfolioPosition::setTradeAmount)
+            .dateTime("Valuation Date", "valuationDate", PortfolioPosition::setValuationDate)
+            .dateTime("As of Date", "asOfDate", PortfolioPosition::setAsOfDate)
+            .currency("Value Currency", "valueCurrency", PortfolioPosition::setValueCurrency)
+            .currency("Source Currency", "sourceCurrency", PortfolioPosition::setSourceCurrency)
+            .decimal("Original Quantity", "originalQuantity", PortfolioPosition::setOriginalQuantity)
+            .decimal("Market Value Amount", "marketValueAmount", PortfolioPosition::setMarketValueAmount)
+            .decimal("FX Rate", "fxRate", PortfolioPosition::setFxRate)
+            .string("Valor", "valor", PortfolioPosition::setValor)
+            .isin("ISIN", "isin", PortfolioPosition::setIsin)
+            .string("Instrument Name Short", "instrumentNameShort", PortfolioPosition::setInstrumentNameShort)
+            .dictionaryString("Symbol ID", "symbolId", PortfolioPosition::setSymbolId)
+            .dictionaryString("Title Group ID", "titleGroupId", PortfolioPosition::setTitleGroupId)
+            .dictionaryString("Title ID", "titleId", PortfolioPosition::setTitleId)
+            .dictionaryString("Titel ID Description", "titleIdDescription", PortfolioPosition::setTitleIdDescription)
+            .dictionaryString("Symbol ID GPC", "symbolIdGpc", PortfolioPosition::setSymbolIdGpc)
+            .dictionaryString("Product Description", "productDescription", PortfolioPosition::setProductDescription)
+            .dictionaryString("Product ID", "productId", PortfolioPosition::setProductId)
+            .dictionaryString("Product ID Description", "productIdDescription", PortfolioPosition::setProductIdDescription)
+            .dictionaryString("Product Class ID", "productClassId", PortfolioPosition::setProductClassId)
+            .dictionaryString("Product Class Description", "productClassDescription", PortfolioPosition::setProductClassDescription)
+            .dictionaryString("Product Family ID", "productFamilyId", PortfolioPosition::setProductFamilyId)
+            .dictionaryString("Product Family Description", "productFamilyDescription", PortfolioPosition::setProductFamilyDescription)
+            .dictionaryString("Asset Class", "assetClass", PortfolioPosition::setAssetClass)
+            .dictionaryString("Asset Class Subtype", "assetClassSubtype", PortfolioPosition::setAssetClassSubtype)
+            .dictionaryString("Asset Class Description Short", "assetClassDescriptionShort", PortfolioPosition::setAssetClassDescriptionShort)
+            .dictionaryString("Asset Class Description Long", "assetClassDescriptionLong", PortfolioPosition::setAssetClassDescriptionLong)
+            .dictionaryString("UACINSTRCATTYPE", "uacInstrCatType", PortfolioPosition::setUacInstrCatType)
+            .dictionaryString("Instrument ID", "instrumentId", PortfolioPosition::setInstrumentId)
+            .currency("Portfolio Currency", "portfolioCurrency", PortfolioPosition::setPortfolioCurrency)
+            .dictionaryString("Portfolio Short Name", "portfolioShortName", PortfolioPosition::setPortfolioShortName)
+            .currency("Currency ID", "currencyId", PortfolioPosition::setCurrencyId)
+            .ignore("Product ID")
+            .dictionaryString("Mandate Pricing ID", "mandatePricingId", PortfolioPosition::setMandatePricingId)
+            .dictionaryString("Mandate Program", "mandateProgram", PortfolioPosition::setMandateProgram)
+            .ignore("Mandate Pricing ID")
+            .dictionaryString("Mandate Pricing Name Short", "mandatePricingNameShort", PortfolioPosition::setMandatePricingNameShort)
+            .dictionaryString("Mandate Pricing Name Long", "mandatePricingNameLong", PortfolioPosition::setMandatePricingNameLong)
+            .dictionaryString("Mandate Pricing Type", "mandatePricingType", PortfolioPosition::setMandatePricingType)
+            .dictionaryString("Mandate Program", "mandateProgramSecondary", PortfolioPosition::setMandateProgramSecondary)
+            .dictionaryString("Investment Strategy", "investmentStrategy", PortfolioPosition::setInvestmentStrategy)
+            .dictionaryString("Investment Strategy Name", "investmentStrategyName", PortfolioPosition::setInvestmentStrategyName)
+            .dictionaryString("Solution Subtype ID", "solutionSubtypeId", PortfolioPosition::setSolutionSubtypeId)
+            .dictionaryString("Solution Subtype Name Short", "solutionSubtypeNameShort", PortfolioPosition::setSolutionSubtypeNameShort)
+            .dictionaryString("Solution Name Short", "solutionNameShort", PortfolioPosition::setSolutionNameShort)
+            .dictionaryString("Solution Name Long", "solutionNameLong", PortfolioPosition::setSolutionNameLong)
+            .dictionaryString("Mandate Type", "mandateType", PortfolioPosition::setMandateType)
+            .dictionaryString("Mandate Subtype", "mandateSubtype", PortfolioPosition::setMandateSubtype)
+            .dictionaryString("Mandate Group", "mandateGroup", PortfolioPosition::setMandateGroup)
+            .dictionaryString("Domicile", "domicile", PortfolioPosition::setDomicile)
+            .integer("Client Advisor ID Fake", "clientAdvisorIdFake", PortfolioPosition::setClientAdvisorIdFake)
+            .build();
+
+    private PortfolioPositionRowMapper() {
+    }
+
+    /**
+     * Mapping plan for the header of a file.
+     *
+     * @param header              column names of the file, empty for the column order of the Excel export
+     * @param maxDictionaryEntries distinct values kept per encoded column, 0 disables the dictionary
+     * @throws IllegalArgumentException if the header contains none of the position columns
+     */
+    public static ColumnMappingPlan<PortfolioPosition> plan(List<String> header, int maxDictionaryEntries) {
+        return plan(header, maxDictionaryEntries, true);
+    }
+
+    /**
+     * Mapping plan for the header of a file.
+     *
+     * @param validateCodes reject rows with unknown currency codes or invalid ISINs
+     * @see #plan(List, int)
+     */
+    public static ColumnMappingPlan<PortfolioPosition> plan(List<String> header, int maxDictionaryEntries,
+                                                            boolean validateCodes) {
+        return MAPPING.compile(header, maxDictionaryEntries, validateCodes);
+    }
+
+    /**
+     * Mapping plan for the column order of the Excel export without dictionary encoding.
+     */
+    public static ColumnMappingPlan<PortfolioPosition> exportLayoutPlan() {
+        return MAPPING.compile(List.of(), 0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of portfolio position rows. Implementations pass the header row to
+ * {@link RowHandler#onHeader} and then push every data row to the handler in file order.
+ */
+public interface PositionRowSource {
+
+    /**
+     * Read all data rows and hand them to the handler.
+     *
+     * @throws IOException if the source cannot be read
+     */
+    void read(RowHandler handler) throws IOException;
+
+    /**
+     * Read the data rows starting at {@code firstRowIndex}, used to resume an import from a checkpoint.
+     * The default implementation reads and drops the earlier rows, implementations should skip them
+     * without building row objects.
+     *
+     * @throws IOException if the source cannot be read
+     */
+    default void read(RowHandler handler, long firstRowIndex) throws IOException {
+        read(new RowHandler() {
+            @Override
+            public void onHeader(List<String> columnNames) {
+                handler.onHeader(columnNames);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                if (rowIndex >= firstRowIndex) {
+                    handler.onRow(rowIndex, row);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.util.List;
+
+/**
+ * Writes a batch of parsed positions to the database.
+ *
+ * @param <T> type of the positions, e.g. portfolio or cash positions
+ */
+@FunctionalInterface
+public interface PositionWriter<T> {
+
+    /**
+     * @param batch        positions of one chunk, in source order
+     * @param lastRowIndex source row index of the last row of the chunk, used to checkpoint the import
+     */
+    void write(List<T> batch, long lastRowIndex);
+}
@@ -0,0 +1,83 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * {@link RejectSink} writing the rejected rows of an import as CSV ({@code row,reason,column,value}).
+ * The file is only created with the first reject, a clean import leaves no file behind. Row numbers are
+ * one based like in a spreadsheet, the header is row 1. Not thread safe, the pipeline calls it from the
+ * writer stage only.
+ */
+public class RejectFile implements RejectSink, Closeable {
+
+    private static final String HEADER = "row,reason,column,value";
+
+    /**
+     * Longer values are cut, a broken file must not blow up the rejects file
+     */
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    private final Path path;
+    private BufferedWriter writer;
+
+    public RejectFile(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Whether at least one reject was written.
+     */
+    public boolean isCreated() {
+        return writer != null;
+    }
+
+    @Override
+    public void write(List<ImportReject> rejects) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            for (ImportReject reject : rejects) {
+                writer.write(Long.toString(reject.rowIndex() + 1));
+                writer.write(',');
+                writer.write(reject.reason().name());
+                writer.write(',');
+                writer.write(quote(reject.column()));
+                writer.write(',');
+                writer.write(quote(reject.value()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write rejects file " + path, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) : value;
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,32 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * Why a source row was not imported.
+ */
+public enum RejectReason {
+
+    /**
+     * Numeric column holds a value that is not a number
+     */
+    INVALID_NUMBER,
+
+    /**
+     * Date column holds a value that is not a date
+     */
+    INVALID_DATE,
+
+    /**
+     * Currency column holds no ISO 4217 currency code
+     */
+    INVALID_CURRENCY,
+
+    /**
+     * ISIN column holds a value with wrong format or check digit
+     */
+    INVALID_ISIN,
+
+    /**
+     * Any other failure while converting the row
+     */
+    CONVERSION_ERROR
+}
@@ -0,0 +1,21 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.util.List;
+
+/**
+ * Receives the rejected rows of an import, one batch per chunk in source order.
+ */
+@FunctionalInterface
+public interface RejectSink {
+
+    /**
+     * Sink that drops the rejects, they are still counted in the {@link ImportStats}
+     */
+    RejectSink DISCARD = rejects -> {
+    };
+
+    /**
+     * @param rejects rejected rows of one chunk, never empty
+     */
+    void write(List<ImportReject> rejects);
+}
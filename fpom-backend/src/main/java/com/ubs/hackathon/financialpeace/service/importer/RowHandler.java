@@ -0,0 +1,25 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.util.List;
+
+/**
+ * Callback receiving the data rows of a {@link PositionRowSource}.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Called once with the column names of the header row before the first data row,
+     * also when reading resumes at a later row.
+     *
+     * @param columnNames header cells in column order, blank cells as null
+     */
+    default void onHeader(List<String> columnNames) {
+    }
+
+    /**
+     * @param rowIndex zero based index of the row in the source (header is row 0)
+     * @param row      the row values
+     */
+    void onRow(long rowIndex, ImportRow row);
+}
@@ -0,0 +1,21 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Creates the row mapper of an import once the header of the source is known.
+ *
+ * @param <T> type of the mapped positions
+ */
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+
+    /**
+     * Called once per source on the reader thread, before any row is mapped.
+     *
+     * @param columnNames header of the source, empty if the source delivered none
+     * @return maps a row to a position, returns null for rows that should be skipped; must be thread safe
+     */
+    Function<ImportRow, T> forHeader(List<String> columnNames);
+}
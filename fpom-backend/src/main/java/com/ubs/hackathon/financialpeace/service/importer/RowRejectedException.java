@@ -0,0 +1,35 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+/**
+ * Thrown by a row mapper for a row that fails validation. Carries no stack trace: a dirty file can
+ * reject millions of rows and the reason is fully described by the fields.
+ */
+public class RowRejectedException extends RuntimeException {
+
+    private final RejectReason reason;
+    private final String column;
+    private final String value;
+
+    /**
+     * @param column header name of the offending column, null if the row as a whole failed
+     * @param value  the offending cell value
+     */
+    public RowRejectedException(RejectReason reason, String column, String value) {
+        super(reason + (column != null ? " in column " + column : "") + ": " + value, null, false, false);
+        this.reason = reason;
+        this.column = column;
+        this.value = value;
+    }
+
+    public RejectReason getReason() {
+        return reason;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,145 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link ImportRow} holding the raw cell values collected by the SAX sheet handler.
+ * Numbers are kept in their XML text form and only converted when a column is read.
+ */
+public class SheetImportRow implements ImportRow {
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetImportRow.class);
+
+    static final byte BLANK = 0;
+    static final byte STRING = 1;
+    static final byte NUMERIC = 2;
+    static final byte DATE = 3;
+    static final byte BOOLEAN = 4;
+
+    private String[] values;
+    private byte[] types;
+
+    SheetImportRow(int expectedColumns) {
+        this.values = new String[expectedColumns];
+        this.types = new byte[expectedColumns];
+    }
+
+    void set(int columnIndex, byte type, String value) {
+        if (columnIndex >= values.length) {
+            int newLength = Math.max(columnIndex + 1, values.length * 2);
+            values = Arrays.copyOf(values, newLength);
+            types = Arrays.copyOf(types, newLength);
+        }
+        values[columnIndex] = value;
+        types[columnIndex] = type;
+    }
+
+    /**
+     * String values of all cells up to the last non-blank one, used for the header row.
+     */
+    List<String> getStrings() {
+        int length = types.length;
+        while (length > 0 && types[length - 1] == BLANK) {
+            length--;
+        }
+        List<String> strings = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            strings.add(getString(i));
+        }
+        return strings;
+    }
+
+    private byte type(int columnIndex) {
+        return columnIndex < types.length ? types[columnIndex] : BLANK;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        switch (type(columnIndex)) {
+            case STRING:
+                return values[columnIndex].trim();
+            case NUMERIC:
+            case DATE:
+                // Handle numeric values that should be strings (like IDs)
+                return String.valueOf((long) Double.parseDouble(values[columnIndex]));
+            case BOOLEAN:
+                return String.valueOf("1".equals(values[columnIndex]));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Numbers and dates as their XML text, a fraction or an exponent is kept for the validators.
+     */
+    @Override
+    public String getRaw(int columnIndex) {
+        byte type = type(columnIndex);
+        return type == NUMERIC || type == DATE ? values[columnIndex] : getString(columnIndex);
+    }
+
+    @Override
+    public BigDecimal getDecimal(int columnIndex) {
+        byte type = type(columnIndex);
+        if (type != NUMERIC && type != DATE) return null;
+
+        try {
+            return new BigDecimal(values[columnIndex]);
+        } catch (NumberFormatException e) {
+            logger.debug("Error converting cell to BigDecimal at column {}: {}", columnIndex, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Integer getInteger(int columnIndex) {
+        try {
+            switch (type(columnIndex)) {
+                case NUMERIC:
+                    return new BigDecimal(values[columnIndex]).intValueExact();
+                case STRING:
+                    return ImportValues.parseInteger(values[columnIndex]);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            logger.debug("Error converting cell to Integer at column {}: {}", columnIndex, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public LocalDateTime getDateTime(int columnIndex) {
+        try {
+            switch (type(columnIndex)) {
+                case DATE:
+                    return DateUtil.getLocalDateTime(Double.parseDouble(values[columnIndex]));
+                case STRING:
+                    return ImportValues.parseDateTime(values[columnIndex]);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            logger.debug("Error converting cell to DateTime at column {}: {}", columnIndex, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != BLANK && !values[i].isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
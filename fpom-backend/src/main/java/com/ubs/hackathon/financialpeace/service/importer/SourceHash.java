@@ -0,0 +1,48 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 content hash of an import source, identifies the file independent of its name.
+ */
+public final class SourceHash {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Bytes of a streamed upload hashed up front to find earlier imports that may have had the same content
+     */
+    public static final int PREFIX_SIZE = 64 * 1024;
+
+    private SourceHash() {
+    }
+
+    /**
+     * Hash the remaining content of the stream as lower case hex. The stream is not closed.
+     */
+    public static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
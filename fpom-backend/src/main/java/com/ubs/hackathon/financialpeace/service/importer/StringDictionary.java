@@ -0,0 +1,233 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Import scoped dictionary for low cardinality string columns (currencies, asset classes, mandate types, ...).
+ * Every distinct value of a registered column is kept once and all positions of the import share that
+ * instance, so the heap per position no longer grows with a fresh String per cell.
+ * <p>
+ * Each column holds at most {@code maxEntriesPerColumn} values; once a column is saturated new values pass
+ * through unchanged, so a column that turns out to have high cardinality cannot grow the dictionary without
+ * bound. Lookups are lock free and safe from all parser workers, only new values take a lock.
+ */
+public class StringDictionary {
+
+    /**
+     * Dictionary without registered columns, all values pass through
+     */
+    public static final StringDictionary NONE = new StringDictionary(0);
+
+    private final int maxEntriesPerColumn;
+    private Column[] columns = new Column[0];
+
+    public StringDictionary(int maxEntriesPerColumn) {
+        this.maxEntriesPerColumn = Math.max(0, maxEntriesPerColumn);
+    }
+
+    /**
+     * Register a column for dictionary encoding. Ignored if the dictionary is disabled (no entries allowed).
+     *
+     * @param columnIndex source column index
+     * @param name        name used in the cardinality report
+     * @return this dictionary
+     */
+    public StringDictionary column(int columnIndex, String name) {
+        if (maxEntriesPerColumn == 0) {
+            return this;
+        }
+        if (columnIndex >= columns.length) {
+            columns = Arrays.copyOf(columns, columnIndex + 1);
+        }
+        columns[columnIndex] = new Column(name, columnIndex, maxEntriesPerColumn);
+        return this;
+    }
+
+    /**
+     * Check if values of the column are dictionary encoded.
+     */
+    public boolean isEncoded(int columnIndex) {
+        return columnIndex < columns.length && columns[columnIndex] != null;
+    }
+
+    /**
+     * Shared instance of the value, the value itself if the column is not encoded or saturated.
+     */
+    public String intern(int columnIndex, String value) {
+        if (value == null || !isEncoded(columnIndex)) {
+            return value;
+        }
+        return columns[columnIndex].intern(value);
+    }
+
+    /**
+     * Shared instance of the UTF-8 value {@code data[start, end)}. ASCII values are looked up without
+     * creating a String, so a repeated value costs no allocation at all.
+     *
+     * @return null for an empty range
+     */
+    public String intern(int columnIndex, byte[] data, int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+        if (!isEncoded(columnIndex)) {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+        return columns[columnIndex].intern(data, start, end);
+    }
+
+    /**
+     * Cardinality report of the registered columns in column order.
+     */
+    public List<ColumnReport> report() {
+        List<ColumnReport> report = new ArrayList<>();
+        for (Column column : columns) {
+            if (column != null) {
+                report.add(column.report());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Cardinality of one dictionary column.
+     *
+     * @param distinctValues values held by the dictionary
+     * @param lookups        cells read through the dictionary
+     * @param hits           cells that reused an existing instance
+     * @param hitRate        hits per lookup
+     * @param saturated      the column reached the entry limit, further distinct values were not kept
+     */
+    public record ColumnReport(String column, int columnIndex, int distinctValues, long lookups, long hits,
+                               double hitRate, boolean saturated) {
+    }
+
+    /**
+     * Open addressing hash set of the values of one column. Readers probe the published table without
+     * locking; a reader that misses a concurrently added value falls back to the locked insert, which
+     * finds it. Entries are immutable Strings, so publishing them through a plain array store is safe.
+     */
+    private static final class Column {
+
+        private final String name;
+        private final int columnIndex;
+        private final int maxEntries;
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        private volatile String[] table = new String[16];
+        private int size;
+        private volatile boolean saturated;
+
+        Column(String name, int columnIndex, int maxEntries) {
+            this.name = name;
+            this.columnIndex = columnIndex;
+            this.maxEntries = maxEntries;
+        }
+
+        String intern(String value) {
+            lookups.increment();
+            int hash = value.hashCode();
+            String[] current = table;
+            int mask = current.length - 1;
+            for (int i = hash & mask; current[i] != null; i = (i + 1) & mask) {
+                String entry = current[i];
+                if (entry.hashCode() == hash && entry.equals(value)) {
+                    hits.increment();
+                    return entry;
+                }
+            }
+            // A saturated column keeps no new values, skip the lock
+            return saturated ? value : add(value, hash);
+        }
+
+        String intern(byte[] data, int start, int end) {
+            // String.hashCode of an ASCII value, computed on the bytes
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                byte b = data[i];
+                if (b < 0) {
+                    return intern(new String(data, start, end - start, StandardCharsets.UTF_8));
+                }
+                hash = 31 * hash + b;
+            }
+
+            lookups.increment();
+            String[] current = table;
+            int mask = current.length - 1;
+            for (int i = hash & mask; current[i] != null; i = (i + 1) & mask) {
+                String entry = current[i];
+                if (entry.hashCode() == hash && matches(entry, data, start, end)) {
+                    hits.increment();
+                    return entry;
+                }
+            }
+            String value = new String(data, start, end - start, StandardCharsets.US_ASCII);
+            return saturated ? value : add(value, hash);
+        }
+
+        private static boolean matches(String entry, byte[] data, int start, int end) {
+            if (entry.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (entry.charAt(i - start) != data[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized String add(String value, int hash) {
+            String[] current = table;
+            int mask = current.length - 1;
+            int slot = hash & mask;
+            for (; current[slot] != null; slot = (slot + 1) & mask) {
+                if (current[slot].equals(value)) {
+                    hits.increment();
+                    return current[slot];
+                }
+            }
+            if (size >= maxEntries) {
+                saturated = true;
+                return value;
+            }
+
+            if ((size + 1) * 2 > current.length) {
+                // Keep the load factor at 1/2, the new table is published after it is filled
+                String[] resized = new String[current.length * 2];
+                int resizedMask = resized.length - 1;
+                for (String entry : current) {
+                    if (entry != null) {
+                        int i = entry.hashCode() & resizedMask;
+                        while (resized[i] != null) {
+                            i = (i + 1) & resizedMask;
+                        }
+                        resized[i] = entry;
+                    }
+                }
+                int i = hash & resizedMask;
+                while (resized[i] != null) {
+                    i = (i + 1) & resizedMask;
+                }
+                resized[i] = value;
+                table = resized;
+            } else {
+                current[slot] = value;
+            }
+            size++;
+            return value;
+        }
+
+        synchronized ColumnReport report() {
+            long lookupCount = lookups.sum();
+            long hitCount = hits.sum();
+            return new ColumnReport(name, columnIndex, size, lookupCount, hitCount,
+                    lookupCount > 0 ? (double) hitCount / lookupCount : 0, saturated);
+        }
+    }
+}
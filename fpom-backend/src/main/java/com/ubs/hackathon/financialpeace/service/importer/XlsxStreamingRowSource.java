@@ -0,0 +1,205 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Event driven reader for the first sheet of an XLSX file.
+ * Uses POI's {@link XSSFReader} and a SAX handler on the sheet XML so that rows are
+ * handed out while the file is parsed. Heap use is bounded by the shared strings table
+ * and does not grow with the number of rows.
+ */
+public class XlsxStreamingRowSource implements PositionRowSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(XlsxStreamingRowSource.class);
+
+    private static final int DEFAULT_COLUMN_COUNT = 64;
+
+    private final File file;
+
+    public XlsxStreamingRowSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void read(RowHandler handler) throws IOException {
+        read(handler, 1);
+    }
+
+    /**
+     * Rows before {@code firstRowIndex} are still tokenized by the XML parser, but their cells are
+     * ignored: no shared string lookups and no row objects. The header row is always passed on.
+     */
+    @Override
+    public void read(RowHandler handler, long firstRowIndex) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("No sheets found in the Excel file");
+            }
+
+            // First sheet: "Portfolio Positions"
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                SheetHandler sheetHandler = new SheetHandler(sharedStrings, styles, handler, Math.max(1, firstRowIndex));
+                parser.setContentHandler(sheetHandler);
+                parser.parse(new InputSource(sheet));
+                logger.info("Streamed {} rows from sheet of {}", sheetHandler.rowCount, file.getName());
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Error reading Excel file " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * SAX handler for the sheet XML, collects the raw cell values of one row at a time.
+     */
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+        private final long firstRowIndex;
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+        private final StringBuilder text = new StringBuilder(64);
+
+        private SheetImportRow currentRow;
+        private long rowIndex = -1;
+        private int columnIndex = -1;
+        private int columnCount = DEFAULT_COLUMN_COUNT;
+        private String cellType;
+        private int cellStyle;
+        private boolean collectText;
+        private long rowCount;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, RowHandler handler,
+                     long firstRowIndex) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.handler = handler;
+            this.firstRowIndex = firstRowIndex;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String ref = attributes.getValue("r");
+                    rowIndex = ref != null ? Long.parseLong(ref) - 1 : rowIndex + 1;
+                    columnIndex = -1;
+                    // Rows before the first requested row are not collected, the header row always is
+                    currentRow = rowIndex == 0 || rowIndex >= firstRowIndex ? new SheetImportRow(columnCount) : null;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    columnIndex = ref != null ? columnIndexOf(ref) : columnIndex + 1;
+                    cellType = attributes.getValue("t");
+                    String style = attributes.getValue("s");
+                    cellStyle = style != null ? Integer.parseInt(style) : -1;
+                    text.setLength(0);
+                }
+                case "v", "t" -> collectText = currentRow != null;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> collectText = false;
+                case "c" -> storeCell();
+                case "row" -> {
+                    if (rowIndex == 0 && currentRow != null) {
+                        handler.onHeader(currentRow.getStrings());
+                    } else if (currentRow != null) {
+                        rowCount++;
+                        handler.onRow(rowIndex, currentRow);
+                    }
+                    columnCount = Math.max(columnCount, columnIndex + 1);
+                    currentRow = null;
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void storeCell() {
+            if (currentRow == null || text.isEmpty()) {
+                return;
+            }
+            String value = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                currentRow.set(columnIndex, isDateStyle(cellStyle) ? SheetImportRow.DATE : SheetImportRow.NUMERIC, value);
+            } else {
+                switch (cellType) {
+                    case "s" -> currentRow.set(columnIndex, SheetImportRow.STRING,
+                            sharedStrings.getItemAt(Integer.parseInt(value)).getString());
+                    case "inlineStr", "str" -> currentRow.set(columnIndex, SheetImportRow.STRING, value);
+                    case "b" -> currentRow.set(columnIndex, SheetImportRow.BOOLEAN, value);
+                    default -> {
+                        // error cells ("e") are treated as blank
+                    }
+                }
+            }
+        }
+
+        private boolean isDateStyle(int styleIndex) {
+            if (styleIndex < 0 || styles == null) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(styleIndex, index -> {
+                XSSFCellStyle style = styles.getStyleAt(index);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+
+        /**
+         * Convert a cell reference like "AB12" to the zero based column index.
+         */
+        private static int columnIndexOf(String cellReference) {
+            int column = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the first sheet of an XLSX file through the POI DOM model ({@link XSSFWorkbook}).
+ * Loads the complete workbook into memory, only suitable for small files.
+ */
+public class XlsxWorkbookRowSource implements PositionRowSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(XlsxWorkbookRowSource.class);
+
+    private final InputStream inputStream;
+
+    public XlsxWorkbookRowSource(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    public void read(RowHandler handler) throws IOException {
+        read(handler, 1);
+    }
+
+    @Override
+    public void read(RowHandler handler, long firstRowIndex) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
+
+            Sheet sheet = workbook.getSheetAt(0); // First sheet: "Portfolio Positions"
+
+            if (sheet == null) {
+                throw new IOException("No sheets found in the Excel file");
+            }
+
+            logger.info("Found sheet: {} with {} rows", sheet.getSheetName(), sheet.getLastRowNum());
+
+            Row header = sheet.getRow(0);
+            if (header != null) {
+                handler.onHeader(toImportRow(header).getStrings());
+            }
+
+            // Process data rows after the header row (row 0)
+            for (int rowIndex = (int) Math.max(1, firstRowIndex); rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+                Row row = sheet.getRow(rowIndex);
+                if (row != null) {
+                    handler.onRow(rowIndex, toImportRow(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the cell values of a POI row into a detached {@link SheetImportRow}, so the row can be
+     * converted on other threads and after the workbook is closed.
+     */
+    private static SheetImportRow toImportRow(Row row) {
+        SheetImportRow importRow = new SheetImportRow(Math.max(row.getLastCellNum(), 0));
+        for (Cell cell : row) {
+            switch (cell.getCellType()) {
+                case STRING -> importRow.set(cell.getColumnIndex(), SheetImportRow.STRING, cell.getStringCellValue());
+                case NUMERIC -> importRow.set(cell.getColumnIndex(),
+                        DateUtil.isCellDateFormatted(cell) ? SheetImportRow.DATE : SheetImportRow.NUMERIC,
+                        Double.toString(cell.getNumericCellValue()));
+                case BOOLEAN -> importRow.set(cell.getColumnIndex(), SheetImportRow.BOOLEAN,
+                        cell.getBooleanCellValue() ? "1" : "0");
+                default -> {
+                    // formula, error and blank cells are not imported
+                }
+            }
+        }
+        return importRow;
+    }
+}
@@ -0,0 +1,217 @@
+package com.ubs.hackathon.financialpeace.service.snapshot;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn.ColumnType;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionRowHandler;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.ubs.hackathon.financialpeace.service.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads a position snapshot written by {@link PositionSnapshotWriter} and hands the rows out as raw values in
+ * the current {@link PortfolioPositionColumn} layout. Snapshot columns are matched by name: columns unknown
+ * to this version are skipped, columns missing in the snapshot stay null. Repeated strings and timestamps
+ * of a column are returned as the same instance. Not thread safe; closing the reader closes the stream.
+ */
+public class PositionSnapshotReader implements Closeable {
+
+    private static final PortfolioPositionColumn[] COLUMNS = PortfolioPositionColumn.values();
+
+    private final DataInputStream in;
+    private final SnapshotBuffer buffer = new SnapshotBuffer(STREAM_BUFFER_SIZE);
+    private final Instant createdAt;
+    private final List<String> columnNames = new ArrayList<>();
+    private final ColumnType[] types;
+    private final int[] targets;
+    private final List<List<String>> dictionaries = new ArrayList<>();
+
+    public PositionSnapshotReader(InputStream input) throws IOException {
+        byte[] magic = input.readNBytes(MAGIC.length);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a position snapshot");
+        }
+        int version = new DataInputStream(input).readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        in = new DataInputStream(new GZIPInputStream(input, STREAM_BUFFER_SIZE));
+
+        buffer.readBlock(in, in.readInt());
+        createdAt = Instant.ofEpochMilli(buffer.readVarLong());
+        int columnCount = (int) buffer.readVarLong();
+        types = new ColumnType[columnCount];
+        targets = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            String name = buffer.readString();
+            int type = (int) buffer.readVarLong();
+            if (type >= ColumnType.values().length) {
+                throw new IOException("Unknown type " + type + " of snapshot column " + name);
+            }
+            columnNames.add(name);
+            types[i] = ColumnType.values()[type];
+            targets[i] = findColumn(name, types[i]);
+            dictionaries.add(new ArrayList<>());
+        }
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Column names stored in the snapshot, in snapshot order.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Read all rows into the handler.
+     *
+     * @return number of rows read
+     * @throws IOException if the snapshot is damaged or truncated
+     */
+    public long readInto(PortfolioPositionRowHandler handler) throws IOException {
+        Object[] values = new Object[COLUMNS.length];
+        Object[][] decoded = new Object[types.length][0];
+        long[] ids = new long[0];
+        long rowCount = 0;
+
+        for (int length = in.readInt(); length > 0; length = in.readInt()) {
+            buffer.readBlock(in, length);
+            int rows = (int) buffer.readVarLong();
+            if (ids.length < rows) {
+                ids = new long[rows];
+                for (int i = 0; i < decoded.length; i++) {
+                    decoded[i] = new Object[rows];
+                }
+            }
+
+            long id = 0;
+            for (int row = 0; row < rows; row++) {
+                id += buffer.readSignedVarLong();
+                ids[row] = id;
+            }
+            for (int i = 0; i < types.length; i++) {
+                switch (types[i]) {
+                    case STRING -> readStrings(decoded[i], rows, dictionaries.get(i));
+                    case DECIMAL -> readDecimals(decoded[i], rows);
+                    case DATE_TIME -> readDateTimes(decoded[i], rows);
+                    case INTEGER -> readIntegers(decoded[i], rows);
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Snapshot row group has trailing bytes");
+            }
+
+            for (int row = 0; row < rows; row++) {
+                for (int i = 0; i < targets.length; i++) {
+                    if (targets[i] >= 0) {
+                        values[targets[i]] = decoded[i][row];
+                    }
+                }
+                handler.onRow(ids[row], values);
+            }
+            rowCount += rows;
+        }
+
+        long expected = in.readLong();
+        if (expected != rowCount) {
+            throw new IOException("Snapshot is truncated, read " + rowCount + " of " + expected + " rows");
+        }
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static int findColumn(String name, ColumnType type) throws IOException {
+        for (PortfolioPositionColumn column : COLUMNS) {
+            if (column.getColumnName().equals(name)) {
+                if (column.getType() != type) {
+                    throw new IOException("Snapshot column " + name + " has type " + type + ", expected " + column.getType());
+                }
+                return column.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    private void readStrings(Object[] values, int rows, List<String> dictionary) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            long code = buffer.readVarLong();
+            if (code == NULL) {
+                values[row] = null;
+            } else if (code == NEW_VALUE) {
+                String value = buffer.readString();
+                if (dictionary.size() < MAX_DICTIONARY_ENTRIES) {
+                    dictionary.add(value);
+                }
+                values[row] = value;
+            } else if (code - FIRST_DICTIONARY_CODE < dictionary.size()) {
+                values[row] = dictionary.get((int) (code - FIRST_DICTIONARY_CODE));
+            } else {
+                throw new IOException("Unknown dictionary code " + code + " in snapshot");
+            }
+        }
+    }
+
+    private void readDecimals(Object[] values, int rows) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            long header = buffer.readVarLong();
+            if (header == NULL) {
+                values[row] = null;
+                continue;
+            }
+            header--;
+            int scale = (int) unzigzag(header >>> 1);
+            if ((header & 1) != 0) {
+                values[row] = new BigDecimal(new BigInteger(buffer.readBytes()), scale);
+            } else {
+                values[row] = BigDecimal.valueOf(buffer.readSignedVarLong(), scale);
+            }
+        }
+    }
+
+    private void readDateTimes(Object[] values, int rows) throws IOException {
+        long previousSecond = 0;
+        LocalDateTime previous = null;
+        for (int row = 0; row < rows; row++) {
+            long header = buffer.readVarLong();
+            if (header == NULL) {
+                values[row] = null;
+                continue;
+            }
+            header--;
+            long second = previousSecond + unzigzag(header >>> 1);
+            int nanos = (header & 1) != 0 ? (int) buffer.readVarLong() : 0;
+            if (previous == null || second != previousSecond || nanos != previous.getNano()) {
+                previous = LocalDateTime.ofEpochSecond(second, nanos, ZoneOffset.UTC);
+            }
+            values[row] = previous;
+            previousSecond = second;
+        }
+    }
+
+    private void readIntegers(Object[] values, int rows) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            long value = buffer.readVarLong();
+            values[row] = value == NULL ? null : Integer.valueOf((int) unzigzag(value - 1));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.ubs.hackathon.financialpeace.service.snapshot;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionRowHandler;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static com.ubs.hackathon.financialpeace.service.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes positions as a columnar, dictionary encoded and gzip compressed snapshot (see {@link SnapshotFormat}).
+ * Rows are buffered per row group and encoded column by column, so equal values of a column end up next
+ * to each other for the compressor. Not thread safe; closing the writer finishes the file and closes the
+ * underlying stream.
+ */
+public class PositionSnapshotWriter implements PortfolioPositionRowHandler, Closeable {
+
+    private static final PortfolioPositionColumn[] COLUMNS = PortfolioPositionColumn.values();
+
+    private final DataOutputStream out;
+    private final SnapshotBuffer buffer = new SnapshotBuffer(STREAM_BUFFER_SIZE);
+    private final long[] ids = new long[ROW_GROUP_SIZE];
+    private final Object[][] columns = new Object[COLUMNS.length][ROW_GROUP_SIZE];
+    private final Map<String, Integer>[] dictionaries;
+    private int rows;
+    private long rowCount;
+    private boolean closed;
+
+    @SuppressWarnings("unchecked")
+    public PositionSnapshotWriter(OutputStream output, Instant createdAt) throws IOException {
+        output.write(MAGIC);
+        new DataOutputStream(output).writeInt(VERSION);
+        out = new DataOutputStream(new GZIPOutputStream(output, STREAM_BUFFER_SIZE) {
+            {
+                // The columnar layout already removes most redundancy, higher levels cost time for little gain
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        });
+
+        buffer.writeVarLong(createdAt.toEpochMilli());
+        buffer.writeVarLong(COLUMNS.length);
+        for (PortfolioPositionColumn column : COLUMNS) {
+            buffer.writeString(column.getColumnName());
+            buffer.writeVarLong(column.getType().ordinal());
+        }
+        buffer.writeBlock(out);
+
+        dictionaries = new Map[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (COLUMNS[i].getType() == PortfolioPositionColumn.ColumnType.STRING) {
+                dictionaries[i] = new HashMap<>();
+            }
+        }
+    }
+
+    @Override
+    public void onRow(long id, Object[] values) {
+        ids[rows] = id;
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i][rows] = values[i];
+        }
+        if (++rows == ROW_GROUP_SIZE) {
+            try {
+                writeRowGroup();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write snapshot row group", e);
+            }
+        }
+    }
+
+    /**
+     * Rows written so far.
+     */
+    public long getRowCount() {
+        return rowCount + rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out) {
+            if (rows > 0) {
+                writeRowGroup();
+            }
+            out.writeInt(0);
+            out.writeLong(rowCount);
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        buffer.writeVarLong(rows);
+        long previousId = 0;
+        for (int row = 0; row < rows; row++) {
+            buffer.writeSignedVarLong(ids[row] - previousId);
+            previousId = ids[row];
+        }
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object[] values = columns[i];
+            switch (COLUMNS[i].getType()) {
+                case STRING -> writeStrings(values, dictionaries[i]);
+                case DECIMAL -> writeDecimals(values);
+                case DATE_TIME -> writeDateTimes(values);
+                case INTEGER -> writeIntegers(values);
+            }
+            // Drop the references, the group may hold the last rows of a large table
+            Arrays.fill(values, 0, rows, null);
+        }
+        buffer.writeBlock(out);
+        rowCount += rows;
+        rows = 0;
+    }
+
+    private void writeStrings(Object[] values, Map<String, Integer> dictionary) {
+        for (int row = 0; row < rows; row++) {
+            String value = (String) values[row];
+            if (value == null) {
+                buffer.writeVarLong(NULL);
+                continue;
+            }
+            Integer code = dictionary.get(value);
+            if (code != null) {
+                buffer.writeVarLong(code);
+            } else {
+                buffer.writeVarLong(NEW_VALUE);
+                buffer.writeString(value);
+                if (dictionary.size() < MAX_DICTIONARY_ENTRIES) {
+                    dictionary.put(value, FIRST_DICTIONARY_CODE + dictionary.size());
+                }
+            }
+        }
+    }
+
+    private void writeDecimals(Object[] values) {
+        for (int row = 0; row < rows; row++) {
+            BigDecimal value = (BigDecimal) values[row];
+            if (value == null) {
+                buffer.writeVarLong(NULL);
+                continue;
+            }
+            BigInteger unscaled = value.unscaledValue();
+            boolean big = unscaled.bitLength() > 63;
+            buffer.writeVarLong((zigzag(value.scale()) << 1 | (big ? 1 : 0)) + 1);
+            if (big) {
+                buffer.writeBytes(unscaled.toByteArray());
+            } else {
+                buffer.writeSignedVarLong(unscaled.longValue());
+            }
+        }
+    }
+
+    private void writeDateTimes(Object[] values) {
+        long previousSecond = 0;
+        for (int row = 0; row < rows; row++) {
+            LocalDateTime value = (LocalDateTime) values[row];
+            if (value == null) {
+                buffer.writeVarLong(NULL);
+                continue;
+            }
+            long second = value.toEpochSecond(ZoneOffset.UTC);
+            int nanos = value.getNano();
+            buffer.writeVarLong((zigzag(second - previousSecond) << 1 | (nanos != 0 ? 1 : 0)) + 1);
+            if (nanos != 0) {
+                buffer.writeVarLong(nanos);
+            }
+            previousSecond = second;
+        }
+    }
+
+    private void writeIntegers(Object[] values) {
+        for (int row = 0; row < rows; row++) {
+            Integer value = (Integer) values[row];
+            if (value == null) {
+                buffer.writeVarLong(NULL);
+            } else {
+                buffer.writeVarLong(zigzag(value) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.ubs.hackathon.financialpeace.service.snapshot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer a block of a snapshot is encoded into or decoded from. Blocks are written and read
+ * as a whole, so the varint coding works on a plain array instead of going through the streams byte by byte.
+ */
+final class SnapshotBuffer {
+
+    private byte[] data;
+    private int position;
+    private int limit;
+
+    SnapshotBuffer(int capacity) {
+        data = new byte[capacity];
+    }
+
+    void clear() {
+        position = 0;
+        limit = 0;
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+    }
+
+    void writeSignedVarLong(long value) {
+        writeVarLong(SnapshotFormat.zigzag(value));
+    }
+
+    void writeBytes(byte[] bytes) {
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, data, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the encoded block with its length and empty the buffer.
+     */
+    void writeBlock(DataOutputStream out) throws IOException {
+        out.writeInt(position);
+        out.write(data, 0, position);
+        clear();
+    }
+
+    /**
+     * Read the next block of the given length for decoding.
+     */
+    void readBlock(DataInputStream in, int length) throws IOException {
+        clear();
+        ensureCapacity(length);
+        in.readFully(data, 0, length);
+        limit = length;
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IOException("Snapshot block ends within a value");
+            }
+            byte b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in snapshot block");
+    }
+
+    long readSignedVarLong() throws IOException {
+        return SnapshotFormat.unzigzag(readVarLong());
+    }
+
+    int readLength() throws IOException {
+        long length = readVarLong();
+        if (length > limit - position) {
+            throw new IOException("Snapshot block ends within a value");
+        }
+        return (int) length;
+    }
+
+    byte[] readBytes() throws IOException {
+        int length = readLength();
+        byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    String readString() throws IOException {
+        int length = readLength();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, position + additional));
+        }
+    }
+}
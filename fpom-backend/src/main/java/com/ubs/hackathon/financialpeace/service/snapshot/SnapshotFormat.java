@@ -0,0 +1,60 @@
+package com.ubs.hackathon.financialpeace.service.snapshot;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of a position snapshot file (version 1):
+ * <pre>
+ * "FPOMSNAP"  int version          uncompressed file header
+ * gzip stream of blocks, each an int byte length followed by the block:
+ *   header block     createdAt (epoch millis), column count, per column name and type
+ *   row group block  row count, ids (delta encoded), then every column of the group in header order
+ *   int 0            end of the row groups
+ *   long             total row count, detects truncated files
+ * </pre>
+ * Inside a block all numbers are unsigned varints (7 bits per byte), signed values are zigzag encoded.
+ * Per column type a row group holds:
+ * <ul>
+ *   <li>STRING: a code per row, 0 null, 1 a new value that follows inline, n &gt; 1 the (n-2)th distinct value
+ *   of the column. Reader and writer build the same dictionary of up to {@value #MAX_DICTIONARY_ENTRIES}
+ *   values per column across all row groups, later distinct values stay inline.</li>
+ *   <li>DECIMAL: 0 null, else (zigzag(scale) &lt;&lt; 1 | big) + 1, followed by the unscaled value as signed
+ *   varint or, if it needs more than 63 bits, as two's complement bytes.</li>
+ *   <li>DATE_TIME: 0 null, else (zigzag(epoch second - previous epoch second) &lt;&lt; 1 | has nanos) + 1,
+ *   followed by the nanos if present. Epoch seconds are taken in UTC without any zone conversion.</li>
+ *   <li>INTEGER: 0 null, else zigzag(value) + 1.</li>
+ * </ul>
+ * Columns are matched by name on restore, so snapshots survive added or dropped columns.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = "FPOMSNAP".getBytes(StandardCharsets.US_ASCII);
+
+    static final int VERSION = 1;
+
+    /**
+     * Rows per row group, the unit the writer buffers and encodes column by column
+     */
+    static final int ROW_GROUP_SIZE = 1 << 14;
+
+    static final int MAX_DICTIONARY_ENTRIES = 1 << 16;
+
+    static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    static final int NULL = 0;
+
+    static final int NEW_VALUE = 1;
+
+    static final int FIRST_DICTIONARY_CODE = 2;
+
+    private SnapshotFormat() {
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
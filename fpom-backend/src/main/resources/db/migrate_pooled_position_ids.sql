@@ -0,0 +1,25 @@
+-- Migration of portfolio_position_id_seq to pooled-lo id allocation
+-- Run once with all application instances stopped, before starting the version that allocates ids in blocks.
+--
+-- Every nextval now reserves a block of 50 ids (PortfolioPosition.ID_BLOCK_SIZE) starting at the returned
+-- value. The sequence is moved past the highest existing id, so the first block starts after the data that
+-- was written with one nextval per row. Hibernate refuses to start while the INCREMENT does not match.
+
+-- Connect to fpom database
+\c fpom;
+
+BEGIN;
+
+-- Keep concurrent writers out while the sequence is moved
+LOCK TABLE portfolio_positions IN SHARE ROW EXCLUSIVE MODE;
+
+SELECT setval('portfolio_position_id_seq',
+              (SELECT coalesce(max(id), 0) + 1 FROM portfolio_positions),
+              false);
+
+ALTER SEQUENCE portfolio_position_id_seq INCREMENT BY 50 CACHE 1;
+
+COMMIT;
+
+-- Check: increment_by must be 50, the next block starts at last_value (is_called = false)
+SELECT increment_by, last_value FROM pg_sequences WHERE sequencename = 'portfolio_position_id_seq';
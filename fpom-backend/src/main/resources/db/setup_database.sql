@@ -41,11 +41,18 @@ CREATE EXTENSION IF NOT EXISTS "pg_stat_statements";
 -- Set up sequence for portfolio positions (will be created automatically by Hibernate)
 -- This is just for reference - Hibernate will manage this
 -- CREATE SEQUENCE IF NOT EXISTS portfolio_position_id_seq
---     INCREMENT 1
+--     INCREMENT 50
 --     START 1
 --     MINVALUE 1
 --     MAXVALUE 9223372036854775807
 --     CACHE 1
 --     OWNED BY portfolio_positions.id;
+-- CREATE SEQUENCE IF NOT EXISTS cash_position_id_seq
+--     INCREMENT 50
+--     START 1
+--     MINVALUE 1
+--     MAXVALUE 9223372036854775807
+--     CACHE 1
+--     OWNED BY cash_positions.id;
 
 COMMENT ON DATABASE fpom IS 'Financial Peace of Mind - UBS Swiss AI Weeks Hackathon Database';
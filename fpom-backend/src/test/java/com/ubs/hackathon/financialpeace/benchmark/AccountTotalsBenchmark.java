@@ -0,0 +1,146 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.analytics.AccountTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Before/after of the account details aggregates: the former {@code BigDecimal} stream arithmetic of the
+ * controller against the single pass over fixed point amounts of {@link AccountTotals}, for one account.
+ * The GC profiler reports the allocation per account ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountTotalsBenchmark {
+
+    private static final String[] CURRENCIES = {"CHF", "EUR", "USD", "GBP", "JPY"};
+    private static final String[] ASSET_CLASSES = {"Equities", "Bonds", "Liquidity", "Real Estate", "Hedge Funds", "Commodities"};
+
+    @Param({"100", "10000"})
+    public int positionCount;
+
+    private List<PortfolioPosition> positions;
+
+    @Setup
+    public void setUp() {
+        positions = positions(positionCount);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        bigDecimalTotals(positions, blackhole);
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole blackhole) {
+        AccountTotals totals = AccountTotals.of(positions);
+        blackhole.consume(totals.getTotalsByCurrency());
+        blackhole.consume(totals.getAssetClassBreakdown());
+        blackhole.consume(totals.getTotalValueChf());
+        blackhole.consume(totals.getPrimaryCurrency());
+        blackhole.consume(totals.getConcentrationRisk());
+        blackhole.consume(totals.getAssetClassCount());
+        blackhole.consume(totals.hasFxExposure());
+    }
+
+    /**
+     * Positions of one account with amounts and FX rates at the scales of their columns, fixed seed.
+     */
+    static List<PortfolioPosition> positions(int count) {
+        Random random = new Random(42);
+        List<PortfolioPosition> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PortfolioPosition position = new PortfolioPosition();
+            position.setValueCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            position.setSourceCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            position.setAssetClassDescriptionShort(ASSET_CLASSES[random.nextInt(ASSET_CLASSES.length)]);
+            position.setValueAmount(BigDecimal.valueOf(random.nextInt(100_000_000), 2));
+            position.setFxRate(BigDecimal.valueOf(500_000_000_000L + random.nextInt(1_000_000_000), 12));
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    /**
+     * The aggregates as computed by the controller before {@link AccountTotals}.
+     */
+    static void bigDecimalTotals(List<PortfolioPosition> positions, Blackhole blackhole) {
+        Map<String, BigDecimal> totalsByCurrency = positions.stream()
+                .collect(Collectors.groupingBy(
+                        PortfolioPosition::getValueCurrency,
+                        Collectors.reducing(
+                                BigDecimal.ZERO,
+                                pos -> pos.getValueAmount() != null ? pos.getValueAmount() : BigDecimal.ZERO,
+                                BigDecimal::add)));
+        Map<String, Long> assetClassBreakdown = positions.stream()
+                .filter(pos -> pos.getAssetClassDescriptionShort() != null)
+                .collect(Collectors.groupingBy(PortfolioPosition::getAssetClassDescriptionShort, Collectors.counting()));
+        BigDecimal totalValueChf = positions.stream()
+                .filter(pos -> pos.getValueAmount() != null && pos.getFxRate() != null)
+                .map(pos -> pos.getValueAmount().multiply(pos.getFxRate()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        String primaryCurrency = totalsByCurrency.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        long assetClassCount = positions.stream()
+                .map(PortfolioPosition::getAssetClassDescriptionShort)
+                .filter(ac -> ac != null)
+                .distinct()
+                .count();
+        BigDecimal totalValue = totalsByCurrency.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal largestPosition = positions.stream()
+                .map(PortfolioPosition::getValueAmount)
+                .filter(amount -> amount != null)
+                .max(BigDecimal::compareTo)
+                .orElse(BigDecimal.ZERO);
+        BigDecimal concentrationRisk = totalValue.compareTo(BigDecimal.ZERO) > 0
+                ? largestPosition.divide(totalValue, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO;
+        boolean hasFxExposure = positions.stream()
+                .anyMatch(pos -> pos.getValueCurrency() != null && pos.getSourceCurrency() != null
+                        && !pos.getValueCurrency().equals(pos.getSourceCurrency()));
+        blackhole.consume(totalsByCurrency);
+        blackhole.consume(assetClassBreakdown);
+        blackhole.consume(totalValueChf);
+        blackhole.consume(primaryCurrency);
+        blackhole.consume(concentrationRisk);
+        blackhole.consume(assetClassCount);
+        blackhole.consume(hasFxExposure);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccountTotalsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
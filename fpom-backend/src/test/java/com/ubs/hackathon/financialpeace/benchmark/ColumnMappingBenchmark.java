@@ -0,0 +1,104 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.importer.ColumnMappingPlan;
+import com.ubs.hackathon.financialpeace.service.importer.CsvRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.ImportRow;
+import com.ubs.hackathon.financialpeace.service.importer.PortfolioPositionRowMapper;
+import com.ubs.hackathon.financialpeace.service.importer.RowHandler;
+import com.ubs.hackathon.financialpeace.service.importer.StringDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Row mapping cost of the hand-written positional mapper against the header driven mapping plan.
+ * The CSV is scanned once in the setup, the benchmark only maps the rows, so the scores are rows per
+ * second of the mapping stage. {@code plan-reordered} reads a file with the columns in reverse order
+ * and eight additional columns.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.ubs.hackathon.financialpeace.benchmark.ColumnMappingBenchmark
+ * -Dexec.classpathScope=test} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnMappingBenchmark {
+
+    static final int ROWS = 50_000;
+
+    @Param({"hand-written", "plan", "plan-reordered"})
+    public String mapper;
+
+    private final List<ImportRow> rows = new ArrayList<>(ROWS);
+    private Function<ImportRow, PortfolioPosition> mapping;
+
+    @Setup
+    public void setUp() throws IOException {
+        boolean reordered = "plan-reordered".equals(mapper);
+        int[] columnOrder = IntStream.range(0, SyntheticPositions.COLUMNS)
+                .map(column -> reordered ? SyntheticPositions.COLUMNS - 1 - column : column)
+                .toArray();
+        byte[] csv = SyntheticPositions.csv(ROWS, columnOrder, reordered ? 8 : 0).getBytes(StandardCharsets.UTF_8);
+
+        List<String> header = new ArrayList<>();
+        new CsvRowSource(new ByteArrayInputStream(csv)).read(new RowHandler() {
+            @Override
+            public void onHeader(List<String> columnNames) {
+                header.addAll(columnNames);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                rows.add(row);
+            }
+        });
+
+        if ("hand-written".equals(mapper)) {
+            StringDictionary dictionary = PositionalRowMapper.newDictionary(4096);
+            mapping = row -> PositionalRowMapper.map(row, dictionary);
+        } else {
+            ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(header, 4096);
+            mapping = plan::map;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void map(Blackhole blackhole) {
+        for (ImportRow row : rows) {
+            blackhole.consume(mapping.apply(row));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ColumnMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.importer.ColumnMappingPlan;
+import com.ubs.hackathon.financialpeace.service.importer.CsvRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.PortfolioPositionRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single core parse rate of the CSV import fast path: byte scanning, field conversion and the
+ * {@link PortfolioPosition} mapping of synthetic rows in the 57 column layout, without the database.
+ * Scores are rows per second ({@code scanOnly} and {@code scanAndMap}). The target is 200k+ rows/s on one core,
+ * it has not been measured yet: record the scores of a run here and in PORTFOLIO_IMPORT_README.md.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.ubs.hackathon.financialpeace.benchmark.CsvImportBenchmark
+ * -Dexec.classpathScope=test} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    static final int ROWS = 100_000;
+
+    private byte[] csv;
+    private ColumnMappingPlan<PortfolioPosition> plan;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticPositions.csv(ROWS).getBytes(StandardCharsets.UTF_8);
+        plan = PortfolioPositionRowMapper.exportLayoutPlan();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void scanOnly(Blackhole blackhole) throws IOException {
+        new CsvRowSource(new ByteArrayInputStream(csv)).read((rowIndex, row) -> blackhole.consume(row));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void scanAndMap(Blackhole blackhole) throws IOException {
+        new CsvRowSource(new ByteArrayInputStream(csv)).read(
+                (rowIndex, row) -> blackhole.consume(plan.map(row)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CsvImportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.importer.ColumnMappingPlan;
+import com.ubs.hackathon.financialpeace.service.importer.CsvRowSource;
+import com.ubs.hackathon.financialpeace.service.importer.PortfolioPositionRowMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Before/after of the import string dictionary: maps synthetic CSV rows with and without dictionary
+ * encoding and keeps the positions of a run alive, like the batches queued in the import pipeline.
+ * The GC profiler reports the allocation per row ({@code gc.alloc.rate.norm}), {@link #retainedHeap} the
+ * retained heap per position of both variants ({@code retainedBytesPerPosition}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryEncodingBenchmark {
+
+    static final int ROWS = 50_000;
+
+    @Param({"false", "true"})
+    public boolean dictionary;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        csv = SyntheticPositions.csv(ROWS).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<PortfolioPosition> mapRows() throws IOException {
+        return mapRows(csv, dictionary);
+    }
+
+    static List<PortfolioPosition> mapRows(byte[] csv, boolean useDictionary) throws IOException {
+        // Import scoped, a new dictionary per run
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(List.of(), useDictionary ? 4096 : 0);
+        List<PortfolioPosition> positions = new ArrayList<>(ROWS);
+        new CsvRowSource(new ByteArrayInputStream(csv)).read((rowIndex, row) -> positions.add(plan.map(row)));
+        return positions;
+    }
+
+    /**
+     * Heap held by the mapped positions of one run, divided by the number of positions. A single shot after
+     * one warmup run, so the counter is the value of one measurement and not a sum.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public List<PortfolioPosition> retainedHeap(RetainedHeap counters) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        List<PortfolioPosition> positions = mapRows(csv, dictionary);
+        memory.gc();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        counters.retainedBytesPerPosition = (after - before) / Math.max(1, positions.size());
+        return positions;
+    }
+
+    /**
+     * Result of {@link #retainedHeap}, listed by JMH next to the scores.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+
+        public long retainedBytesPerPosition;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytesPerPosition = 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DictionaryEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.importer.ImportRow;
+import com.ubs.hackathon.financialpeace.service.importer.StringDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hand-written mapping of the Excel export layout (57 columns, by position), the import mapper before the
+ * header driven {@link com.ubs.hackathon.financialpeace.service.importer.ColumnMappingPlan}.
+ * Kept as the baseline of {@link ColumnMappingBenchmark}.
+ */
+final class PositionalRowMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionalRowMapper.class);
+
+    private PositionalRowMapper() {
+    }
+
+    /**
+     * Dictionary for the string columns of an import. All string columns except the per-instrument
+     * identifiers (valor, ISIN, instrument name) repeat across positions and are encoded.
+     *
+     * @param maxEntriesPerColumn distinct values kept per column, 0 disables the dictionary
+     */
+    static StringDictionary newDictionary(int maxEntriesPerColumn) {
+        return new StringDictionary(maxEntriesPerColumn)
+                .column(0, "partnerIdFake")
+                .column(1, "accountIdFake")
+                .column(3, "fiUnitTypeCode")
+                .column(9, "valueCurrency")
+                .column(10, "sourceCurrency")
+                .column(17, "symbolId")
+                .column(18, "titleGroupId")
+                .column(19, "titleId")
+                .column(20, "titleIdDescription")
+                .column(21, "symbolIdGpc")
+                .column(22, "productDescription")
+                .column(23, "productId")
+                .column(24, "productIdDescription")
+                .column(25, "productClassId")
+                .column(26, "productClassDescription")
+                .column(27, "productFamilyId")
+                .column(28, "productFamilyDescription")
+                .column(29, "assetClass")
+                .column(30, "assetClassSubtype")
+                .column(31, "assetClassDescriptionShort")
+                .column(32, "assetClassDescriptionLong")
+                .column(33, "uacInstrCatType")
+                .column(34, "instrumentId")
+                .column(35, "portfolioCurrency")
+                .column(36, "portfolioShortName")
+                .column(37, "currencyId")
+                .column(39, "mandatePricingId")
+                .column(40, "mandateProgram")
+                .column(42, "mandatePricingNameShort")
+                .column(43, "mandatePricingNameLong")
+                .column(44, "mandatePricingType")
+                .column(45, "mandateProgramSecondary")
+                .column(46, "investmentStrategy")
+                .column(47, "investmentStrategyName")
+                .column(48, "solutionSubtypeId")
+                .column(49, "solutionSubtypeNameShort")
+                .column(50, "solutionNameShort")
+                .column(51, "solutionNameLong")
+                .column(52, "mandateType")
+                .column(53, "mandateSubtype")
+                .column(54, "mandateGroup")
+                .column(55, "domicile");
+    }
+
+    /**
+     * Parse a single source row into a PortfolioPosition entity, strings of encoded columns are shared
+     * through the dictionary.
+     *
+     * @return null if the row cannot be converted
+     */
+    static PortfolioPosition map(ImportRow row, StringDictionary dictionary) {
+        try {
+            PortfolioPosition position = new PortfolioPosition();
+
+            // Map Excel columns to entity fields
+            position.setPartnerIdFake(row.getString(0, dictionary));
+            position.setAccountIdFake(row.getString(1, dictionary));
+            position.setPositionCreatedDate(row.getDateTime(2));
+            position.setFiUnitTypeCode(row.getString(3, dictionary));
+            position.setBalanceAmount(row.getDecimal(4));
+            position.setValueAmount(row.getDecimal(5));
+            position.setTradeAmount(row.getDecimal(6));
+            position.setValuationDate(row.getDateTime(7));
+            position.setAsOfDate(row.getDateTime(8));
+            position.setValueCurrency(row.getString(9, dictionary));
+            position.setSourceCurrency(row.getString(10, dictionary));
+            position.setOriginalQuantity(row.getDecimal(11));
+            position.setMarketValueAmount(row.getDecimal(12));
+            position.setFxRate(row.getDecimal(13));
+            position.setValor(row.getString(14, dictionary));
+            position.setIsin(row.getString(15, dictionary));
+            position.setInstrumentNameShort(row.getString(16, dictionary));
+            position.setSymbolId(row.getString(17, dictionary));
+            position.setTitleGroupId(row.getString(18, dictionary));
+            position.setTitleId(row.getString(19, dictionary));
+            position.setTitleIdDescription(row.getString(20, dictionary));
+            position.setSymbolIdGpc(row.getString(21, dictionary));
+            position.setProductDescription(row.getString(22, dictionary));
+            position.setProductId(row.getString(23, dictionary));
+            position.setProductIdDescription(row.getString(24, dictionary));
+            position.setProductClassId(row.getString(25, dictionary));
+            position.setProductClassDescription(row.getString(26, dictionary));
+            position.setProductFamilyId(row.getString(27, dictionary));
+            position.setProductFamilyDescription(row.getString(28, dictionary));
+            position.setAssetClass(row.getString(29, dictionary));
+            position.setAssetClassSubtype(row.getString(30, dictionary));
+            position.setAssetClassDescriptionShort(row.getString(31, dictionary));
+            position.setAssetClassDescriptionLong(row.getString(32, dictionary));
+            position.setUacInstrCatType(row.getString(33, dictionary));
+            position.setInstrumentId(row.getString(34, dictionary));
+            position.setPortfolioCurrency(row.getString(35, dictionary));
+            position.setPortfolioShortName(row.getString(36, dictionary));
+            position.setCurrencyId(row.getString(37, dictionary));
+            // Skip Product ID_1 (column 38) as it's duplicate
+            position.setMandatePricingId(row.getString(39, dictionary));
+            position.setMandateProgram(row.getString(40, dictionary));
+            // Skip Mandate Pricing ID_1 (column 41) as it's duplicate
+            position.setMandatePricingNameShort(row.getString(42, dictionary));
+            position.setMandatePricingNameLong(row.getString(43, dictionary));
+            position.setMandatePricingType(row.getString(44, dictionary));
+            position.setMandateProgramSecondary(row.getString(45, dictionary));
+            position.setInvestmentStrategy(row.getString(46, dictionary));
+            position.setInvestmentStrategyName(row.getString(47, dictionary));
+            position.setSolutionSubtypeId(row.getString(48, dictionary));
+            position.setSolutionSubtypeNameShort(row.getString(49, dictionary));
+            position.setSolutionNameShort(row.getString(50, dictionary));
+            position.setSolutionNameLong(row.getString(51, dictionary));
+            position.setMandateType(row.getString(52, dictionary));
+            position.setMandateSubtype(row.getString(53, dictionary));
+            position.setMandateGroup(row.getString(54, dictionary));
+            position.setDomicile(row.getString(55, dictionary));
+            position.setClientAdvisorIdFake(row.getInteger(56));
+
+            return position;
+
+        } catch (Exception e) {
+            logger.error("Error parsing row to PortfolioPosition: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ubs.hackathon.financialpeace.benchmark;
+
+import com.ubs.hackathon.financialpeace.service.importer.PortfolioPositionRowMapper;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Generates portfolio positions with the 57 columns of the Excel export for the benchmarks.
+ * Values repeat like in the real export: few partners, currencies, asset classes and products.
+ */
+final class SyntheticPositions {
+
+    static final int COLUMNS = 57;
+
+    private static final String[] CURRENCIES = {"CHF", "EUR", "USD", "GBP", "JPY"};
+    private static final String[] ASSET_CLASSES = {"Equities", "Bonds", "Liquidity", "Real Estate", "Hedge Funds", "Commodities"};
+    private static final String[] PRODUCTS = {"Mandate Classic", "Mandate Sustainable", "Advisory", "Execution Only"};
+
+    private SyntheticPositions() {
+    }
+
+    /**
+     * Append the ISIN check digit (Luhn over the digits, letters counting as 10 to 35) so the rows pass validation.
+     */
+    static String isin(String withoutCheckDigit) {
+        StringBuilder digits = new StringBuilder();
+        for (char c : withoutCheckDigit.toCharArray()) {
+            digits.append(Character.isDigit(c) ? String.valueOf(c) : String.valueOf(c - 'A' + 10));
+        }
+        int sum = 0;
+        for (int i = digits.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = digits.charAt(i) - '0';
+            if (position % 2 == 0) {
+                digit *= 2;
+                digit = digit > 9 ? digit - 9 : digit;
+            }
+            sum += digit;
+        }
+        return withoutCheckDigit + (10 - sum % 10) % 10;
+    }
+
+    /**
+     * CSV with a header record and {@code rows} position records in the column order of the export, fixed seed.
+     */
+    static String csv(int rows) {
+        return csv(rows, IntStream.range(0, COLUMNS).toArray(), 0);
+    }
+
+    /**
+     * CSV with the export columns in the given order followed by {@code extraColumns} columns unknown to the
+     * import. The values per export column are the same as for {@link #csv(int)}.
+     *
+     * @param columnOrder export column index for every CSV column
+     */
+    static String csv(int rows, int[] columnOrder, int extraColumns) {
+        Random random = new Random(42);
+        List<String> header = PortfolioPositionRowMapper.MAPPING.getDefaultHeader();
+        StringBuilder csv = new StringBuilder(rows * (480 + extraColumns * 12));
+        for (int i = 0; i < columnOrder.length; i++) {
+            csv.append(i == 0 ? "" : ",").append(header.get(columnOrder[i]));
+        }
+        for (int i = 0; i < extraColumns; i++) {
+            csv.append(",Extra ").append(i);
+        }
+        csv.append('\n');
+
+        String[] values = new String[COLUMNS];
+        for (int row = 0; row < rows; row++) {
+            String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            String assetClass = ASSET_CLASSES[random.nextInt(ASSET_CLASSES.length)];
+            String product = PRODUCTS[random.nextInt(PRODUCTS.length)];
+            int day = 1 + random.nextInt(28);
+            for (int column = 0; column < COLUMNS; column++) {
+                values[column] = switch (column) {
+                    case 0 -> "P" + (1000 + row / 20);
+                    case 1 -> "A" + (10000 + row / 5);
+                    case 2, 7 -> "2024-03-" + (day < 10 ? "0" : "") + day + "T00:00:00.000Z";
+                    case 8 -> "2024-03-31T22:00:00.000Z";
+                    case 4, 5, 6, 11, 12 -> random.nextInt(1_000_000) + "." + random.nextInt(100);
+                    case 13 -> "0.9" + random.nextInt(10_000);
+                    case 9, 10, 35, 37 -> currency;
+                    case 14 -> String.valueOf(1_000_000 + random.nextInt(9_000_000));
+                    case 15 -> isin("CH00" + (1_000_000 + random.nextInt(9_000_000)));
+                    case 16 -> "\"Instrument " + random.nextInt(5000) + ", Reg.\"";
+                    case 29 -> assetClass;
+                    case 22, 24 -> product;
+                    case 56 -> String.valueOf(random.nextInt(500));
+                    default -> "V" + column + "-" + random.nextInt(50);
+                };
+            }
+            for (int i = 0; i < columnOrder.length; i++) {
+                csv.append(i == 0 ? "" : ",").append(values[columnOrder[i]]);
+            }
+            for (int i = 0; i < extraColumns; i++) {
+                csv.append(",x").append(i);
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+}
@@ -1,8 +1,11 @@
 package com.ubs.hackathon.financialpeace.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ubs.hackathon.financialpeace.model.CashPosition;
 import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.repository.CashPositionRepository;
 import com.ubs.hackathon.financialpeace.repository.PortfolioPositionRepository;
+import com.ubs.hackathon.financialpeace.service.importer.SourceHash;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +14,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -35,6 +47,9 @@ class PortfolioPositionControllerTest {
     @Autowired
     private PortfolioPositionRepository repository;
 
+    @Autowired
+    private CashPositionRepository cashPositionRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -84,6 +99,44 @@ class PortfolioPositionControllerTest {
                 .andExpect(jsonPath("$.totalElements", is(1)));
     }
 
+    @Test
+    void getPositionsAfter_ShouldPageByCursorUntilTheLastPosition() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String account : List.of("KEYSET_1", "KEYSET_2", "KEYSET_3")) {
+            PortfolioPosition position = new PortfolioPosition();
+            position.setPartnerIdFake("TEST_PARTNER");
+            position.setAccountIdFake(account);
+            ids.add(repository.save(position).getId());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/portfolio-positions")
+                .param("after", "")
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(ids.get(0).intValue())))
+                .andExpect(jsonPath("$.content[1].id", is(ids.get(1).intValue())))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.totalElements", nullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/portfolio-positions")
+                .param("after", nextCursor)
+                .param("size", "2")
+                .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].accountIdFake", is("KEYSET_3")))
+                .andExpect(jsonPath("$.hasNext", is(false)))
+                .andExpect(jsonPath("$.nextCursor", nullValue()))
+                .andExpect(jsonPath("$.totalElements", is(3)));
+
+        mockMvc.perform(get("/api/portfolio-positions")
+                .param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getPositionById_ShouldReturnPosition() throws Exception {
         PortfolioPosition saved = repository.save(testPosition);
@@ -181,6 +234,78 @@ class PortfolioPositionControllerTest {
                 .andExpect(jsonPath("$[0].accountIdFake", is("TEST_ACCOUNT")));
     }
 
+    @Test
+    void getPositionsByPartner_WithFields_ShouldOnlyReturnTheSelectedFields() throws Exception {
+        PortfolioPosition saved = repository.save(testPosition);
+
+        mockMvc.perform(get("/api/portfolio-positions/partner/{partnerIdFake}", "TEST_PARTNER")
+                .param("fields", "isin,valueAmount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].*", hasSize(2)))
+                .andExpect(jsonPath("$[0].isin", is("TEST123456789")))
+                .andExpect(jsonPath("$[0].valueAmount", is(50000.00)));
+
+        mockMvc.perform(get("/api/portfolio-positions/search")
+                .param("instrumentName", "test instr")
+                .param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(saved.getId().intValue())))
+                .andExpect(jsonPath("$[0].assetClassDescriptionShort", is("Equities")))
+                .andExpect(jsonPath("$[0].valuationDate").doesNotExist());
+
+        mockMvc.perform(get("/api/portfolio-positions/partner/{partnerIdFake}", "TEST_PARTNER")
+                .param("fields", "isin,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPositionsByPartner_WithoutFieldNames_ShouldReturn400() throws Exception {
+        repository.save(testPosition);
+
+        mockMvc.perform(get("/api/portfolio-positions/partner/{partnerIdFake}", "TEST_PARTNER")
+                .param("fields", ","))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/portfolio-positions/search")
+                .param("instrumentName", "test instr")
+                .param("fields", " , "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void streamPositionsByPartner_ShouldWriteOnePositionPerLine() throws Exception {
+        // Committed, the stream is written by another thread in its own transaction
+        try {
+            repository.save(testPosition);
+            PortfolioPosition sameAccount = new PortfolioPosition();
+            sameAccount.setPartnerIdFake("TEST_PARTNER");
+            sameAccount.setAccountIdFake("TEST_ACCOUNT");
+            repository.save(sameAccount);
+            PortfolioPosition otherPartner = new PortfolioPosition();
+            otherPartner.setPartnerIdFake("OTHER_PARTNER");
+            repository.save(otherPartner);
+
+            MvcResult result = mockMvc.perform(get("/api/portfolio-positions/partner/{partnerIdFake}/stream", "TEST_PARTNER"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            List<String> lines = body.lines().toList();
+            assertEquals(2, lines.size());
+            for (String line : lines) {
+                assertEquals("TEST_PARTNER", objectMapper.readTree(line).get("partnerIdFake").asText());
+            }
+        } finally {
+            repository.deleteAll();
+        }
+    }
+
     @Test
     void searchPositions_ShouldReturnMatchingResults() throws Exception {
         repository.save(testPosition);
@@ -203,6 +328,53 @@ class PortfolioPositionControllerTest {
                 .andExpect(jsonPath("$.currencies", hasItem("CHF")));
     }
 
+    @Test
+    void getPartnerPortfolioSummary_ShouldListPositionsWithChfValueAsObjects() throws Exception {
+        testPosition.setValueCurrency("EUR");
+        testPosition.setFxRate(new BigDecimal("0.940000000000"));
+        repository.save(testPosition);
+
+        mockMvc.perform(get("/api/portfolio-positions/summary/partner/TEST_PARTNER"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.positionCount", is(1)))
+                .andExpect(jsonPath("$.chfValuePositions", hasSize(1)))
+                .andExpect(jsonPath("$.chfValuePositions[0].id", is(testPosition.getId().intValue())))
+                .andExpect(jsonPath("$.chfValuePositions[0].accountIdFake", is("TEST_ACCOUNT")))
+                .andExpect(jsonPath("$.chfValuePositions[0].valueCurrency", is("EUR")))
+                .andExpect(jsonPath("$.chfValuePositions[0].chfValue", closeTo(47000.0, 0.001)))
+                .andExpect(jsonPath("$.chfValuePositions[0].positionCreatedDate").doesNotExist());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getPortfolioSummary_OutsideTransaction_ShouldCombineConcurrentQueries() throws Exception {
+        // Committed, the queries run on their own threads and connections
+        try {
+            repository.save(testPosition);
+            PortfolioPosition bond = new PortfolioPosition();
+            bond.setPartnerIdFake("TEST_PARTNER");
+            bond.setAssetClassDescriptionShort("Bonds");
+            bond.setValueCurrency("EUR");
+            bond.setValueAmount(new BigDecimal("100.00"));
+            repository.save(bond);
+
+            mockMvc.perform(get("/api/portfolio-positions/summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalPositions", is(2)))
+                    .andExpect(jsonPath("$.valueByAssetClass", hasSize(2)))
+                    .andExpect(jsonPath("$.valueByAssetClass[0][0]", is("Equities")))
+                    .andExpect(jsonPath("$.currencies", contains("CHF", "EUR")));
+
+            mockMvc.perform(get("/api/portfolio-positions/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalRecords", is(2)))
+                    .andExpect(jsonPath("$.uniqueAssetClasses", is(2)))
+                    .andExpect(jsonPath("$.uniquePartners", is(1)));
+        } finally {
+            repository.deleteAll();
+        }
+    }
+
     @Test
     void getStats_ShouldReturnDatabaseStats() throws Exception {
         repository.save(testPosition);
@@ -214,4 +386,159 @@ class PortfolioPositionControllerTest {
                 .andExpect(jsonPath("$.uniqueAccounts", is(1)))
                 .andExpect(jsonPath("$.uniquePartners", is(1)));
     }
+
+    @Test
+    void getAccountWealth_ShouldCombineSecuritiesAndCash() throws Exception {
+        testPosition.setFxRate(new BigDecimal("1.0"));
+        repository.save(testPosition);
+
+        CashPosition cash = new CashPosition();
+        cash.setClientIdFake("TEST_PARTNER");
+        cash.setAccountIdFake("TEST_ACCOUNT");
+        cash.setCurrencyIsoCode("CHF");
+        cash.setBalanceOriginal(new BigDecimal("1500.00"));
+        cash.setBalanceChf(new BigDecimal("1500.00"));
+        cashPositionRepository.save(cash);
+
+        mockMvc.perform(get("/api/portfolio-positions/accounts/TEST_ACCOUNT/wealth"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.securitiesPositionCount", is(1)))
+                .andExpect(jsonPath("$.cashPositionCount", is(1)))
+                .andExpect(jsonPath("$.totalWealthChf", closeTo(51500.0, 0.001)));
+
+        mockMvc.perform(get("/api/portfolio-positions/accounts/wealth").param("partnerIdFake", "TEST_PARTNER"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].accountIdFake", is("TEST_ACCOUNT")));
+    }
+
+    @Test
+    void uploadPositions_WhenSameFileAgain_ShouldSkipUnlessForced() throws Exception {
+        byte[] csv = ("Account ID Fake,ISIN,Value Currency\n"
+                + "UPLOAD_1,CH0012032048,CHF\n"
+                + "UPLOAD_2,US0378331005,USD\n").getBytes(StandardCharsets.UTF_8);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(csv));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("sha256", sha256)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsWritten", is(2)));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("sha256", sha256)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.rowsRead", is(0)))
+                .andExpect(jsonPath("$.previousImport.rowsWritten", is(2)));
+        assertEquals(2, repository.count());
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("sha256", sha256).param("force", "true")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+        assertEquals(4, repository.count());
+    }
+
+    @Test
+    void uploadPositions_WhenSameFileAgainWithClearExisting_ShouldReplaceThePositions() throws Exception {
+        byte[] csv = ("Account ID Fake,ISIN,Value Currency\n"
+                + "UPLOAD_1,CH0012032048,CHF\n"
+                + "UPLOAD_2,US0378331005,USD\n").getBytes(StandardCharsets.UTF_8);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(csv));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("sha256", sha256)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("sha256", sha256)
+                .param("clearExisting", "true")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.error").doesNotExist())
+                .andExpect(jsonPath("$.existingCountBefore", is(2)))
+                .andExpect(jsonPath("$.rowsWritten", is(2)))
+                .andExpect(jsonPath("$.totalCountAfter", is(2)));
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void uploadPositions_WhenSameCsvAgainWithoutSha256_ShouldNotWriteItTwice() throws Exception {
+        byte[] csv = ("Account ID Fake,ISIN,Value Currency\n"
+                + "UPLOAD_1,CH0012032048,CHF\n"
+                + "UPLOAD_2,US0378331005,USD\n").getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsWritten", is(2)));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.rowsRead", is(0)));
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void uploadPositions_WhenCsvWithoutSha256StartsLikeAnImportedFile_ShouldCompareTheWholeContent() throws Exception {
+        // Longer than the hashed prefix, the second file only differs after it
+        StringBuilder content = new StringBuilder("Account ID Fake,ISIN,Value Currency\n");
+        int rows = 0;
+        while (content.length() <= SourceHash.PREFIX_SIZE) {
+            content.append("PREFIX_").append(rows++).append(",CH0012032048,CHF\n");
+        }
+        byte[] first = content.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] second = content.append("PREFIX_LAST,US0378331005,USD\n").toString().getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsWritten", is(rows)));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.rowsWritten", is(rows + 1)));
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("DUPLICATE")));
+        assertEquals(2L * rows + 1, repository.count());
+    }
+
+    @Test
+    void uploadPositions_WhenClearExistingTwice_ShouldNotHandOutIdsAgain() throws Exception {
+        // More rows than one id block, so the first import leaves part of a block in Hibernate's cache
+        StringBuilder content = new StringBuilder("Account ID Fake,ISIN,Value Currency\n");
+        for (int i = 0; i < PortfolioPosition.ID_BLOCK_SIZE + 10; i++) {
+            content.append("CLEAR_").append(i).append(",CH0012032048,CHF\n");
+        }
+        byte[] csv = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("clearExisting", "true")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+        long firstMaxId = repository.findAll().stream().mapToLong(PortfolioPosition::getId).max().orElseThrow();
+
+        mockMvc.perform(post("/api/portfolio-positions/import/upload").param("clearExisting", "true")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.error").doesNotExist())
+                .andExpect(jsonPath("$.existingCountBefore", is(PortfolioPosition.ID_BLOCK_SIZE + 10)))
+                .andExpect(jsonPath("$.rowsWritten", is(PortfolioPosition.ID_BLOCK_SIZE + 10)));
+
+        List<PortfolioPosition> positions = repository.findAll();
+        assertEquals(PortfolioPosition.ID_BLOCK_SIZE + 10, positions.size());
+        assertTrue(positions.stream().allMatch(position -> position.getId() > firstMaxId));
+    }
 }
@@ -0,0 +1,117 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.ImportJobService;
+import com.ubs.hackathon.financialpeace.service.PortfolioPositionImportService;
+import com.ubs.hackathon.financialpeace.service.importer.ImportBackend;
+import com.ubs.hackathon.financialpeace.service.importer.ImportJob;
+import com.ubs.hackathon.financialpeace.service.importer.ImportOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the COPY bulk load, which needs PostgreSQL: run against a Testcontainers
+ * database and skipped where Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PortfolioPositionBulkRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PortfolioPositionBulkRepository bulkRepository;
+
+    @Autowired
+    private PortfolioPositionRepository repository;
+
+    @Autowired
+    private PortfolioPositionImportService importService;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        importService.clearAllPositions();
+    }
+
+    @Test
+    void copyIn_ShouldWriteEscapedValuesWithIdsOfOneBlock() {
+        PortfolioPosition first = new PortfolioPosition();
+        first.setPartnerIdFake("COPY_PARTNER");
+        first.setInstrumentNameShort("Tab\there, back\\slash\\N and\nnew line");
+        first.setValueAmount(new BigDecimal("1234.56"));
+        first.setValuationDate(LocalDateTime.of(2025, 6, 30, 12, 30));
+        first.setClientAdvisorIdFake(42);
+        PortfolioPosition second = new PortfolioPosition();
+        second.setPartnerIdFake("COPY_PARTNER");
+
+        transactionTemplate.executeWithoutResult(status -> bulkRepository.copyIn(List.of(first, second)));
+
+        List<PortfolioPosition> saved = repository.findAll(Sort.by("id"));
+        assertEquals(2, saved.size());
+        assertEquals(first.getId(), saved.get(0).getId());
+        assertEquals(first.getId() + 1, saved.get(1).getId());
+        assertEquals("Tab\there, back\\slash\\N and\nnew line", saved.get(0).getInstrumentNameShort());
+        assertEquals(new BigDecimal("1234.56"), saved.get(0).getValueAmount());
+        assertEquals(LocalDateTime.of(2025, 6, 30, 12, 30), saved.get(0).getValuationDate());
+        assertEquals(42, saved.get(0).getClientAdvisorIdFake());
+        assertNull(saved.get(0).getValueCurrency());
+        assertNull(saved.get(1).getValueAmount());
+
+        // Hibernate takes its ids from a later block of the same sequence
+        PortfolioPosition inserted = repository.save(new PortfolioPosition());
+        assertTrue(inserted.getId() > second.getId());
+    }
+
+    @Test
+    void upload_WithCopyBackend_ShouldWriteTheSamePositionsAsJpa() throws Exception {
+        StringBuilder content = new StringBuilder("Partner ID Fake,Account ID Fake,ISIN,Value Amount,Value Currency,"
+                + "Valuation Date,Client Advisor ID Fake\n");
+        for (int i = 0; i < 250; i++) {
+            content.append("P-").append(i % 7).append(",A-").append(i).append(",CH0012032048,")
+                    .append(i).append(".25,CHF,2025-06-30,").append(i % 11).append('\n');
+        }
+        byte[] csv = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        ImportJob copy = importJobService.runUpload(ImportOptions.builder().backend(ImportBackend.COPY).batchSize(100).build(),
+                new ByteArrayInputStream(csv), "copy.csv", null);
+        assertEquals(ImportJob.Status.COMPLETED, copy.getStatus(), copy.getError());
+        List<PortfolioPosition> copied = repository.findAll(Sort.by("id"));
+
+        importService.clearAllPositions();
+        ImportJob jpa = importJobService.runUpload(ImportOptions.builder().backend(ImportBackend.JPA).build(),
+                new ByteArrayInputStream(csv), "jpa.csv", null);
+        assertEquals(ImportJob.Status.COMPLETED, jpa.getStatus(), jpa.getError());
+        List<PortfolioPosition> inserted = repository.findAll(Sort.by("id"));
+
+        assertEquals(250, copy.getStats().getRowsWritten());
+        assertEquals(250, copied.size());
+        assertThat(copied).extracting(PortfolioPosition::getId).doesNotHaveDuplicates();
+        assertThat(copied).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyElementsOf(inserted);
+    }
+}
@@ -0,0 +1,138 @@
+package com.ubs.hackathon.financialpeace.repository;
+
+import com.ubs.hackathon.financialpeace.dto.DeltaImportResultDTO;
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import com.ubs.hackathon.financialpeace.service.ImportJobService;
+import com.ubs.hackathon.financialpeace.service.PortfolioPositionImportService;
+import com.ubs.hackathon.financialpeace.service.importer.ImportJob;
+import com.ubs.hackathon.financialpeace.service.importer.ImportMode;
+import com.ubs.hackathon.financialpeace.service.importer.ImportOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for delta imports of files with repeated natural keys, which need PostgreSQL: run
+ * against a Testcontainers database and skipped where Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PortfolioPositionDeltaRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String HEADER = "Account ID Fake,ISIN,Valor,As of Date,Value Amount\n";
+
+    // A-1 and A-3 appear twice, like the repeated keys of the bundled workbook
+    private static final String POSITIONS = HEADER +
+            "A-1,CH0012032048,1203204,2025-06-30,100.00\n" +
+            "A-1,CH0012032048,1203204,2025-06-30,200.00\n" +
+            "A-2,US0378331005,908440,2025-06-30,300.00\n" +
+            "A-3,CH0012032048,1203204,2025-06-30,400.00\n" +
+            "A-3,CH0012032048,1203204,2025-06-30,400.00\n";
+
+    @Autowired
+    private PortfolioPositionRepository repository;
+
+    @Autowired
+    private PortfolioPositionImportService importService;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        importService.clearAllPositions();
+    }
+
+    @Test
+    void delta_OnEmptyTable_ShouldInsertEveryRowAndReportRepeatedKeys() {
+        DeltaImportResultDTO result = importDelta(POSITIONS);
+
+        assertEquals(5, result.getStagedCount());
+        assertEquals(5, result.getInsertedCount());
+        assertEquals(0, result.getUnchangedCount());
+        assertEquals(2, result.getDuplicateKeyCount());
+        assertEquals(4, result.getDuplicateRowCount());
+        assertThat(repository.findAll(Sort.by("id"))).extracting(PortfolioPosition::getValueAmount)
+                .containsExactly(amount("100.00"), amount("200.00"), amount("300.00"), amount("400.00"),
+                                 amount("400.00"));
+    }
+
+    @Test
+    void delta_AfterAppendOfTheSameFile_ShouldLeaveAllPositionsUnchanged() {
+        ImportJob append = upload(ImportOptions.builder().build(), POSITIONS, "append.csv");
+        assertEquals(ImportJob.Status.COMPLETED, append.getStatus(), append.getError());
+        List<Long> ids = repository.findAll(Sort.by("id")).stream().map(PortfolioPosition::getId).toList();
+
+        DeltaImportResultDTO result = importDelta(POSITIONS);
+
+        assertEquals(5, result.getStagedCount());
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(0, result.getUpdatedCount());
+        assertEquals(5, result.getUnchangedCount());
+        assertEquals(0, result.getDeletedCount());
+        assertThat(repository.findAll(Sort.by("id"))).extracting(PortfolioPosition::getId).isEqualTo(ids);
+    }
+
+    @Test
+    void delta_WithChangedAndMissingRepeatedKey_ShouldMatchRowsByOccurrence() {
+        importDelta(POSITIONS);
+
+        DeltaImportResultDTO result = importDelta(HEADER +
+                "A-1,CH0012032048,1203204,2025-06-30,100.00\n" +
+                "A-1,CH0012032048,1203204,2025-06-30,250.00\n" +
+                "A-2,US0378331005,908440,2025-06-30,300.00\n" +
+                "A-3,CH0012032048,1203204,2025-06-30,400.00\n");
+
+        assertEquals(4, result.getStagedCount());
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(3, result.getUnchangedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(1, result.getDuplicateKeyCount());
+        assertThat(repository.findAll(Sort.by("id"))).extracting(PortfolioPosition::getValueAmount)
+                .containsExactly(amount("100.00"), amount("250.00"), amount("300.00"), amount("400.00"));
+    }
+
+    @Test
+    void append_AfterDelta_ShouldAcceptRepeatedKeys() {
+        importDelta(POSITIONS);
+
+        ImportJob append = upload(ImportOptions.builder().force(true).build(), POSITIONS, "append.csv");
+
+        assertEquals(ImportJob.Status.COMPLETED, append.getStatus(), append.getError());
+        assertEquals(10, repository.count());
+    }
+
+    private DeltaImportResultDTO importDelta(String csv) {
+        ImportJob job = upload(ImportOptions.builder().mode(ImportMode.DELTA).force(true).build(), csv, "delta.csv");
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getError());
+        return job.getDeltaResult();
+    }
+
+    private ImportJob upload(ImportOptions options, String csv, String fileName) {
+        return importJobService.runUpload(options, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                fileName, null);
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fixed point account aggregates.
+ */
+class AccountTotalsTest {
+
+    @Test
+    void of_ShouldAggregatePerCurrencyAndAssetClass() {
+        AccountTotals totals = AccountTotals.of(List.of(
+                position("CHF", "CHF", "Equities", "100.50", "1.000000000000"),
+                position("EUR", "USD", "Equities", "200.25", "0.950000000000"),
+                position("CHF", "CHF", "Bonds", "-0.75", null),
+                position("USD", "USD", null, null, "0.880000000000")));
+
+        assertEquals(Map.of("CHF", new BigDecimal("99.75"), "EUR", new BigDecimal("200.25"), "USD", BigDecimal.ZERO),
+                totals.getTotalsByCurrency());
+        assertEquals(Map.of("Equities", 2L, "Bonds", 1L), totals.getAssetClassBreakdown());
+        assertEquals(new BigDecimal("290.73750000000000"), totals.getTotalValueChf());
+        assertEquals("EUR", totals.getPrimaryCurrency());
+        assertEquals(3, totals.getCurrencyCount());
+        assertEquals(2, totals.getAssetClassCount());
+        assertEquals(4, totals.getPositionCount());
+        assertTrue(totals.hasFxExposure());
+        // 200.25 / 300.00 = 0.6675
+        assertEquals(new BigDecimal("66.7500"), totals.getConcentrationRisk());
+    }
+
+    @Test
+    void of_ShouldMatchBigDecimalArithmetic() {
+        Random random = new Random(7);
+        List<PortfolioPosition> positions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            positions.add(position(i % 3 == 0 ? "CHF" : "EUR", "CHF", "Equities",
+                    BigDecimal.valueOf(random.nextLong() % 100_000_000_000L, 2).toPlainString(),
+                    BigDecimal.valueOf(random.nextInt(2_000_000_000), 12).toPlainString()));
+        }
+
+        AccountTotals totals = AccountTotals.of(positions);
+
+        BigDecimal chf = BigDecimal.ZERO;
+        BigDecimal eur = BigDecimal.ZERO;
+        BigDecimal valueChf = BigDecimal.ZERO;
+        BigDecimal largest = null;
+        for (PortfolioPosition position : positions) {
+            if (position.getValueCurrency().equals("CHF")) {
+                chf = chf.add(position.getValueAmount());
+            } else {
+                eur = eur.add(position.getValueAmount());
+            }
+            valueChf = valueChf.add(position.getValueAmount().multiply(position.getFxRate()));
+            largest = largest == null || position.getValueAmount().compareTo(largest) > 0 ? position.getValueAmount() : largest;
+        }
+        assertEquals(Map.of("CHF", chf, "EUR", eur), totals.getTotalsByCurrency());
+        assertEquals(valueChf.signum() > 0 ? valueChf : null, totals.getTotalValueChf());
+        BigDecimal total = chf.add(eur);
+        assertEquals(total.signum() > 0
+                ? largest.divide(total, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100"))
+                : BigDecimal.ZERO, totals.getConcentrationRisk());
+    }
+
+    @Test
+    void of_WithoutPositiveTotal_ShouldReportNoConcentrationAndNoChfValue() {
+        AccountTotals totals = AccountTotals.of(List.of(
+                position("CHF", "CHF", "Liquidity", "-10.00", "1.000000000000"),
+                position(null, null, "Liquidity", "5.00", null)));
+
+        assertEquals(Map.of("CHF", new BigDecimal("-10.00")), totals.getTotalsByCurrency());
+        assertEquals(BigDecimal.ZERO, totals.getConcentrationRisk());
+        assertNull(totals.getTotalValueChf());
+        assertFalse(totals.hasFxExposure());
+    }
+
+    @Test
+    void toUnscaled_ShouldRoundHalfUpAndRejectOverflow() {
+        assertEquals(12346L, FixedPoint.toUnscaled(new BigDecimal("123.455"), 2));
+        assertEquals(-12346L, FixedPoint.toUnscaled(new BigDecimal("-123.455"), 2));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.toUnscaled(new BigDecimal("1E17"), 2));
+    }
+
+    @Test
+    void divideHalfUp_ShouldRoundAwayFromZeroOnTie() {
+        for (long dividend = -50; dividend <= 50; dividend++) {
+            for (long divisor : new long[]{-7, -4, -1, 1, 2, 3, 8}) {
+                long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                        .longValueExact();
+                assertEquals(expected, FixedPoint.divideHalfUp(dividend, divisor), dividend + " / " + divisor);
+            }
+        }
+    }
+
+    @Test
+    void productSum_ShouldBeExactBeyondLongRange() {
+        FixedPoint.ProductSum sum = new FixedPoint.ProductSum();
+        sum.add(Long.MAX_VALUE, 3);
+        sum.add(-5, 7);
+
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(3)).subtract(BigDecimal.valueOf(35))
+                .movePointLeft(2), sum.toBigDecimal(2));
+        assertEquals(1, sum.signum());
+        assertEquals(2, sum.count());
+
+        FixedPoint.ProductSum negative = new FixedPoint.ProductSum();
+        negative.add(Long.MIN_VALUE, 2);
+        assertEquals(BigDecimal.valueOf(Long.MIN_VALUE).multiply(BigDecimal.valueOf(2)), negative.toBigDecimal(0));
+        assertEquals(-1, negative.signum());
+    }
+
+    private static PortfolioPosition position(String currency, String sourceCurrency, String assetClass,
+                                              String valueAmount, String fxRate) {
+        PortfolioPosition position = new PortfolioPosition();
+        position.setValueCurrency(currency);
+        position.setSourceCurrency(sourceCurrency);
+        position.setAssetClassDescriptionShort(assetClass);
+        position.setValueAmount(valueAmount != null ? new BigDecimal(valueAmount) : null);
+        position.setFxRate(fxRate != null ? new BigDecimal(fxRate) : null);
+        return position;
+    }
+}
@@ -0,0 +1,218 @@
+package com.ubs.hackathon.financialpeace.service.analytics;
+
+import com.ubs.hackathon.financialpeace.dto.AccountSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupSummaryDTO;
+import com.ubs.hackathon.financialpeace.dto.GroupTotalDTO;
+import com.ubs.hackathon.financialpeace.dto.PositionFilterStatsDTO;
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import com.ubs.hackathon.financialpeace.model.PositionFilter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory columnar position store.
+ */
+class PositionColumnStoreTest {
+
+    private static final Object[][] ROWS = {
+            row("P1", "A1", "Equities", "CHF", "Classic", "100.50"),
+            row("P1", "A1", "Bonds", "CHF", "Classic", "200.00"),
+            row("P1", "A1", "Equities", "USD", "Classic", "10.25"),
+            row("P1", "A2", "Equities", "CHF", "Sustainable", "-50.00"),
+            row("P2", "A3", "Liquidity", "EUR", null, null),
+            row("P2", "A3", null, "EUR", null, "1000")};
+
+    private final PositionColumnStore store = build(ROWS);
+
+    @Test
+    void count_ShouldCountAllRows() {
+        assertEquals(6, store.count());
+        assertEquals(4, store.countByPartnerIdFake("P1"));
+        assertEquals(0, store.countByPartnerIdFake("P9"));
+    }
+
+    @Test
+    void getTotalValueByAssetClass_ShouldOrderBySumDescendingWithNullSumsFirst() {
+        assertEquals(List.of(
+                new GroupTotalDTO("Liquidity", null),
+                new GroupTotalDTO(null, new BigDecimal("1000.00")),
+                new GroupTotalDTO("Bonds", new BigDecimal("200.00")),
+                new GroupTotalDTO("Equities", new BigDecimal("60.75"))), store.getTotalValueByAssetClass());
+    }
+
+    @Test
+    void getTotalValueByCurrency_ShouldSumExactly() {
+        assertEquals(List.of(
+                new GroupTotalDTO("EUR", new BigDecimal("1000.00")),
+                new GroupTotalDTO("CHF", new BigDecimal("250.50")),
+                new GroupTotalDTO("USD", new BigDecimal("10.25"))), store.getTotalValueByCurrency());
+    }
+
+    @Test
+    void getPortfolioSummaryByPartner_ShouldOnlyAggregateThePartner() {
+        assertEquals(List.of(
+                new GroupSummaryDTO("Bonds", 1L, new BigDecimal("200.00")),
+                new GroupSummaryDTO("Equities", 3L, new BigDecimal("60.75"))), store.getPortfolioSummaryByPartner("P1"));
+        assertTrue(store.getPortfolioSummaryByPartner("P9").isEmpty());
+    }
+
+    @Test
+    void getAccountSummary_ShouldGroupByAccountPartnerAndCurrency() {
+        assertEquals(List.of(
+                new AccountSummaryDTO("A1", "P1", 2L, new BigDecimal("300.50"), "CHF"),
+                new AccountSummaryDTO("A1", "P1", 1L, new BigDecimal("10.25"), "USD"),
+                new AccountSummaryDTO("A2", "P1", 1L, new BigDecimal("-50.00"), "CHF"),
+                new AccountSummaryDTO("A3", "P2", 2L, new BigDecimal("1000.00"), "EUR")), store.getAccountSummary());
+    }
+
+    @Test
+    void distinctValues_ShouldBeSortedWithNullLast() {
+        assertEquals(Arrays.asList("Bonds", "Equities", "Liquidity", null), store.findDistinctAssetClasses());
+        assertEquals(List.of("CHF", "EUR", "USD"), store.findDistinctCurrencies());
+        assertEquals(Arrays.asList("Classic", "Sustainable", null), store.findDistinctMandateTypes());
+        assertEquals(3, store.countDistinctAccountIds());
+        assertEquals(2, store.countDistinctPartnerIds());
+    }
+
+    @Test
+    void getAccountSummary_WithManyGroups_ShouldKeepEveryGroup() {
+        PositionColumnStore.Builder builder = new PositionColumnStore.Builder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.onRow(i, row("P" + i % 100, "A" + i % 1000, "Equities", new String[]{"CHF", "EUR", "USD"}[i % 3], null, "1.00"));
+        }
+        List<AccountSummaryDTO> summary = builder.build().getAccountSummary();
+
+        assertEquals(3000, summary.size());
+        assertEquals(10_000, summary.stream().mapToLong(AccountSummaryDTO::getPositionCount).sum());
+        assertEquals("A0", summary.get(0).getAccountIdFake());
+        assertEquals("CHF", summary.get(0).getCurrency());
+        assertEquals(new BigDecimal("4.00"), summary.get(0).getTotalValue());
+    }
+
+    @Test
+    void getFilterStats_ShouldAndColumnsAndOrValues() {
+        assertFilterStats(3, "60.75", store.getFilterStats(new PositionFilter()
+                .where(PortfolioPositionColumn.VALUE_CURRENCY, List.of("CHF", "USD"))
+                .where(PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT, List.of("Equities"))));
+        assertFilterStats(2, "110.75", store.getFilterStats(new PositionFilter()
+                .where(PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT, List.of("Equities"))
+                .minValue(new BigDecimal("10.25"))));
+        assertFilterStats(2, "1000.00", store.getFilterStats(new PositionFilter()
+                .where(PortfolioPositionColumn.PARTNER_ID_FAKE, List.of("P2"))));
+        assertFilterStats(0, null, store.getFilterStats(new PositionFilter()
+                .where(PortfolioPositionColumn.PARTNER_ID_FAKE, List.of("P9"))));
+    }
+
+    @Test
+    void getFilterStats_WithoutCriteria_ShouldMatchAllRowsAndMinValueShouldSkipNullAmounts() {
+        assertFilterStats(6, "1260.75", store.getFilterStats(new PositionFilter()));
+        assertFilterStats(4, "1310.75", store.getFilterStats(new PositionFilter().minValue(BigDecimal.ZERO)));
+        assertFilterStats(1, "1000.00", store.getFilterStats(new PositionFilter().minValue(new BigDecimal("200.001"))));
+        assertFilterStats(0, null, store.getFilterStats(new PositionFilter().minValue(new BigDecimal("1E30"))));
+    }
+
+    @Test
+    void getFilterStats_OverManyChunks_ShouldMatchScan() {
+        String[] domiciles = {"CH", "LU", "IE", "US"};
+        Random random = new Random(11);
+        int rowCount = 3 * RowBitmap.CHUNK_SIZE + 123;
+        Object[][] rows = new Object[rowCount][];
+        PositionColumnStore.Builder builder = new PositionColumnStore.Builder();
+        for (int i = 0; i < rowCount; i++) {
+            // CH in most rows (bitmap containers), US rarely (array containers), strategies in runs
+            int draw = random.nextInt(100);
+            String domicile = draw < 70 ? "CH" : draw < 85 ? "LU" : draw < 99 ? "IE" : "US";
+            rows[i] = row("P" + i % 50, "A" + i % 500, null, i % 2 == 0 ? "CHF" : "EUR", null,
+                    BigDecimal.valueOf(random.nextInt(20_000) - 5_000, 2).toPlainString());
+            rows[i][PortfolioPositionColumn.DOMICILE.ordinal()] = domicile;
+            rows[i][PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME.ordinal()] = i / 50_000 % 2 == 0 ? "Yield" : "Growth";
+            builder.onRow(i + 1, rows[i]);
+        }
+        PositionColumnStore large = builder.build();
+
+        for (List<String> domicileValues : List.of(List.of("CH"), List.of("US"), List.of("LU", "US"), List.of(domiciles))) {
+            PositionFilterStatsDTO stats = large.getFilterStats(new PositionFilter()
+                    .where(PortfolioPositionColumn.DOMICILE, domicileValues)
+                    .where(PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME, List.of("Growth"))
+                    .where(PortfolioPositionColumn.VALUE_CURRENCY, List.of("EUR"))
+                    .minValue(BigDecimal.ZERO));
+            long count = 0;
+            BigDecimal sum = BigDecimal.ZERO;
+            for (Object[] row : rows) {
+                BigDecimal amount = (BigDecimal) row[PortfolioPositionColumn.VALUE_AMOUNT.ordinal()];
+                if (domicileValues.contains(row[PortfolioPositionColumn.DOMICILE.ordinal()])
+                        && "Growth".equals(row[PortfolioPositionColumn.INVESTMENT_STRATEGY_NAME.ordinal()])
+                        && "EUR".equals(row[PortfolioPositionColumn.VALUE_CURRENCY.ordinal()])
+                        && amount.signum() >= 0) {
+                    count++;
+                    sum = sum.add(amount);
+                }
+            }
+            assertEquals(count, stats.getPositionCount(), domicileValues.toString());
+            assertEquals(sum, stats.getTotalValue(), domicileValues.toString());
+        }
+    }
+
+    @Test
+    void build_OffHeapAndMapped_ShouldAnswerLikeHeap() throws IOException {
+        Path directory = Files.createTempDirectory("column-store-test");
+        for (ColumnStorage storage : List.of(ColumnStorage.OFF_HEAP, ColumnStorage.MAPPED)) {
+            PositionColumnStore offHeap = build(new ColumnAllocator(storage, directory, 1 << 20), ROWS);
+
+            assertEquals(storage, offHeap.getStorage());
+            // 7 code columns of ints and the amounts as longs
+            assertEquals(6 * (7 * 4 + 8), offHeap.offHeapBytes(), storage.name());
+            assertEquals(store.estimatedHeapBytes() - offHeap.offHeapBytes(), offHeap.estimatedHeapBytes(), storage.name());
+            assertEquals(store.getTotalValueByAssetClass(), offHeap.getTotalValueByAssetClass());
+            assertEquals(store.getAccountSummary(), offHeap.getAccountSummary());
+            assertEquals(store.findDistinctCurrencies(), offHeap.findDistinctCurrencies());
+            assertFilterStats(3, "60.75", offHeap.getFilterStats(new PositionFilter()
+                    .where(PortfolioPositionColumn.VALUE_CURRENCY, List.of("CHF", "USD"))
+                    .where(PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT, List.of("Equities"))));
+        }
+        assertEquals(0, store.offHeapBytes());
+    }
+
+    @Test
+    void build_WhenColumnsExceedOffHeapLimit_ShouldFail() {
+        assertThrows(IllegalStateException.class, () -> build(new ColumnAllocator(ColumnStorage.OFF_HEAP, null, 100), ROWS));
+    }
+
+    private static void assertFilterStats(long count, String totalValue, PositionFilterStatsDTO stats) {
+        assertEquals(count, stats.getPositionCount());
+        assertEquals(totalValue != null ? new BigDecimal(totalValue) : null, stats.getTotalValue());
+    }
+
+    private static PositionColumnStore build(Object[]... rows) {
+        return build(ColumnAllocator.heap(), rows);
+    }
+
+    private static PositionColumnStore build(ColumnAllocator allocator, Object[]... rows) {
+        PositionColumnStore.Builder builder = new PositionColumnStore.Builder();
+        for (int i = 0; i < rows.length; i++) {
+            builder.onRow(i + 1, rows[i]);
+        }
+        return builder.build(allocator);
+    }
+
+    private static Object[] row(String partner, String account, String assetClass, String currency,
+                                String mandateType, String valueAmount) {
+        Object[] values = new Object[PortfolioPositionColumn.values().length];
+        values[PortfolioPositionColumn.PARTNER_ID_FAKE.ordinal()] = partner;
+        values[PortfolioPositionColumn.ACCOUNT_ID_FAKE.ordinal()] = account;
+        values[PortfolioPositionColumn.ASSET_CLASS_DESCRIPTION_SHORT.ordinal()] = assetClass;
+        values[PortfolioPositionColumn.VALUE_CURRENCY.ordinal()] = currency;
+        values[PortfolioPositionColumn.MANDATE_TYPE.ordinal()] = mandateType;
+        values[PortfolioPositionColumn.VALUE_AMOUNT.ordinal()] = valueAmount != null ? new BigDecimal(valueAmount) : null;
+        return values;
+    }
+}
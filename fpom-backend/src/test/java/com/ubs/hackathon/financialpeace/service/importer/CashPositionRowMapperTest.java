@@ -0,0 +1,67 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.CashPosition;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the column mapping of the cash positions export.
+ */
+class CashPositionRowMapperTest {
+
+    private static final String CSV = "Client ID Fake,Account ID Fake,AOF_DT,CUR_ISO_CD,Balance Orig,Balance CHF," +
+            "Account Value Type,Asset Class ID,Account,Account Detail,PORTFOLIO_FLG,Account Value Type,Account Currency," +
+            "Currency Type,Product Type,Pricing Type,Mandate Type,Mandate Pricing Type,Mandata Pricing Description Short," +
+            "Mandata Pricing Description Long,Mandate Pricing Type,Mandate Family,Strategy Type,Strategy Description," +
+            "Solution Type,Solution Description,Solution Description Short,Solution Description Long,Contract Type," +
+            "Contract Subtype,Mandate Group,Country Code,CA ID (Fake),Region Level 1,Region Level 2\n" +
+            "1J4kv8xeDJ,NarqNEDGHlOiDZ4,2025-06-05,EUR,9673.33,9041.12,000010,010000,UBS PRIVATKONTO," +
+            "UBS PERSONAL ACCOUNT,1,ASSETS,EUR,CHF,100275,00    ,100000,00,,,Platform Fee," +
+            "Advisory no mandate portfolio,0 ,None,15,ADVISORY P,Advisory portfolio,Advisory portfolio,,," +
+            "No Mandate,DE,81,GWM EMEA,WM EUROPE INTERNATIONAL NORTH\n";
+
+    @Test
+    void map_ShouldConvertAllColumns() throws Exception {
+        List<CashPosition> positions = new ArrayList<>();
+
+        new CsvRowSource(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8))).read(new RowHandler() {
+            private ColumnMappingPlan<CashPosition> plan;
+
+            @Override
+            public void onHeader(List<String> columnNames) {
+                plan = CashPositionRowMapper.plan(columnNames);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                positions.add(plan.map(row));
+            }
+        });
+
+        assertEquals(1, positions.size());
+        CashPosition position = positions.get(0);
+        assertEquals("1J4kv8xeDJ", position.getClientIdFake());
+        assertEquals("NarqNEDGHlOiDZ4", position.getAccountIdFake());
+        assertEquals(LocalDateTime.of(2025, 6, 5, 0, 0), position.getAsOfDate());
+        assertEquals("1", position.getPortfolioFlag());
+        assertEquals("EUR", position.getCurrencyIsoCode());
+        assertEquals(new BigDecimal("9673.33"), position.getBalanceOriginal());
+        assertEquals(new BigDecimal("9041.12"), position.getBalanceChf());
+        assertEquals("000010", position.getAccountValueTypeId());
+        assertEquals("ASSETS", position.getAccountValueType());
+        assertEquals("00", position.getPricingType());
+        assertEquals("Platform Fee", position.getMandatePricingTypeDescription());
+        assertNull(position.getMandatePricingDescriptionShort());
+        assertEquals("0", position.getStrategyType());
+        assertEquals(81, position.getClientAdvisorIdFake());
+        assertEquals("WM EUROPE INTERNATIONAL NORTH", position.getRegionLevel2());
+    }
+}
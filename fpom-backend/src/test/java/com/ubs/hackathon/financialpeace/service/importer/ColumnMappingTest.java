@@ -0,0 +1,187 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the header driven column mapping.
+ */
+class ColumnMappingTest {
+
+    @Test
+    void plan_ShouldBindColumnsByName_WhenReorderedWithExtraColumns() throws IOException {
+        Csv csv = read("Comment,ISIN,Value Amount,Account ID Fake,Mandate Program,Client Advisor ID Fake,"
+                + "Mandate Program,As of Date\n"
+                + "ignore me,CH0012032048,1234.50,A-1,MP-1,42,MP-2,2025-06-30\n");
+
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 16);
+        PortfolioPosition position = plan.map(csv.rows.get(0));
+
+        assertEquals("CH0012032048", position.getIsin());
+        assertEquals(new BigDecimal("1234.50"), position.getValueAmount());
+        assertEquals("A-1", position.getAccountIdFake());
+        assertEquals("MP-1", position.getMandateProgram());
+        assertEquals("MP-2", position.getMandateProgramSecondary());
+        assertEquals(42, position.getClientAdvisorIdFake());
+        assertEquals(LocalDateTime.of(2025, 6, 30, 0, 0), position.getAsOfDate());
+        assertNull(position.getPartnerIdFake());
+        assertEquals(List.of("Comment"), plan.getIgnoredColumns());
+        assertTrue(plan.getMissingColumns().contains("Partner ID Fake"));
+        assertFalse(plan.getMissingColumns().contains("ISIN"));
+    }
+
+    @Test
+    void plan_ShouldMapExportLayout_LikeColumnPositions() throws IOException {
+        List<String> header = PortfolioPositionRowMapper.MAPPING.getDefaultHeader();
+        // Date, decimal and integer columns stay blank, all string columns get their column index
+        Set<Integer> typedColumns = Set.of(2, 4, 5, 6, 7, 8, 11, 12, 13, 56);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < header.size(); i++) {
+            values.add(typedColumns.contains(i) ? "" : "v" + i);
+        }
+        Csv csv = read(String.join(",", header) + "\n" + String.join(",", values) + "\n");
+
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 0, false);
+        PortfolioPosition position = plan.map(csv.rows.get(0));
+
+        assertEquals(57, header.size());
+        assertEquals("v0", position.getPartnerIdFake());
+        assertEquals("v23", position.getProductId());
+        assertEquals("v39", position.getMandatePricingId());
+        assertEquals("v40", position.getMandateProgram());
+        assertEquals("v45", position.getMandateProgramSecondary());
+        assertEquals("v55", position.getDomicile());
+        assertEquals(List.of("Product ID", "Mandate Pricing ID"), plan.getIgnoredColumns());
+        assertTrue(plan.getMissingColumns().isEmpty());
+    }
+
+    @Test
+    void plan_ShouldMatchHeaderIgnoringCaseAndWhitespace() throws IOException {
+        Csv csv = read(" account  id fake ,VALUE CURRENCY\nA-7,CHF\n");
+
+        PortfolioPosition position = PortfolioPositionRowMapper.plan(csv.header, 16).map(csv.rows.get(0));
+
+        assertEquals("A-7", position.getAccountIdFake());
+        assertEquals("CHF", position.getValueCurrency());
+    }
+
+    @Test
+    void plan_ShouldEncodeDictionaryColumnsAtTheirSourcePosition() throws IOException {
+        Csv csv = read("ISIN,Value Currency\nCH0012032048,CHF\nUS0378331005,CHF\n");
+
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 16);
+        PortfolioPosition first = plan.map(csv.rows.get(0));
+        PortfolioPosition second = plan.map(csv.rows.get(1));
+
+        assertSame(first.getValueCurrency(), second.getValueCurrency());
+        assertFalse(plan.getDictionary().isEncoded(0));
+        assertTrue(plan.getDictionary().isEncoded(1));
+    }
+
+    @Test
+    void plan_ShouldRejectRow_WhenIsinCheckDigitIsWrong() throws IOException {
+        Csv csv = read("ISIN,Value Currency\nUS0378331005,USD\nQT0591602048,CHF\n");
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 16);
+
+        assertEquals("US0378331005", plan.map(csv.rows.get(0)).getIsin());
+        RowRejectedException exception = assertThrows(RowRejectedException.class, () -> plan.map(csv.rows.get(1)));
+        assertEquals(RejectReason.INVALID_ISIN, exception.getReason());
+        assertEquals("ISIN", exception.getColumn());
+        assertEquals("QT0591602048", exception.getValue());
+    }
+
+    @Test
+    void plan_ShouldRejectRow_WhenCurrencyIsUnknown() throws IOException {
+        Csv csv = read("Account ID Fake,Portfolio Currency\nA-1,CHX\n");
+
+        RowRejectedException exception = assertThrows(RowRejectedException.class,
+                () -> PortfolioPositionRowMapper.plan(csv.header, 16).map(csv.rows.get(0)));
+
+        assertEquals(RejectReason.INVALID_CURRENCY, exception.getReason());
+        assertEquals("Portfolio Currency", exception.getColumn());
+    }
+
+    @Test
+    void plan_ShouldRejectRow_WhenNumberOrDateIsInvalid() throws IOException {
+        Csv csv = read("Value Amount,As of Date\n12.5x,2025-06-30\n1.5,30.06.2025\n,\n");
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 0);
+
+        assertEquals(RejectReason.INVALID_NUMBER,
+                assertThrows(RowRejectedException.class, () -> plan.map(csv.rows.get(0))).getReason());
+        assertEquals(RejectReason.INVALID_DATE,
+                assertThrows(RowRejectedException.class, () -> plan.map(csv.rows.get(1))).getReason());
+        assertNull(plan.map(csv.rows.get(2)).getValueAmount());
+    }
+
+    @Test
+    void plan_ShouldWriteReject_WhenIntegerHasFractionOrIsOutOfRange(@TempDir Path tempDir) throws IOException {
+        Csv csv = read("Client Advisor ID Fake\n17.0\n12.7\n3000000000\n");
+        ColumnMappingPlan<PortfolioPosition> plan = PortfolioPositionRowMapper.plan(csv.header, 0);
+
+        assertEquals(17, plan.map(csv.rows.get(0)).getClientAdvisorIdFake());
+        try (RejectFile rejectFile = new RejectFile(tempDir.resolve("rejects.csv"))) {
+            for (int i = 1; i < csv.rows.size(); i++) {
+                ImportRow row = csv.rows.get(i);
+                RowRejectedException exception = assertThrows(RowRejectedException.class, () -> plan.map(row));
+                rejectFile.write(List.of(new ImportReject(i + 1, exception.getReason(), exception.getColumn(),
+                        exception.getValue())));
+            }
+        }
+
+        assertEquals(List.of("row,reason,column,value",
+                        "3,INVALID_NUMBER,\"Client Advisor ID Fake\",\"12.7\"",
+                        "4,INVALID_NUMBER,\"Client Advisor ID Fake\",\"3000000000\""),
+                Files.readAllLines(tempDir.resolve("rejects.csv")));
+    }
+
+    @Test
+    void plan_WhenCodeValidationDisabled_ShouldKeepCodes() throws IOException {
+        Csv csv = read("ISIN,Value Currency\nQT0591602048,CHX\n");
+
+        PortfolioPosition position = PortfolioPositionRowMapper.plan(csv.header, 16, false).map(csv.rows.get(0));
+
+        assertEquals("QT0591602048", position.getIsin());
+        assertEquals("CHX", position.getValueCurrency());
+    }
+
+    @Test
+    void plan_WhenNoColumnMatches_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PortfolioPositionRowMapper.plan(List.of("foo", "bar"), 0));
+    }
+
+    private static Csv read(String content) throws IOException {
+        Csv csv = new Csv();
+        new CsvRowSource(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).read(new RowHandler() {
+            @Override
+            public void onHeader(List<String> columnNames) {
+                csv.header = columnNames;
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                csv.rows.add(row);
+            }
+        });
+        return csv;
+    }
+
+    private static class Csv {
+        private List<String> header = List.of();
+        private final List<ImportRow> rows = new ArrayList<>();
+    }
+}
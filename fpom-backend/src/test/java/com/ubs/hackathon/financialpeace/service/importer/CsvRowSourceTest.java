@@ -0,0 +1,132 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CSV row source and the upload format detection.
+ */
+class CsvRowSourceTest {
+
+    private static final String CSV = "\uFEFFPartner,Account,Created,Amount,Advisor\n" +
+            "P1,A1,2024-03-31T00:00:00.000Z,1250.50,42\n" +
+            "P2,\"A2, quoted\",2024-03-31,,17.0\n" +
+            ",,,,\n" +
+            "P3,A3,,-3.25,\n";
+
+    @Test
+    void read_ShouldSkipHeaderAndConvertFields() throws Exception {
+        List<Long> rowIndexes = new ArrayList<>();
+        List<ImportRow> rows = new ArrayList<>();
+
+        new CsvRowSource(csv(CSV)).read((rowIndex, row) -> {
+            rowIndexes.add(rowIndex);
+            rows.add(row);
+        });
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), rowIndexes);
+        assertEquals("P1", rows.get(0).getString(0));
+        assertEquals(LocalDateTime.of(2024, 3, 31, 0, 0), rows.get(0).getDateTime(2));
+        assertEquals(new BigDecimal("1250.50"), rows.get(0).getDecimal(3));
+        assertEquals(42, rows.get(0).getInteger(4));
+
+        assertEquals("A2, quoted", rows.get(1).getString(1));
+        assertEquals(LocalDateTime.of(2024, 3, 31, 0, 0), rows.get(1).getDateTime(2));
+        assertNull(rows.get(1).getDecimal(3));
+        assertEquals(17, rows.get(1).getInteger(4));
+
+        assertTrue(rows.get(2).isEmpty());
+        assertNull(rows.get(3).getInteger(4));
+    }
+
+    @Test
+    void read_WhenResumed_ShouldStartAtRequestedRow() throws Exception {
+        List<String> partners = new ArrayList<>();
+
+        new CsvRowSource(csv(CSV)).read((rowIndex, row) -> partners.add(row.getString(0)), 2);
+
+        assertEquals(3, partners.size());
+        assertEquals("P2", partners.get(0));
+    }
+
+    @Test
+    void read_WhenResumed_ShouldStillPassHeader() throws Exception {
+        List<String> header = new ArrayList<>();
+
+        new CsvRowSource(csv(CSV)).read(new RowHandler() {
+            @Override
+            public void onHeader(List<String> columnNames) {
+                header.addAll(columnNames);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+            }
+        }, 3);
+
+        assertEquals("Partner", header.get(0));
+        assertEquals(5, header.size());
+    }
+
+    @Test
+    void read_ShouldHandleEscapedQuotesLineBreaksAndCrLf() throws Exception {
+        String csv = "Partner,Account,Created,Amount,Advisor\r\n" +
+                "P1,\"say \"\"hi\"\"\",2024-03-31 12:30:15.5,+7,\r\n" +
+                "\r\n" +
+                "P2,\"multi\nline\", 2024-03-31T08:15 ,1.5E3,  \r" +
+                "P3,Z\u00fcrich,31.03.2024,0.000000000000000000001,3";
+        List<ImportRow> rows = new ArrayList<>();
+
+        new CsvRowSource(csv(csv)).read((rowIndex, row) -> rows.add(row));
+
+        assertEquals(3, rows.size());
+        assertEquals("say \"hi\"", rows.get(0).getString(1));
+        assertEquals(LocalDateTime.of(2024, 3, 31, 12, 30, 15, 500_000_000), rows.get(0).getDateTime(2));
+        assertEquals(new BigDecimal("7"), rows.get(0).getDecimal(3));
+        assertNull(rows.get(0).getString(4));
+
+        assertEquals("multi\nline", rows.get(1).getString(1));
+        assertEquals(LocalDateTime.of(2024, 3, 31, 8, 15), rows.get(1).getDateTime(2));
+        assertEquals(0, new BigDecimal("1500").compareTo(rows.get(1).getDecimal(3)));
+        assertNull(rows.get(1).getInteger(4));
+
+        assertEquals("Z\u00fcrich", rows.get(2).getString(1));
+        assertNull(rows.get(2).getDateTime(2));
+        assertEquals(new BigDecimal("0.000000000000000000001"), rows.get(2).getDecimal(3));
+        assertEquals(3, rows.get(2).getInteger(4));
+        assertNull(rows.get(2).getString(5));
+    }
+
+    @Test
+    void read_WhenQuoteIsNotClosed_ShouldFail() {
+        assertThrows(java.io.IOException.class,
+                () -> new CsvRowSource(csv("Partner\n\"P1,A1\n")).read((rowIndex, row) -> { }));
+    }
+
+    @Test
+    void detect_ShouldRecognizeUploadFormats() throws Exception {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(ImportFormat.CSV_GZIP, ImportFormat.detect(new BufferedInputStream(new ByteArrayInputStream(gzip.toByteArray()))));
+        assertEquals(ImportFormat.XLSX, ImportFormat.detect(new BufferedInputStream(new ByteArrayInputStream("PK\u0003\u0004".getBytes(StandardCharsets.ISO_8859_1)))));
+        assertEquals(ImportFormat.CSV, ImportFormat.detect(new BufferedInputStream(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,187 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the staged import pipeline.
+ */
+class ImportPipelineTest {
+
+    private static final int ROW_COUNT = 10_000;
+
+    @Test
+    void run_ShouldWriteAllPositionsInSourceOrder() throws Exception {
+        List<String> written = new ArrayList<>();
+        ImportStats stats = new ImportStats();
+
+        new ImportPipeline(4, 2, 100).run(this::readRows, header -> this::toPosition,
+                (batch, lastRowIndex) -> batch.forEach(position -> written.add(position.getAccountIdFake())), stats);
+
+        assertEquals(ROW_COUNT, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(String.valueOf(i + 1), written.get(i));
+        }
+        assertEquals(ROW_COUNT, stats.getRowsRead());
+        assertEquals(ROW_COUNT, stats.getRowsWritten());
+        assertEquals(0, stats.getRowsSkipped());
+    }
+
+    @Test
+    void run_ShouldCountSkippedRows() throws Exception {
+        ImportStats stats = new ImportStats();
+
+        new ImportPipeline(2, 2, 100).run(this::readRows,
+                header -> row -> Integer.parseInt(row.getString(0)) % 10 == 0 ? null : toPosition(row),
+                (batch, lastRowIndex) -> { }, stats);
+
+        assertEquals(ROW_COUNT / 10, stats.getRowsSkipped());
+        assertEquals(ROW_COUNT - ROW_COUNT / 10, stats.getRowsWritten());
+    }
+
+    @Test
+    void run_ShouldPassRejectedRowsToSinkInSourceOrder() throws Exception {
+        List<ImportReject> rejects = new ArrayList<>();
+        ImportStats stats = new ImportStats();
+
+        new ImportPipeline(4, 2, 100).run(this::readRows, header -> row -> {
+            if (Integer.parseInt(row.getString(0)) % 100 == 0) {
+                throw new RowRejectedException(RejectReason.INVALID_ISIN, "ISIN", row.getString(0));
+            }
+            return toPosition(row);
+        }, (batch, lastRowIndex) -> { }, rejects::addAll, stats);
+
+        assertEquals(ROW_COUNT / 100, rejects.size());
+        for (int i = 0; i < rejects.size(); i++) {
+            assertEquals((i + 1) * 100L, rejects.get(i).rowIndex());
+        }
+        assertEquals(new ImportReject(100, RejectReason.INVALID_ISIN, "ISIN", "100"), rejects.get(0));
+        assertEquals(ROW_COUNT / 100, stats.getRowsRejected());
+        assertEquals(ROW_COUNT - ROW_COUNT / 100, stats.getRowsWritten());
+        assertEquals(0, stats.getRowsSkipped());
+        assertEquals(Map.of("INVALID_ISIN", (long) ROW_COUNT / 100), stats.toRejectMap().get("byReason"));
+        assertEquals(Map.of("ISIN", (long) ROW_COUNT / 100), stats.toRejectMap().get("byColumn"));
+    }
+
+    @Test
+    void run_ShouldPassLastRowIndexOfEveryChunk() throws Exception {
+        List<Long> lastRows = new ArrayList<>();
+
+        new ImportPipeline(4, 2, 1000).run(this::readRows, header -> this::toPosition,
+                (batch, lastRowIndex) -> lastRows.add(lastRowIndex), new ImportStats());
+
+        assertEquals(ROW_COUNT / 1000, lastRows.size());
+        for (int i = 0; i < lastRows.size(); i++) {
+            assertEquals((i + 1) * 1000L, lastRows.get(i));
+        }
+    }
+
+    @Test
+    void run_WhenResumed_ShouldStartAfterCheckpoint() throws Exception {
+        List<String> written = new ArrayList<>();
+        PositionRowSource source = this::readRows;
+
+        new ImportPipeline(2, 2, 100).run(handler -> source.read(handler, 8001), header -> this::toPosition,
+                (batch, lastRowIndex) -> batch.forEach(position -> written.add(position.getAccountIdFake())),
+                new ImportStats());
+
+        assertEquals(2000, written.size());
+        assertEquals("8001", written.get(0));
+        assertEquals(String.valueOf(ROW_COUNT), written.get(written.size() - 1));
+    }
+
+    @Test
+    void run_ShouldCreateMapperOnceFromHeader() throws Exception {
+        List<List<String>> headers = new ArrayList<>();
+        PositionRowSource source = this::readRows;
+
+        new ImportPipeline(4, 2, 100).run(handler -> source.read(handler, 5001), header -> {
+            headers.add(header);
+            return this::toPosition;
+        }, (batch, lastRowIndex) -> { }, new ImportStats());
+
+        assertEquals(List.of(List.of("Account ID Fake")), headers);
+    }
+
+    @Test
+    void run_WhenOneChunkIsSlow_ShouldNotParseFarAhead() throws Exception {
+        AtomicInteger mapped = new AtomicInteger();
+        AtomicInteger mappedWhileStalled = new AtomicInteger();
+
+        // 2 workers and queues of 1 chunk: at most 2 * 1 + 2 chunks of 10 rows are unwritten
+        new ImportPipeline(2, 1, 10).run(this::readRows, header -> row -> {
+            if (row.getString(0).equals("1")) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                mappedWhileStalled.set(mapped.get());
+            }
+            mapped.incrementAndGet();
+            return toPosition(row);
+        }, (batch, lastRowIndex) -> { }, new ImportStats());
+
+        assertEquals(ROW_COUNT, mapped.get());
+        assertTrue(mappedWhileStalled.get() <= 40, mappedWhileStalled.get() + " rows mapped ahead of the slow chunk");
+    }
+
+    @Test
+    void run_WhenWriterFails_ShouldStopAndRethrow() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+                new ImportPipeline(4, 1, 10).run(this::readRows, header -> this::toPosition,
+                        (batch, lastRowIndex) -> { throw new IllegalStateException("database unavailable"); }, new ImportStats()));
+
+        assertEquals("database unavailable", exception.getMessage());
+    }
+
+    private void readRows(RowHandler handler) {
+        handler.onHeader(List.of("Account ID Fake"));
+        for (int i = 1; i <= ROW_COUNT; i++) {
+            handler.onRow(i, new TestRow(String.valueOf(i)));
+        }
+    }
+
+    private PortfolioPosition toPosition(ImportRow row) {
+        PortfolioPosition position = new PortfolioPosition();
+        position.setAccountIdFake(row.getString(0));
+        return position;
+    }
+
+    private record TestRow(String value) implements ImportRow {
+
+        @Override
+        public String getString(int columnIndex) {
+            return value;
+        }
+
+        @Override
+        public BigDecimal getDecimal(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public Integer getInteger(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime getDateTime(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+    }
+}
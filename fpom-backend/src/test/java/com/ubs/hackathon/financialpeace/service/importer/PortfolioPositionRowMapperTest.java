@@ -0,0 +1,70 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Validation of the bundled "Portfolio Positions" workbook, pins how many rows an import keeps.
+ */
+class PortfolioPositionRowMapperTest {
+
+    private static final String WORKBOOK = "/Swiss AI - UBS Challenge 3 - Portfolio Positions.xlsx";
+
+    private static final int WORKBOOK_ROWS = 33_634;
+
+    @Test
+    void map_BundledWorkbookWithoutCodeValidation_ShouldKeepEveryRow() throws Exception {
+        MappedRows rows = mapBundledWorkbook(false);
+
+        assertEquals(WORKBOOK_ROWS, rows.positions.size());
+        assertThat(rows.rejects).isEmpty();
+    }
+
+    @Test
+    void map_BundledWorkbookWithCodeValidation_ShouldRejectOnlyTheInvalidIsin() throws Exception {
+        MappedRows rows = mapBundledWorkbook(true);
+
+        assertEquals(WORKBOOK_ROWS - 108, rows.positions.size());
+        assertEquals(108, rows.rejects.size());
+        assertThat(rows.rejects).allSatisfy(reject -> {
+            assertEquals(RejectReason.INVALID_ISIN, reject.getReason());
+            assertEquals("QT0591602048", reject.getValue());
+        });
+    }
+
+    private MappedRows mapBundledWorkbook(boolean validateCodes) throws Exception {
+        File workbook = Path.of(getClass().getResource(WORKBOOK).toURI()).toFile();
+        MappedRows rows = new MappedRows();
+        new XlsxStreamingRowSource(workbook).read(new RowHandler() {
+            private ColumnMappingPlan<PortfolioPosition> plan;
+
+            @Override
+            public void onHeader(List<String> columnNames) {
+                plan = PortfolioPositionRowMapper.plan(columnNames, 4096, validateCodes);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                try {
+                    rows.positions.add(plan.map(row));
+                } catch (RowRejectedException e) {
+                    rows.rejects.add(e);
+                }
+            }
+        });
+        return rows;
+    }
+
+    private static class MappedRows {
+        final List<PortfolioPosition> positions = new ArrayList<>();
+        final List<RowRejectedException> rejects = new ArrayList<>();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the import string dictionary.
+ */
+class StringDictionaryTest {
+
+    @Test
+    void intern_ShouldShareInstancesOfEncodedColumns() {
+        StringDictionary dictionary = new StringDictionary(16).column(2, "valueCurrency");
+        byte[] bytes = "x,CHF,y".getBytes(StandardCharsets.US_ASCII);
+
+        String first = dictionary.intern(2, new String("CHF"));
+        String fromBytes = dictionary.intern(2, bytes, 2, 5);
+        String other = dictionary.intern(2, new String("EUR"));
+
+        assertEquals("CHF", fromBytes);
+        assertSame(first, fromBytes);
+        assertSame(first, dictionary.intern(2, new String("CHF")));
+        assertSame(other, dictionary.intern(2, "EUR".getBytes(StandardCharsets.US_ASCII), 0, 3));
+
+        String notEncoded = new String("CHF");
+        assertSame(notEncoded, dictionary.intern(1, notEncoded));
+        assertNull(dictionary.intern(2, bytes, 3, 3));
+
+        StringDictionary.ColumnReport report = dictionary.report().get(0);
+        assertEquals("valueCurrency", report.column());
+        assertEquals(2, report.distinctValues());
+        assertEquals(5, report.lookups());
+        assertEquals(3, report.hits());
+        assertFalse(report.saturated());
+    }
+
+    @Test
+    void intern_ShouldHandleNonAsciiValues() {
+        StringDictionary dictionary = new StringDictionary(16).column(0, "domicile");
+        byte[] bytes = "Z\u00fcrich".getBytes(StandardCharsets.UTF_8);
+
+        String first = dictionary.intern(0, bytes, 0, bytes.length);
+
+        assertEquals("Z\u00fcrich", first);
+        assertSame(first, dictionary.intern(0, bytes, 0, bytes.length));
+        assertSame(first, dictionary.intern(0, new String("Z\u00fcrich")));
+    }
+
+    @Test
+    void intern_WhenColumnIsSaturated_ShouldPassNewValuesThrough() {
+        StringDictionary dictionary = new StringDictionary(100).column(0, "accountIdFake");
+        for (int i = 0; i < 150; i++) {
+            dictionary.intern(0, "A" + i);
+        }
+
+        String kept = dictionary.intern(0, new String("A42"));
+        String passedThrough = new String("A142");
+
+        assertEquals("A42", kept);
+        assertSame(kept, dictionary.intern(0, new String("A42")));
+        assertSame(passedThrough, dictionary.intern(0, passedThrough));
+        List<StringDictionary.ColumnReport> report = dictionary.report();
+        assertEquals(100, report.get(0).distinctValues());
+        assertTrue(report.get(0).saturated());
+    }
+
+    @Test
+    void intern_WhenDisabled_ShouldNotEncodeColumns() {
+        StringDictionary dictionary = new StringDictionary(0).column(0, "valueCurrency");
+
+        assertFalse(dictionary.isEncoded(0));
+        assertTrue(dictionary.report().isEmpty());
+    }
+}
@@ -0,0 +1,268 @@
+package com.ubs.hackathon.financialpeace.service.importer;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPosition;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SAX based XLSX reader, checked against the POI workbook reader.
+ */
+class XlsxStreamingRowSourceTest {
+
+    private static final List<String> HEADER = PortfolioPositionRowMapper.MAPPING.getDefaultHeader();
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 31, 0, 0);
+    private static final LocalDateTime VALUED = LocalDateTime.of(2025, 6, 30, 12, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_WithSharedStrings_ShouldMapCellsLikeWorkbookReader() throws IOException {
+        Path file = write(new XSSFWorkbook(), "shared.xlsx");
+
+        ReadRows rows = readStreaming(file, 1);
+
+        assertEquals(HEADER, rows.header);
+        assertEquals(List.of(1L, 2L, 4L), rows.rowIndexes);
+        PortfolioPosition first = rows.positions.get(0);
+        assertEquals("P-1", first.getPartnerIdFake());
+        assertEquals("A-1", first.getAccountIdFake());
+        assertEquals(CREATED, first.getPositionCreatedDate());
+        assertEquals(0, new BigDecimal("1234.5").compareTo(first.getValueAmount()));
+        assertEquals(VALUED, first.getValuationDate());
+        assertEquals("CHF", first.getValueCurrency());
+        assertEquals("1203204", first.getValor());
+        assertEquals("CH0012032048", first.getIsin());
+        assertEquals(42, first.getClientAdvisorIdFake());
+        assertSamePositions(readWorkbook(file, 1), rows);
+    }
+
+    @Test
+    void read_WithInlineStrings_ShouldMapCellsLikeWorkbookReader() throws IOException {
+        // SXSSF writes every string as an inline string (t="inlineStr") instead of a shared string
+        Path file = write(new SXSSFWorkbook(null, 100, false, false), "inline.xlsx");
+        assertFalse(sheetXml(file).contains("t=\"s\""));
+
+        ReadRows rows = readStreaming(file, 1);
+
+        assertEquals(HEADER, rows.header);
+        assertEquals("P-1", rows.positions.get(0).getPartnerIdFake());
+        assertEquals("Equities", rows.positions.get(0).getAssetClassDescriptionShort());
+        assertSamePositions(readWorkbook(file, 1), rows);
+    }
+
+    @Test
+    void read_WhenCellsAreMissing_ShouldKeepColumnsAtTheirReference() throws IOException {
+        Path file = write(new XSSFWorkbook(), "gaps.xlsx");
+
+        PortfolioPosition second = readStreaming(file, 1).positions.get(1);
+
+        // Only the first and the last column of the row are present
+        assertEquals("P-2", second.getPartnerIdFake());
+        assertNull(second.getAccountIdFake());
+        assertNull(second.getPositionCreatedDate());
+        assertNull(second.getValueAmount());
+        assertNull(second.getIsin());
+        assertEquals(7, second.getClientAdvisorIdFake());
+    }
+
+    @Test
+    void read_WhenResumed_ShouldPassHeaderAndSkipEarlierRows() throws IOException {
+        Path file = write(new XSSFWorkbook(), "resume.xlsx");
+
+        ReadRows rows = readStreaming(file, 3);
+
+        assertEquals(HEADER, rows.header);
+        assertEquals(List.of(4L), rows.rowIndexes);
+        assertEquals("P-4", rows.positions.get(0).getPartnerIdFake());
+        assertSamePositions(readWorkbook(file, 3), rows);
+    }
+
+    @Test
+    void read_WhenIntegerCellHasFractionOrIsOutOfRange_ShouldRejectRow() throws IOException {
+        Path file = tempDir.resolve("integers.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream output = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Portfolio Positions");
+            sheet.createRow(0).createCell(0).setCellValue("Client Advisor ID Fake");
+            sheet.createRow(1).createCell(0).setCellValue(17);
+            sheet.createRow(2).createCell(0).setCellValue(12.7);
+            sheet.createRow(3).createCell(0).setCellValue(3e9);
+            workbook.write(output);
+        }
+
+        List<Object> streamed = mapClientAdvisorIds(new XlsxStreamingRowSource(file.toFile()));
+        List<Object> loaded;
+        try (InputStream input = Files.newInputStream(file)) {
+            loaded = mapClientAdvisorIds(new XlsxWorkbookRowSource(input));
+        }
+
+        for (List<Object> results : List.of(streamed, loaded)) {
+            assertEquals(17, results.get(0));
+            RowRejectedException fraction = assertInstanceOf(RowRejectedException.class, results.get(1));
+            assertEquals(RejectReason.INVALID_NUMBER, fraction.getReason());
+            assertEquals("Client Advisor ID Fake", fraction.getColumn());
+            assertEquals(0, new BigDecimal("12.7").compareTo(new BigDecimal(fraction.getValue())));
+            RowRejectedException outOfRange = assertInstanceOf(RowRejectedException.class, results.get(2));
+            assertEquals(RejectReason.INVALID_NUMBER, outOfRange.getReason());
+            assertEquals(0, new BigDecimal("3000000000").compareTo(new BigDecimal(outOfRange.getValue())));
+        }
+    }
+
+    /**
+     * Client advisor ID of every data row, or the {@link RowRejectedException} of a rejected row.
+     */
+    private static List<Object> mapClientAdvisorIds(PositionRowSource source) throws IOException {
+        List<Object> results = new ArrayList<>();
+        source.read(new RowHandler() {
+            private ColumnMappingPlan<PortfolioPosition> plan;
+
+            @Override
+            public void onHeader(List<String> columnNames) {
+                plan = PortfolioPositionRowMapper.plan(columnNames, 0);
+            }
+
+            @Override
+            public void onRow(long rowIndex, ImportRow row) {
+                try {
+                    results.add(plan.map(row).getClientAdvisorIdFake());
+                } catch (RowRejectedException e) {
+                    results.add(e);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Header of the export layout and three data rows: a filled row, a row with only its first and last
+     * cell and, after a missing row, a row with a number stored as text.
+     */
+    private Path write(Workbook workbook, String name) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (workbook; OutputStream output = Files.newOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+            Sheet sheet = workbook.createSheet("Portfolio Positions");
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADER.size(); i++) {
+                header.createCell(i).setCellValue(HEADER.get(i));
+            }
+
+            Row filled = sheet.createRow(1);
+            filled.createCell(column("Partner ID Fake")).setCellValue("P-1");
+            filled.createCell(column("Account ID Fake")).setCellValue("A-1");
+            date(filled, column("Position Created Date"), CREATED, dateStyle);
+            filled.createCell(column("Value Amount")).setCellValue(1234.5);
+            filled.createCell(column("Balance Amount")).setCellValue(100);
+            date(filled, column("Valuation Date"), VALUED, dateStyle);
+            filled.createCell(column("Value Currency")).setCellValue("CHF");
+            filled.createCell(column("Valor")).setCellValue(1203204);
+            filled.createCell(column("ISIN")).setCellValue("CH0012032048");
+            filled.createCell(column("Asset Class Description Short")).setCellValue("Equities");
+            filled.createCell(column("Client Advisor ID Fake")).setCellValue(42);
+
+            Row sparse = sheet.createRow(2);
+            sparse.createCell(column("Partner ID Fake")).setCellValue("P-2");
+            sparse.createCell(column("Client Advisor ID Fake")).setCellValue(7);
+
+            // Row 3 does not exist in the sheet
+            Row last = sheet.createRow(4);
+            last.createCell(column("Partner ID Fake")).setCellValue("P-4");
+            last.createCell(column("Value Amount")).setCellValue("-3.25");
+            last.createCell(column("Value Currency")).setCellValue("EUR");
+
+            workbook.write(output);
+        }
+        return file;
+    }
+
+    private static void date(Row row, int column, LocalDateTime value, CellStyle style) {
+        row.createCell(column).setCellValue(value);
+        row.getCell(column).setCellStyle(style);
+    }
+
+    private static int column(String name) {
+        return HEADER.indexOf(name);
+    }
+
+    private static String sheetXml(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile());
+             InputStream sheet = zip.getInputStream(zip.getEntry("xl/worksheets/sheet1.xml"))) {
+            return new String(sheet.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static ReadRows readStreaming(Path file, long firstRowIndex) throws IOException {
+        ReadRows rows = new ReadRows();
+        new XlsxStreamingRowSource(file.toFile()).read(rows, firstRowIndex);
+        return rows;
+    }
+
+    private static ReadRows readWorkbook(Path file, long firstRowIndex) throws IOException {
+        ReadRows rows = new ReadRows();
+        try (InputStream input = Files.newInputStream(file)) {
+            new XlsxWorkbookRowSource(input).read(rows, firstRowIndex);
+        }
+        return rows;
+    }
+
+    /**
+     * Same header, row indexes and field values; decimals are compared by value, the workbook reader
+     * formats whole numbers with a fraction digit.
+     */
+    private static void assertSamePositions(ReadRows expected, ReadRows actual) {
+        assertEquals(expected.header, actual.header);
+        assertEquals(expected.rowIndexes, actual.rowIndexes);
+        assertThat(actual.positions)
+                .usingRecursiveFieldByFieldElementComparator(RecursiveComparisonConfiguration.builder()
+                        .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                        .build())
+                .containsExactlyElementsOf(expected.positions);
+    }
+
+    /**
+     * Maps the rows of a source with the mapping plan of its header, like the import does.
+     */
+    private static class ReadRows implements RowHandler {
+        private List<String> header = List.of();
+        private ColumnMappingPlan<PortfolioPosition> plan;
+        private final List<Long> rowIndexes = new ArrayList<>();
+        private final List<PortfolioPosition> positions = new ArrayList<>();
+
+        @Override
+        public void onHeader(List<String> columnNames) {
+            header = columnNames;
+            plan = PortfolioPositionRowMapper.plan(columnNames, 0, false);
+        }
+
+        @Override
+        public void onRow(long rowIndex, ImportRow row) {
+            rowIndexes.add(rowIndex);
+            positions.add(plan.map(row));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ubs.hackathon.financialpeace.service.snapshot;
+
+import com.ubs.hackathon.financialpeace.model.PortfolioPositionColumn;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip tests for the binary position snapshot format.
+ */
+class PositionSnapshotTest {
+
+    private static final PortfolioPositionColumn[] COLUMNS = PortfolioPositionColumn.values();
+
+    private static final int ROW_COUNT = SnapshotFormat.ROW_GROUP_SIZE * 2 + 123;
+
+    private static final Instant CREATED_AT = Instant.parse("2025-09-30T12:00:00Z");
+
+    @Test
+    void readInto_ShouldReturnWrittenRowsAcrossRowGroups() throws IOException {
+        byte[] snapshot = write(ROW_COUNT);
+
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        try (PositionSnapshotReader reader = new PositionSnapshotReader(new ByteArrayInputStream(snapshot))) {
+            assertEquals(CREATED_AT, reader.getCreatedAt());
+            assertEquals(COLUMNS.length, reader.getColumnNames().size());
+            assertEquals(ROW_COUNT, reader.readInto((id, values) -> {
+                ids.add(id);
+                rows.add(values.clone());
+            }));
+        }
+
+        assertEquals(ROW_COUNT, rows.size());
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertEquals(id(i), ids.get(i));
+            assertArrayEquals(row(i), rows.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    void readInto_ShouldShareRepeatedStrings() throws IOException {
+        List<String> currencies = new ArrayList<>();
+        try (PositionSnapshotReader reader = new PositionSnapshotReader(new ByteArrayInputStream(write(100)))) {
+            reader.readInto((id, values) -> currencies.add((String) values[PortfolioPositionColumn.SOURCE_CURRENCY.ordinal()]));
+        }
+
+        assertSame(currencies.get(0), currencies.get(3));
+    }
+
+    @Test
+    void write_ShouldBeSmallerThanTextRows() throws IOException {
+        long textSize = 0;
+        for (int i = 0; i < ROW_COUNT; i++) {
+            textSize += Arrays.toString(row(i)).length();
+        }
+
+        assertTrue(write(ROW_COUNT).length * 10L < textSize);
+    }
+
+    @Test
+    void reader_WhenNotASnapshot_ShouldFail() {
+        IOException exception = assertThrows(IOException.class,
+                () -> new PositionSnapshotReader(new ByteArrayInputStream("id,isin\n1,CH0012032048\n".getBytes())));
+
+        assertEquals("Not a position snapshot", exception.getMessage());
+    }
+
+    @Test
+    void reader_WhenVersionUnknown_ShouldFail() throws IOException {
+        byte[] snapshot = write(10);
+        snapshot[SnapshotFormat.MAGIC.length + 3] = 99;
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new PositionSnapshotReader(new ByteArrayInputStream(snapshot)));
+
+        assertEquals("Unsupported snapshot version 99, expected 1", exception.getMessage());
+    }
+
+    @Test
+    void readInto_WhenTruncated_ShouldFail() throws IOException {
+        byte[] snapshot = write(ROW_COUNT);
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length / 2);
+
+        assertThrows(IOException.class, () -> {
+            try (PositionSnapshotReader reader = new PositionSnapshotReader(new ByteArrayInputStream(truncated))) {
+                reader.readInto((id, values) -> { });
+            }
+        });
+    }
+
+    private static byte[] write(int rowCount) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PositionSnapshotWriter writer = new PositionSnapshotWriter(out, CREATED_AT)) {
+            Object[] values = new Object[COLUMNS.length];
+            for (int i = 0; i < rowCount; i++) {
+                System.arraycopy(row(i), 0, values, 0, values.length);
+                writer.onRow(id(i), values);
+            }
+            assertEquals(rowCount, writer.getRowCount());
+        }
+        return out.toByteArray();
+    }
+
+    private static long id(int row) {
+        return row % 7 == 0 ? 1_000_000L + row : row + 1;
+    }
+
+    /**
+     * Deterministic row covering nulls, repeated and unique strings, big and negative scale decimals,
+     * timestamps with nanos and negative integers.
+     */
+    private static Object[] row(int i) {
+        Object[] values = new Object[COLUMNS.length];
+        for (PortfolioPositionColumn column : COLUMNS) {
+            int c = column.ordinal();
+            if ((i + c) % 11 == 0) {
+                continue;
+            }
+            values[c] = switch (column.getType()) {
+                case STRING -> switch (c % 3) {
+                    case 0 -> "ACC-" + i;
+                    case 1 -> new String[]{"CHF", "EUR", "USD"}[i % 3];
+                    default -> "Z\u00fcrich Bahnhofstrasse\t" + (i % 50);
+                };
+                case DECIMAL -> switch (i % 4) {
+                    case 0 -> new BigDecimal("12345.678901").multiply(BigDecimal.valueOf(i));
+                    case 1 -> new BigDecimal("-0.5");
+                    case 2 -> new BigDecimal("1E+3");
+                    default -> new BigDecimal("123456789012345678901234567890.12").negate();
+                };
+                case DATE_TIME -> i % 5 == 0
+                        ? LocalDateTime.of(2025, 1, 1, 0, 0).plusDays(i % 30).plusNanos(i)
+                        : LocalDateTime.of(1999, 12, 31, 23, 59, 59);
+                case INTEGER -> i % 2 == 0 ? i : -i;
+            };
+        }
+        return values;
+    }
+}
@@ -129,12 +129,28 @@ export interface ApiResponse<T> {
 export interface ImportResponse {
   success: boolean;
   message: string;
-  importedCount: number;
-  existingCountBefore: number;
-  totalCountAfter: number;
+  jobId: string;
+  status: ImportJobStatus;
+  statusUrl: string;
   clearedExisting: boolean;
 }
 
+export type ImportJobStatus = 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED' | 'CANCELLED' | 'DUPLICATE';
+
+export interface ImportJob {
+  jobId: string;
+  status: ImportJobStatus;
+  rowsRead: number;
+  rowsParsed: number;
+  rowsWritten: number;
+  rowsSkipped: number;
+  rowsPerSecond?: number;
+  existingCountBefore?: number;
+  totalCountAfter?: number;
+  clearedExisting: boolean;
+  error?: string;
+}
+
 export interface PagedResponse<T> {
   content: T[];
   pageable: {
@@ -9,6 +9,7 @@ import {
   PortfolioSummary,
   DatabaseStats,
   ImportResponse,
+  ImportJob,
   PagedResponse,
   ApiResponse
 } from '../models/portfolio.models';
@@ -298,6 +299,30 @@ export class PortfolioService {
       );
   }
 
+  /**
+   * Get the progress of a running or finished import job
+   * @param jobId - Id returned when the import was started
+   * @returns Observable<ImportJob>
+   */
+  getImportJob(jobId: string): Observable<ImportJob> {
+    return this.http.get<ImportJob>(`${this.baseUrl}/import/${jobId}`)
+      .pipe(
+        catchError(this.handleError)
+      );
+  }
+
+  /**
+   * Cancel an import job, batches already written are kept
+   * @param jobId - Id returned when the import was started
+   * @returns Observable<ImportJob>
+   */
+  cancelImportJob(jobId: string): Observable<ImportJob> {
+    return this.http.post<ImportJob>(`${this.baseUrl}/import/${jobId}/cancel`, {})
+      .pipe(
+        catchError(this.handleError)
+      );
+  }
+
   /**
    * Clear all portfolio positions (use with caution!)
    * @returns Observable<ApiResponse<any>>